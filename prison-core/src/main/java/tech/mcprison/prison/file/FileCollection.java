@@ -1,9 +1,22 @@
 package tech.mcprison.prison.file;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.google.gson.TypeAdapter;
 
 import tech.mcprison.prison.output.Output;
 import tech.mcprison.prison.store.Collection;
@@ -14,18 +27,124 @@ import tech.mcprison.prison.store.Document;
  * be live against the file system to keep this simple, improve performance, and to 
  * reduce the amount of memory used.
  * </p>
+ * 
+ * <p>When there are many documents, such as the players, <code>getAll()</code> reads
+ * and parses the files on a small pool of threads, so the reads from the disk overlap
+ * with the parsing of the JSON.  The documents are always returned in the order of
+ * their file names, no matter which thread loaded them.
+ * </p>
+ * 
+ * <p>A collection with a very large number of files, such as the players, may be
+ * sharded: each file is placed in a two level sub directory, such as 
+ * <code>3f/a2/player_123.json</code>, based upon a hash of its name.  This keeps each
+ * directory small, so creating and finding a file stays fast.  Since the directory
+ * is worked out from the name, get, save and delete still only touch the one file.
+ * A collection is sharded when it is loaded with at least {@link #getShardThreshold()}
+ * files, and the existing files are moved in to their sub directories at that time.
+ * </p>
  */
 public class FileCollection 
 	extends JsonFileIO
 	implements Collection 
 {
+	/**
+	 * Collections with fewer files than this are always loaded on the calling thread,
+	 * since starting the threads would take longer than reading the files.
+	 */
+	public static final int PARALLEL_LOAD_MIN_FILES = 32;
+	
+	public static final int MAX_LOAD_THREADS = 8;
+	
+	private static volatile int loadThreads = 0;
+	
+	/**
+	 * The file that marks a collection as sharded.
+	 */
+	public static final String SHARDED_MARKER_FILE = ".sharded";
+	
+	private static volatile int shardThreshold = 0;
+	
     private File collDir;
+    private boolean sharded;
     
     public FileCollection(File collDir) {
     	// This may be within a module. If so then pass these values...
     	super(null, null);
     	
         this.collDir = collDir;
+        this.sharded = new File( collDir, SHARDED_MARKER_FILE ).exists();
+        
+        if ( !sharded && shardThreshold > 0 ) {
+        	String[] flatFiles = collDir.list( (dir, name) -> name.endsWith(".json") );
+        	
+        	if ( flatFiles != null && flatFiles.length >= shardThreshold ) {
+        		this.sharded = createShardedMarker();
+        	}
+        }
+        
+        if ( sharded ) {
+        	moveFlatFilesToShards();
+        }
+    }
+    
+    /**
+     * <p>The marker is created before any files are moved, so if the server stops part
+     * way through, the rest of the files are moved the next time the collection is loaded.
+     * Until then, the files that have not been moved are still found.
+     * </p>
+     */
+    private boolean createShardedMarker() {
+    	boolean results = false;
+    	
+    	try {
+    		Files.createFile( new File( collDir, SHARDED_MARKER_FILE ).toPath() );
+    		results = true;
+    	}
+    	catch ( IOException e ) {
+    		Output.get().logError( "FileCollection: Unable to shard " + collDir.getAbsolutePath(), e );
+    	}
+    	
+    	return results;
+    }
+    
+    private void moveFlatFilesToShards() {
+    	File[] flatFiles = collDir.listFiles( (dir, name) -> name.endsWith(".json") );
+    	
+    	if ( flatFiles != null && flatFiles.length > 0 ) {
+    		long start = System.currentTimeMillis();
+    		int moved = 0;
+    		int stale = 0;
+    		
+    		for ( File flatFile : flatFiles ) {
+    			if ( isDeleted( flatFile ) ) {
+    				continue;
+    			}
+    			
+    			File shardFile = getFile( getKey( flatFile ) );
+    			
+    			try {
+    				if ( shardFile.exists() ) {
+    					// The sharded file was saved after this one, so this one is out of 
+    					// date, and must not replace it:
+    					Files.delete( flatFile.toPath() );
+    					stale++;
+    				}
+    				else {
+    					Files.createDirectories( shardFile.getParentFile().toPath() );
+    					Files.move( flatFile.toPath(), shardFile.toPath(), StandardCopyOption.ATOMIC_MOVE );
+    					moved++;
+    				}
+    			}
+    			catch ( IOException e ) {
+    				Output.get().logError( "FileCollection: Unable to move " + 
+    							flatFile.getAbsolutePath() + " to " + shardFile.getAbsolutePath(), e );
+    			}
+    		}
+    		
+    		Output.get().logInfo( String.format( "FileCollection: Moved %d files in to the sharded " +
+    				"directories of %s, and removed %d out of date files, in %d ms.", moved, 
+    				collDir.getAbsolutePath(), stale, System.currentTimeMillis() - start ) );
+    	}
     }
     
     /**
@@ -39,49 +158,289 @@ public class FileCollection
     }
 
     /**
-     * <p>Refresh is a function that will clear the databaseMap collection if it contains anything,
-     * then load all possible FileDatabase objects, ignoring those that been virtually deleted.
+     * <p>Sets how many threads <code>getAll()</code> may use to load the files.  A
+     * value of 1 loads them one at a time on the calling thread, and a value of 0 
+     * uses one thread for each processor, up to {@link #MAX_LOAD_THREADS}.
      * </p>
      * 
-     *  <p>It will print an info message to the system console listing all of the FileDatabase
-     *  directories that have been logically/virtually deleted.
-     *  </p>
+     * @param threads
      */
-    @Override
-    public List<Document> getAll() {
-    	List<Document> allDocs = new ArrayList<>();
+    public static void setLoadThreads( int threads ) {
+    	loadThreads = Math.max( 0, threads );
+    }
+    
+    /**
+     * <p>Sets how many files a collection must have, when it is loaded, to be sharded.
+     * A value of 0 never shards any more collections.  Collections that have already
+     * been sharded always stay sharded.
+     * </p>
+     * 
+     * @param threshold
+     */
+    public static void setShardThreshold( int threshold ) {
+    	shardThreshold = Math.max( 0, threshold );
+    }
+    
+    public static int getShardThreshold() {
+    	return shardThreshold;
+    }
+    
+    public boolean isSharded() {
+    	return sharded;
+    }
+    
+    /**
+     * <p>The sub directories are the two lowest bytes of the mixed hash of the name, 
+     * so the files are spread evenly over 65,536 directories.
+     * </p>
+     * 
+     * @param key
+     * @return The sub directory path of the key, such as <code>3f/a2</code>.
+     */
+    public static String getShardPath( String key ) {
+    	int hash = key.hashCode();
+    	hash ^= (hash >>> 16);
+    	hash *= 0x45d9f3b;
+    	hash ^= (hash >>> 16);
     	
-    	// Each folder in the root directory is its own database.
-    	// We'll initialize each of them here.
-    	File[] collectionFiles = this.collDir.listFiles((dir, name) -> name.endsWith(".json"));
+    	return String.format( "%02x%s%02x", (hash >>> 8) & 0xff, File.separator, hash & 0xff );
+    }
+    
+    /**
+     * @param key
+     * @return The file for the key, in the sharded sub directory if this collection is sharded.
+     */
+    File getFile( String key ) {
+    	String filename = key + ".json";
+    	
+    	return sharded ? 
+    			new File( new File( collDir, getShardPath( key ) ), filename ) : 
+    			new File( collDir, filename );
+    }
+    
+    private String getKey( File dbFile ) {
+    	String name = dbFile.getName();
+    	return name.substring( 0, name.length() - ".json".length() );
+    }
+    
+    /**
+     * <p>Lists all of the document files, in the order of their names, without the
+     * files that have been logically deleted.  When sharded, this includes any files 
+     * that have not been moved yet, unless there is also a sharded file for the same
+     * key, since the sharded file is always the newer one.
+     * </p>
+     */
+    private List<File> listFiles() {
+    	List<File> files = new ArrayList<>();
+    	
+    	addFiles( collDir, files );
+    	
+    	if ( sharded ) {
+    		files.removeIf( flatFile -> getFile( getKey( flatFile ) ).exists() );
+    		
+    		File[] shards = collDir.listFiles( this::isShardDirectory );
+    		if ( shards != null ) {
+    			for ( File shard : shards ) {
+    				File[] subShards = shard.listFiles( this::isShardDirectory );
+    				if ( subShards != null ) {
+    					for ( File subShard : subShards ) {
+    						addFiles( subShard, files );
+    					}
+    				}
+    			}
+    		}
+    	}
+    	
+    	files.sort( Comparator.comparing( File::getName ) );
+    	
+    	return files;
+    }
+    
+    private boolean isShardDirectory( File dir ) {
+    	return dir.getName().length() == 2 && dir.isDirectory();
+    }
+    
+    private void addFiles( File dir, List<File> files ) {
+    	File[] collectionFiles = dir.listFiles((d, name) -> name.endsWith(".json"));
     	if (collectionFiles != null) {
     		for (File dbFile : collectionFiles) {
     			if ( isDeleted( dbFile ) ) {
-    				String message = "FileCollection.getAll skipping logically deleted FileDocument: " + 
-    							dbFile.getAbsolutePath();
+    				String message = "FileCollection skipping logically deleted FileDocument: " + 
+    						dbFile.getAbsolutePath();
     				Output.get().logInfo( message );
     			} else {
-    				Document doc = (Document) readJsonFile(dbFile, new Document());
-    				if ( doc != null )
-    				{
-    					allDocs.add( doc );
-    				}
+    				files.add( dbFile );
     			}
     		}
     	}
+    }
+    
+    public static int getLoadThreads() {
+    	int threads = loadThreads;
+    	
+    	return threads > 0 ? threads : 
+    			Math.min( MAX_LOAD_THREADS, Runtime.getRuntime().availableProcessors() );
+    }
+    
+    /**
+     * <p>Loads all of the documents in the collection, skipping the files that have been
+     * logically deleted.  The documents are in the order of their file names.
+     * </p>
+     */
+    @Override
+    public List<Document> getAll() {
+    	return loadAll( dbFile -> (Document) readJsonFile(dbFile, new Document()) );
+    }
+    
+    /**
+     * <p>Loads all of the objects in the collection, in the same way as <code>getAll()</code>,
+     * but each file is streamed straight in to its object by the adapter.
+     * </p>
+     */
+    @Override
+    public <T> List<T> getAll( TypeAdapter<T> adapter ) {
+    	return loadAll( dbFile -> readJsonFile( dbFile, adapter ) );
+    }
+    
+    private <T> List<T> loadAll( Function<File, T> loader ) {
+    	List<File> files = listFiles();
+    	
+    	int threads = Math.min( getLoadThreads(), files.size() / PARALLEL_LOAD_MIN_FILES + 1 );
+    	
+    	return files.size() < PARALLEL_LOAD_MIN_FILES || threads <= 1 ? 
+    			loadFiles( files, loader ) : loadFiles( files, loader, threads );
+    }
+    
+    private <T> List<T> loadFiles( List<File> files, Function<File, T> loader ) {
+    	List<T> allDocs = new ArrayList<>();
+    	
+    	for ( File dbFile : files ) {
+    		T doc = loader.apply( dbFile );
+    		if ( doc != null )
+    		{
+    			allDocs.add( doc );
+    		}
+    	}
     	
     	return allDocs;
     }
     
+    /**
+     * <p>Each file is read and parsed by one of the threads.  The results are collected 
+     * in the same order as the files, so the order does not depend upon which file 
+     * finished first.  If the loading is interrupted, then it fails instead of 
+     * returning only some of the documents.
+     * </p>
+     */
+    private <T> List<T> loadFiles( List<File> files, Function<File, T> loader, int threads ) {
+    	List<T> allDocs = new ArrayList<>();
+    	
+    	AtomicInteger threadCount = new AtomicInteger();
+    	ExecutorService pool = Executors.newFixedThreadPool( threads, runnable -> {
+    		Thread thread = new Thread( runnable, 
+    				"Prison-load-" + getName() + "-" + threadCount.incrementAndGet() );
+    		thread.setDaemon( true );
+    		return thread;
+    	});
+    	
+    	try {
+    		List<Future<T>> futures = new ArrayList<>( files.size() );
+    		for ( File dbFile : files ) {
+    			futures.add( pool.submit( () -> loader.apply( dbFile ) ) );
+    		}
+    		
+    		for ( Future<T> future : futures ) {
+    			T doc = future.get();
+    			if ( doc != null )
+    			{
+    				allDocs.add( doc );
+    			}
+    		}
+    	}
+    	catch ( InterruptedException e ) {
+    		// A partial list would look like the missing documents do not exist:
+    		Thread.currentThread().interrupt();
+    		throw new IllegalStateException( "Interrupted while loading the " + getName() + 
+    				" collection.", e );
+    	}
+    	catch ( ExecutionException e ) {
+    		// Fail the same way as if the file was loaded on this thread:
+    		if ( e.getCause() instanceof RuntimeException ) {
+    			throw (RuntimeException) e.getCause();
+    		}
+    		throw new IllegalStateException( e.getCause() );
+    	}
+    	finally {
+    		pool.shutdownNow();
+    	}
+    	
+    	return allDocs;
+    }
+    
+
+    @Override
+    public List<String> getKeys() {
+    	List<String> keys = new ArrayList<>();
+    	
+    	for ( File dbFile : listFiles() ) {
+    		keys.add( getKey( dbFile ) );
+    	}
+    	
+    	return keys;
+    }
+
+    /**
+     * @param key
+     * @return True if there is a file for the key.
+     */
+    public boolean contains(String key) {
+    	return getFile( key ).exists() || 
+    			sharded && new File(collDir, key + ".json").exists();
+    }
+    
+    public File getDirectory() {
+    	return collDir;
+    }
+
+    /**
+     * @param key
+     * @return The file for the key.  When sharded, this is the flat file if it has not 
+     * 			been moved yet.
+     */
+    private File findFile(String key) {
+    	File dbFile = getFile( key );
+    	
+    	if ( sharded && !dbFile.exists() ) {
+    		// It may not have been moved yet:
+    		File flatFile = new File(collDir, key + ".json");
+    		if ( flatFile.exists() ) {
+    			dbFile = flatFile;
+    		}
+    	}
+    	
+    	return dbFile;
+    }
 
     @Override 
     public Optional<Document> get(String key) {
-    	File dbFile = new File(collDir, key + ".json");
-    	Document doc = (Document) readJsonFile(dbFile, new Document());
+    	Document doc = (Document) readJsonFile(findFile( key ), new Document());
     	
         return Optional.ofNullable(doc);
     }
     
+    /**
+     * <p>Unlike <code>get(key)</code>, a file that does not exist is not an error, 
+     * and results in an empty optional.
+     * </p>
+     */
+    @Override 
+    public <T> Optional<T> get(String key, TypeAdapter<T> adapter) {
+    	File dbFile = findFile( key );
+    	
+    	return dbFile.exists() ? 
+    			Optional.ofNullable( readJsonFile( dbFile, adapter ) ) : Optional.empty();
+    }
+    
     @Override 
     public void save(Document document)
     {
@@ -91,15 +450,54 @@ public class FileCollection
     @Override 
     public void save(String filename, Document document)
     {
-    	File dbFile = new File(collDir, filename + ".json");
-    	saveJsonFile( dbFile, document );
+    	write( filename, document );
+    }
+    
+    /**
+     * @param filename
+     * @param document
+     * @return True if the file was saved.  A failure has already been logged.
+     */
+    boolean write(String filename, Document document)
+    {
+    	File dbFile = getFile( filename );
+    	
+    	if ( sharded ) {
+    		dbFile.getParentFile().mkdirs();
+    	}
+    	
+    	return saveJsonFile( dbFile, document );
+    }
+    
+    @Override 
+    public <T> void save(String filename, T value, TypeAdapter<T> adapter)
+    {
+    	File dbFile = getFile( filename );
+    	
+    	if ( sharded ) {
+    		dbFile.getParentFile().mkdirs();
+    	}
+    	
+    	saveJsonFile( dbFile, value, adapter );
+    }
+    
+    /**
+     * <p>Each file is written on its own, the same as <code>saveAll(documents)</code>,
+     * but straight from the objects.
+     * </p>
+     */
+    @Override 
+    public <T> void saveAll(Map<String, T> values, TypeAdapter<T> adapter)
+    {
+    	for ( Map.Entry<String, T> entry : values.entrySet() ) {
+    		save( entry.getKey(), entry.getValue(), adapter );
+    	}
     }
     
     @Override 
     public boolean delete(String name)
     {
-    	File dbFile = new File(collDir, name + ".json");
-    	return virtualDelete( dbFile );
+    	return virtualDelete( findFile( name ) );
     }
 
 }
@@ -47,13 +47,23 @@ public class FileDatabase
     						collDir.getAbsolutePath();
     				Output.get().logInfo( message );
     			} else {
-    				collectionMap.put(collDir.getName(), new FileCollection(collDir));
+    				collectionMap.put(collDir.getName(), newCollection(collDir));
     			}
     		}
     	}
     	
     }
 
+    /**
+     * <p>Uses a journal for the collection's changes if the journal is enabled.
+     * </p>
+     */
+    private Collection newCollection(File collDir) {
+    	FileCollection fileCollection = new FileCollection(collDir);
+    	
+    	return JournalCollection.isEnabled() ? new JournalCollection(fileCollection) : fileCollection;
+    }
+
     /**
      * If the collection does not exist, then create it.
      * 
@@ -93,7 +103,7 @@ public class FileDatabase
         File collDir = new File(dbDir, name);
         if (!collDir.exists()) {
         	results = collDir.mkdir();
-        	collectionMap.put(name, new FileCollection(collDir));
+        	collectionMap.put(name, newCollection(collDir));
         } else {
         	String message = "The attempt to create a new FileCollection named " + name + 
         			" failed because a directory on the file system already exists by that name.";
@@ -1,10 +1,26 @@
 package tech.mcprison.prison.file;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import tech.mcprison.prison.error.Error;
 import tech.mcprison.prison.error.ErrorManager;
@@ -14,8 +30,68 @@ import tech.mcprison.prison.output.Output;
 public abstract class FileIO
 	extends FileVirtualDelete
 {
+	/**
+	 * <p>When the saved files are forced to the disk with fsync.  Without an fsync, the
+	 * operating system may hold a saved file in memory for a while, and it could be
+	 * lost if the power fails.
+	 * </p>
+	 */
+	public enum SyncPolicy {
+		/**
+		 * Never fsync.  The operating system writes the files when it wants to.
+		 */
+		NONE,
 
-	private final SimpleDateFormat sdf;
+		/**
+		 * Fsync each file before it replaces the original.  This is the safest,
+		 * but every save waits on the disk.
+		 */
+		ALWAYS,
+
+		/**
+		 * The saved files are forced to the disk together, on a background thread,
+		 * every {@link FileIO#SYNC_BATCH_INTERVAL_MS}.  At most that much is at risk.
+		 */
+		BATCHED;
+
+		public static SyncPolicy fromString( String policy ) {
+			SyncPolicy results = NONE;
+
+			for ( SyncPolicy sp : values() ) {
+				if ( sp.name().equalsIgnoreCase( policy ) ) {
+					results = sp;
+					break;
+				}
+			}
+
+			return results;
+		}
+	}
+
+	public static final long SYNC_BATCH_INTERVAL_MS = 1000;
+
+	private static volatile SyncPolicy syncPolicy = SyncPolicy.NONE;
+
+	private static final AtomicLong tempFileCounter = new AtomicLong();
+
+	private static final Set<Path> pendingSyncs = new LinkedHashSet<>();
+	private static ScheduledExecutorService syncer;
+
+	/**
+	 * <p>Writes the contents of a file.
+	 * </p>
+	 */
+	public interface FileWriterTask {
+		public void write( Writer writer ) throws IOException;
+	}
+
+	/**
+	 * <p>Reads the contents of a file.
+	 * </p>
+	 */
+	public interface FileReaderTask<T> {
+		public T read( Reader reader ) throws IOException;
+	}
 	
 	private final ErrorManager errorManager;
 	private final ModuleStatus status;
@@ -31,36 +107,250 @@ public abstract class FileIO
 	
 		this.errorManager = errorManager;
 		this.status = status;
-
-		this.sdf = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss");
 	}
 
+	/**
+	 * <p>Sets when the saved files are forced to the disk.  When switching away from
+	 * batched, any files that are waiting are forced right away.
+	 * </p>
+	 *
+	 * @param policy
+	 */
+	public static void setSyncPolicy( SyncPolicy policy )
+	{
+		synchronized ( pendingSyncs )
+		{
+			syncPolicy = policy == null ? SyncPolicy.NONE : policy;
 	
+			if ( syncPolicy == SyncPolicy.BATCHED && syncer == null )
+			{
+				syncer = Executors.newSingleThreadScheduledExecutor( runnable -> {
+					Thread thread = new Thread( runnable, "Prison-fsync" );
+					thread.setDaemon( true );
+					return thread;
+				});
+				syncer.scheduleWithFixedDelay( FileIO::syncPending,
+						SYNC_BATCH_INTERVAL_MS, SYNC_BATCH_INTERVAL_MS, TimeUnit.MILLISECONDS );
+			}
+			else if ( syncPolicy != SyncPolicy.BATCHED && syncer != null )
+			{
+				syncer.shutdown();
+				syncer = null;
+			}
+		}
+
+		if ( syncPolicy != SyncPolicy.BATCHED )
+		{
+			syncPending();
+		}
+	}
+
+	public static SyncPolicy getSyncPolicy()
+	{
+		return syncPolicy;
+	}
+
+	/**
+	 * <p>Forces all of the files that have been saved since the last batch on to
+	 * the disk.  This should also be called when the plugin is disabled.
+	 * </p>
+	 */
+	public static void syncPending()
+	{
+		Set<Path> paths;
+
+		synchronized ( pendingSyncs )
+		{
+			if ( pendingSyncs.isEmpty() )
+			{
+				return;
+			}
+
+			paths = new LinkedHashSet<>( pendingSyncs );
+			pendingSyncs.clear();
+		}
+
+		Set<Path> directories = new LinkedHashSet<>();
+		for ( Path path : paths )
+		{
+			// The file may have been replaced again, or deleted, since it was saved:
+			if ( Files.exists( path ) )
+			{
+				force( path );
+			}
+			directories.add( path.getParent() );
+		}
+
+		for ( Path directory : directories )
+		{
+			force( directory );
+		}
+	}
+
+	/**
+	 * <p>Forces the file or directory on to the disk.  Forcing the directory makes
+	 * sure the rename is saved too.  Some systems, such as Windows, cannot open a
+	 * directory, so that is ignored.
+	 * </p>
+	 *
+	 * @return False if the file could not be forced on to the disk.
+	 */
+	static boolean force( Path path )
+	{
+		if ( path == null )
+		{
+			return true;
+		}
+
+		FileChannel channel;
+		try
+		{
+			channel = FileChannel.open( path, StandardOpenOption.READ );
+		}
+		catch ( IOException e )
+		{
+			return Files.isDirectory( path );
+		}
+
+		try ( FileChannel forced = channel )
+		{
+			forced.force( true );
+			return true;
+		}
+		catch ( IOException e )
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * <p>Saves the data to the file.  See {@link #saveFile(File, FileWriterTask)}.
+	 * </p>
+	 */
 	protected void saveFile( File file, String data ) 
 	{
-		if ( file != null && data != null )
+		if ( data != null )
+		{
+			saveFile( file, writer -> writer.write( data ) );
+		}
+	}
+
+	/**
+	 * <p>This function streams the contents in to a new temp file in the same directory,
+	 * then moves the temp file over the original file in one atomic step.  There is
+	 * never a time when the file does not exist: it is either the old contents or the
+	 * new contents.  If the writing fails, then the temp file is removed and the
+	 * original file is not changed.
+	 * </p>
+	 *
+	 * <p>The contents are written through a buffer straight in to the file's channel,
+	 * so the whole file never has to be held in memory.
+	 * </p>
+	 *
+	 * @param file
+	 * @param task Writes the contents.
+	 * @return True if the file was saved.  A failure has already been logged.
+	 */
+	protected boolean saveFile( File file, FileWriterTask task )
+	{
+		boolean results = false;
+
+		if ( file != null && task != null )
 		{
-			String tempFileName = file.getName() + "." + getTimestampFormat() + ".tmp";
-			File tempFile = new File(file.getParentFile(), tempFileName);
+			Path target = file.toPath();
+			Path tempFile = null;
 			
 			try
 			{
-				// Write as a .tmp file:
-				Files.write( tempFile.toPath(), data.getBytes() );
+				// Not Files.createTempFile, since that makes the file readable by only
+				// the owner, and the saved file would keep those permissions:
+				Path newFile = getTempFile( target );
 				
-				// If original target exists, then delete it:
-				if ( file.exists() )
+				try ( FileChannel channel = FileChannel.open( newFile,
+									StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW ) )
 				{
-					file.delete();
+					tempFile = newFile;
+					
+					Writer writer = new BufferedWriter(
+							Channels.newWriter( channel, Charset.defaultCharset().newEncoder(), -1 ) );
+
+					task.write( writer );
+					writer.flush();
+
+					if ( syncPolicy == SyncPolicy.ALWAYS )
+					{
+						channel.force( true );
+					}
 				}
 				
-				tempFile.renameTo( file );
+				moveAtomic( tempFile, target );
+				tempFile = null;
+				results = true;
+
+				if ( syncPolicy == SyncPolicy.ALWAYS )
+				{
+					force( target.getParent() );
+				}
+				else if ( syncPolicy == SyncPolicy.BATCHED )
+				{
+					synchronized ( pendingSyncs )
+					{
+						pendingSyncs.add( target );
+					}
+				}
 			}
-			catch ( IOException e )
+			catch ( IOException | RuntimeException e )
 			{
 				logException( "Failed to create file", file, e );
 			}
-			
+			finally
+			{
+				if ( tempFile != null )
+				{
+					try
+					{
+						Files.deleteIfExists( tempFile );
+					}
+					catch ( IOException e )
+					{
+						// Ignore, since the original file was not changed:
+					}
+				}
+			}
+		}
+		
+		return results;
+	}
+
+	/**
+	 * <p>The temp file is named after the target, so it is clear which file it was
+	 * for if the server stops before it is moved.  The counter keeps the names unique
+	 * when the same file is saved by more than one thread at a time.
+	 * </p>
+	 */
+	private Path getTempFile( Path target )
+	{
+		return target.resolveSibling( target.getFileName() + "." + System.currentTimeMillis() + 
+								"-" + tempFileCounter.incrementAndGet() + ".tmp" );
+	}
+
+	/**
+	 * <p>Replaces the target with the source in one step.  If the file system cannot
+	 * do an atomic move, then it falls back to a plain replace, which is still never
+	 * without a file on most systems.
+	 * </p>
+	 */
+	private void moveAtomic( Path source, Path target )
+			throws IOException
+	{
+		try
+		{
+			Files.move( source, target, StandardCopyOption.ATOMIC_MOVE,
+										StandardCopyOption.REPLACE_EXISTING );
+		}
+		catch ( AtomicMoveNotSupportedException e )
+		{
+			Files.move( source, target, StandardCopyOption.REPLACE_EXISTING );
 		}
 	}
 
@@ -81,7 +371,36 @@ public abstract class FileIO
 		return results;
 	}
 
-	private void logException( String description, File file, IOException e )
+	/**
+	 * <p>Reads the file through a buffered reader, so the contents do not have to
+	 * be loaded in to memory before they are parsed.  Any bytes that are not valid
+	 * in the charset are replaced, the same as when the whole file was read in to
+	 * a String, so a file that was saved with another charset can still be read.
+	 * </p>
+	 *
+	 * @param file
+	 * @param task Reads the contents.
+	 * @param failed The value to return if the file could not be read.
+	 * @return The value from the task.
+	 */
+	protected <T> T readFile( File file, FileReaderTask<T> task, T failed )
+	{
+		T results = failed;
+
+		try ( BufferedReader reader = new BufferedReader( new InputStreamReader( 
+						Files.newInputStream( file.toPath() ), Charset.defaultCharset() ) ) )
+		{
+			results = task.read( reader );
+		}
+		catch ( IOException e )
+		{
+			logException( "Failed to load file", file, e );
+		}
+
+		return results;
+	}
+
+	private void logException( String description, File file, Exception e )
 	{
 		String message = description + " " + file.getAbsolutePath();
 		
@@ -101,11 +420,6 @@ public abstract class FileIO
 		}
 	}
 	
-	private String getTimestampFormat()
-	{
-		return sdf.format( new Date() );
-	}
-	
 	public ErrorManager getErrorManager()
 	{
 		return errorManager;
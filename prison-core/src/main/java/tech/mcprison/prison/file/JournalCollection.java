@@ -0,0 +1,680 @@
+package tech.mcprison.prison.file;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import tech.mcprison.prison.output.Output;
+import tech.mcprison.prison.store.Collection;
+import tech.mcprison.prison.store.Document;
+
+/**
+ * <p>Keeps the changes to a {@link FileCollection} in an append only journal, instead
+ * of saving the whole document for every change.  Each save only appends the fields
+ * that changed since the document was last saved, as one compact line, so the cost
+ * of a save depends upon the size of the change and not the size of the document.
+ * </p>
+ *
+ * <p>The saves are grouped: the records are written to the journal's segment file
+ * together, with one fsync, a short time after the first of them was saved.  Every
+ * so often, and when the segment gets large, the compactor saves the full documents
+ * that have changed to their normal files, and then removes the old segments.
+ * </p>
+ *
+ * <p>When the collection is loaded, any segments that are left over, such as from a
+ * crash, are replayed on top of the documents' files and then compacted, so the
+ * files are always up to date before anything reads them.  A record that was only
+ * partly written at the end of a segment is ignored.  Each record holds the new
+ * values of the fields, not how they changed, so replaying a record more than once
+ * has the same result.
+ * </p>
+ *
+ * <p>All of the journals share one background thread for their writes.
+ * </p>
+ *
+ */
+public class JournalCollection
+	implements Collection
+{
+	public static final String JOURNAL_DIRECTORY = ".journal";
+	public static final String SEGMENT_PREFIX = "segment_";
+	public static final String SEGMENT_SUFFIX = ".log";
+
+	/**
+	 * How long the first record waits for others to be written with it.
+	 */
+	public static final long GROUP_COMMIT_DELAY_MS = 20;
+
+	public static final long COMPACT_INTERVAL_MS = TimeUnit.MINUTES.toMillis( 5 );
+	public static final long COMPACT_SEGMENT_BYTES = 16L * 1024 * 1024;
+
+	public static final long CLOSE_TIMEOUT_MS = 30000;
+
+	private static final String RECORD_KEY = "k";
+	private static final String RECORD_PUT = "p";
+	private static final String RECORD_SET = "s";
+	private static final String RECORD_REMOVE = "r";
+	private static final String RECORD_DELETE = "d";
+
+	/**
+	 * Marks a document that has been deleted, but not compacted.
+	 */
+	private static final Document DELETED = new Document();
+
+	private static volatile boolean enabled = false;
+
+	private static final List<JournalCollection> journals = new ArrayList<>();
+	private static ScheduledExecutorService journalThread;
+
+	private final FileCollection snapshots;
+	private final File journalDir;
+	private final Gson gson;
+
+	/**
+	 * The documents that have changed since they were last compacted.
+	 */
+	private final Map<String, Document> changes;
+
+	private final List<String> pendingRecords;
+	private boolean commitScheduled = false;
+	private boolean closed = false;
+
+	/*
+	 * The segments are only used on the journal thread, after they are opened.
+	 */
+	private int firstSegment;
+	private int segmentNumber;
+	private FileChannel segment;
+	private long segmentBytes = 0;
+
+	private ScheduledFuture<?> compactTask;
+
+	/**
+	 * <p>Replays any segments that were left over and compacts them, then starts a new
+	 * segment.
+	 * </p>
+	 *
+	 * @param snapshots The collection that holds the full documents.
+	 */
+	public JournalCollection( FileCollection snapshots ) {
+		super();
+
+		this.snapshots = snapshots;
+		this.journalDir = new File( snapshots.getDirectory(), JOURNAL_DIRECTORY );
+		this.gson = new GsonBuilder().disableHtmlEscaping().create();
+
+		this.changes = new HashMap<>();
+		this.pendingRecords = new ArrayList<>();
+
+		this.journalDir.mkdirs();
+
+		TreeMap<Integer, File> segments = listSegments();
+		for ( File segmentFile : segments.values() ) {
+			replay( segmentFile );
+		}
+
+		this.firstSegment = segments.isEmpty() ? 1 : segments.firstKey();
+		this.segmentNumber = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+
+		try {
+			openSegment();
+		}
+		catch ( IOException e ) {
+			Output.get().logError( "JournalCollection: Unable to open the journal for " +
+					snapshots.getName() + ".  Changes will be saved to the files directly.", e );
+			this.closed = true;
+		}
+
+		if ( !segments.isEmpty() ) {
+			compact();
+		}
+
+		if ( !closed ) {
+			synchronized ( journals ) {
+				journals.add( this );
+			}
+
+			this.compactTask = getJournalThread().scheduleWithFixedDelay( this::compact,
+					COMPACT_INTERVAL_MS, COMPACT_INTERVAL_MS, TimeUnit.MILLISECONDS );
+		}
+	}
+
+	/**
+	 * <p>Sets whether the file collections that are loaded after this use a journal.
+	 * </p>
+	 *
+	 * @param journal
+	 */
+	public static void setEnabled( boolean journal ) {
+		enabled = journal;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	private static ScheduledExecutorService getJournalThread() {
+		synchronized ( journals ) {
+			if ( journalThread == null ) {
+				journalThread = Executors.newSingleThreadScheduledExecutor( runnable -> {
+					Thread thread = new Thread( runnable, "Prison-journal" );
+					thread.setDaemon( true );
+					return thread;
+				});
+			}
+			return journalThread;
+		}
+	}
+
+	/**
+	 * <p>Compacts and closes all of the journals, then stops the journal thread.  This
+	 * must be called when the plugin is disabled, after everything has been saved.
+	 * </p>
+	 */
+	public static void closeAll() {
+		List<JournalCollection> open;
+		ScheduledExecutorService executor;
+
+		synchronized ( journals ) {
+			open = new ArrayList<>( journals );
+			journals.clear();
+
+			executor = journalThread;
+		}
+
+		if ( executor == null ) {
+			return;
+		}
+
+		for ( JournalCollection journal : open ) {
+			try {
+				executor.submit( journal::close ).get( CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS );
+			}
+			catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+			}
+			catch ( ExecutionException | TimeoutException e ) {
+				Output.get().logError( "JournalCollection: Failed to close the journal for " +
+						journal.getName() + ".  It will be replayed when the server starts.", e );
+			}
+		}
+
+		// The journals are closed, so nothing else can be scheduled on the thread:
+		synchronized ( journals ) {
+			if ( journalThread == executor ) {
+				journalThread = null;
+			}
+		}
+		executor.shutdown();
+	}
+
+	@Override
+	public String getName() {
+		return snapshots.getName();
+	}
+
+	/**
+	 * <p>If nothing has changed since the last compaction, then this loads the files
+	 * directly, which may use several threads.
+	 * </p>
+	 */
+	@Override
+	public List<Document> getAll() {
+		synchronized ( this ) {
+			if ( changes.isEmpty() ) {
+				return snapshots.getAll();
+			}
+		}
+
+		List<Document> results = new ArrayList<>();
+		for ( String key : getKeys() ) {
+			get( key ).ifPresent( results::add );
+		}
+		return results;
+	}
+
+	@Override
+	public List<String> getKeys() {
+		Set<String> keys = new TreeSet<>( snapshots.getKeys() );
+
+		synchronized ( this ) {
+			for ( Map.Entry<String, Document> entry : changes.entrySet() ) {
+				if ( entry.getValue() == DELETED ) {
+					keys.remove( entry.getKey() );
+				}
+				else {
+					keys.add( entry.getKey() );
+				}
+			}
+		}
+
+		return new ArrayList<>( keys );
+	}
+
+	@Override
+	public Optional<Document> get( String key ) {
+		synchronized ( this ) {
+			Document changed = changes.get( key );
+
+			if ( changed == DELETED ) {
+				return Optional.empty();
+			}
+			else if ( changed != null ) {
+				return Optional.of( copy( changed ) );
+			}
+		}
+
+		return snapshots.get( key );
+	}
+
+	@Override
+	public void save( Document document ) {
+		save( (String) document.get( "name" ), document );
+	}
+
+	/**
+	 * <p>Appends the changed fields to the journal.  The document is copied, so the
+	 * caller may keep changing it.
+	 * </p>
+	 */
+	@Override
+	public synchronized void save( String key, Document document ) {
+		if ( closed ) {
+			snapshots.save( key, document );
+			return;
+		}
+
+		Document saved = copy( document );
+		String record = createRecord( key, getCurrent( key ), saved );
+
+		changes.put( key, saved );
+
+		if ( record != null ) {
+			addRecord( record );
+		}
+	}
+
+	@Override
+	public synchronized boolean delete( String key ) {
+		if ( closed ) {
+			return snapshots.delete( key );
+		}
+
+		boolean results = getCurrent( key ) != null;
+
+		if ( results ) {
+			Map<String, Object> record = new LinkedHashMap<>();
+			record.put( RECORD_KEY, key );
+			record.put( RECORD_DELETE, true );
+
+			changes.put( key, DELETED );
+			addRecord( gson.toJson( record ) );
+		}
+
+		return results;
+	}
+
+	/**
+	 * @return The current document, or null if there is none.
+	 */
+	private Document getCurrent( String key ) {
+		Document results = changes.get( key );
+
+		if ( results == null && snapshots.contains( key ) ) {
+			results = snapshots.get( key ).orElse( null );
+		}
+
+		return results == DELETED ? null : results;
+	}
+
+	private static Document copy( Document document ) {
+		Document results = new Document();
+		results.putAll( document );
+		return results;
+	}
+
+	/**
+	 * <p>Creates the record for the fields that are different from the previous
+	 * document.  If there is no previous document, then all of the fields are saved.
+	 * </p>
+	 *
+	 * @return The record, or null if nothing changed.
+	 */
+	private String createRecord( String key, Document previous, Document document ) {
+		Map<String, Object> record = new LinkedHashMap<>();
+		record.put( RECORD_KEY, key );
+
+		if ( previous == null ) {
+			record.put( RECORD_PUT, true );
+			record.put( RECORD_SET, document );
+		}
+		else {
+			Map<String, Object> set = new LinkedHashMap<>();
+			for ( Map.Entry<String, Object> entry : document.entrySet() ) {
+				if ( !Objects.equals( entry.getValue(), previous.get( entry.getKey() ) ) ||
+						!previous.containsKey( entry.getKey() ) ) {
+					set.put( entry.getKey(), entry.getValue() );
+				}
+			}
+
+			List<String> removed = new ArrayList<>();
+			for ( String field : previous.keySet() ) {
+				if ( !document.containsKey( field ) ) {
+					removed.add( field );
+				}
+			}
+
+			if ( set.isEmpty() && removed.isEmpty() ) {
+				return null;
+			}
+
+			record.put( RECORD_SET, set );
+			if ( !removed.isEmpty() ) {
+				record.put( RECORD_REMOVE, removed );
+			}
+		}
+
+		return gson.toJson( record );
+	}
+
+	private void addRecord( String record ) {
+		pendingRecords.add( record );
+
+		if ( !commitScheduled ) {
+			commitScheduled = true;
+			getJournalThread().schedule( this::commit, GROUP_COMMIT_DELAY_MS, TimeUnit.MILLISECONDS );
+		}
+	}
+
+	/**
+	 * <p>Writes all of the records that are waiting to the segment, with one fsync.
+	 * This only runs on the journal thread.
+	 * </p>
+	 */
+	private void commit() {
+		List<String> records;
+
+		synchronized ( this ) {
+			records = new ArrayList<>( pendingRecords );
+			pendingRecords.clear();
+			commitScheduled = false;
+		}
+
+		if ( records.isEmpty() || segment == null ) {
+			return;
+		}
+
+		StringBuilder sb = new StringBuilder();
+		for ( String record : records ) {
+			sb.append( record ).append( '\n' );
+		}
+
+		try {
+			ByteBuffer buffer = StandardCharsets.UTF_8.encode( sb.toString() );
+			segmentBytes += buffer.remaining();
+
+			while ( buffer.hasRemaining() ) {
+				segment.write( buffer );
+			}
+			segment.force( false );
+		}
+		catch ( IOException e ) {
+			// The changes are still held in memory, and will be saved by the next compaction:
+			Output.get().logError( "JournalCollection: Failed to write the journal for " +
+					getName() + ".", e );
+		}
+
+		if ( segmentBytes >= COMPACT_SEGMENT_BYTES ) {
+			compact();
+		}
+	}
+
+	/**
+	 * <p>Waits until the records that have been saved so far are written to the
+	 * journal.
+	 * </p>
+	 *
+	 * @param timeoutMs
+	 * @return True if they were written within the time limit.
+	 */
+	public boolean flush( long timeoutMs ) {
+		boolean results = false;
+
+		try {
+			getJournalThread().submit( this::commit ).get( timeoutMs, TimeUnit.MILLISECONDS );
+			results = true;
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+		catch ( ExecutionException | TimeoutException e ) {
+			Output.get().logError( "JournalCollection: Failed to flush the journal for " +
+					getName() + ".", e );
+		}
+
+		return results;
+	}
+
+	/**
+	 * <p>Saves the full documents that have changed, then removes the segments that
+	 * held their changes.  A new segment is started first, so the saves can keep
+	 * going while this runs.  This only runs on the journal thread, or when the
+	 * collection is loaded.
+	 * </p>
+	 */
+	private void compact() {
+		try {
+			commit();
+
+			Map<String, Document> snapshot;
+			synchronized ( this ) {
+				snapshot = new LinkedHashMap<>( changes );
+			}
+
+			if ( snapshot.isEmpty() && segmentBytes == 0 && firstSegment == segmentNumber ) {
+				return;
+			}
+
+			int lastSegment = segmentNumber;
+			closeSegment();
+			segmentNumber++;
+			openSegment();
+
+			// If any of the files could not be saved, then the segments are kept, since 
+			// they are the only copy of the changes.  They are tried again next time:
+			List<String> saved = new ArrayList<>();
+			for ( Map.Entry<String, Document> entry : snapshot.entrySet() ) {
+				if ( entry.getValue() == DELETED ) {
+					if ( snapshots.contains( entry.getKey() ) && !snapshots.delete( entry.getKey() ) ) {
+						throw new IOException( "Unable to delete " + entry.getKey() );
+					}
+				}
+				else if ( snapshots.write( entry.getKey(), entry.getValue() ) ) {
+					saved.add( entry.getKey() );
+				}
+				else {
+					throw new IOException( "Unable to save " + entry.getKey() );
+				}
+			}
+
+			// The files must be on the disk before the journal that holds them is removed:
+			for ( String key : saved ) {
+				if ( !FileIO.force( snapshots.getFile( key ).toPath() ) ) {
+					throw new IOException( "Unable to force " + key + " on to the disk" );
+				}
+			}
+			if ( !FileIO.force( snapshots.getDirectory().toPath() ) ) {
+				throw new IOException( "Unable to force the directory on to the disk" );
+			}
+
+			for ( int i = firstSegment; i <= lastSegment; i++ ) {
+				Files.deleteIfExists( getSegmentFile( i ).toPath() );
+			}
+			firstSegment = segmentNumber;
+
+			synchronized ( this ) {
+				for ( Map.Entry<String, Document> entry : snapshot.entrySet() ) {
+					// Only if it has not changed again:
+					if ( changes.get( entry.getKey() ) == entry.getValue() ) {
+						changes.remove( entry.getKey() );
+					}
+				}
+			}
+		}
+		catch ( IOException | RuntimeException e ) {
+			Output.get().logError( "JournalCollection: Failed to compact the journal for " +
+					getName() + ".", e );
+		}
+	}
+
+	private void close() {
+		if ( compactTask != null ) {
+			compactTask.cancel( false );
+		}
+
+		compact();
+
+		synchronized ( this ) {
+			closed = true;
+		}
+
+		// Anything that was saved during the compaction:
+		commit();
+		compact();
+
+		closeSegment();
+		if ( segmentBytes == 0 && firstSegment == segmentNumber ) {
+			getSegmentFile( segmentNumber ).delete();
+		}
+	}
+
+	private File getSegmentFile( int number ) {
+		return new File( journalDir, String.format( "%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX ) );
+	}
+
+	private void openSegment()
+			throws IOException {
+		segment = FileChannel.open( getSegmentFile( segmentNumber ).toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.APPEND );
+		segmentBytes = 0;
+	}
+
+	private void closeSegment() {
+		if ( segment != null ) {
+			try {
+				segment.close();
+			}
+			catch ( IOException e ) {
+				// Ignore, since each commit has already been forced to the disk:
+			}
+			segment = null;
+		}
+	}
+
+	/**
+	 * @return The segment files, by their numbers.
+	 */
+	private TreeMap<Integer, File> listSegments() {
+		TreeMap<Integer, File> results = new TreeMap<>();
+
+		File[] files = journalDir.listFiles( (dir, name) ->
+				name.startsWith( SEGMENT_PREFIX ) && name.endsWith( SEGMENT_SUFFIX ) );
+		if ( files != null ) {
+			for ( File file : files ) {
+				String name = file.getName();
+				try {
+					results.put( Integer.parseInt( name.substring( SEGMENT_PREFIX.length(),
+							name.length() - SEGMENT_SUFFIX.length() ) ), file );
+				}
+				catch ( NumberFormatException e ) {
+					// Not a segment
+				}
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * <p>Applies all of the records in the segment to the changes.  If a record cannot
+	 * be read, then it was the last record, which was only partly written, so the
+	 * rest of the segment is ignored.
+	 * </p>
+	 */
+	@SuppressWarnings( "unchecked" )
+	private void replay( File segmentFile ) {
+		int count = 0;
+
+		try ( BufferedReader reader = Files.newBufferedReader( segmentFile.toPath(), StandardCharsets.UTF_8 ) ) {
+			String line;
+			while ( (line = reader.readLine()) != null ) {
+				if ( line.trim().isEmpty() ) {
+					continue;
+				}
+
+				Document record;
+				try {
+					record = gson.fromJson( line, Document.class );
+				}
+				catch ( JsonParseException e ) {
+					Output.get().logWarn( "JournalCollection: Ignoring an incomplete record at the end of " +
+							segmentFile.getAbsolutePath() );
+					break;
+				}
+
+				String key = (String) record.get( RECORD_KEY );
+
+				if ( Boolean.TRUE.equals( record.get( RECORD_DELETE ) ) ) {
+					changes.put( key, DELETED );
+				}
+				else {
+					Document previous = Boolean.TRUE.equals( record.get( RECORD_PUT ) ) ? null : getCurrent( key );
+
+					Document document = previous == null ? new Document() : copy( previous );
+					document.putAll( (Map<String, Object>) record.get( RECORD_SET ) );
+
+					Object removed = record.get( RECORD_REMOVE );
+					if ( removed != null ) {
+						document.keySet().removeAll( (List<Object>) removed );
+					}
+
+					changes.put( key, document );
+				}
+				count++;
+			}
+		}
+		catch ( IOException e ) {
+			Output.get().logError( "JournalCollection: Failed to read " + segmentFile.getAbsolutePath(), e );
+		}
+
+		if ( count > 0 ) {
+			Output.get().logInfo( "JournalCollection: Replayed " + count + " changes for " + getName() +
+					" from " + segmentFile.getName() );
+		}
+	}
+}
@@ -1,9 +1,12 @@
 package tech.mcprison.prison.file;
 
 import java.io.File;
+import java.io.IOException;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
 
 import tech.mcprison.prison.error.ErrorManager;
 import tech.mcprison.prison.modules.ModuleStatus;
@@ -11,13 +14,41 @@ import tech.mcprison.prison.modules.ModuleStatus;
 public class JsonFileIO
 		extends FileIO
 {
+	private static volatile boolean compact = false;
+
 	private final Gson gson;
 	
 	public JsonFileIO(ErrorManager errorManager, ModuleStatus status)
 	{
 		super(errorManager, status);
 		
-		this.gson = new GsonBuilder().disableHtmlEscaping().setPrettyPrinting().create();
+		GsonBuilder builder = new GsonBuilder().disableHtmlEscaping();
+		if ( !compact )
+		{
+			builder.setPrettyPrinting();
+		}
+
+		this.gson = builder.create();
+	}
+
+	/**
+	 * <p>Sets whether the JSON files are saved without the extra spaces and new lines
+	 * that make them easier to read.  The compact files are smaller and faster to save.
+	 * Either format can always be read.  This only applies to the JsonFileIO objects
+	 * that are created after it is set, so it should be set before the storage is
+	 * created.
+	 * </p>
+	 *
+	 * @param compactJson
+	 */
+	public static void setCompact( boolean compactJson )
+	{
+		compact = compactJson;
+	}
+
+	public static boolean isCompact()
+	{
+		return compact;
 	}
 
 	public Gson getGson()
@@ -26,24 +57,20 @@ public class JsonFileIO
 	}
 	
 	/**
-	 * This function will save a file as a JSON format.  It will first save it as a
-	 * temp file to make sure the data can be written to the file system, then once
-	 * it is successful, it will then delete the original target and rename the temp
-	 * file.  This helps to ensure that data will not be lost if something goes wrong:
-	 * either the original file will remain, or the new file will saved under the 
-	 * *.tmp suffix, or both.  Should not reach a condition where both files disappear.
+	 * This function will save a file as a JSON format.  The JSON is written straight
+	 * in to a temp file, without building the whole JSON in memory first, then the
+	 * temp file atomically replaces the original file.  This helps to ensure that
+	 * data will not be lost if something goes wrong: the file will either have the
+	 * old contents or the new contents.
 	 * 
 	 * @param file
 	 * @param data
+	 * @return True if the file was saved.
 	 */
-	public void saveJsonFile( File file, FileIOData data ) 
+	public boolean saveJsonFile( File file, FileIOData data )
 	{
-		if ( file != null && data != null )
-		{
-			String json = getGson().toJson( data );
-
-			saveFile( file, json );	
-		}
+		return file != null && data != null &&
+				saveFile( file, writer -> getGson().toJson( data, writer ) );
 	}
 	
 	/**
@@ -59,15 +86,50 @@ public class JsonFileIO
 	 */
 	public FileIOData readJsonFile( File file, FileIOData data )
 	{
-		FileIOData results = data;
-		
-		String json = super.readFile( file );
-		
-		if ( json != null )
+		return readFile( file, reader -> getGson().fromJson( reader, data.getClass() ), data );
+	}
+	
+	/**
+	 * <p>Saves the object with its adapter, which writes the JSON straight in to the
+	 * file.  The file is formatted the same as {@link #saveJsonFile(File, FileIOData)}.
+	 * </p>
+	 *
+	 * @param file
+	 * @param value
+	 * @param adapter
+	 */
+	public <T> void saveJsonFile( File file, T value, TypeAdapter<T> adapter )
+	{
+		if ( file != null && value != null )
 		{
-			results = getGson().fromJson( json, data.getClass() );
+			saveFile( file, writer -> {
+				JsonWriter jsonWriter = getGson().newJsonWriter( writer );
+				adapter.write( jsonWriter, value );
+				jsonWriter.flush();
+			});
 		}
-		
-		return results;
+	}
+	
+	/**
+	 * <p>Reads the object with its adapter, straight from the file.  A file that the
+	 * adapter cannot understand is logged the same as a file that cannot be read.
+	 * </p>
+	 *
+	 * @param file
+	 * @param adapter
+	 * @return The object, or null if the file could not be read.
+	 */
+	public <T> T readJsonFile( File file, TypeAdapter<T> adapter )
+	{
+		return readFile( file, reader -> {
+			try
+			{
+				return adapter.read( getGson().newJsonReader( reader ) );
+			}
+			catch ( RuntimeException e )
+			{
+				throw new IOException( e );
+			}
+		}, null );
 	}
 }
@@ -0,0 +1,97 @@
+package tech.mcprison.prison.integration;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * <p>Caches the players' balances, for each currency, for a short time.  The
+ * balance placeholders may be requested for every player on every scoreboard
+ * refresh, and each request may have to go through the economy plugin, and
+ * even to the disk for an offline player, so most of these requests should be
+ * served from this cache.
+ * </p>
+ *
+ * <p>Prison's own transactions, such as a rankup or selling blocks, remove the
+ * player's balances so the change is shown right away.  Changes that are made
+ * outside of Prison are shown once the cached balance has expired.
+ * </p>
+ *
+ * <p>This must only be used to display the balance.  Anything that charges the
+ * player must always get the balance from the economy.
+ * </p>
+ *
+ */
+public class EconomyBalanceCache {
+
+	public static final long TTL_MS = 1000;
+
+	/**
+	 * The key for the economy's default currency, since the key cannot be null.
+	 */
+	private static final String DEFAULT_CURRENCY = "";
+
+	private final Map<UUID, Map<String, CachedBalance>> balances;
+
+	private static class CachedBalance {
+		private final double balance;
+		private final long expires;
+
+		private CachedBalance( double balance, long expires ) {
+			this.balance = balance;
+			this.expires = expires;
+		}
+	}
+
+	public EconomyBalanceCache() {
+		super();
+
+		this.balances = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * <p>Returns the player's cached balance, or if it is not cached, or it has
+	 * expired, then the balance is loaded and cached.
+	 * </p>
+	 *
+	 * @param playerUuid
+	 * @param currency The currency, or null for the economy's default currency.
+	 * @param loader Gets the balance from the economy.
+	 * @return The player's balance.
+	 */
+	public double getBalance( UUID playerUuid, String currency, DoubleSupplier loader ) {
+
+		Map<String, CachedBalance> playerBalances = balances.computeIfAbsent(
+								playerUuid, uuid -> new ConcurrentHashMap<>() );
+
+		String key = currency == null ? DEFAULT_CURRENCY : currency;
+		long now = System.currentTimeMillis();
+
+		CachedBalance cachedBalance = playerBalances.get( key );
+		if ( cachedBalance == null || cachedBalance.expires < now ) {
+
+			cachedBalance = new CachedBalance( loader.getAsDouble(), now + TTL_MS );
+			playerBalances.put( key, cachedBalance );
+		}
+
+		return cachedBalance.balance;
+	}
+
+	/**
+	 * <p>Removes all of the player's cached balances, such as after Prison has
+	 * changed their balance, or when they leave the server.
+	 * </p>
+	 *
+	 * @param playerUuid
+	 */
+	public void invalidate( UUID playerUuid ) {
+		if ( playerUuid != null ) {
+			balances.remove( playerUuid );
+		}
+	}
+
+	public void invalidateAll() {
+		balances.clear();
+	}
+}
@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import tech.mcprison.prison.Prison;
 import tech.mcprison.prison.chat.FancyMessage;
@@ -27,10 +28,23 @@ public class IntegrationManager {
     private Map<IntegrationType, List<Integration>> integrations;
     
     private List<Integration> deferredIntegrations;
+    
+    /**
+     * The economies that have been found for the default currency, and for each
+     * currency, so they do not have to be searched for on every balance lookup.
+     * These are cleared whenever an integration is registered.
+     */
+    private volatile EconomyIntegration economy;
+    private Map<String, EconomyCurrencyIntegration> currencyEconomies;
+    
+    private EconomyBalanceCache balanceCache;
 
     public IntegrationManager() {
         this.integrations = new HashMap<>();
         this.deferredIntegrations = new ArrayList<>();
+        
+        this.currencyEconomies = new ConcurrentHashMap<>();
+        this.balanceCache = new EconomyBalanceCache();
     }
 
     public static final String PRISON_PLACEHOLDER_PREFIX = "prison";
@@ -48,6 +62,12 @@ public class IntegrationManager {
     	MINES,
     	PLAYERMINES,
     	
+    	/**
+    	 * Leaderboard placeholders are also ladder placeholders, but the ladder name
+    	 * is followed by the position on the leaderboard, such as <code>default_1</code>.
+    	 */
+    	LEADERBOARD,
+    	
     	SUPRESS,
     	ALIAS
     	;
@@ -152,6 +172,17 @@ public class IntegrationManager {
 
 		
 		
+		// Leaderboard aliases:
+		prison_tpn_laddername(PlaceHolderFlags.LADDERS, PlaceHolderFlags.LEADERBOARD, PlaceHolderFlags.ALIAS),
+		prison_tpr_laddername(PlaceHolderFlags.LADDERS, PlaceHolderFlags.LEADERBOARD, PlaceHolderFlags.ALIAS),
+		prison_tprt_laddername(PlaceHolderFlags.LADDERS, PlaceHolderFlags.LEADERBOARD, PlaceHolderFlags.ALIAS),
+		
+		prison_top_player_name_laddername(prison_tpn_laddername, PlaceHolderFlags.LADDERS, PlaceHolderFlags.LEADERBOARD),
+		prison_top_player_rank_laddername(prison_tpr_laddername, PlaceHolderFlags.LADDERS, PlaceHolderFlags.LEADERBOARD),
+		prison_top_player_rank_tag_laddername(prison_tprt_laddername, PlaceHolderFlags.LADDERS, PlaceHolderFlags.LEADERBOARD),
+
+		
+		
 		// Mine aliases:
 		prison_mn_minename(PlaceHolderFlags.MINES, PlaceHolderFlags.ALIAS),
 		prison_mt_minename(PlaceHolderFlags.MINES, PlaceHolderFlags.ALIAS),
@@ -474,7 +505,6 @@ public class IntegrationManager {
 	 * @return
 	 */
 	public String getProgressBar( double value, double valueTotal, boolean reverse ) {
-		StringBuilder sb = new StringBuilder();
 		
 		// value cannot be greater than valueTotal:
 		if ( value > valueTotal ) {
@@ -491,34 +521,30 @@ public class IntegrationManager {
 		
     	double percent = value / valueTotal * 100.0;
     	
-    	PlaceholderProgressBarConfig barConfig = 
-				Prison.get().getIntegrationManager().getProgressBarConfig();
+    	PlaceholderProgressBarConfig barConfig = getProgressBarConfig();
 
-		String lastColorCode = null;
-		for ( int i = 0; i < barConfig.getSegments(); i++ ) {
-			double pct = i / ((double)barConfig.getSegments()) * 100.0;
-			
-			if ( pct < percent ) {
-				if ( lastColorCode == null || 
-						!barConfig.getPositiveColor().equalsIgnoreCase( lastColorCode )) { 
-					sb.append( barConfig.getPositiveColor() );
-					lastColorCode = barConfig.getPositiveColor();
-				}
-				sb.append( barConfig.getPositiveSegment() );
-			}
-			else {
-				if ( lastColorCode == null || 
-						!barConfig.getNegativeColor().equalsIgnoreCase( lastColorCode )) { 
-					sb.append( barConfig.getNegativeColor() );
-					lastColorCode = barConfig.getNegativeColor();
-				}
-				sb.append( barConfig.getNegativeSegment() );
-				
-			}
+    	return barConfig.getProgressBar( getPositiveSegments( percent, barConfig.getSegments() ) );
+	}
+	
+	/**
+	 * <p>A segment is positive when the percent at the start of the segment is less
+	 * than the percent, so this is the number of segments that start below the 
+	 * percent.  If the percent is not a number, such as when the total is zero, then
+	 * there are no positive segments.
+	 * </p>
+	 * 
+	 * @param percent
+	 * @param segments
+	 * @return
+	 */
+	protected static int getPositiveSegments( double percent, int segments ) {
+		int results = 0;
+		
+		if ( percent > 0 ) {
+			results = (int) Math.min( segments, Math.ceil( percent * segments / 100.0 ) );
 		}
-
-    	
-    	return sb.toString();
+		
+		return results;
 	}
 	
 	
@@ -568,14 +594,51 @@ public class IntegrationManager {
     		integrations.put(iType, new ArrayList<>());
     	}
     	integrations.get(iType).add(i);
+    	
+    	// A new integration may change which economy is used:
+    	economy = null;
+    	currencyEconomies.clear();
     }
     
+    /**
+     * Returns the economy for the default currency.  Once it has been found, it is
+     * kept until another integration is registered.
+     * 
+     * @return The economy, or null if there is no working economy.
+     */
     public EconomyIntegration getEconomy() {
-    	return (EconomyIntegration) getForType(IntegrationType.ECONOMY)
-							.orElse( null );
+    	EconomyIntegration results = economy;
+    	
+    	if ( results == null ) {
+    		results = (EconomyIntegration) getForType(IntegrationType.ECONOMY)
+    							.orElse( null );
+    		economy = results;
+    	}
+    	return results;
     }
 
+    /**
+     * Returns the economy that supports the currency.  Once it has been found, it
+     * is kept until another integration is registered.
+     * 
+     * @param currency
+     * @return The economy, or null if no working economy supports the currency.
+     */
     public EconomyCurrencyIntegration getEconomyForCurrency(String currency) {
+    	EconomyCurrencyIntegration results = currency == null ? null : 
+    											currencyEconomies.get( currency );
+    	
+    	if ( results == null ) {
+    		results = findEconomyForCurrency( currency );
+    		
+    		if ( results != null ) {
+    			currencyEconomies.put( currency, results );
+    		}
+    	}
+    	return results;
+    }
+    
+    private EconomyCurrencyIntegration findEconomyForCurrency(String currency) {
     	EconomyCurrencyIntegration results = null;
     	
         if(integrations.containsKey(IntegrationType.ECONOMY)) {
@@ -750,6 +813,14 @@ public class IntegrationManager {
 		this.deferredIntegrations = deferredIntegrations;
 	}
 
+	/**
+	 * @return The players' cached balances, which are only to be used to display
+	 * 			the balance, such as within the placeholders.
+	 */
+	public EconomyBalanceCache getBalanceCache() {
+		return balanceCache;
+	}
+
 	public void addDeferredInitialization( Integration defferedIntegration ) {
 		getDeferredIntegrations().add( defferedIntegration );
 	}
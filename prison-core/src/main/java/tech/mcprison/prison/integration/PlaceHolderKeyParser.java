@@ -0,0 +1,256 @@
+package tech.mcprison.prison.integration;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import tech.mcprison.prison.integration.IntegrationManager.PrisonPlaceHolders;
+
+/**
+ * <p>This parses a placeholder identifier structurally, as the prison prefix,
+ * followed by the placeholder type, followed by an optional mine or ladder
+ * name suffix.  This is used instead of generating one PlaceHolderKey for every
+ * placeholder type, times every mine or ladder, which would grow to tens of
+ * thousands of entries.  Since the names are validated when parsed, adding a
+ * mine or ladder does not require the placeholders to be reloaded.
+ * </p>
+ *
+ * <p>The placeholder types are stored within a small trie, keyed on their
+ * lower case stems.  A placeholder type that has a name suffix, such as
+ * <code>prison_mines_name_minename</code>, is stored with a stem of
+ * <code>prison_mines_name_</code> and the remainder of the identifier is the
+ * name.  All other placeholder types must match the whole identifier.
+ * </p>
+ *
+ * <p>When more than one placeholder type could match, an exact match is
+ * preferred, then the longest stem with a valid name is used.  For example
+ * <code>prison_mines_timeleft_bar_a</code> will match the timeleft bar for mine
+ * <code>a</code>, unless there is a mine named <code>bar_a</code> and no mine
+ * named <code>a</code>.
+ * </p>
+ *
+ */
+public class PlaceHolderKeyParser {
+
+	private final Node root;
+
+	private final List<PrisonPlaceHolders> placeHolders;
+
+	private final Map<String, PrisonPlaceHolders> registrations;
+
+	public PlaceHolderKeyParser() {
+		super();
+
+		this.root = new Node();
+		this.placeHolders = new ArrayList<>();
+		this.registrations = new LinkedHashMap<>();
+	}
+
+	private static class Node {
+		private char[] keys = new char[0];
+		private Node[] children = new Node[0];
+
+		private PrisonPlaceHolders exact;
+		private PrisonPlaceHolders suffixed;
+
+		private Node getChild( char c ) {
+			Node results = null;
+			for ( int i = 0; i < keys.length; i++ ) {
+				if ( keys[i] == c ) {
+					results = children[i];
+					break;
+				}
+			}
+			return results;
+		}
+
+		private Node addChild( char c ) {
+			Node child = getChild( c );
+			if ( child == null ) {
+				int len = keys.length;
+
+				char[] newKeys = new char[len + 1];
+				System.arraycopy( keys, 0, newKeys, 0, len );
+				newKeys[len] = c;
+
+				Node[] newChildren = new Node[len + 1];
+				System.arraycopy( children, 0, newChildren, 0, len );
+				child = new Node();
+				newChildren[len] = child;
+
+				this.keys = newKeys;
+				this.children = newChildren;
+			}
+			return child;
+		}
+	}
+
+	/**
+	 * <p>Adds the placeholder types to the trie.  If nameSuffix is not null, and the
+	 * placeholder name ends with it, then the name suffix is replaced with an
+	 * underscore and the placeholder will require a name.  If the same stem is added
+	 * more than once, then the first one is kept.
+	 * </p>
+	 *
+	 * @param placeHolders
+	 * @param nameSuffix Such as IntegrationManager.PRISON_PLACEHOLDER_MINENAME_SUFFIX, or null
+	 */
+	public void add( List<PrisonPlaceHolders> placeHolders, String nameSuffix ) {
+		for ( PrisonPlaceHolders ph : placeHolders ) {
+			String stem = getKeyStem( ph, nameSuffix );
+			boolean suffixed = stem.length() != ph.name().length();
+
+			Node node = root;
+			for ( int i = 0; i < stem.length(); i++ ) {
+				node = node.addChild( stem.charAt( i ) );
+			}
+
+			if ( suffixed && node.suffixed == null ) {
+				node.suffixed = ph;
+			}
+			else if ( !suffixed && node.exact == null ) {
+				node.exact = ph;
+			}
+
+			this.placeHolders.add( ph );
+
+			if ( !ph.isSuppressed() ) {
+				registrations.putIfAbsent( suffixed ? stem + "*" : stem, ph );
+			}
+		}
+	}
+
+	/**
+	 * <p>Returns the lower case stem of the placeholder.  If the placeholder ends
+	 * with the nameSuffix, then the suffix is replaced with an underscore so the
+	 * stem is what precedes the mine or ladder name.
+	 * </p>
+	 *
+	 * @param ph
+	 * @param nameSuffix
+	 * @return
+	 */
+	public static String getKeyStem( PrisonPlaceHolders ph, String nameSuffix ) {
+		String stem = ph.name().toLowerCase();
+
+		if ( nameSuffix != null && stem.endsWith( nameSuffix ) ) {
+			stem = stem.substring( 0, stem.length() - nameSuffix.length() ) + "_";
+		}
+		return stem;
+	}
+
+	/**
+	 * <p>Expands the placeholder type in to the PlaceHolderKey for one mine or
+	 * ladder, by replacing the nameSuffix with the name.  The alias, if there is
+	 * one, is expanded the same way.  This is used to list the placeholders, since
+	 * the identifiers are translated by parsing them.
+	 * </p>
+	 *
+	 * @param ph
+	 * @param nameSuffix Such as IntegrationManager.PRISON_PLACEHOLDER_MINENAME_SUFFIX, or null
+	 * @param name The mine or ladder name, or null if the placeholder does not have one
+	 * @return The PlaceHolderKey
+	 */
+	public static PlaceHolderKey getPlaceHolderKey( PrisonPlaceHolders ph, String nameSuffix,
+					String name ) {
+		PlaceHolderKey results = new PlaceHolderKey( expandName( ph, nameSuffix, name ), ph, name );
+
+		if ( ph.getAlias() != null ) {
+			results.setAliasName( expandName( ph.getAlias(), nameSuffix, name ) );
+		}
+
+		return results;
+	}
+
+	private static String expandName( PrisonPlaceHolders ph, String nameSuffix, String name ) {
+		String results = ph.name();
+
+		if ( nameSuffix != null && name != null ) {
+			results = results.replace( nameSuffix, "_" + name ).toLowerCase();
+		}
+		return results;
+	}
+
+	/**
+	 * <p>Parses the identifier in to a PlaceHolderKey.  The prison prefix is
+	 * added if it is missing, and the match is case-insensitive.  The key of
+	 * the results is the lower case identifier, and the data is the name
+	 * as it was provided in the identifier.
+	 * </p>
+	 *
+	 * @param identifier The placeholder, without any escape characters
+	 * @param nameValidator Tests if the name suffix is a valid mine or ladder name
+	 * @return The PlaceHolderKey, or null if the identifier is not a valid placeholder
+	 */
+	public PlaceHolderKey parse( String identifier, Predicate<String> nameValidator ) {
+		PlaceHolderKey results = null;
+
+		if ( identifier != null && identifier.length() > 0 ) {
+
+			if ( !identifier.regionMatches( true, 0, IntegrationManager.PRISON_PLACEHOLDER_PREFIX_EXTENDED,
+							0, IntegrationManager.PRISON_PLACEHOLDER_PREFIX_EXTENDED.length() ) ) {
+				identifier = IntegrationManager.PRISON_PLACEHOLDER_PREFIX_EXTENDED + identifier;
+			}
+
+			results = parse( root, identifier, 0, nameValidator );
+		}
+
+		return results;
+	}
+
+	/**
+	 * <p>Walks the trie depth first so the exact match, and the longest stem,
+	 * are found before the shorter stems.
+	 * </p>
+	 */
+	private PlaceHolderKey parse( Node node, String identifier, int pos,
+					Predicate<String> nameValidator ) {
+		PlaceHolderKey results = null;
+
+		if ( pos == identifier.length() ) {
+			if ( node.exact != null ) {
+				results = new PlaceHolderKey( identifier.toLowerCase(), node.exact );
+			}
+		}
+		else {
+			Node child = node.getChild( Character.toLowerCase( identifier.charAt( pos ) ) );
+			if ( child != null ) {
+				results = parse( child, identifier, pos + 1, nameValidator );
+			}
+
+			if ( results == null && node.suffixed != null ) {
+				String name = identifier.substring( pos );
+
+				if ( nameValidator == null || nameValidator.test( name ) ) {
+					results = new PlaceHolderKey( identifier.toLowerCase(), node.suffixed, name );
+				}
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * @return All of the placeholder types that have been added.
+	 */
+	public List<PrisonPlaceHolders> getPlaceHolders() {
+		return placeHolders;
+	}
+
+	/**
+	 * <p>The keys that the placeholders are registered under, for the placeholder
+	 * plugins that require each placeholder to be registered.  A placeholder type
+	 * that has a name suffix is registered once as a wildcard on its stem, such as
+	 * <code>prison_mines_name_*</code>, so the number of registrations does not grow
+	 * with the number of mines and ladders.  Suppressed placeholders are not
+	 * registered, and if two types share a key, then the first one is kept.
+	 * </p>
+	 *
+	 * @return The registration keys, in the order they were added, with their placeholder.
+	 */
+	public Map<String, PrisonPlaceHolders> getRegistrations() {
+		return registrations;
+	}
+}
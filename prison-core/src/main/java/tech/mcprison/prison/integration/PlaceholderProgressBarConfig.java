@@ -10,6 +10,13 @@ public class PlaceholderProgressBarConfig {
 	private String negativeColor;
 	private String negativeSegment;
 	
+	/**
+	 * <p>The prebuilt bars, indexed by the number of positive segments. These are
+	 * built the first time they are used, and are cleared if the config changes.
+	 * </p>
+	 */
+	private transient volatile String[] bars;
+	
 	public PlaceholderProgressBarConfig() {
 		super();
 		
@@ -35,6 +42,7 @@ public class PlaceholderProgressBarConfig {
 	}
 	public void setSegments( int segments ) {
 		this.segments = segments;
+		this.bars = null;
 	}
 
 	public String getPositiveColor() {
@@ -42,6 +50,7 @@ public class PlaceholderProgressBarConfig {
 	}
 	public void setPositiveColor( String positiveColor ) {
 		this.positiveColor = positiveColor;
+		this.bars = null;
 	}
 
 	public String getPositiveSegment() {
@@ -49,6 +58,7 @@ public class PlaceholderProgressBarConfig {
 	}
 	public void setPositiveSegment( String positiveSegment ) {
 		this.positiveSegment = positiveSegment;
+		this.bars = null;
 	}
 
 	public String getNegativeColor() {
@@ -56,6 +66,7 @@ public class PlaceholderProgressBarConfig {
 	}
 	public void setNegativeColor( String negativeColor ) {
 		this.negativeColor = negativeColor;
+		this.bars = null;
 	}
 
 	public String getNegativeSegment() {
@@ -63,8 +74,69 @@ public class PlaceholderProgressBarConfig {
 	}
 	public void setNegativeSegment( String negativeSegment ) {
 		this.negativeSegment = negativeSegment;
+		this.bars = null;
 	}
 
-
+	/**
+	 * <p>Returns the progress bar with the given number of positive segments.  
+	 * All of the bars, from zero to all segments being positive, are built once
+	 * and then reused, so the placeholders never have to build the bar.
+	 * </p>
+	 * 
+	 * @param positiveSegments The number of positive segments, which will be 
+	 * 				limited to the range of zero to the number of segments.
+	 * @return
+	 */
+	public String getProgressBar( int positiveSegments ) {
+		String[] bars = this.bars;
+		
+		if ( bars == null ) {
+			bars = buildProgressBars();
+			this.bars = bars;
+		}
+		
+		if ( positiveSegments < 0 ) {
+			positiveSegments = 0;
+		}
+		else if ( positiveSegments >= bars.length ) {
+			positiveSegments = bars.length - 1;
+		}
+		
+		return bars[positiveSegments];
+	}
+	
+	private String[] buildProgressBars() {
+		int segmentCount = Math.max( 0, getSegments() );
+		String[] bars = new String[segmentCount + 1];
+		
+		for ( int positive = 0; positive <= segmentCount; positive++ ) {
+			StringBuilder sb = new StringBuilder();
+			
+			String lastColorCode = null;
+			for ( int i = 0; i < segmentCount; i++ ) {
+				
+				if ( i < positive ) {
+					if ( lastColorCode == null || 
+							!getPositiveColor().equalsIgnoreCase( lastColorCode )) { 
+						sb.append( getPositiveColor() );
+						lastColorCode = getPositiveColor();
+					}
+					sb.append( getPositiveSegment() );
+				}
+				else {
+					if ( lastColorCode == null || 
+							!getNegativeColor().equalsIgnoreCase( lastColorCode )) { 
+						sb.append( getNegativeColor() );
+						lastColorCode = getNegativeColor();
+					}
+					sb.append( getNegativeSegment() );
+				}
+			}
+			
+			bars[positive] = sb.toString();
+		}
+		
+		return bars;
+	}
 	
 }
@@ -0,0 +1,186 @@
+package tech.mcprison.prison.integration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * <p>A text template that has been split in to literal segments and prison
+ * placeholders, such as <code>{prison_rank}</code>.  The text is only scanned
+ * once when the template is compiled, and then each time it is rendered only
+ * the placeholders that are within the text are translated.  This is used
+ * for chat formats, holograms, and anything else that translates the same
+ * text over and over.
+ * </p>
+ *
+ * <p>The compiled templates are held in a small LRU cache keyed by the text,
+ * so the chat formats, which rarely change, are only ever scanned once.
+ * </p>
+ *
+ */
+public class PlaceholderTemplate {
+
+	public static final int TEMPLATE_CACHE_SIZE = 512;
+
+	private static final Map<String, PlaceholderTemplate> templateCache =
+			Collections.synchronizedMap( new LinkedHashMap<String, PlaceholderTemplate>( 64, 0.75f, true ) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry( Map.Entry<String, PlaceholderTemplate> eldest ) {
+					return size() > TEMPLATE_CACHE_SIZE;
+				}
+			});
+
+	private final String text;
+
+	/**
+	 * <p>There is always one more literal than there are placeholders.  The
+	 * literals may be empty.
+	 * </p>
+	 */
+	private final String[] literals;
+	private final String[] placeholders;
+
+	private PlaceholderTemplate( String text, String[] literals, String[] placeholders ) {
+		super();
+
+		this.text = text;
+		this.literals = literals;
+		this.placeholders = placeholders;
+	}
+
+	/**
+	 * <p>Returns the compiled template for the text, from the cache if it has
+	 * already been compiled.
+	 * </p>
+	 *
+	 * @param text
+	 * @return The compiled template, or null if the text is null
+	 */
+	public static PlaceholderTemplate compile( String text ) {
+		PlaceholderTemplate results = null;
+
+		if ( text != null ) {
+			results = templateCache.get( text );
+
+			if ( results == null ) {
+				results = parse( text );
+				templateCache.put( text, results );
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * <p>Translates the text with the translator.  This is a convenience for
+	 * <code>compile( text ).render( translator )</code>.
+	 * </p>
+	 *
+	 * @param text
+	 * @param translator
+	 * @return
+	 */
+	public static String translate( String text, Function<String, String> translator ) {
+		PlaceholderTemplate template = compile( text );
+		return template == null ? null : template.render( translator );
+	}
+
+	public static void clearCache() {
+		templateCache.clear();
+	}
+
+	/**
+	 * <p>Splits the text on the placeholders that are wrapped in curly braces and
+	 * that start with the prison prefix.  All other braces are kept as literals.
+	 * If there is a nested open brace, then the innermost open brace starts the
+	 * placeholder.
+	 * </p>
+	 */
+	private static PlaceholderTemplate parse( String text ) {
+		List<String> literals = new ArrayList<>();
+		List<String> placeholders = new ArrayList<>();
+
+		int prefixLength = IntegrationManager.PRISON_PLACEHOLDER_PREFIX_EXTENDED.length();
+
+		int last = 0;
+		int open = text.indexOf( '{' );
+		while ( open != -1 ) {
+			int close = text.indexOf( '}', open + 1 );
+			if ( close == -1 ) {
+				break;
+			}
+
+			int nested = text.lastIndexOf( '{', close );
+			if ( nested > open ) {
+				open = nested;
+			}
+
+			if ( close - open - 1 > prefixLength &&
+					text.regionMatches( true, open + 1,
+							IntegrationManager.PRISON_PLACEHOLDER_PREFIX_EXTENDED, 0, prefixLength ) ) {
+
+				literals.add( text.substring( last, open ) );
+				placeholders.add( text.substring( open + 1, close ) );
+				last = close + 1;
+			}
+
+			open = text.indexOf( '{', close + 1 );
+		}
+		literals.add( text.substring( last ) );
+
+		return new PlaceholderTemplate( text,
+				literals.toArray( new String[literals.size()] ),
+				placeholders.toArray( new String[placeholders.size()] ) );
+	}
+
+	/**
+	 * <p>Renders the template by translating each placeholder.  If the translator
+	 * returns null, then the placeholder is left as it is so another translator can
+	 * be applied later.
+	 * </p>
+	 *
+	 * @param translator Translates the placeholder identifier, without the braces
+	 * @return The translated text
+	 */
+	public String render( Function<String, String> translator ) {
+		String results = text;
+
+		if ( placeholders.length > 0 ) {
+			StringBuilder sb = new StringBuilder( text.length() + 16 * placeholders.length );
+
+			for ( int i = 0; i < placeholders.length; i++ ) {
+				sb.append( literals[i] );
+
+				String value = translator.apply( placeholders[i] );
+				if ( value != null ) {
+					sb.append( value );
+				}
+				else {
+					sb.append( '{' ).append( placeholders[i] ).append( '}' );
+				}
+			}
+			sb.append( literals[placeholders.length] );
+
+			results = sb.toString();
+		}
+
+		return results;
+	}
+
+	public boolean hasPlaceholders() {
+		return placeholders.length > 0;
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	public String[] getPlaceholders() {
+		return placeholders.clone();
+	}
+}
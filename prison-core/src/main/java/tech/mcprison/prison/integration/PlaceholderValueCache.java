@@ -0,0 +1,181 @@
+package tech.mcprison.prison.integration;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import tech.mcprison.prison.integration.IntegrationManager.PrisonPlaceHolders;
+
+/**
+ * <p>Caches the translated placeholder values, keyed by the player, or global
+ * if there is no player, and the placeholder key.  Scoreboards and holograms
+ * may request the same placeholders every tick for every player, so most of
+ * these requests should be served from this cache.
+ * </p>
+ *
+ * <p>The values are invalidated by the managers when Prison changes them, such
+ * as on a rankup or a mine reset.  Since some values change without an event,
+ * such as a player's balance or the time left before a mine resets, each value
+ * also has a time to live.
+ * </p>
+ *
+ */
+public class PlaceholderValueCache {
+
+	/**
+	 * <p>Values that only change with a Prison event, such as a mine's name or a
+	 * player's rank.  The time to live is only a fallback.
+	 * </p>
+	 */
+	public static final long TTL_STATIC_MS = 30000;
+
+	/**
+	 * <p>Values that change without an event, such as a player's balance, or the
+	 * time remaining until a mine resets.
+	 * </p>
+	 */
+	public static final long TTL_DYNAMIC_MS = 1000;
+
+	/**
+	 * <p>The placeholders that use TTL_STATIC_MS.  A mine's name, tag, interval, size,
+	 * and reset count only change when the mine is edited or reset, and a player's
+	 * rank, and the next rank and its cost, only change with a rankup or when the
+	 * ranks are edited.  Everything else, such as anything that depends upon the
+	 * player's balance, or which mine the player is in, uses TTL_DYNAMIC_MS.
+	 * </p>
+	 */
+	private static final Set<PrisonPlaceHolders> STATIC_PLACEHOLDERS = EnumSet.of(
+			PrisonPlaceHolders.prison_mn_minename, PrisonPlaceHolders.prison_mt_minename,
+			PrisonPlaceHolders.prison_mi_minename, PrisonPlaceHolders.prison_mif_minename,
+			PrisonPlaceHolders.prison_ms_minename, PrisonPlaceHolders.prison_mrc_minename,
+
+			PrisonPlaceHolders.prison_r, PrisonPlaceHolders.prison_rt,
+			PrisonPlaceHolders.prison_rc, PrisonPlaceHolders.prison_rcf,
+			PrisonPlaceHolders.prison_rr, PrisonPlaceHolders.prison_rrt,
+			PrisonPlaceHolders.prison_r_laddername, PrisonPlaceHolders.prison_rt_laddername,
+			PrisonPlaceHolders.prison_rc_laddername, PrisonPlaceHolders.prison_rcf_laddername,
+			PrisonPlaceHolders.prison_rr_laddername, PrisonPlaceHolders.prison_rrt_laddername );
+
+	private static final UUID GLOBAL = new UUID( 0L, 0L );
+
+	private final Map<UUID, Map<String, CachedValue>> cache;
+
+	private static class CachedValue {
+		private final PlaceHolderKey placeHolderKey;
+		private final String value;
+		private final long expires;
+
+		private CachedValue( PlaceHolderKey placeHolderKey, String value, long expires ) {
+			this.placeHolderKey = placeHolderKey;
+			this.value = value;
+			this.expires = expires;
+		}
+	}
+
+	public PlaceholderValueCache() {
+		super();
+
+		this.cache = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * @param placeHolderKey
+	 * @return True if the placeholder, or the placeholder it is an alias of, only
+	 * 			changes with a Prison event.
+	 */
+	public static boolean isStatic( PlaceHolderKey placeHolderKey ) {
+		PrisonPlaceHolders ph = placeHolderKey.getPlaceholder();
+		if ( ph.getAlias() != null ) {
+			ph = ph.getAlias();
+		}
+
+		return STATIC_PLACEHOLDERS.contains( ph );
+	}
+
+	/**
+	 * @param placeHolderKey
+	 * @return TTL_STATIC_MS if the placeholder is static, otherwise TTL_DYNAMIC_MS.
+	 */
+	public static long getTtl( PlaceHolderKey placeHolderKey ) {
+		return isStatic( placeHolderKey ) ? TTL_STATIC_MS : TTL_DYNAMIC_MS;
+	}
+
+	/**
+	 * <p>Returns the cached value for the placeholder, using the placeholder's own
+	 * time to live from {@link #getTtl(PlaceHolderKey)}.
+	 * </p>
+	 *
+	 * @param playerUuid The player, or null for a global placeholder
+	 * @param placeHolderKey
+	 * @param translator
+	 * @return
+	 */
+	public String get( UUID playerUuid, PlaceHolderKey placeHolderKey,
+						Function<PlaceHolderKey, String> translator ) {
+		return get( playerUuid, placeHolderKey, getTtl( placeHolderKey ), translator );
+	}
+
+	/**
+	 * <p>Returns the cached value for the placeholder, or if it is not cached, or it
+	 * has expired, then the translator is used and the results are cached.  A null
+	 * results is cached too, since it still took the same effort to find.
+	 * </p>
+	 *
+	 * @param playerUuid The player, or null for a global placeholder
+	 * @param placeHolderKey
+	 * @param ttlMs
+	 * @param translator
+	 * @return
+	 */
+	public String get( UUID playerUuid, PlaceHolderKey placeHolderKey, long ttlMs,
+						Function<PlaceHolderKey, String> translator ) {
+
+		Map<String, CachedValue> values = cache.computeIfAbsent(
+				playerUuid == null ? GLOBAL : playerUuid, uuid -> new ConcurrentHashMap<>() );
+
+		long now = System.currentTimeMillis();
+
+		CachedValue cachedValue = values.get( placeHolderKey.getKey() );
+		if ( cachedValue == null || cachedValue.expires < now ) {
+
+			cachedValue = new CachedValue( placeHolderKey, translator.apply( placeHolderKey ), now + ttlMs );
+			values.put( placeHolderKey.getKey(), cachedValue );
+		}
+
+		return cachedValue.value;
+	}
+
+	/**
+	 * <p>Removes all of the cached values for the player, such as when they
+	 * rankup, or when they leave the server.
+	 * </p>
+	 *
+	 * @param playerUuid
+	 */
+	public void invalidatePlayer( UUID playerUuid ) {
+		if ( playerUuid != null ) {
+			cache.remove( playerUuid );
+		}
+	}
+
+	/**
+	 * <p>Removes the cached values, for all players and the global values, that
+	 * match the filter, such as all of the placeholders for a mine that was reset.
+	 * </p>
+	 *
+	 * @param filter
+	 */
+	public void invalidate( Predicate<PlaceHolderKey> filter ) {
+		for ( Map<String, CachedValue> values : cache.values() ) {
+			values.values().removeIf( cachedValue -> filter.test( cachedValue.placeHolderKey ) );
+		}
+	}
+
+	public void invalidateAll() {
+		cache.clear();
+	}
+}
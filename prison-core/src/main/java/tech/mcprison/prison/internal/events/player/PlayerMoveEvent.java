@@ -0,0 +1,55 @@
+/*
+ *  Prison is a Minecraft plugin for the prison game mode.
+ *  Copyright (C) 2017-2020 The Prison Team
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tech.mcprison.prison.internal.events.player;
+
+import tech.mcprison.prison.internal.Player;
+import tech.mcprison.prison.util.Location;
+
+/**
+ * Platform-independent event, which is posted when a player moves, or is
+ * teleported, in to a different block.  Moves within the same block are not
+ * posted since nothing that Prison tracks can change.
+ *
+ * @since API 1.0
+ */
+public class PlayerMoveEvent {
+
+    private Player player;
+    private Location from;
+    private Location to;
+
+    public PlayerMoveEvent(Player player, Location from, Location to) {
+        this.player = player;
+        this.from = from;
+        this.to = to;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public Location getFrom() {
+        return from;
+    }
+
+    public Location getTo() {
+        return to;
+    }
+
+}
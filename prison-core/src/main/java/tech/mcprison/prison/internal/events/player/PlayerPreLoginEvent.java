@@ -0,0 +1,51 @@
+/*
+ *  Prison is a Minecraft plugin for the prison game mode.
+ *  Copyright (C) 2017-2020 The Prison Team
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tech.mcprison.prison.internal.events.player;
+
+import java.util.UUID;
+
+/**
+ * <p>Platform-independent event, which is posted before a player joins the server.
+ * This is posted asynchronously, before the player exists on the server, so 
+ * only their UUID and name are known.  This should be used to load the 
+ * player's data so it is ready by the time they join.  Subscribers must be 
+ * thread safe.
+ * </p>
+ *
+ * @since API 1.0
+ */
+public class PlayerPreLoginEvent {
+
+    private UUID uuid;
+    private String name;
+
+    public PlayerPreLoginEvent(UUID uuid, String name) {
+        this.uuid = uuid;
+        this.name = name;
+    }
+
+    public UUID getUUID() {
+        return uuid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+}
@@ -0,0 +1,253 @@
+package tech.mcprison.prison.sql;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+
+import tech.mcprison.prison.store.Collection;
+import tech.mcprison.prison.store.Document;
+
+/**
+ * <p>A collection within the {@link SqlStorage}.  Like the FileCollection, nothing
+ * is cached here, and every call goes to the database.  Each document is found by
+ * the table's primary key, so a lookup does not depend upon how many documents
+ * there are.
+ * </p>
+ *
+ */
+public class SqlCollection
+	implements Collection
+{
+	private final SqlStorage storage;
+	private final String dbName;
+	private final String name;
+
+	public SqlCollection( SqlStorage storage, String dbName, String name ) {
+		this.storage = storage;
+		this.dbName = dbName;
+		this.name = name;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * <p>Reads all of the documents with one query, in the order of their names.
+	 * </p>
+	 */
+	@Override
+	public List<Document> getAll() {
+		return readAll( data -> storage.getGson().fromJson( data, Document.class ) );
+	}
+
+	/**
+	 * <p>The same as <code>getAll()</code>, but each row is read straight in to its
+	 * object by the adapter.
+	 * </p>
+	 */
+	@Override
+	public <T> List<T> getAll( TypeAdapter<T> adapter ) {
+		return readAll( data -> fromJson( data, adapter ) );
+	}
+
+	private <T> List<T> readAll( Function<String, T> parser ) {
+		return storage.execute( "read the documents of " + name, new ArrayList<>(), connection -> {
+			List<T> results = new ArrayList<>();
+
+			try ( PreparedStatement ps = connection.prepareStatement(
+					"SELECT data FROM " + SqlStorage.TABLE_DOCUMENTS +
+					" WHERE db_name = ? AND coll_name = ? ORDER BY doc_key" ) ) {
+				ps.setString( 1, dbName );
+				ps.setString( 2, name );
+
+				try ( ResultSet rs = ps.executeQuery() ) {
+					while ( rs.next() ) {
+						T doc = parser.apply( rs.getString( 1 ) );
+						if ( doc != null ) {
+							results.add( doc );
+						}
+					}
+				}
+			}
+			return results;
+		});
+	}
+
+	@Override
+	public List<String> getKeys() {
+		return storage.execute( "read the keys of " + name, new ArrayList<>(), connection -> {
+			List<String> results = new ArrayList<>();
+
+			try ( PreparedStatement ps = connection.prepareStatement(
+					"SELECT doc_key FROM " + SqlStorage.TABLE_DOCUMENTS +
+					" WHERE db_name = ? AND coll_name = ? ORDER BY doc_key" ) ) {
+				ps.setString( 1, dbName );
+				ps.setString( 2, name );
+
+				try ( ResultSet rs = ps.executeQuery() ) {
+					while ( rs.next() ) {
+						results.add( rs.getString( 1 ) );
+					}
+				}
+			}
+			return results;
+		});
+	}
+
+	@Override
+	public Optional<Document> get( String key ) {
+		return Optional.ofNullable( read( key, data -> storage.getGson().fromJson( data, Document.class ) ) );
+	}
+
+	@Override
+	public <T> Optional<T> get( String key, TypeAdapter<T> adapter ) {
+		return Optional.ofNullable( read( key, data -> fromJson( data, adapter ) ) );
+	}
+
+	private <T> T read( String key, Function<String, T> parser ) {
+		return storage.execute( "read " + key, null, connection -> {
+			T results = null;
+
+			try ( PreparedStatement ps = connection.prepareStatement(
+					"SELECT data FROM " + SqlStorage.TABLE_DOCUMENTS +
+					" WHERE db_name = ? AND coll_name = ? AND doc_key = ?" ) ) {
+				ps.setString( 1, dbName );
+				ps.setString( 2, name );
+				ps.setString( 3, key );
+
+				try ( ResultSet rs = ps.executeQuery() ) {
+					if ( rs.next() ) {
+						results = parser.apply( rs.getString( 1 ) );
+					}
+				}
+			}
+			return results;
+		});
+	}
+
+	/**
+	 * <p>Writes with the storage's settings, so the null values are left out the
+	 * same as they are for the documents.
+	 * </p>
+	 */
+	private <T> String toJson( T value, TypeAdapter<T> adapter ) {
+		StringWriter writer = new StringWriter();
+
+		try {
+			adapter.write( storage.getGson().newJsonWriter( writer ), value );
+		}
+		catch ( IOException e ) {
+			throw new JsonIOException( e );
+		}
+
+		return writer.toString();
+	}
+
+	private <T> T fromJson( String data, TypeAdapter<T> adapter ) {
+		try {
+			return adapter.fromJson( data );
+		}
+		catch ( IOException e ) {
+			throw new JsonParseException( e );
+		}
+	}
+
+	@Override
+	public void save( Document document ) {
+		save( (String) document.get( "name" ), document );
+	}
+
+	@Override
+	public void save( String filename, Document document ) {
+		saveAll( Collections.singletonMap( filename, document ) );
+	}
+
+	/**
+	 * <p>Replaces all of the documents in one transaction, with one batch to remove
+	 * the old rows and one batch to insert the new rows.  This works the same on
+	 * every database, unlike the different forms of upsert.
+	 * </p>
+	 *
+	 * @throws SqlStorageException If the documents could not be saved.  None of them
+	 * 			were saved, so the caller, such as the WriteBehindQueue, can try again.
+	 */
+	@Override
+	public void saveAll( Map<String, Document> documents ) {
+		write( documents, document -> storage.getGson().toJson( document ) );
+	}
+
+	@Override
+	public <T> void save( String key, T value, TypeAdapter<T> adapter ) {
+		saveAll( Collections.singletonMap( key, value ), adapter );
+	}
+
+	/**
+	 * <p>The same as <code>saveAll(documents)</code>, but each row's JSON is written
+	 * straight from its object by the adapter.
+	 * </p>
+	 */
+	@Override
+	public <T> void saveAll( Map<String, T> values, TypeAdapter<T> adapter ) {
+		write( values, value -> toJson( value, adapter ) );
+	}
+
+	private <T> void write( Map<String, T> documents, Function<T, String> toJson ) {
+		if ( documents.isEmpty() ) {
+			return;
+		}
+
+		storage.transaction( "save " + documents.size() + " documents to " + name, connection -> {
+			try ( PreparedStatement delete = connection.prepareStatement(
+					"DELETE FROM " + SqlStorage.TABLE_DOCUMENTS +
+					" WHERE db_name = ? AND coll_name = ? AND doc_key = ?" );
+				  PreparedStatement insert = connection.prepareStatement(
+					"INSERT INTO " + SqlStorage.TABLE_DOCUMENTS +
+					" (db_name, coll_name, doc_key, data) VALUES (?, ?, ?, ?)" ) ) {
+
+				for ( Map.Entry<String, T> entry : documents.entrySet() ) {
+					delete.setString( 1, dbName );
+					delete.setString( 2, name );
+					delete.setString( 3, entry.getKey() );
+					delete.addBatch();
+
+					insert.setString( 1, dbName );
+					insert.setString( 2, name );
+					insert.setString( 3, entry.getKey() );
+					insert.setString( 4, toJson.apply( entry.getValue() ) );
+					insert.addBatch();
+				}
+
+				delete.executeBatch();
+				insert.executeBatch();
+			}
+			return true;
+		});
+	}
+
+	@Override
+	public boolean delete( String key ) {
+		return storage.execute( "delete " + key, false, connection -> {
+			try ( PreparedStatement ps = connection.prepareStatement(
+					"DELETE FROM " + SqlStorage.TABLE_DOCUMENTS +
+					" WHERE db_name = ? AND coll_name = ? AND doc_key = ?" ) ) {
+				ps.setString( 1, dbName );
+				ps.setString( 2, name );
+				ps.setString( 3, key );
+				return ps.executeUpdate() > 0;
+			}
+		});
+	}
+}
@@ -0,0 +1,180 @@
+package tech.mcprison.prison.sql;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import tech.mcprison.prison.output.Output;
+import tech.mcprison.prison.store.Collection;
+import tech.mcprison.prison.store.Database;
+
+/**
+ * <p>A database within the {@link SqlStorage}.  The collections are rows in the
+ * collections table, so an empty collection still exists.
+ * </p>
+ *
+ */
+public class SqlDatabase
+	implements Database
+{
+	private final SqlStorage storage;
+	private final String name;
+
+	private final Map<String, Collection> collectionMap;
+
+	public SqlDatabase( SqlStorage storage, String name ) {
+		this.storage = storage;
+		this.name = name;
+		this.collectionMap = new HashMap<>();
+
+		refresh();
+	}
+
+	/**
+	 * <p>Reloads the list of collections.
+	 * </p>
+	 */
+	public void refresh() {
+		List<String> names = storage.execute( "load the collections of " + name, new ArrayList<>(),
+				connection -> {
+			List<String> results = new ArrayList<>();
+
+			try ( PreparedStatement ps = connection.prepareStatement(
+					"SELECT coll_name FROM " + SqlStorage.TABLE_COLLECTIONS + " WHERE db_name = ?" ) ) {
+				ps.setString( 1, name );
+
+				try ( ResultSet rs = ps.executeQuery() ) {
+					while ( rs.next() ) {
+						results.add( rs.getString( 1 ) );
+					}
+				}
+			}
+			return results;
+		});
+
+		synchronized ( collectionMap ) {
+			collectionMap.clear();
+			for ( String collName : names ) {
+				collectionMap.put( collName, new SqlCollection( storage, name, collName ) );
+			}
+		}
+	}
+
+	/**
+	 * If the collection does not exist, then create it.
+	 *
+	 * @param name
+	 * @return The SqlCollection wrapped in an Optional
+	 */
+	@Override
+	public Optional<Collection> getCollection( String name ) {
+		Collection results;
+
+		synchronized ( collectionMap ) {
+			results = collectionMap.get( name );
+		}
+
+		if ( results == null && storage.isConnected() ) {
+			createCollection( name );
+
+			synchronized ( collectionMap ) {
+				results = collectionMap.get( name );
+			}
+		}
+
+		return Optional.ofNullable( results );
+	}
+
+	@Override
+	public boolean createCollection( String collName ) {
+		synchronized ( collectionMap ) {
+			if ( collectionMap.containsKey( collName ) ) {
+				Output.get().logWarn( "The attempt to create a new SqlCollection named " + collName +
+						" failed because it already exists in " + name + "." );
+				return false;
+			}
+		}
+
+		boolean results = storage.execute( "createCollection " + collName, false, connection -> {
+			try ( PreparedStatement ps = connection.prepareStatement(
+					"INSERT INTO " + SqlStorage.TABLE_COLLECTIONS + " (db_name, coll_name) VALUES (?, ?)" ) ) {
+				ps.setString( 1, name );
+				ps.setString( 2, collName );
+				return ps.executeUpdate() > 0;
+			}
+		});
+
+		if ( results ) {
+			synchronized ( collectionMap ) {
+				collectionMap.put( collName, new SqlCollection( storage, name, collName ) );
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * <p>Deletes the collection and all of its documents.  Unlike the file storage,
+	 * this cannot be undone.
+	 * </p>
+	 */
+	@Override
+	public boolean deleteCollection( String collName ) {
+		synchronized ( collectionMap ) {
+			if ( !collectionMap.containsKey( collName ) ) {
+				Output.get().logWarn( "The attempt to delete a SqlCollection named " + collName +
+						" failed because it does not exist in " + name + "." );
+				return false;
+			}
+		}
+
+		boolean results = false;
+		try {
+			results = storage.transaction( "deleteCollection " + collName, connection -> {
+				for ( String table : new String[] { SqlStorage.TABLE_DOCUMENTS, SqlStorage.TABLE_COLLECTIONS } ) {
+					try ( PreparedStatement ps = connection.prepareStatement(
+							"DELETE FROM " + table + " WHERE db_name = ? AND coll_name = ?" ) ) {
+						ps.setString( 1, name );
+						ps.setString( 2, collName );
+						ps.executeUpdate();
+					}
+				}
+				return true;
+			});
+		}
+		catch ( SqlStorageException e ) {
+			Output.get().logError( e.getMessage(), e );
+		}
+
+		if ( results ) {
+			synchronized ( collectionMap ) {
+				collectionMap.remove( collName );
+			}
+		}
+
+		return results;
+	}
+
+	@Override
+	public List<Collection> getCollections() {
+		synchronized ( collectionMap ) {
+			return new ArrayList<>( collectionMap.values() );
+		}
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public void dispose() {
+		synchronized ( collectionMap ) {
+			collectionMap.clear();
+		}
+	}
+}
@@ -0,0 +1,350 @@
+package tech.mcprison.prison.sql;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import tech.mcprison.prison.output.Output;
+import tech.mcprison.prison.store.Database;
+import tech.mcprison.prison.store.Storage;
+
+/**
+ * <p>Stores all of the databases, collections and documents in one SQL database,
+ * through JDBC.  The default is a SQLite file within the plugin's data directory,
+ * since the SQLite driver is bundled with Spigot, but any JDBC url may be used if
+ * its driver is available, such as H2.
+ * </p>
+ *
+ * <p>Each document is one row, keyed by its database, collection and name, so
+ * loading one document is an indexed lookup instead of opening a file, and there
+ * is only one file no matter how many players there are.  The documents are
+ * stored as the same JSON as the file storage, so they can be copied between the
+ * two without any changes.
+ * </p>
+ *
+ * <p>There is only one connection, and all access to it is synchronized upon this
+ * storage, since the writes happen on the background writer threads.
+ * </p>
+ *
+ */
+public class SqlStorage
+	implements Storage
+{
+	public static final String DEFAULT_DATABASE_FILE = "prison.db";
+
+	protected static final String TABLE_DATABASES = "prison_databases";
+	protected static final String TABLE_COLLECTIONS = "prison_collections";
+	protected static final String TABLE_DOCUMENTS = "prison_documents";
+
+	private final String url;
+	private Connection connection;
+
+	private final Map<String, Database> databaseMap;
+	private final Gson gson;
+
+	/**
+	 * <p>Work that is done with the connection.
+	 * </p>
+	 */
+	protected interface SqlTask<T> {
+		public T run( Connection connection ) throws SQLException;
+	}
+
+	/**
+	 * <p>Connects to the database and creates the tables if they do not exist.  If the
+	 * connection fails, then the error is logged and {@link #isConnected()} will
+	 * return false.
+	 * </p>
+	 *
+	 * @param url The JDBC url, such as <code>jdbc:sqlite:plugins/Prison/data_storage/prison.db</code>
+	 */
+	public SqlStorage( String url ) {
+		this.url = url;
+		this.databaseMap = new HashMap<>();
+		this.gson = new GsonBuilder().disableHtmlEscaping().create();
+
+		try {
+			this.connection = DriverManager.getConnection( url );
+
+			createTables();
+			refresh();
+		}
+		catch ( SQLException e ) {
+			Output.get().logError( "SqlStorage: Unable to connect to " + url +
+					". Check that the JDBC driver is available.", e );
+			close();
+		}
+	}
+
+	/**
+	 * @param dataDirectory The directory that the file storage uses.
+	 * @return The url of the SQLite database file within the directory.
+	 */
+	public static String getDefaultUrl( File dataDirectory ) {
+		return "jdbc:sqlite:" + new File( dataDirectory, DEFAULT_DATABASE_FILE ).getAbsolutePath();
+	}
+
+	private void createTables() throws SQLException {
+		try ( Statement statement = connection.createStatement() ) {
+			statement.executeUpdate( "CREATE TABLE IF NOT EXISTS " + TABLE_DATABASES + " (" +
+					"db_name VARCHAR(64) NOT NULL PRIMARY KEY)" );
+			statement.executeUpdate( "CREATE TABLE IF NOT EXISTS " + TABLE_COLLECTIONS + " (" +
+					"db_name VARCHAR(64) NOT NULL, " +
+					"coll_name VARCHAR(64) NOT NULL, " +
+					"PRIMARY KEY (db_name, coll_name))" );
+			statement.executeUpdate( "CREATE TABLE IF NOT EXISTS " + TABLE_DOCUMENTS + " (" +
+					"db_name VARCHAR(64) NOT NULL, " +
+					"coll_name VARCHAR(64) NOT NULL, " +
+					"doc_key VARCHAR(191) NOT NULL, " +
+					"data TEXT NOT NULL, " +
+					"PRIMARY KEY (db_name, coll_name, doc_key))" );
+		}
+	}
+
+	/**
+	 * <p>Reloads the list of databases.
+	 * </p>
+	 */
+	public void refresh() {
+		List<String> names = execute( "refresh", new ArrayList<>(), connection -> {
+			List<String> results = new ArrayList<>();
+
+			try ( Statement statement = connection.createStatement();
+					ResultSet rs = statement.executeQuery( "SELECT db_name FROM " + TABLE_DATABASES ) ) {
+				while ( rs.next() ) {
+					results.add( rs.getString( 1 ) );
+				}
+			}
+			return results;
+		});
+
+		synchronized ( this ) {
+			databaseMap.clear();
+			for ( String name : names ) {
+				databaseMap.put( name, new SqlDatabase( this, name ) );
+			}
+		}
+	}
+
+	@Override
+	public boolean isConnected() {
+		synchronized ( this ) {
+			try {
+				return connection != null && !connection.isClosed();
+			}
+			catch ( SQLException e ) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * If the database does not exist, then create it.
+	 *
+	 * @param name
+	 * @return The SqlDatabase wrapped in an Optional
+	 */
+	@Override
+	public Optional<Database> getDatabase( String name ) {
+		Database results;
+
+		synchronized ( this ) {
+			results = databaseMap.get( name );
+		}
+
+		if ( results == null && isConnected() ) {
+			createDatabase( name );
+
+			synchronized ( this ) {
+				results = databaseMap.get( name );
+			}
+		}
+
+		return Optional.ofNullable( results );
+	}
+
+	@Override
+	public boolean createDatabase( String name ) {
+		synchronized ( this ) {
+			if ( databaseMap.containsKey( name ) ) {
+				Output.get().logWarn( "The attempt to create a new SqlDatabase named " + name +
+						" failed because it already exists." );
+				return false;
+			}
+		}
+
+		boolean results = execute( "createDatabase " + name, false, connection -> {
+			try ( PreparedStatement ps = connection.prepareStatement(
+					"INSERT INTO " + TABLE_DATABASES + " (db_name) VALUES (?)" ) ) {
+				ps.setString( 1, name );
+				return ps.executeUpdate() > 0;
+			}
+		});
+
+		if ( results ) {
+			synchronized ( this ) {
+				databaseMap.put( name, new SqlDatabase( this, name ) );
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * <p>Deletes the database, along with all of its collections and documents.
+	 * Unlike the file storage, this cannot be undone.
+	 * </p>
+	 */
+	@Override
+	public boolean deleteDatabase( String name ) {
+		Database db;
+
+		synchronized ( this ) {
+			db = databaseMap.get( name );
+		}
+
+		if ( db == null ) {
+			Output.get().logWarn( "The attempt to delete a SqlDatabase named " + name +
+					" failed because it does not exist." );
+			return false;
+		}
+
+		boolean results = false;
+		try {
+			results = transaction( "deleteDatabase " + name, connection -> {
+				for ( String table : new String[] { TABLE_DOCUMENTS, TABLE_COLLECTIONS, TABLE_DATABASES } ) {
+					try ( PreparedStatement ps = connection.prepareStatement(
+							"DELETE FROM " + table + " WHERE db_name = ?" ) ) {
+						ps.setString( 1, name );
+						ps.executeUpdate();
+					}
+				}
+				return true;
+			});
+		}
+		catch ( SqlStorageException e ) {
+			Output.get().logError( e.getMessage(), e );
+		}
+
+		if ( results ) {
+			db.dispose();
+
+			synchronized ( this ) {
+				databaseMap.remove( name );
+			}
+		}
+
+		return results;
+	}
+
+	@Override
+	public List<Database> getDatabases() {
+		synchronized ( this ) {
+			return new ArrayList<>( databaseMap.values() );
+		}
+	}
+
+	/**
+	 * <p>Closes the connection.  This should be called when the plugin is disabled,
+	 * after all of the modules have saved their data.
+	 * </p>
+	 */
+	public void close() {
+		synchronized ( this ) {
+			if ( connection != null ) {
+				try {
+					connection.close();
+				}
+				catch ( SQLException e ) {
+					Output.get().logWarn( "SqlStorage: Failed to close the connection: " + e.getMessage() );
+				}
+				connection = null;
+			}
+		}
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	protected Gson getGson() {
+		return gson;
+	}
+
+	/**
+	 * <p>Runs the task with the connection.  If it fails, then the error is logged and
+	 * the failed value is returned.
+	 * </p>
+	 *
+	 * @param description Used in the error message.
+	 * @param failed The value to return if there is no connection, or the task fails.
+	 * @param task
+	 * @return The result of the task.
+	 */
+	protected synchronized <T> T execute( String description, T failed, SqlTask<T> task ) {
+		T results = failed;
+
+		if ( connection != null ) {
+			try {
+				results = task.run( connection );
+			}
+			catch ( SQLException e ) {
+				Output.get().logError( "SqlStorage: Failed to " + description + ".", e );
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * <p>Runs the task in one transaction, so either all of its changes are saved,
+	 * or none of them are.  Unlike {@link #execute(String, Object, SqlTask)}, a failure
+	 * is not only logged, since the caller must know that its changes were not saved.
+	 * </p>
+	 *
+	 * @param description Used in the error message.
+	 * @param task
+	 * @return The result of the task.
+	 * @throws SqlStorageException If there is no connection, or the task fails.  All
+	 * 			of its changes have been rolled back.
+	 */
+	protected synchronized <T> T transaction( String description, SqlTask<T> task ) {
+		if ( connection == null ) {
+			throw new SqlStorageException( "SqlStorage: Unable to " + description +
+					" since there is no connection to " + url + "." );
+		}
+
+		try {
+			boolean autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit( false );
+
+			try {
+				T results = task.run( connection );
+				connection.commit();
+				return results;
+			}
+			catch ( SQLException | RuntimeException e ) {
+				connection.rollback();
+				throw e;
+			}
+			finally {
+				connection.setAutoCommit( autoCommit );
+			}
+		}
+		catch ( SQLException e ) {
+			throw new SqlStorageException( "SqlStorage: Failed to " + description + ".", e );
+		}
+	}
+}
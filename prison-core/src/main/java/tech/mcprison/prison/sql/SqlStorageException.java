@@ -0,0 +1,21 @@
+package tech.mcprison.prison.sql;
+
+/**
+ * <p>Thrown when the changes to the {@link SqlStorage} could not be saved, so the
+ * caller knows that nothing was written, and can try again.
+ * </p>
+ *
+ */
+public class SqlStorageException
+	extends RuntimeException
+{
+	private static final long serialVersionUID = 1L;
+
+	public SqlStorageException( String message ) {
+		super( message );
+	}
+
+	public SqlStorageException( String message, Throwable cause ) {
+		super( message, cause );
+	}
+}
@@ -1,8 +1,13 @@
 package tech.mcprison.prison.store;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import com.google.gson.TypeAdapter;
+
 /**
  * Represents a collection of similar documents.
  * For example, if you have documents for each type of fruit, you'd put them in a "fruit" collection.
@@ -22,6 +27,25 @@ public interface Collection {
      */
     public List<Document> getAll();
 
+    /**
+     * The names of all of the documents in this collection.  Collections that can list 
+     * their documents without reading them should override this.  By default, the
+     * documents are read, and their names are taken from their "name" field, the same
+     * as {@link #save(Document)}.
+     *
+     * @return The names of all of the documents in this collection.
+     */
+    public default List<String> getKeys() {
+    	List<String> keys = new ArrayList<>();
+    	for ( Document document : getAll() ) {
+    		Object name = document.get( "name" );
+    		if ( name != null ) {
+    			keys.add( name.toString() );
+    		}
+    	}
+    	return keys;
+    }
+
     /**
      * Attempts to retrieve a document from the collection.
      *
@@ -34,6 +58,73 @@ public interface Collection {
     public void save(Document document);
     public void save(String filename, Document document);
     
+    /**
+     * Saves several documents at once.  Storage backends that support transactions
+     * write all of them together, which is much faster than saving them one at a time.
+     *
+     * @param documents The documents, by the name each one is saved under.
+     */
+    public default void saveAll(Map<String, Document> documents) {
+    	for ( Map.Entry<String, Document> entry : documents.entrySet() ) {
+    		save( entry.getKey(), entry.getValue() );
+    	}
+    }
+    
+    
+    /**
+     * Reads all of the documents directly as objects.  Collections that store JSON
+     * stream each one through the adapter, without building a {@link Document} first.
+     *
+     * @param adapter Reads the objects.
+     * @return The objects, skipping any that could not be read.
+     */
+    public default <T> List<T> getAll(TypeAdapter<T> adapter) {
+    	List<T> results = new ArrayList<>();
+    	for ( Document document : getAll() ) {
+    		T value = DocumentAdapters.fromDocument( document, adapter );
+    		if ( value != null ) {
+    			results.add( value );
+    		}
+    	}
+    	return results;
+    }
+    
+    /**
+     * Reads one document directly as an object.
+     *
+     * @param key The name of the document to retrieve.
+     * @param adapter Reads the object.
+     * @return An optional containing the object, or an empty optional if it does not exist.
+     */
+    public default <T> Optional<T> get(String key, TypeAdapter<T> adapter) {
+    	return get( key ).map( document -> DocumentAdapters.fromDocument( document, adapter ) );
+    }
+    
+    /**
+     * Writes the object directly with the adapter.
+     *
+     * @param key The name to save the object under.
+     * @param value The object to save.
+     * @param adapter Writes the object.
+     */
+    public default <T> void save(String key, T value, TypeAdapter<T> adapter) {
+    	save( key, DocumentAdapters.toDocument( value, adapter ) );
+    }
+    
+    /**
+     * Saves several objects at once.  See {@link #saveAll(Map)}.
+     *
+     * @param values The objects, by the name each one is saved under.
+     * @param adapter Writes the objects.
+     */
+    public default <T> void saveAll(Map<String, T> values, TypeAdapter<T> adapter) {
+    	Map<String, Document> documents = new LinkedHashMap<>();
+    	for ( Map.Entry<String, T> entry : values.entrySet() ) {
+    		documents.put( entry.getKey(), DocumentAdapters.toDocument( entry.getValue(), adapter ) );
+    	}
+    	saveAll( documents );
+    }
+    
     
     public boolean delete(String name);
     
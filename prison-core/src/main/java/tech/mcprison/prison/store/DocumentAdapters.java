@@ -0,0 +1,125 @@
+package tech.mcprison.prison.store;
+
+import java.io.IOException;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * <p>Helpers for the typed adapters that read and write the stored objects directly,
+ * without building a {@link Document} of hash maps first.
+ * </p>
+ *
+ * <p>The collections that can only store documents use {@link #toDocument(Object, TypeAdapter)}
+ * and {@link #fromDocument(Document, TypeAdapter)}, so every collection supports the
+ * adapters, even if it does not stream them.
+ * </p>
+ *
+ */
+public final class DocumentAdapters
+{
+	private static final Gson gson = new Gson();
+
+	private DocumentAdapters() {
+	}
+
+	/**
+	 * @param document
+	 * @param adapter
+	 * @return The object read from the document, or null if the document is null or empty.
+	 */
+	public static <T> T fromDocument( Document document, TypeAdapter<T> adapter ) {
+		T results = null;
+
+		if ( document != null && !document.isEmpty() ) {
+			results = adapter.fromJsonTree( gson.toJsonTree( document ) );
+		}
+
+		return results;
+	}
+
+	/**
+	 * <p>The numbers in the document are doubles, the same as a document that was
+	 * read from a file.
+	 * </p>
+	 *
+	 * @param value
+	 * @param adapter
+	 * @return The document for the object.
+	 */
+	public static <T> Document toDocument( T value, TypeAdapter<T> adapter ) {
+		return gson.fromJson( adapter.toJsonTree( value ), Document.class );
+	}
+
+	/**
+	 * <p>Reads an int.  The older files may have saved it as a double, such as
+	 * <code>1.0</code>, so it is rounded.  A value that is too large for an int is
+	 * clamped, so one bad value does not prevent the rest of the file from loading.
+	 * </p>
+	 *
+	 * @param in
+	 * @return The int, or 0 if it is null.
+	 * @throws IOException
+	 */
+	public static int nextInt( JsonReader in ) throws IOException {
+		long value = nextLong( in );
+
+		return (int) Math.max( Integer.MIN_VALUE, Math.min( Integer.MAX_VALUE, value ) );
+	}
+
+	/**
+	 * @param in
+	 * @return The long, rounded, or 0 if it is null.
+	 * @throws IOException
+	 */
+	public static long nextLong( JsonReader in ) throws IOException {
+		long results = 0;
+
+		if ( in.peek() == JsonToken.NULL ) {
+			in.nextNull();
+		}
+		else {
+			results = Math.round( in.nextDouble() );
+		}
+
+		return results;
+	}
+
+	/**
+	 * @param in
+	 * @return The double, or 0 if it is null.
+	 * @throws IOException
+	 */
+	public static double nextDouble( JsonReader in ) throws IOException {
+		double results = 0;
+
+		if ( in.peek() == JsonToken.NULL ) {
+			in.nextNull();
+		}
+		else {
+			results = in.nextDouble();
+		}
+
+		return results;
+	}
+
+	/**
+	 * @param in
+	 * @return The string, or null if it is null.
+	 * @throws IOException
+	 */
+	public static String nextString( JsonReader in ) throws IOException {
+		String results = null;
+
+		if ( in.peek() == JsonToken.NULL ) {
+			in.nextNull();
+		}
+		else {
+			results = in.nextString();
+		}
+
+		return results;
+	}
+}
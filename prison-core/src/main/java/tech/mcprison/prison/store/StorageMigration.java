@@ -0,0 +1,125 @@
+package tech.mcprison.prison.store;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import tech.mcprison.prison.output.Output;
+
+/**
+ * <p>Copies all of the databases, collections and documents from one storage to
+ * another, such as from the JSON files in to the SQL storage.  The documents keep
+ * the names that they were saved under, and any document that already exists in
+ * the target is replaced.  Nothing is removed from the source.
+ * </p>
+ *
+ * <p>The documents are written in batches, so a storage that supports transactions
+ * only has to commit once for each batch.
+ * </p>
+ *
+ */
+public class StorageMigration {
+
+	public static final int BATCH_SIZE = 500;
+
+	private final Storage source;
+	private final Storage target;
+
+	private int databases = 0;
+	private int collections = 0;
+	private int documents = 0;
+	private int failures = 0;
+
+	public StorageMigration( Storage source, Storage target ) {
+		super();
+
+		this.source = source;
+		this.target = target;
+	}
+
+	/**
+	 * <p>Copies everything.  This reads and writes every document, so it should not
+	 * be ran on the server's main thread.
+	 * </p>
+	 */
+	public void migrate() {
+		for ( Database sourceDb : source.getDatabases() ) {
+
+			Optional<Database> targetDb = target.getDatabase( sourceDb.getName() );
+			if ( !targetDb.isPresent() ) {
+				Output.get().logError( "StorageMigration: Unable to create the database " +
+						sourceDb.getName() + "." );
+				failures++;
+				continue;
+			}
+			databases++;
+
+			for ( Collection sourceColl : sourceDb.getCollections() ) {
+
+				Optional<Collection> targetColl = targetDb.get().getCollection( sourceColl.getName() );
+				if ( !targetColl.isPresent() ) {
+					Output.get().logError( "StorageMigration: Unable to create the collection " +
+							sourceDb.getName() + "." + sourceColl.getName() + "." );
+					failures++;
+					continue;
+				}
+				collections++;
+
+				copyCollection( sourceColl, targetColl.get() );
+			}
+		}
+	}
+
+	private void copyCollection( Collection sourceColl, Collection targetColl ) {
+		Map<String, Document> batch = new LinkedHashMap<>();
+
+		for ( String key : sourceColl.getKeys() ) {
+			Optional<Document> document = sourceColl.get( key );
+
+			if ( document.isPresent() ) {
+				batch.put( key, document.get() );
+			}
+			else {
+				failures++;
+			}
+
+			if ( batch.size() >= BATCH_SIZE ) {
+				saveBatch( targetColl, batch );
+				batch.clear();
+			}
+		}
+
+		if ( batch.size() > 0 ) {
+			saveBatch( targetColl, batch );
+		}
+	}
+
+	private void saveBatch( Collection targetColl, Map<String, Document> batch ) {
+		try {
+			targetColl.saveAll( batch );
+			documents += batch.size();
+		}
+		catch ( RuntimeException e ) {
+			Output.get().logError( "StorageMigration: Unable to save " + batch.size() +
+					" documents to " + targetColl.getName() + ".", e );
+			failures += batch.size();
+		}
+	}
+
+	public int getDatabases() {
+		return databases;
+	}
+	public int getCollections() {
+		return collections;
+	}
+	public int getDocuments() {
+		return documents;
+	}
+
+	/**
+	 * @return The number of databases, collections or documents that could not be read, created or saved.
+	 */
+	public int getFailures() {
+		return failures;
+	}
+}
@@ -0,0 +1,332 @@
+package tech.mcprison.prison.store;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.google.gson.TypeAdapter;
+
+import tech.mcprison.prison.output.Output;
+
+/**
+ * <p>Writes documents to a collection on a single background thread, so the
+ * caller never waits on the disk.  If a document is saved again before it has
+ * been written, then only the newest document is written, so a burst of
+ * changes to the same document only results in one write.
+ * </p>
+ *
+ * <p>Since there is only one writer thread, and the pending documents are kept
+ * in the order they were first saved, the writes for each key are always
+ * applied in order.  The documents must not be changed after they are saved,
+ * so they should be a copy of the live data.
+ * </p>
+ *
+ * <p>The queue may hold documents, or objects that are written directly by a
+ * type adapter, without building a document for each one.
+ * </p>
+ *
+ * <p>A document that fails to be written is put back in the queue, unless a newer
+ * document has been saved with the same key, and it is tried again with the next
+ * drain.
+ * </p>
+ *
+ * @param <T> The type that is saved, which is {@link Document} if there is no adapter.
+ */
+public class WriteBehindQueue<T> {
+
+	private final Collection collection;
+	private final String name;
+	private final TypeAdapter<T> adapter;
+
+	private final Map<String, T> pending;
+
+	/**
+	 * The documents that the writer has taken from the pending documents, but has
+	 * not finished writing.  They are still pending until they have been written,
+	 * so nothing reads the old file in the mean time.
+	 */
+	private final Map<String, T> inFlight;
+	private final ExecutorService writer;
+
+	/**
+	 * Only one drain may write at a time, so a drain on the calling thread after the
+	 * shutdown never overlaps with the writer thread, and each key stays in order.
+	 */
+	private final Object drainLock = new Object();
+
+	private boolean drainScheduled = false;
+	private boolean shutdown = false;
+
+	/**
+	 * <p>A queue of documents.
+	 * </p>
+	 *
+	 * @param collection
+	 * @param name
+	 */
+	public WriteBehindQueue( Collection collection, String name ) {
+		this( collection, name, null );
+	}
+
+	/**
+	 * @param collection
+	 * @param name
+	 * @param adapter Writes the objects, or null if they are documents.
+	 */
+	public WriteBehindQueue( Collection collection, String name, TypeAdapter<T> adapter ) {
+		super();
+
+		this.collection = collection;
+		this.name = name;
+		this.adapter = adapter;
+
+		this.pending = new LinkedHashMap<>();
+		this.inFlight = new LinkedHashMap<>();
+		this.writer = Executors.newSingleThreadExecutor( runnable -> {
+			Thread thread = new Thread( runnable, "Prison-" + name + "-writer" );
+			thread.setDaemon( true );
+			return thread;
+		});
+	}
+
+	/**
+	 * <p>Queues the document to be written.  If there is already a document waiting
+	 * to be written with the same key, then it is replaced.
+	 * </p>
+	 *
+	 * @param key
+	 * @param document A copy of the data, which must not be changed after this call.
+	 */
+	public void save( String key, T document ) {
+		synchronized ( pending ) {
+			pending.put( key, document );
+
+			if ( !shutdown ) {
+				if ( !drainScheduled ) {
+					drainScheduled = true;
+					writer.execute( this::drain );
+				}
+				return;
+			}
+		}
+
+		// Nothing can be lost after a shutdown, so write it now:
+		drain();
+	}
+
+	/**
+	 * <p>Schedules a drain if there are documents waiting to be written, and none
+	 * is scheduled, so the documents that failed to be written are tried again.
+	 * </p>
+	 */
+	public void retry() {
+		synchronized ( pending ) {
+			if ( shutdown || drainScheduled || pending.isEmpty() ) {
+				return;
+			}
+			drainScheduled = true;
+		}
+
+		try {
+			writer.execute( this::drain );
+		}
+		catch ( RejectedExecutionException e ) {
+			drain();
+		}
+	}
+
+	/**
+	 * @param key
+	 * @return True if the document is waiting to be written, or is being written.
+	 */
+	public boolean isPending( String key ) {
+		synchronized ( pending ) {
+			return pending.containsKey( key ) || inFlight.containsKey( key );
+		}
+	}
+
+	/**
+	 * <p>Gets the newest document that has been saved with the key, but has not
+	 * been written yet, so it can be used instead of reading the old file.  The
+	 * document must not be changed.
+	 * </p>
+	 *
+	 * @param key
+	 * @return The document, or empty if there is nothing waiting to be written.
+	 */
+	public Optional<T> getPending( String key ) {
+		synchronized ( pending ) {
+			T document = pending.get( key );
+			if ( document == null ) {
+				document = inFlight.get( key );
+			}
+			return Optional.ofNullable( document );
+		}
+	}
+
+	/**
+	 * @return The number of documents that are waiting to be written, which
+	 * 		does not include the documents that are being written.
+	 */
+	public int getPendingCount() {
+		synchronized ( pending ) {
+			return pending.size();
+		}
+	}
+
+	private void write( String key, T document ) {
+		if ( adapter == null ) {
+			collection.save( key, (Document) document );
+		}
+		else {
+			collection.save( key, document, adapter );
+		}
+	}
+
+	@SuppressWarnings( "unchecked" )
+	private void writeAll( Map<String, T> documents ) {
+		if ( adapter == null ) {
+			collection.saveAll( (Map<String, Document>) documents );
+		}
+		else {
+			collection.saveAll( documents, adapter );
+		}
+	}
+
+	/**
+	 * @return True if all of the documents were written.
+	 */
+	private boolean drain() {
+		synchronized ( drainLock ) {
+			Map<String, T> documents;
+
+			synchronized ( pending ) {
+				documents = new LinkedHashMap<>( pending );
+				inFlight.putAll( documents );
+				pending.clear();
+				drainScheduled = false;
+			}
+
+			if ( documents.isEmpty() ) {
+				return true;
+			}
+
+			Map<String, T> failed = writeDocuments( documents );
+
+			synchronized ( pending ) {
+				// A newer document, saved while these were written, is never replaced:
+				for ( Map.Entry<String, T> entry : failed.entrySet() ) {
+					pending.putIfAbsent( entry.getKey(), entry.getValue() );
+				}
+				inFlight.clear();
+			}
+
+			return failed.isEmpty();
+		}
+	}
+
+	/**
+	 * @return The documents that could not be written.
+	 */
+	private Map<String, T> writeDocuments( Map<String, T> documents ) {
+		Map<String, T> failed = new LinkedHashMap<>();
+
+		try {
+			// All of the documents are written together, in one transaction if the
+			// collection supports it:
+			writeAll( documents );
+			return failed;
+		}
+		catch ( Exception e ) {
+			Output.get().logWarn( String.format( "WriteBehindQueue %s: Failed to save %d documents " +
+					"together. Saving them one at a time. %s", name, documents.size(), e.getMessage() ) );
+		}
+
+		for ( Map.Entry<String, T> entry : documents.entrySet() ) {
+			try {
+				write( entry.getKey(), entry.getValue() );
+			}
+			catch ( Exception e ) {
+				Output.get().logError( String.format( "WriteBehindQueue %s: Failed to save %s. " +
+						"It will be tried again.", name, entry.getKey() ), e );
+				failed.put( entry.getKey(), entry.getValue() );
+			}
+		}
+
+		return failed;
+	}
+
+	/**
+	 * <p>Waits until all of the documents that have been saved so far have been
+	 * written.
+	 * </p>
+	 *
+	 * @param timeoutMs
+	 * @return True if all of the documents were written within the time limit.
+	 */
+	public boolean flush( long timeoutMs ) {
+		boolean results = false;
+
+		try {
+			Future<Boolean> future = writer.submit( this::drain );
+			results = future.get( timeoutMs, TimeUnit.MILLISECONDS );
+		}
+		catch ( RejectedExecutionException e ) {
+			// It has been shut down, so the documents are written on this thread:
+			results = drain();
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+		catch ( ExecutionException | TimeoutException e ) {
+			Output.get().logError( String.format( "WriteBehindQueue %s: Failed to flush. " +
+					"%d documents are waiting.", name, getPendingCount() ), e );
+		}
+
+		return results;
+	}
+
+	/**
+	 * <p>Writes all of the pending documents and then stops the writer thread.  If
+	 * the writer could not finish in time, then the remaining documents are
+	 * written on the calling thread so they are not lost.  Any documents that are
+	 * saved after this are written right away, on the thread that saves them.
+	 * </p>
+	 *
+	 * @param timeoutMs
+	 */
+	public void shutdown( long timeoutMs ) {
+		flush( timeoutMs );
+
+		synchronized ( pending ) {
+			shutdown = true;
+		}
+		writer.shutdown();
+
+		try {
+			// The writer is not interrupted, since that would stop the write that it
+			// is in the middle of, and those documents would be lost:
+			if ( !writer.awaitTermination( timeoutMs, TimeUnit.MILLISECONDS ) ) {
+				Output.get().logWarn( String.format( "WriteBehindQueue %s: The writer did not " +
+						"stop in time. Writing the %d remaining documents once it finishes.",
+						name, getPendingCount() ) );
+			}
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+
+		// If the writer is still writing, then this waits for it to finish first:
+		if ( !drain() ) {
+			Output.get().logError( String.format( "WriteBehindQueue %s: %d documents could not " +
+					"be written.", name, getPendingCount() ) );
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package tech.mcprison.prison.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import tech.mcprison.prison.PrisonAPI;
+import tech.mcprison.prison.output.Output;
+
+/**
+ * <p>Runs console commands with a limit on how many may run within one tick.
+ * The commands within the limit run right away, and the rest are queued and
+ * ran over the following ticks, in the order they were added.  This way a
+ * large number of commands, such as from a mass rankup, are spread over many
+ * ticks instead of stalling one.
+ * </p>
+ *
+ * <p>The commands are always ran on the server thread, since the queue is
+ * drained by a scheduled task.  When the queue is shut down, any commands that
+ * are still waiting are ran right away so they are not lost.
+ * </p>
+ *
+ */
+public class CommandDispatchQueue {
+
+	public static final int DEFAULT_COMMANDS_PER_TICK = 20;
+
+	private final String name;
+	private final int commandsPerTick;
+
+	private final Deque<String> pending;
+
+	private int dispatchedThisTick = 0;
+	private int taskId = -1;
+	private boolean shutdown = false;
+
+	public CommandDispatchQueue( String name, int commandsPerTick ) {
+		super();
+
+		this.name = name;
+		this.commandsPerTick = Math.max( 1, commandsPerTick );
+
+		this.pending = new ArrayDeque<>();
+	}
+
+	/**
+	 * <p>Runs the command now if there is room within this tick, and nothing is
+	 * waiting ahead of it, otherwise it is queued.
+	 * </p>
+	 *
+	 * @param command The console command, without the leading slash.
+	 */
+	public void dispatch( String command ) {
+		boolean runNow;
+
+		synchronized ( pending ) {
+			runNow = shutdown ||
+						pending.isEmpty() && dispatchedThisTick < commandsPerTick;
+
+			if ( runNow ) {
+				dispatchedThisTick++;
+			}
+			else {
+				pending.addLast( command );
+			}
+
+			if ( !shutdown ) {
+				scheduleNextTick();
+			}
+		}
+
+		if ( runNow ) {
+			run( command );
+		}
+	}
+
+	/**
+	 * <p>Must be called while holding the lock.  The next tick resets the count of
+	 * commands that were ran, and runs the next commands that are waiting.
+	 * </p>
+	 */
+	private void scheduleNextTick() {
+		if ( taskId == -1 ) {
+			taskId = PrisonAPI.getScheduler().runTaskLater( this::nextTick, 1 );
+		}
+	}
+
+	private void nextTick() {
+		int count = 0;
+
+		synchronized ( pending ) {
+			taskId = -1;
+			dispatchedThisTick = 0;
+		}
+
+		while ( count < commandsPerTick ) {
+			String command;
+
+			synchronized ( pending ) {
+				command = pending.pollFirst();
+
+				if ( command == null ) {
+					break;
+				}
+				dispatchedThisTick++;
+			}
+
+			run( command );
+			count++;
+		}
+
+		synchronized ( pending ) {
+			if ( !pending.isEmpty() && !shutdown ) {
+				scheduleNextTick();
+			}
+		}
+	}
+
+	private void run( String command ) {
+		try {
+			PrisonAPI.dispatchCommand( command );
+		}
+		catch ( Exception e ) {
+			Output.get().logError( String.format( "CommandDispatchQueue %s: Failed to run " +
+					"the command: %s", name, command ), e );
+		}
+	}
+
+	/**
+	 * @return The number of commands that are waiting to be ran.
+	 */
+	public int getPendingCount() {
+		synchronized ( pending ) {
+			return pending.size();
+		}
+	}
+
+	/**
+	 * <p>Stops the scheduled task and runs all of the commands that are waiting.
+	 * Any commands that are added after this are ran right away.
+	 * </p>
+	 */
+	public void shutdown() {
+		synchronized ( pending ) {
+			shutdown = true;
+
+			if ( taskId != -1 ) {
+				PrisonAPI.getScheduler().cancelTask( taskId );
+				taskId = -1;
+			}
+		}
+
+		String command;
+		while ( (command = pollPending()) != null ) {
+			run( command );
+		}
+	}
+
+	private String pollPending() {
+		synchronized ( pending ) {
+			return pending.pollFirst();
+		}
+	}
+}
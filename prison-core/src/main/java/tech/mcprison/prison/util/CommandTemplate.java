@@ -0,0 +1,127 @@
+package tech.mcprison.prison.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>A command that has been split, once, into its literal text and the slots
+ * for its placeholders, such as <code>{player}</code>.  Formatting the command
+ * then only has to join the parts together, instead of searching the whole
+ * command for each placeholder every time it is ran.
+ * </p>
+ *
+ * <p>Only the placeholders that the template was created with are slots.  Any
+ * other text within braces is kept as it is.
+ * </p>
+ *
+ */
+public class CommandTemplate {
+
+	private final String command;
+
+	/**
+	 * The literal text before each slot, with one more entry for the text after
+	 * the last slot.
+	 */
+	private final String[] literals;
+
+	/**
+	 * The index of the placeholder's value for each slot.
+	 */
+	private final int[] slots;
+
+	private final int literalLength;
+
+	/**
+	 * @param command The command, with its placeholders.
+	 * @param placeholders The placeholders, in the same order as the values that
+	 * 			will be passed to {@link #format(String...)}.
+	 */
+	public CommandTemplate( String command, String... placeholders ) {
+		super();
+
+		this.command = command;
+
+		List<String> literalList = new ArrayList<>();
+		List<Integer> slotList = new ArrayList<>();
+
+		int start = 0;
+		int i = 0;
+		while ( i < command.length() ) {
+			int match = matchPlaceholder( command, i, placeholders );
+
+			if ( match >= 0 ) {
+				literalList.add( command.substring( start, i ) );
+				slotList.add( match );
+
+				i += placeholders[match].length();
+				start = i;
+			}
+			else {
+				i++;
+			}
+		}
+		literalList.add( command.substring( start ) );
+
+		this.literals = literalList.toArray( new String[0] );
+		this.slots = new int[slotList.size()];
+
+		int length = 0;
+		for ( int s = 0; s < slots.length; s++ ) {
+			slots[s] = slotList.get( s );
+		}
+		for ( String literal : literals ) {
+			length += literal.length();
+		}
+		this.literalLength = length;
+	}
+
+	/**
+	 * @return The index of the longest placeholder that starts at the position,
+	 * 			or -1 if none do.
+	 */
+	private static int matchPlaceholder( String command, int position, String[] placeholders ) {
+		int results = -1;
+
+		for ( int p = 0; p < placeholders.length; p++ ) {
+			String placeholder = placeholders[p];
+
+			if ( placeholder != null && placeholder.length() > 0 &&
+					command.startsWith( placeholder, position ) &&
+					(results < 0 || placeholder.length() > placeholders[results].length()) ) {
+				results = p;
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * @param values The values of the placeholders, in the same order as the
+	 * 			placeholders were given when the template was created.
+	 * @return The command with the placeholders replaced.
+	 */
+	public String format( String... values ) {
+		if ( slots.length == 0 ) {
+			return command;
+		}
+
+		StringBuilder sb = new StringBuilder( literalLength + 16 * slots.length );
+
+		for ( int s = 0; s < slots.length; s++ ) {
+			sb.append( literals[s] ).append( values[slots[s]] );
+		}
+		sb.append( literals[slots.length] );
+
+		return sb.toString();
+	}
+
+	public String getCommand() {
+		return command;
+	}
+
+	@Override
+	public String toString() {
+		return command;
+	}
+}
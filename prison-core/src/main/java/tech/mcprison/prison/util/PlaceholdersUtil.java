@@ -9,8 +9,88 @@ public class PlaceholdersUtil {
 	public static final double TIME_HOUR = TIME_MINUTE * 60.0;
 	public static final double TIME_DAY = TIME_HOUR * 24.0;
 	
+	/**
+	 * <p>The number of whole seconds that have their formatted time cached.  
+	 * Mine reset intervals, and the time left before a reset, are almost always
+	 * within this range.  Longer times are formatted each time.
+	 * </p>
+	 */
+	public static final int TIME_CACHE_SECONDS = 3600;
+	
+	/**
+	 * <p>Each whole second has two entries, one for when the fractional seconds
+	 * round down, and one for when they round up.
+	 * </p>
+	 */
+	private static final String[] timeCache = new String[TIME_CACHE_SECONDS * 2];
+	
+	/**
+	 * <p>DecimalFormat is not thread safe, and it is expensive to create, so
+	 * each thread keeps its own copy.  The placeholders may be translated on 
+	 * the main thread and on the async chat threads.
+	 * </p>
+	 */
+	private static final ThreadLocal<DecimalFormat> decimalFormat = 
+						ThreadLocal.withInitial( () -> new DecimalFormat("#,##0.00") );
+	private static final ThreadLocal<DecimalFormat> integerFormat = 
+						ThreadLocal.withInitial( () -> new DecimalFormat("#,##0") );
+	private static final ThreadLocal<DecimalFormat> secondsFormat = 
+						ThreadLocal.withInitial( () -> new DecimalFormat("#0") );
+	
+	/**
+	 * @param amount
+	 * @return The amount formatted as <code>#,##0.00</code>
+	 */
+	public static String formatDecimal( double amount ) {
+		return decimalFormat.get().format( amount );
+	}
 	
+	/**
+	 * @param amount
+	 * @return The amount formatted as <code>#,##0</code>
+	 */
+	public static String formatInteger( long amount ) {
+		return integerFormat.get().format( amount );
+	}
+	
+	/**
+	 * <p>Formats the time, in seconds, in to days, hours, minutes, and seconds.
+	 * Times within the TIME_CACHE_SECONDS are only formatted once, and then 
+	 * they are served from the cache.  The seconds are rounded the same way
+	 * as the DecimalFormat, which is half even, so the cached values match
+	 * what would have been formatted.
+	 * </p>
+	 * 
+	 * @param time The time in seconds
+	 * @return
+	 */
 	public static String formattedTime( double time ) {
+		String results = null;
+		
+		if ( time >= 0 && time < TIME_CACHE_SECONDS ) {
+			int wholeSeconds = (int) time;
+			double fraction = time - wholeSeconds;
+			
+			int secondsInMinute = wholeSeconds % 60;
+			boolean roundUp = fraction > 0.5 || 
+							fraction == 0.5 && (secondsInMinute % 2) == 1;
+			
+			int index = wholeSeconds * 2 + (roundUp ? 1 : 0);
+			
+			results = timeCache[index];
+			if ( results == null ) {
+				results = buildFormattedTime( wholeSeconds + (roundUp ? 0.75 : 0.25) );
+				timeCache[index] = results;
+			}
+		}
+		else {
+			results = buildFormattedTime( time );
+		}
+		
+		return results;
+	}
+	
+	private static String buildFormattedTime( double time ) {
     	StringBuilder sb = new StringBuilder();
     	
     	long days = (long)(time / TIME_DAY);
@@ -36,8 +116,7 @@ public class PlaceholdersUtil {
     	
     	double secs = (double)(time / TIME_SECOND);
     	time -= (secs * TIME_SECOND);
-    	DecimalFormat dFmt = new DecimalFormat("#0");
-    	sb.append( dFmt.format( secs ));
+    	sb.append( secondsFormat.get().format( secs ));
     	sb.append( "s " );
     	
 		return sb.toString();
@@ -57,11 +136,9 @@ public class PlaceholdersUtil {
 	public static String formattedSize( double amount ) {
     	StringBuilder unit = new StringBuilder();
     	
-    	DecimalFormat dFmt = new DecimalFormat("#,##0.00");
-    	
     	amount = divBy1000( amount, unit, " kMGTPEZY" );
     	
-    	String results = dFmt.format( amount ) + " " + unit.toString();
+    	String results = formatDecimal( amount ) + " " + unit.toString();
 
 		return results.trim();
 	}
@@ -0,0 +1,174 @@
+package tech.mcprison.prison.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import tech.mcprison.prison.store.Document;
+
+public class FileCollectionTest
+{
+
+	@Test
+	public void testGetAllParallel() throws IOException
+	{
+		File collDir = Files.createTempDirectory( "prison-players" ).toFile();
+		FileCollection collection = new FileCollection( collDir );
+
+		int count = FileCollection.PARALLEL_LOAD_MIN_FILES * 4;
+		for ( int i = 0; i < count; i++ ) {
+			Document document = new Document();
+			document.put( "name", String.format( "player_%03d", i ) );
+			collection.save( document );
+		}
+
+		try {
+			FileCollection.setLoadThreads( 1 );
+			List<Document> sequential = collection.getAll();
+
+			FileCollection.setLoadThreads( 4 );
+			List<Document> parallel = collection.getAll();
+
+			assertEquals( count, parallel.size() );
+			assertEquals( sequential, parallel );
+
+			// Always in the order of the file names:
+			for ( int i = 0; i < count; i++ ) {
+				assertEquals( String.format( "player_%03d", i ), parallel.get( i ).get( "name" ) );
+			}
+		}
+		finally {
+			FileCollection.setLoadThreads( 0 );
+		}
+	}
+
+	@Test
+	public void testSharding() throws IOException
+	{
+		File collDir = Files.createTempDirectory( "prison-players" ).toFile();
+
+		FileCollection flat = new FileCollection( collDir );
+		for ( int i = 0; i < 20; i++ ) {
+			Document document = new Document();
+			document.put( "name", "player_" + i );
+			flat.save( document );
+		}
+		assertFalse( flat.isSharded() );
+
+		FileCollection sharded;
+		try {
+			FileCollection.setShardThreshold( 10 );
+			sharded = new FileCollection( collDir );
+		}
+		finally {
+			FileCollection.setShardThreshold( 0 );
+		}
+
+		assertTrue( sharded.isSharded() );
+		assertEquals( 0, collDir.list( (dir, name) -> name.endsWith( ".json" ) ).length );
+		assertTrue( new File( collDir, FileCollection.getShardPath( "player_7" ) + 
+				File.separator + "player_7.json" ).exists() );
+
+		assertEquals( 20, sharded.getKeys().size() );
+		assertEquals( 20, sharded.getAll().size() );
+		assertEquals( "player_7", sharded.get( "player_7" ).get().get( "name" ) );
+
+		Document document = new Document();
+		document.put( "name", "player_new" );
+		sharded.save( document );
+		assertTrue( sharded.delete( "player_3" ) );
+		assertEquals( 20, sharded.getKeys().size() );
+
+		// Stays sharded after the threshold is turned off:
+		assertTrue( new FileCollection( collDir ).isSharded() );
+		assertEquals( "player_new", new FileCollection( collDir ).get( "player_new" ).get().get( "name" ) );
+	}
+
+	@Test
+	public void testShardingKeepsNewerFile() throws IOException
+	{
+		File collDir = Files.createTempDirectory( "prison-players" ).toFile();
+		Files.createFile( new File( collDir, FileCollection.SHARDED_MARKER_FILE ).toPath() );
+
+		FileCollection sharded = new FileCollection( collDir );
+		Document document = new Document();
+		document.put( "name", "player_1" );
+		document.put( "value", "new" );
+		sharded.save( document );
+
+		// An out of date copy that was left in the collection directory, such as 
+		// by an older version:
+		Files.write( new File( collDir, "player_1.json" ).toPath(), 
+				"{\"name\":\"player_1\",\"value\":\"old\"}".getBytes( StandardCharsets.UTF_8 ) );
+
+		assertEquals( 1, sharded.getKeys().size() );
+		assertEquals( 1, sharded.getAll().size() );
+
+		FileCollection reloaded = new FileCollection( collDir );
+		assertFalse( new File( collDir, "player_1.json" ).exists() );
+		assertEquals( "new", reloaded.get( "player_1" ).get().get( "value" ) );
+		assertEquals( 1, reloaded.getAll().size() );
+	}
+
+	/**
+	 * Reads and writes only the name of the document.
+	 */
+	private static class NameAdapter extends TypeAdapter<String> {
+		@Override
+		public void write( JsonWriter out, String name ) throws IOException {
+			out.beginObject().name( "name" ).value( name ).endObject();
+		}
+
+		@Override
+		public String read( JsonReader in ) throws IOException {
+			String name = null;
+			in.beginObject();
+			while ( in.hasNext() ) {
+				if ( "name".equals( in.nextName() ) ) {
+					name = in.nextString();
+				}
+				else {
+					in.skipValue();
+				}
+			}
+			in.endObject();
+			return name;
+		}
+	}
+
+	@Test
+	public void testTypeAdapter() throws IOException
+	{
+		File collDir = Files.createTempDirectory( "prison-players" ).toFile();
+		FileCollection collection = new FileCollection( collDir );
+		NameAdapter adapter = new NameAdapter();
+
+		Document document = new Document();
+		document.put( "name", "player_1" );
+		document.put( "rank", 3 );
+		collection.save( document );
+		collection.save( "player_2", "player_2", adapter );
+
+		assertEquals( "player_1", collection.get( "player_1", adapter ).get() );
+		assertEquals( "player_2", collection.get( "player_2" ).get().get( "name" ) );
+		assertFalse( collection.get( "player_3", adapter ).isPresent() );
+
+		// A file that cannot be read is skipped:
+		Files.write( new File( collDir, "player_3.json" ).toPath(), "[ 1, 2 ]".getBytes() );
+
+		assertEquals( Arrays.asList( "player_1", "player_2" ), collection.getAll( adapter ) );
+	}
+}
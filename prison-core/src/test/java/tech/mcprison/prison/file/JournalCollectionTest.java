@@ -0,0 +1,132 @@
+package tech.mcprison.prison.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import tech.mcprison.prison.store.Document;
+
+public class JournalCollectionTest
+{
+
+	private Document newPlayer( String name, double rank ) {
+		Map<String, Object> ranks = new HashMap<>();
+		ranks.put( "default", rank );
+
+		Document document = new Document();
+		document.put( "name", name );
+		document.put( "ranks", ranks );
+		return document;
+	}
+
+	private List<String> readJournal( File collDir ) throws IOException {
+		File[] segments = new File( collDir, JournalCollection.JOURNAL_DIRECTORY ).listFiles();
+		assertEquals( 1, segments.length );
+		return Files.readAllLines( segments[0].toPath() );
+	}
+
+	@Test
+	public void testJournal() throws IOException
+	{
+		File collDir = Files.createTempDirectory( "prison-players" ).toFile();
+		FileCollection files = new FileCollection( collDir );
+		files.save( "player_1", newPlayer( "player_1", 1 ) );
+
+		JournalCollection journal = new JournalCollection( files );
+
+		Document changed = newPlayer( "player_1", 2 );
+		journal.save( "player_1", changed );
+		journal.save( "player_2", newPlayer( "player_2", 1 ) );
+		assertTrue( journal.flush( 5000 ) );
+
+		// Only the changed field is in the journal for player_1:
+		List<String> records = readJournal( collDir );
+		assertEquals( 2, records.size() );
+		assertFalse( records.get( 0 ).contains( "name" ) );
+		assertTrue( records.get( 0 ).contains( "ranks" ) );
+
+		// The journal has the changes, but the files do not yet:
+		assertEquals( 2d, ((Map<?, ?>) journal.get( "player_1" ).get().get( "ranks" )).get( "default" ) );
+		assertEquals( 1d, ((Map<?, ?>) files.get( "player_1" ).get().get( "ranks" )).get( "default" ) );
+		assertEquals( 2, journal.getKeys().size() );
+		assertEquals( 2, journal.getAll().size() );
+
+		assertTrue( journal.delete( "player_2" ) );
+		assertFalse( journal.get( "player_2" ).isPresent() );
+		assertEquals( 1, journal.getKeys().size() );
+
+		JournalCollection.closeAll();
+
+		assertEquals( 2d, ((Map<?, ?>) files.get( "player_1" ).get().get( "ranks" )).get( "default" ) );
+		assertFalse( files.contains( "player_2" ) );
+		assertEquals( 0, new File( collDir, JournalCollection.JOURNAL_DIRECTORY ).list().length );
+	}
+
+	@Test
+	public void testReplay() throws IOException
+	{
+		File collDir = Files.createTempDirectory( "prison-players" ).toFile();
+		FileCollection files = new FileCollection( collDir );
+
+		JournalCollection journal = new JournalCollection( files );
+		journal.save( "player_1", newPlayer( "player_1", 1 ) );
+		journal.save( "player_1", newPlayer( "player_1", 3 ) );
+		assertTrue( journal.flush( 5000 ) );
+
+		// A record that was only partly written when the server stopped:
+		File segment = new File( collDir, JournalCollection.JOURNAL_DIRECTORY ).listFiles()[0];
+		Files.write( segment.toPath(), "{\"k\":\"player_1\",\"s\":{\"ra".getBytes(),
+				java.nio.file.StandardOpenOption.APPEND );
+
+		assertFalse( files.contains( "player_1" ) );
+
+		// Loading the collection again, without closing it, replays the journal in to the files:
+		new JournalCollection( new FileCollection( collDir ) );
+
+		assertEquals( 3d, ((Map<?, ?>) files.get( "player_1" ).get().get( "ranks" )).get( "default" ) );
+
+		JournalCollection.closeAll();
+	}
+
+	@Test
+	public void testCompactFailureKeepsJournal() throws IOException
+	{
+		File collDir = Files.createTempDirectory( "prison-players" ).toFile();
+
+		JournalCollection journal = new JournalCollection( new FileCollection( collDir ) );
+		journal.save( "player_1", newPlayer( "player_1", 4 ) );
+		assertTrue( journal.flush( 5000 ) );
+
+		// A directory, that is not empty, where the file must be saved:
+		File blocked = new File( collDir, "player_1.json" );
+		assertTrue( new File( blocked, "blocked" ).mkdirs() );
+
+		JournalCollection.closeAll();
+
+		// The snapshot could not be saved, so the journal still has the change:
+		File[] segments = new File( collDir, JournalCollection.JOURNAL_DIRECTORY ).listFiles();
+		assertTrue( segments.length > 0 );
+		Arrays.sort( segments );
+		assertTrue( new String( Files.readAllBytes( segments[0].toPath() ) ).contains( "player_1" ) );
+
+		new File( blocked, "blocked" ).delete();
+		blocked.delete();
+
+		FileCollection files = new FileCollection( collDir );
+		new JournalCollection( files );
+
+		assertEquals( 4d, ((Map<?, ?>) files.get( "player_1" ).get().get( "ranks" )).get( "default" ) );
+
+		JournalCollection.closeAll();
+	}
+}
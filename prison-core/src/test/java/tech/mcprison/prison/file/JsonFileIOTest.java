@@ -0,0 +1,112 @@
+package tech.mcprison.prison.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import tech.mcprison.prison.store.Document;
+
+public class JsonFileIOTest
+{
+
+	private Document newDocument( double value ) {
+		Document document = new Document();
+		document.put( "name", "test" );
+		document.put( "value", value );
+		return document;
+	}
+
+	@Test
+	public void testSaveReplaces() throws IOException
+	{
+		File dir = Files.createTempDirectory( "prison-json" ).toFile();
+		File file = new File( dir, "test.json" );
+
+		JsonFileIO jsonFileIO = new JsonFileIO( null, null );
+
+		try {
+			for ( FileIO.SyncPolicy policy : FileIO.SyncPolicy.values() ) {
+				FileIO.setSyncPolicy( policy );
+
+				jsonFileIO.saveJsonFile( file, newDocument( 1 ) );
+				jsonFileIO.saveJsonFile( file, newDocument( 2 ) );
+
+				Document loaded = (Document) jsonFileIO.readJsonFile( file, new Document() );
+				assertEquals( 2d, loaded.get( "value" ) );
+			}
+		}
+		finally {
+			FileIO.setSyncPolicy( FileIO.SyncPolicy.NONE );
+		}
+
+		// Only the file remains, without any temp files:
+		assertEquals( 1, dir.list().length );
+		assertTrue( new String( Files.readAllBytes( file.toPath() ) ).contains( "\n" ) );
+	}
+
+	@Test
+	public void testCompact() throws IOException
+	{
+		File file = new File( Files.createTempDirectory( "prison-json" ).toFile(), "test.json" );
+
+		try {
+			JsonFileIO.setCompact( true );
+			new JsonFileIO( null, null ).saveJsonFile( file, newDocument( 3 ) );
+		}
+		finally {
+			JsonFileIO.setCompact( false );
+		}
+
+		assertFalse( new String( Files.readAllBytes( file.toPath() ) ).contains( "\n" ) );
+
+		// Either format may be read:
+		Document loaded = (Document) new JsonFileIO( null, null ).readJsonFile( file, new Document() );
+		assertEquals( 3d, loaded.get( "value" ) );
+	}
+
+	@Test
+	public void testSaveKeepsDefaultPermissions() throws IOException
+	{
+		File dir = Files.createTempDirectory( "prison-json" ).toFile();
+		if ( !Files.getFileStore( dir.toPath() ).supportsFileAttributeView( "posix" ) ) {
+			return;
+		}
+
+		// A file created the normal way has the permissions of the umask, which
+		// are usually readable by everyone, unlike a temp file:
+		File plain = new File( dir, "plain.json" );
+		Files.createFile( plain.toPath() );
+
+		File file = new File( dir, "test.json" );
+		new JsonFileIO( null, null ).saveJsonFile( file, newDocument( 4 ) );
+
+		assertEquals( Files.getPosixFilePermissions( plain.toPath() ),
+				Files.getPosixFilePermissions( file.toPath() ) );
+	}
+
+	@Test
+	public void testReadsInvalidBytes() throws IOException
+	{
+		File file = new File( Files.createTempDirectory( "prison-json" ).toFile(), "test.json" );
+
+		// A byte that is not valid in the charset is replaced instead of failing the load:
+		byte[] start = "{ \"name\": \"a".getBytes( Charset.defaultCharset() );
+		byte[] end = "b\", \"value\": 5 }".getBytes( Charset.defaultCharset() );
+		byte[] bytes = new byte[start.length + 1 + end.length];
+		System.arraycopy( start, 0, bytes, 0, start.length );
+		bytes[start.length] = (byte) 0xFF;
+		System.arraycopy( end, 0, bytes, start.length + 1, end.length );
+		Files.write( file.toPath(), bytes );
+
+		Document loaded = (Document) new JsonFileIO( null, null ).readJsonFile( file, new Document() );
+		assertEquals( 5d, loaded.get( "value" ) );
+		assertEquals( "a\uFFFDb", loaded.get( "name" ) );
+	}
+}
@@ -0,0 +1,106 @@
+package tech.mcprison.prison.integration;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.junit.Test;
+
+import tech.mcprison.prison.integration.IntegrationManager.PlaceHolderFlags;
+import tech.mcprison.prison.integration.IntegrationManager.PrisonPlaceHolders;
+
+public class PlaceHolderKeyParserTest
+{
+
+	private PlaceHolderKeyParser getMinesParser() {
+		PlaceHolderKeyParser parser = new PlaceHolderKeyParser();
+		parser.add( PrisonPlaceHolders.getTypes( PlaceHolderFlags.MINES ),
+				IntegrationManager.PRISON_PLACEHOLDER_MINENAME_SUFFIX );
+		parser.add( PrisonPlaceHolders.getTypes( PlaceHolderFlags.PLAYERMINES ), null );
+		return parser;
+	}
+
+	@Test
+	public void testMines()
+	{
+		PlaceHolderKeyParser parser = getMinesParser();
+		Predicate<String> mines = name -> "a".equalsIgnoreCase( name ) || "bar_b".equalsIgnoreCase( name );
+
+		PlaceHolderKey key = parser.parse( "prison_mines_name_a", mines );
+		assertEquals( PrisonPlaceHolders.prison_mines_name_minename, key.getPlaceholder() );
+		assertEquals( "a", key.getData() );
+
+		// Case-insensitive, and the prefix is optional:
+		key = parser.parse( "Mines_Name_A", mines );
+		assertEquals( PrisonPlaceHolders.prison_mines_name_minename, key.getPlaceholder() );
+		assertEquals( "prison_mines_name_a", key.getKey() );
+		assertEquals( "A", key.getData() );
+
+		// The longest stem is used first:
+		key = parser.parse( "prison_mines_timeleft_bar_a", mines );
+		assertEquals( PrisonPlaceHolders.prison_mines_timeleft_bar_minename, key.getPlaceholder() );
+		assertEquals( "a", key.getData() );
+
+		// Unless the name is not valid:
+		key = parser.parse( "prison_mines_timeleft_bar_b", mines );
+		assertEquals( PrisonPlaceHolders.prison_mines_timeleft_minename, key.getPlaceholder() );
+		assertEquals( "bar_b", key.getData() );
+
+		assertNull( parser.parse( "prison_mines_name_c", mines ) );
+		assertNull( parser.parse( "prison_mines_name_", mines ) );
+		assertNull( parser.parse( "prison_unknown", mines ) );
+		assertNull( parser.parse( "", mines ) );
+
+		key = parser.parse( "prison_mn_pm", mines );
+		assertEquals( PrisonPlaceHolders.prison_mn_pm, key.getPlaceholder() );
+		assertNull( key.getData() );
+	}
+
+	@Test
+	public void testRegistrations()
+	{
+		PlaceHolderKeyParser parser = getMinesParser();
+		Map<String, PrisonPlaceHolders> registrations = parser.getRegistrations();
+
+		// The mine placeholders are registered once, as a wildcard:
+		assertEquals( PrisonPlaceHolders.prison_mines_name_minename,
+				registrations.get( "prison_mines_name_*" ) );
+		assertEquals( PrisonPlaceHolders.prison_mines_timeleft_bar_minename,
+				registrations.get( "prison_mines_timeleft_bar_*" ) );
+		assertFalse( registrations.containsKey( "prison_mines_name_minename" ) );
+
+		// The player mines placeholders do not have a name:
+		assertEquals( PrisonPlaceHolders.prison_mn_pm, registrations.get( "prison_mn_pm" ) );
+
+		int expected = 0;
+		for ( PrisonPlaceHolders ph : parser.getPlaceHolders() ) {
+			if ( !ph.isSuppressed() ) {
+				expected++;
+			}
+			else {
+				assertFalse( registrations.containsValue( ph ) );
+			}
+		}
+		assertEquals( expected, registrations.size() );
+		for ( String key : registrations.keySet() ) {
+			assertTrue( key, key.endsWith( "*" ) || !key.contains( "*" ) );
+		}
+	}
+
+	@Test
+	public void testGetPlaceHolderKey()
+	{
+		PlaceHolderKey key = PlaceHolderKeyParser.getPlaceHolderKey(
+				PrisonPlaceHolders.prison_mines_name_minename,
+				IntegrationManager.PRISON_PLACEHOLDER_MINENAME_SUFFIX, "Alpha" );
+		assertEquals( "prison_mines_name_alpha", key.getKey() );
+		assertEquals( "Alpha", key.getData() );
+		assertEquals( "prison_mn_alpha", key.getAliasName() );
+
+		key = PlaceHolderKeyParser.getPlaceHolderKey( PrisonPlaceHolders.prison_mn_pm, null, null );
+		assertEquals( "prison_mn_pm", key.getKey() );
+		assertNull( key.getData() );
+		assertNull( key.getAliasName() );
+	}
+}
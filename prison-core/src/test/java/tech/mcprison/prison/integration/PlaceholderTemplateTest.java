@@ -0,0 +1,32 @@
+package tech.mcprison.prison.integration;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class PlaceholderTemplateTest
+{
+
+	@Test
+	public void test()
+	{
+		String text = "{prison_rank} {prison_unknown} {other} {{prison_mn_a} {prison_";
+
+		PlaceholderTemplate template = PlaceholderTemplate.compile( text );
+		assertSame( template, PlaceholderTemplate.compile( text ) );
+
+		assertArrayEquals( new String[] { "prison_rank", "prison_unknown", "prison_mn_a" },
+				template.getPlaceholders() );
+
+		String results = template.render(
+				identifier -> identifier.equals( "prison_unknown" ) ? null : identifier.toUpperCase() );
+
+		assertEquals( "PRISON_RANK {prison_unknown} {other} {PRISON_MN_A {prison_", results );
+
+		assertFalse( PlaceholderTemplate.compile( "no {placeholders}" ).hasPlaceholders() );
+		assertEquals( "no {placeholders}",
+				PlaceholderTemplate.translate( "no {placeholders}", identifier -> "x" ) );
+		assertEquals( "", PlaceholderTemplate.translate( "", identifier -> "x" ) );
+		assertNull( PlaceholderTemplate.compile( null ) );
+	}
+}
@@ -0,0 +1,70 @@
+package tech.mcprison.prison.integration;
+
+import static org.junit.Assert.*;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import tech.mcprison.prison.integration.IntegrationManager.PrisonPlaceHolders;
+
+public class PlaceholderValueCacheTest
+{
+
+	@Test
+	public void test()
+	{
+		PlaceholderValueCache cache = new PlaceholderValueCache();
+		AtomicInteger calls = new AtomicInteger();
+
+		UUID player = UUID.randomUUID();
+		PlaceHolderKey rank = new PlaceHolderKey( "prison_rank", PrisonPlaceHolders.prison_rank );
+		PlaceHolderKey mine = new PlaceHolderKey( "prison_mines_name_a",
+				PrisonPlaceHolders.prison_mines_name_minename, "a" );
+
+		assertEquals( "1", cache.get( player, rank, 60000, key -> "" + calls.incrementAndGet() ) );
+		assertEquals( "1", cache.get( player, rank, 60000, key -> "" + calls.incrementAndGet() ) );
+		assertEquals( "2", cache.get( null, mine, 60000, key -> "" + calls.incrementAndGet() ) );
+
+		// Expired:
+		assertEquals( "3", cache.get( null, rank, -1, key -> "" + calls.incrementAndGet() ) );
+		assertEquals( "4", cache.get( null, rank, -1, key -> "" + calls.incrementAndGet() ) );
+
+		cache.invalidatePlayer( player );
+		assertEquals( "5", cache.get( player, rank, 60000, key -> "" + calls.incrementAndGet() ) );
+
+		cache.invalidate( key -> "a".equals( key.getData() ) );
+		assertEquals( "6", cache.get( null, mine, 60000, key -> "" + calls.incrementAndGet() ) );
+		assertEquals( "5", cache.get( player, rank, 60000, key -> "" + calls.incrementAndGet() ) );
+
+		cache.invalidateAll();
+		assertEquals( "7", cache.get( player, rank, 60000, key -> "" + calls.incrementAndGet() ) );
+	}
+
+	@Test
+	public void testTtl()
+	{
+		PlaceholderValueCache cache = new PlaceholderValueCache();
+		AtomicInteger calls = new AtomicInteger();
+
+		UUID player = UUID.randomUUID();
+		PlaceHolderKey rank = new PlaceHolderKey( "prison_rank", PrisonPlaceHolders.prison_rank );
+		PlaceHolderKey balance = new PlaceHolderKey( "prison_pb", PrisonPlaceHolders.prison_pb );
+		PlaceHolderKey mine = new PlaceHolderKey( "prison_mines_name_a",
+				PrisonPlaceHolders.prison_mines_name_minename, "a" );
+
+		// The aliases use the same time to live:
+		assertEquals( PlaceholderValueCache.TTL_STATIC_MS, PlaceholderValueCache.getTtl( rank ) );
+		assertEquals( PlaceholderValueCache.TTL_STATIC_MS, PlaceholderValueCache.getTtl( mine ) );
+		assertEquals( PlaceholderValueCache.TTL_DYNAMIC_MS, PlaceholderValueCache.getTtl( balance ) );
+
+		assertEquals( "1", cache.get( player, rank, key -> "" + calls.incrementAndGet() ) );
+		assertEquals( "2", cache.get( player, balance, key -> "" + calls.incrementAndGet() ) );
+
+		// Only the static values are removed, such as when a rank's cost is changed:
+		cache.invalidate( PlaceholderValueCache::isStatic );
+		assertEquals( "3", cache.get( player, rank, key -> "" + calls.incrementAndGet() ) );
+		assertEquals( "2", cache.get( player, balance, key -> "" + calls.incrementAndGet() ) );
+	}
+}
@@ -0,0 +1,117 @@
+package tech.mcprison.prison.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import tech.mcprison.prison.store.Collection;
+import tech.mcprison.prison.store.Document;
+import tech.mcprison.prison.store.WriteBehindQueue;
+
+public class SqlStorageTest
+{
+	private static int count = 0;
+
+	private SqlStorage storage;
+	private Collection players;
+
+	@Before
+	public void setUp()
+	{
+		// Each test has its own in memory database, which lasts until it is closed:
+		storage = new SqlStorage( "jdbc:h2:mem:prison" + (count++) + ";DB_CLOSE_DELAY=-1" );
+		assertTrue( storage.isConnected() );
+
+		storage.createDatabase( "ranks" );
+		storage.getDatabase( "ranks" ).get().createCollection( "players" );
+		players = storage.getDatabase( "ranks" ).get().getCollection( "players" ).get();
+	}
+
+	@After
+	public void tearDown()
+	{
+		storage.close();
+	}
+
+	private Document newDocument( String name, double value ) {
+		Document document = new Document();
+		document.put( "name", name );
+		document.put( "value", value );
+		return document;
+	}
+
+	private String tooLongKey() {
+		char[] key = new char[250];
+		Arrays.fill( key, 'x' );
+		return new String( key );
+	}
+
+	@Test
+	public void testSaveAndGet()
+	{
+		players.save( newDocument( "player_1", 1 ) );
+		players.save( "player_2", newDocument( "player_2", 2 ) );
+		players.save( "player_1", newDocument( "player_1", 3 ) );
+
+		assertEquals( Arrays.asList( "player_1", "player_2" ), players.getKeys() );
+		assertEquals( 3d, players.get( "player_1" ).get().get( "value" ) );
+		assertEquals( 2, players.getAll().size() );
+
+		assertTrue( players.delete( "player_2" ) );
+		assertFalse( players.get( "player_2" ).isPresent() );
+	}
+
+	@Test
+	public void testFailedBatchSavesNothing()
+	{
+		players.save( "player_1", newDocument( "player_1", 1 ) );
+
+		Map<String, Document> documents = new LinkedHashMap<>();
+		documents.put( "player_1", newDocument( "player_1", 2 ) );
+		documents.put( tooLongKey(), newDocument( "bad", 3 ) );
+
+		try {
+			players.saveAll( documents );
+			fail( "The batch should have failed." );
+		}
+		catch ( SqlStorageException e ) {
+			// expected
+		}
+
+		// The whole batch was rolled back:
+		assertEquals( 1d, players.get( "player_1" ).get().get( "value" ) );
+		assertEquals( 1, players.getKeys().size() );
+	}
+
+	@Test( expected = SqlStorageException.class )
+	public void testSaveWithoutConnection()
+	{
+		storage.close();
+		players.save( "player_1", newDocument( "player_1", 1 ) );
+	}
+
+	@Test
+	public void testWriteBehindQueueFallback()
+	{
+		WriteBehindQueue<Document> queue = new WriteBehindQueue<>( players, "test" );
+
+		// The batch fails on the bad key, so the queue saves them one at a time,
+		// and only the bad one is lost:
+		queue.save( "player_1", newDocument( "player_1", 1 ) );
+		queue.save( tooLongKey(), newDocument( "bad", 2 ) );
+		queue.save( "player_2", newDocument( "player_2", 3 ) );
+		queue.shutdown( 5000 );
+
+		assertEquals( Arrays.asList( "player_1", "player_2" ), players.getKeys() );
+		assertEquals( 3d, players.get( "player_2" ).get().get( "value" ) );
+	}
+}
@@ -0,0 +1,82 @@
+package tech.mcprison.prison.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import tech.mcprison.prison.file.FileStorage;
+import tech.mcprison.prison.sql.SqlStorage;
+
+public class StorageMigrationTest
+{
+
+	@Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private Document newDocument( String name, double value ) {
+		Document document = new Document();
+		document.put( "name", name );
+		document.put( "value", value );
+		return document;
+	}
+
+	private FileStorage newSource() throws IOException {
+		FileStorage source = new FileStorage( temporaryFolder.newFolder( "source" ) );
+		Collection players = source.getDatabase( "ranks" ).get().getCollection( "players" ).get();
+		for ( int i = 0; i < StorageMigration.BATCH_SIZE + 10; i++ ) {
+			players.save( "player_" + i, newDocument( "player_" + i, i ) );
+		}
+		source.getDatabase( "mines" ).get().getCollection( "mines" ).get()
+				.save( newDocument( "a", 1 ) );
+		return source;
+	}
+
+	private void assertMigrated( StorageMigration migration, Storage target ) {
+		assertEquals( 2, migration.getDatabases() );
+		assertEquals( 2, migration.getCollections() );
+		assertEquals( StorageMigration.BATCH_SIZE + 11, migration.getDocuments() );
+		assertEquals( 0, migration.getFailures() );
+
+		Collection copied = target.getDatabase( "ranks" ).get().getCollection( "players" ).get();
+		assertEquals( StorageMigration.BATCH_SIZE + 10, copied.getKeys().size() );
+		assertTrue( copied.get( "player_7" ).isPresent() );
+		assertEquals( 7d, copied.get( "player_7" ).get().get( "value" ) );
+
+		assertEquals( 1d, target.getDatabase( "mines" ).get().getCollection( "mines" ).get()
+				.get( "a" ).get().get( "value" ) );
+	}
+
+	@Test
+	public void testMigrate() throws IOException
+	{
+		FileStorage source = newSource();
+		FileStorage target = new FileStorage( temporaryFolder.newFolder( "target" ) );
+
+		StorageMigration migration = new StorageMigration( source, target );
+		migration.migrate();
+
+		assertMigrated( migration, target );
+	}
+
+	@Test
+	public void testMigrateToSql() throws IOException
+	{
+		FileStorage source = newSource();
+		SqlStorage target = new SqlStorage( "jdbc:h2:" +
+				temporaryFolder.getRoot().getAbsolutePath() + "/prison" );
+
+		try {
+			StorageMigration migration = new StorageMigration( source, target );
+			migration.migrate();
+
+			assertMigrated( migration, target );
+		}
+		finally {
+			target.close();
+		}
+	}
+}
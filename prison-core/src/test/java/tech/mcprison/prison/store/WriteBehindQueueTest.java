@@ -0,0 +1,206 @@
+package tech.mcprison.prison.store;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class WriteBehindQueueTest
+{
+
+	private static class MemoryCollection
+		implements Collection {
+
+		private final Map<String, Document> documents = new ConcurrentHashMap<>();
+		private final List<String> writes = new ArrayList<>();
+		private final CountDownLatch blocked;
+		private final AtomicBoolean failing = new AtomicBoolean();
+
+		private MemoryCollection( CountDownLatch blocked ) {
+			this.blocked = blocked;
+		}
+
+		@Override
+		public String getName() {
+			return "memory";
+		}
+
+		@Override
+		public List<Document> getAll() {
+			return new ArrayList<>( documents.values() );
+		}
+
+		@Override
+		public Optional<Document> get( String key ) {
+			return Optional.ofNullable( documents.get( key ) );
+		}
+
+		@Override
+		public void save( Document document ) {
+		}
+
+		@Override
+		public void save( String filename, Document document ) {
+			try {
+				blocked.await();
+			}
+			catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+			}
+
+			if ( failing.get() ) {
+				throw new RuntimeException( "The disk is full." );
+			}
+
+			synchronized ( writes ) {
+				writes.add( filename );
+			}
+			documents.put( filename, document );
+		}
+
+		@Override
+		public boolean delete( String name ) {
+			return documents.remove( name ) != null;
+		}
+	}
+
+	private Document document( int value ) {
+		Document doc = new Document();
+		doc.put( "value", value );
+		return doc;
+	}
+
+	@Test
+	public void test()
+	{
+		CountDownLatch blocked = new CountDownLatch( 1 );
+		MemoryCollection collection = new MemoryCollection( blocked );
+		WriteBehindQueue<Document> queue = new WriteBehindQueue<>( collection, "test" );
+
+		// The first save is taken by the writer, which is blocked, so the
+		// next saves are combined:
+		queue.save( "a", document( 1 ) );
+		while ( queue.getPendingCount() > 0 ) {
+			Thread.yield();
+		}
+		queue.save( "b", document( 1 ) );
+		queue.save( "a", document( 2 ) );
+		queue.save( "a", document( 3 ) );
+
+		assertTrue( queue.isPending( "a" ) );
+		assertEquals( 2, queue.getPendingCount() );
+
+		blocked.countDown();
+		assertTrue( queue.flush( 10000 ) );
+
+		assertEquals( 3, collection.writes.size() );
+		assertEquals( 3, collection.get( "a" ).get().get( "value" ) );
+		assertEquals( 1, collection.get( "b" ).get().get( "value" ) );
+		assertFalse( queue.isPending( "a" ) );
+
+		// Saves after the shutdown are written right away:
+		queue.shutdown( 10000 );
+		queue.save( "c", document( 4 ) );
+		assertEquals( 4, collection.get( "c" ).get().get( "value" ) );
+	}
+
+	@Test
+	public void testShutdownWhileWriting() throws InterruptedException
+	{
+		CountDownLatch blocked = new CountDownLatch( 1 );
+		MemoryCollection collection = new MemoryCollection( blocked );
+		WriteBehindQueue<Document> queue = new WriteBehindQueue<>( collection, "test" );
+
+		queue.save( "a", document( 1 ) );
+		while ( queue.getPendingCount() > 0 ) {
+			Thread.yield();
+		}
+		queue.save( "a", document( 2 ) );
+
+		// The writer is still blocked when the shutdown times out:
+		Thread shutdown = new Thread( () -> queue.shutdown( 100 ) );
+		shutdown.start();
+
+		// A save that races with the shutdown is not rejected:
+		queue.save( "b", document( 5 ) );
+
+		Thread.sleep( 300 );
+		blocked.countDown();
+		shutdown.join( 10000 );
+		assertFalse( shutdown.isAlive() );
+
+		// The older document was never written after the newer one:
+		assertEquals( 2, collection.get( "a" ).get().get( "value" ) );
+		assertEquals( 5, collection.get( "b" ).get().get( "value" ) );
+		assertEquals( 0, queue.getPendingCount() );
+	}
+
+	@Test
+	public void testPendingWhileWriting() throws InterruptedException
+	{
+		CountDownLatch blocked = new CountDownLatch( 1 );
+		MemoryCollection collection = new MemoryCollection( blocked );
+		WriteBehindQueue<Document> queue = new WriteBehindQueue<>( collection, "test" );
+
+		collection.documents.put( "a", document( 1 ) );
+		queue.save( "a", document( 2 ) );
+		while ( queue.getPendingCount() > 0 ) {
+			Thread.yield();
+		}
+
+		// The writer has taken the document, but is blocked, so the old file must
+		// not be read yet:
+		Thread.sleep( 100 );
+		assertTrue( queue.isPending( "a" ) );
+		assertEquals( 1, collection.get( "a" ).get().get( "value" ) );
+
+		// The newer copy is served from the queue instead:
+		assertEquals( 2, queue.getPending( "a" ).get().get( "value" ) );
+		queue.save( "a", document( 3 ) );
+		assertEquals( 3, queue.getPending( "a" ).get().get( "value" ) );
+
+		blocked.countDown();
+		assertTrue( queue.flush( 10000 ) );
+		assertFalse( queue.isPending( "a" ) );
+		assertFalse( queue.getPending( "a" ).isPresent() );
+		assertEquals( 3, collection.get( "a" ).get().get( "value" ) );
+	}
+
+	@Test
+	public void testFailedWriteIsRetried()
+	{
+		CountDownLatch blocked = new CountDownLatch( 0 );
+		MemoryCollection collection = new MemoryCollection( blocked );
+		WriteBehindQueue<Document> queue = new WriteBehindQueue<>( collection, "test" );
+
+		// Both the batch write and the write on its own fail:
+		collection.failing.set( true );
+		queue.save( "a", document( 1 ) );
+		assertFalse( queue.flush( 10000 ) );
+		assertTrue( queue.isPending( "a" ) );
+		assertFalse( collection.get( "a" ).isPresent() );
+
+		collection.failing.set( false );
+		queue.retry();
+		assertTrue( queue.flush( 10000 ) );
+		assertFalse( queue.isPending( "a" ) );
+		assertEquals( 1, collection.get( "a" ).get().get( "value" ) );
+
+		// A newer document that was saved after the failure is not replaced:
+		collection.failing.set( true );
+		queue.save( "a", document( 2 ) );
+		assertFalse( queue.flush( 10000 ) );
+		queue.save( "a", document( 3 ) );
+		collection.failing.set( false );
+		queue.shutdown( 10000 );
+		assertEquals( 3, collection.get( "a" ).get().get( "value" ) );
+		assertEquals( 0, queue.getPendingCount() );
+	}
+}
@@ -0,0 +1,31 @@
+package tech.mcprison.prison.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class CommandTemplateTest
+{
+	private static final String[] PLACEHOLDERS = { "{player}", "{player_uid}" };
+
+	private String format( String command, String... values ) {
+		return new CommandTemplate( command, PLACEHOLDERS ).format( values );
+	}
+
+	@Test
+	public void test()
+	{
+		assertEquals( "say hello", format( "say hello", "Bob", "1234" ) );
+		assertEquals( "lp user Bob parent set b", 
+				format( "lp user {player} parent set b", "Bob", "1234" ) );
+		assertEquals( "give Bob diamond 1 1234", 
+				format( "give {player} diamond 1 {player_uid}", "Bob", "1234" ) );
+		assertEquals( "BobBob", format( "{player}{player}", "Bob", "1234" ) );
+		assertEquals( "1234", format( "{player_uid}", "Bob", "1234" ) );
+		
+		// Other text within braces is kept:
+		assertEquals( "tellraw Bob {\"text\":\"{rank}\"}", 
+				format( "tellraw {player} {\"text\":\"{rank}\"}", "Bob", "1234" ) );
+		assertEquals( "{player Bob", format( "{player {player}", "Bob", "1234" ) );
+	}
+}
@@ -55,4 +55,34 @@ public class PlaceholdersUtilTest
 		
 	}
 
+	@Test
+	public void testFormattedTime()
+	{
+		assertEquals( "0s ", formattedTime(0) );
+		assertEquals( "5s ", formattedTime(5.4) );
+		assertEquals( "6s ", formattedTime(5.6) );
+		
+		// Half even rounding, the same as the DecimalFormat:
+		assertEquals( "4s ", formattedTime(4.5) );
+		assertEquals( "6s ", formattedTime(5.5) );
+		
+		assertEquals( "1m 0s ", formattedTime(60) );
+		assertEquals( "1m 1s ", formattedTime(61.2) );
+		assertEquals( "59m 59s ", formattedTime(3599) );
+		
+		// Cached values must be the same the second time:
+		assertEquals( "1m 1s ", formattedTime(61.2) );
+		
+		// Not cached:
+		assertEquals( "1h 0m 0s ", formattedTime(3600) );
+		assertEquals( "1d 0h 0m 1s ", formattedTime(86401) );
+	}
+
+	@Test
+	public void testFormatNumbers()
+	{
+		assertEquals( "1,234.57", formatDecimal(1234.567) );
+		assertEquals( "0.00", formatDecimal(0) );
+		assertEquals( "1,234,567", formatInteger(1234567) );
+	}
 }
@@ -2,7 +2,11 @@ package tech.mcprison.prison.mines;
 
 import com.google.common.eventbus.Subscribe;
 
+import tech.mcprison.prison.internal.events.player.PlayerQuitEvent;
 import tech.mcprison.prison.internal.events.world.PrisonWorldLoadEvent;
+import tech.mcprison.prison.mines.events.MineEnterEvent;
+import tech.mcprison.prison.mines.events.MineExitEvent;
+import tech.mcprison.prison.mines.events.MineResetThresholdEvent;
 import tech.mcprison.prison.selection.SelectionCompletedEvent;
 import tech.mcprison.prison.util.Bounds;
 
@@ -28,6 +32,40 @@ public class MinesListener {
     	
     }
     
+    /**
+     * <p>The remaining block placeholders will be stale once a mine's reset 
+     * threshold has been crossed.
+     * </p>
+     */
+    @Subscribe
+    public void onMineResetThreshold( MineResetThresholdEvent e ) {
+    	
+    	PrisonMines.getInstance().getMineManager().invalidatePlaceholderCache( e.getMine().getName() );
+    }
+    
+    /**
+     * <p>The player mines placeholders are for the mine the player is in, so they
+     * are stale once the player enters or leaves a mine.
+     * </p>
+     */
+    @Subscribe
+    public void onMineEnter( MineEnterEvent e ) {
+    	
+    	PrisonMines.getInstance().getMineManager().invalidatePlayerPlaceholderCache( e.getPlayer().getUUID() );
+    }
+    
+    @Subscribe
+    public void onMineExit( MineExitEvent e ) {
+    	
+    	PrisonMines.getInstance().getMineManager().invalidatePlayerPlaceholderCache( e.getPlayer().getUUID() );
+    }
+    
+    @Subscribe
+    public void onPlayerQuit( PlayerQuitEvent e ) {
+    	
+    	PrisonMines.getInstance().getMineManager().invalidatePlayerPlaceholderCache( e.getPlayer().getUUID() );
+    }
+    
     
 //    /**
 //     * Powertool helper
@@ -21,7 +21,6 @@ package tech.mcprison.prison.mines;
 import java.io.File;
 import java.util.List;
 import java.util.Optional;
-import java.util.TreeMap;
 
 import tech.mcprison.prison.Prison;
 import tech.mcprison.prison.PrisonAPI;
@@ -37,6 +36,7 @@ import tech.mcprison.prison.mines.data.PrisonSortableResults;
 import tech.mcprison.prison.mines.managers.MineManager;
 import tech.mcprison.prison.mines.managers.MineManager.MineSortOrder;
 import tech.mcprison.prison.mines.managers.PlayerManager;
+import tech.mcprison.prison.mines.managers.PlayerMineTracker;
 import tech.mcprison.prison.modules.Module;
 import tech.mcprison.prison.output.Output;
 import tech.mcprison.prison.store.Database;
@@ -63,25 +63,13 @@ public class PrisonMines extends Module {
     private PlayerManager player;
     
     private MinesCommands minesCommands;
+    
+    private PlayerMineTracker playerMineTracker;
 
 
-    /**
-     * <p>playerCache tries to provide a faster way to identify which mine a player is
-     * in. The theory is that there is a very high chance it will be the last mine 
-     * they were in.  So this records the last mine they were in, and if that is not
-     * where they are, then, and only then, do we check all mines to see if it may
-     * be something else.
-     * </p>
-     * 
-     */
-	private final TreeMap<Long, Mine> playerCache;
-
-	
     
     public PrisonMines(String version) {
         super(MODULE_NAME, version, 3);
-
-    	this.playerCache = new TreeMap<>();
     }
 
     public static PrisonMines getInstance() {
@@ -105,6 +93,9 @@ public class PrisonMines extends Module {
 
 //        initWorlds();
         
+        // The tracker must exist before the mines are loaded so they can be tracked:
+        this.playerMineTracker = new PlayerMineTracker();
+        
         this.mineManager = new MineManager();
         getMineManager().loadFromDbCollection(this);
         
@@ -176,30 +167,19 @@ public class PrisonMines extends Module {
 		return mine;
 	}
 
-	public TreeMap<Long, Mine> getPlayerCache() {
-		return playerCache;
-	}
-	
+	/**
+	 * <p>Returns the mine the player is in, from the PlayerMineTracker.
+	 * </p>
+	 * 
+	 * @param player
+	 * @return The mine, or null if the player is not in a mine
+	 */
 	public Mine findMineLocation( Player player ) {
-		Mine result = null;
-		
-		Long playerUUIDLSB = Long.valueOf( player.getUUID().getLeastSignificantBits() );
-		
-		// Get the cached mine, if it exists:
-		Mine mine = getPlayerCache().get( playerUUIDLSB );
-		
-		if ( mine == null || !mine.isInMine( player.getLocation() ) ) {
-			// Look for the correct mine to use. 
-			// Set mine to null so if cannot find the right one it will return a null:
-			mine = findMineLocation( player.getLocation() );
-			
-			// Store the mine in the player cache if not null:
-			if ( mine != null ) {
-				getPlayerCache().put( playerUUIDLSB, mine );
-			}
-		}
+		return getPlayerMineTracker().getMine( player.getUUID() );
+	}
 
-		return result;
+	public PlayerMineTracker getPlayerMineTracker() {
+		return playerMineTracker;
 	}
 
 //    private void initMines() {
@@ -216,11 +196,14 @@ public class PrisonMines extends Module {
     /**
      * <p>Mines are now saved whenever changes are made.  Do not save the Mines on server
      * shutdown since they will never be in a dirty state; they will always be saved.
+     * The PlayerMineTracker is unregistered, so it stops receiving the player events.
      * </p>
      * 
      */
 	public void disable() {
-		// Nothing to do...
+		if ( playerMineTracker != null ) {
+			playerMineTracker.shutdown();
+		}
     }
 
     public MinesConfig getConfig() {
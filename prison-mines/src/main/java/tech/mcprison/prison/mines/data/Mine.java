@@ -518,6 +518,47 @@ public class Mine
         return ret;
     }
 
+    /**
+     * <p>When the bounds change, players may now be in, or out of, the mine without
+     * having moved, so the tracker must recheck this mine.
+     * </p>
+     */
+    @Override
+    public void setBounds( Bounds bounds ) {
+    	super.setBounds( bounds );
+    	
+    	refreshPlayerMineTracker();
+    }
+    
+    /**
+     * <p>The tracker only tracks the enabled mines, so it must recheck this mine
+     * when it is enabled or disabled.
+     * </p>
+     */
+    @Override
+    public void setEnabled( boolean enabled ) {
+    	boolean changed = enabled != isEnabled();
+    	
+    	super.setEnabled( enabled );
+    	
+    	if ( changed ) {
+    		refreshPlayerMineTracker();
+    	}
+    }
+    
+    /**
+     * <p>This is skipped while the mine is being loaded, since it has not been added 
+     * to the MineManager yet.  The MineManager checks the mine when it is added.
+     * </p>
+     */
+    private void refreshPlayerMineTracker() {
+    	PrisonMines pMines = PrisonMines.getInstance();
+    	if ( pMines != null && pMines.getPlayerMineTracker() != null && 
+    			pMines.getMineManager() != null && pMines.getMineManager().getMine( getName() ) == this ) {
+    		pMines.getPlayerMineTracker().refreshMine( this );
+    	}
+    }
+
     @Override
     public String toString() {
     	return getName() + "  " + getTotalBlocksMined();
@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 import tech.mcprison.prison.Prison;
 import tech.mcprison.prison.internal.World;
@@ -57,7 +58,7 @@ public abstract class MineData
     private List<Block> blocks;
     private List<PrisonBlock> prisonBlocks;
     
-    private long totalBlocksMined = 0;
+    private final AtomicLong totalBlocksMined = new AtomicLong( 0 );
     private double zeroBlockResetDelaySec;
 
     private double resetThresholdPercent = 0;
@@ -80,6 +81,13 @@ public abstract class MineData
      */
     private String rankString;
     
+    /**
+     * <p>The immutable state that is safe to read from other threads.  This is 
+     * replaced whenever any of its values are changed.
+     * </p>
+     */
+    private transient volatile MineStateSnapshot stateSnapshot;
+    
 
     public enum MineNotificationMode {
     	disabled,
@@ -131,7 +139,7 @@ public abstract class MineData
     	
     	this.targetResetTime = 0;
     	this.resetCount = 0;
-    	this.totalBlocksMined = 0;
+    	this.totalBlocksMined.set( 0 );
     	this.zeroBlockResetDelaySec = 0;
     	this.resetThresholdPercent = 0;
     
@@ -166,6 +174,7 @@ public abstract class MineData
 	}
 	public void setEnabled( boolean enabled ) {
 		this.enabled = enabled;
+		updateStateSnapshot();
 	}
 	
 	
@@ -185,6 +194,7 @@ public abstract class MineData
 	}
 	public void setVirtual( boolean virtual ) {
 		this.virtual = virtual;
+		updateStateSnapshot();
 	}
 
 	public ModuleElementType getModuleElementType() {
@@ -205,6 +215,7 @@ public abstract class MineData
     }
     public void setTag( String tag ) {
     	this.tag = tag;
+    	updateStateSnapshot();
     }
     
     public int getSortOrder() {
@@ -234,6 +245,7 @@ public abstract class MineData
      */
     public void setName(String name) {
         this.name = name;
+        updateStateSnapshot();
     }
     
 	public String getWorldName() {
@@ -246,6 +258,7 @@ public abstract class MineData
 		// cannot set the world name if it is a virtual mine:
 		if ( !isVirtual() ) {
 			this.worldName = worldName;
+			updateStateSnapshot();
 		}
 		
 	}
@@ -342,6 +355,8 @@ public abstract class MineData
     	// in the document loader under Mine.loadFromDocument as the first field
     	// that is set when restoring from the file.
     	//this.worldName = bounds.getMin().getWorld().getName();
+    	
+    	updateStateSnapshot();
     }
 
     public List<Block> getBlocks() {
@@ -467,6 +482,7 @@ public abstract class MineData
 	}
 	public void setResetTime( int resetTime ) {
 		this.resetTime = resetTime;
+		updateStateSnapshot();
 	}
 
 	public MineNotificationMode getNotificationMode() {
@@ -488,6 +504,7 @@ public abstract class MineData
 	}
 	public void setTargetResetTime( long targetResetTime ) {
 		this.targetResetTime = targetResetTime;
+		updateStateSnapshot();
 	}
 	
 	public boolean isUseNotificationPermission() {
@@ -526,33 +543,61 @@ public abstract class MineData
 	}
 
 	public int incrementResetCount() {
-		return ++resetCount;
+		int results = ++resetCount;
+		updateStateSnapshot();
+		return results;
 	}
 	public int getResetCount() {
 		return resetCount;
 	}
 	public void setResetCount( int resetCount ) {
 		this.resetCount = resetCount;
+		updateStateSnapshot();
 	}
 
 	/**
-	 * May not be 100% thread safe, but odds of collisions will be minimal and
-	 * if its off by a few blocks its not a big deal since the value resets
-	 * when the server resets.
+	 * This is an atomic counter so it can be read from the placeholders on other
+	 * threads, while the blocks are being broken.  The value resets when the 
+	 * server resets.
 	 * 
 	 * @return
 	 */
 	public long addTotalBlocksMined( int blockCount ) {
-		return totalBlocksMined += blockCount;
+		return totalBlocksMined.addAndGet( blockCount );
 	}
 	public long incrementTotalBlocksMined() {
-		return ++totalBlocksMined;
+		return totalBlocksMined.incrementAndGet();
 	}
 	public long getTotalBlocksMined() {
-		return totalBlocksMined;
+		return totalBlocksMined.get();
 	}
 	public void setTotalBlocksMined( long totalBlocksMined ) {
-		this.totalBlocksMined = totalBlocksMined;
+		this.totalBlocksMined.set( totalBlocksMined );
+	}
+
+	/**
+	 * <p>Returns the immutable state of this mine, which is safe to read from
+	 * any thread, such as the async chat thread or the placeholder threads.
+	 * </p>
+	 * 
+	 * @return
+	 */
+	public MineStateSnapshot getStateSnapshot() {
+		MineStateSnapshot results = stateSnapshot;
+		if ( results == null ) {
+			results = new MineStateSnapshot( this );
+			stateSnapshot = results;
+		}
+		return results;
+	}
+	
+	/**
+	 * <p>Publishes a new snapshot of this mine's state.  This must be called 
+	 * whenever any value that is within the MineStateSnapshot is changed.
+	 * </p>
+	 */
+	protected void updateStateSnapshot() {
+		this.stateSnapshot = new MineStateSnapshot( this );
 	}
 
 	public boolean isZeroBlockResetDisabled() {
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Random;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import tech.mcprison.prison.Prison;
 import tech.mcprison.prison.PrisonAPI;
@@ -82,7 +83,13 @@ public abstract class MineReset
 	private long airCountElapsedTimeMs = 0L;
 	
 	
-	private int blockBreakCount = 0;
+	/**
+	 * <p>The blockBreakCount is updated on every block break event, and may
+	 * be updated from explosion events too, so it is atomic so the per break 
+	 * update is a single lock free operation.
+	 * </p>
+	 */
+	private final AtomicInteger blockBreakCount = new AtomicInteger( 0 );
 	
 	
 //	private boolean[] mineAirBlocksOriginal;
@@ -152,6 +159,9 @@ public abstract class MineReset
 		if (!event.isCanceled()) {
 			resetSynchonouslyInternal();
 		}
+		else {
+			resetCanceled();
+		}
 		
 		long stop = System.currentTimeMillis();
 		setStatsResetTimeMS( stop - start );
@@ -171,6 +181,7 @@ public abstract class MineReset
 			
 			if ( isVirtual() ) {
 				// Mine is virtual and cannot be reset.  Just skip this with no error messages.
+				resetCanceled();
 				return;
 			}
 			
@@ -179,6 +190,7 @@ public abstract class MineReset
 						String.format( "MineReset: Reset failure: Mine is not enabled. " +
 								"Ensure world exists. mine= %s ", 
 								getName()  ));
+				resetCanceled();
 				return;
 			}
 			
@@ -276,6 +288,8 @@ public abstract class MineReset
 			
 			incrementResetCount();
 			
+			PrisonMines.getInstance().getMineManager().invalidatePlaceholderCache( getName() );
+			
 			
 			setSkipResetBypassCount(0);
 			
@@ -404,11 +418,9 @@ public abstract class MineReset
     		return 0;
     	}
     	
-    	World world = getBounds().getCenter().getWorld();
-
-    	if ( isEnabled() && world != null ) {
-    		List<Player> players = (world.getPlayers() != null ? world.getPlayers() : 
-    			Prison.get().getPlatform().getOnlinePlayers());
+    	if ( isEnabled() ) {
+    		// Only the players that are tracked within this mine need to be checked:
+    		List<Player> players = PrisonMines.getInstance().getPlayerMineTracker().getPlayers( (Mine) this );
     		for (Player player : players) {
     			if ( getBounds().within(player.getLocation()) ) {
     				
@@ -486,20 +498,17 @@ public abstract class MineReset
 		return altTp;
 	}
 	
+	/**
+	 * <p>The number of players within this mine, from the PlayerMineTracker.
+	 * </p>
+	 * 
+	 * @return
+	 */
 	public int getPlayerCount() {
 		int count = 0;
 		
 		if ( !isVirtual() && isEnabled() ) {
-
-			World world = getWorld().get();
-			
-			List<Player> players = (world.getPlayers() != null ? world.getPlayers() : 
-				Prison.get().getPlatform().getOnlinePlayers());
-			for (Player player : players) {
-				if ( getBounds().within(player.getLocation()) ) {
-					count++;
-				}
-			}
+			count = PrisonMines.getInstance().getPlayerMineTracker().getPlayerCount( (Mine) this );
 		}
 		
 		return count;
@@ -630,7 +639,10 @@ public abstract class MineReset
     		canceled = resetAsynchonouslyInitiate();
     	}
     	
-    	if ( !canceled ) {
+    	if ( canceled ) {
+    		resetCanceled();
+    	}
+    	else {
     		
     		// First time through... reset the block break count and run the before reset commands:
     		if ( getResetPosition() == 0 ) {
@@ -673,6 +685,8 @@ public abstract class MineReset
         		
         		incrementResetCount();
         		
+        		PrisonMines.getInstance().getMineManager().invalidatePlaceholderCache( getName() );
+        		
     			// After reset commands:
     	        if ( getResetCommands() != null && getResetCommands().size() > 0 ) {
     	        	
@@ -763,6 +777,14 @@ public abstract class MineReset
 //        }
     }
 
+    /**
+     * <p>This is called when a reset was canceled, or could not be started, so
+     * the blocks were not replaced and the blockBreakCount was not reset.
+     * </p>
+     */
+    protected void resetCanceled() {
+    }
+
     private boolean resetAsynchonouslyInitiate() {
     	boolean canceled = false;
 		
@@ -1472,16 +1494,16 @@ public abstract class MineReset
 	}
 
 	public int addBlockBreakCount( int blockCount ) {
-		return blockBreakCount += blockCount;
+		return blockBreakCount.addAndGet( blockCount );
 	}
 	public int incrementBlockBreakCount() {
-		return ++blockBreakCount;
+		return blockBreakCount.incrementAndGet();
 	}
 	public int getBlockBreakCount() {
-		return blockBreakCount;
+		return blockBreakCount.get();
 	}
 	public void setBlockBreakCount( int blockBreakCount ) {
-		this.blockBreakCount = blockBreakCount;
+		this.blockBreakCount.set( blockBreakCount );
 	}
 
 	public long getStatsResetTimeMS()
@@ -5,11 +5,15 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Stack;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import tech.mcprison.prison.Prison;
 import tech.mcprison.prison.internal.World;
 import tech.mcprison.prison.mines.PrisonMines;
+import tech.mcprison.prison.mines.events.MineResetThresholdEvent;
+import tech.mcprison.prison.mines.events.MineResetThresholdEvent.ThresholdType;
 import tech.mcprison.prison.output.Output;
+import tech.mcprison.prison.util.Bounds;
 
 public abstract class MineScheduler
 		extends MineReset
@@ -33,12 +37,32 @@ public abstract class MineScheduler
 	private MineJob currentJob;
 	private Integer taskId = null;
 	
+	/**
+	 * <p>The zeroBlockResetTriggerCount is the blockBreakCount at which the
+	 * mine has either run out of blocks, or has crossed the resetThresholdPercent.
+	 * It is calculated only when the bounds, the virtual state, the 
+	 * zeroBlockResetDelaySec, or the resetThresholdPercent changes, so the per 
+	 * block break check is just an int compare.  A value of -1 indicates it 
+	 * needs to be recalculated.
+	 * </p>
+	 * 
+	 * <p>The zeroBlockResetArmed flag ensures the threshold only fires once per
+	 * reset cycle.  It is rearmed when the blockBreakCount is set, which happens
+	 * when the mine is reset, or when the reset is canceled or skipped, so the
+	 * next block break checks the threshold again.
+	 * </p>
+	 */
+	private volatile int zeroBlockResetTriggerCount = -1;
+	private final AtomicBoolean zeroBlockResetArmed;
+	
 	public MineScheduler() {
 		super();
 		
 		this.jobWorkflow = new ArrayList<>();
 		this.jobStack = new Stack<>();
 		this.currentJob = null;
+		
+		this.zeroBlockResetArmed = new AtomicBoolean( true );
 	}
 
     /**
@@ -315,6 +339,7 @@ public abstract class MineScheduler
 					resetAsynchonously();
 				} else {
 					incrementSkipResetBypassCount();
+					resetCanceled();
 				}
 				
 				break;
@@ -325,6 +350,7 @@ public abstract class MineScheduler
 					resetSynchonously();
 				} else {
 					incrementSkipResetBypassCount();
+					resetCanceled();
 				}
 				
 				break;
@@ -453,24 +479,152 @@ public abstract class MineScheduler
 	}
 	
 	
+	/**
+	 * <p>This should be called upon every block break within the mine.  The common 
+	 * path is a single atomic increment of the blockBreakCount with a compare
+	 * against the precalculated zeroBlockResetTriggerCount.  Only when the 
+	 * trigger count is reached, and only once per reset cycle, will the 
+	 * MineResetThresholdEvent be fired and the reset be submitted.
+	 * </p>
+	 * 
+	 * @return true if a reset was submitted
+	 */
+	public boolean incrementBlockBreakCountAndCheckReset() {
+		return checkResetThreshold( incrementBlockBreakCount() );
+	}
+	
+	public boolean addBlockBreakCountAndCheckReset( int blockCount ) {
+		return checkResetThreshold( addBlockBreakCount( blockCount ) );
+	}
+	
+	/**
+	 * <p>Checks to see if the mine ran out of blocks, or if it crossed the 
+	 * resetThresholdPercent, without changing the blockBreakCount.
+	 * </p>
+	 * 
+	 * @return true if a reset was submitted
+	 */
 	public boolean checkZeroBlockReset() {
+		return checkResetThreshold( getBlockBreakCount() );
+	}
+	
+	private boolean checkResetThreshold( int blockBreakCount ) {
+		return blockBreakCount >= getZeroBlockResetTriggerCount() &&
+				zeroBlockResetArmed.compareAndSet( true, false ) &&
+				submitResetThreshold( blockBreakCount );
+	}
+	
+	/**
+	 * <p>Fires the MineResetThresholdEvent, and if it is not canceled, then 
+	 * submits a reset with the zeroBlockResetDelaySec.  If canceled, then
+	 * the threshold will not fire again until the mine is reset.
+	 * </p>
+	 * 
+	 * @param blockBreakCount
+	 * @return true if a reset was submitted
+	 */
+	protected boolean submitResetThreshold( int blockBreakCount ) {
 		boolean reset = false;
 		
-		// Reset if the mine runs out of blocks:
+		int remainingBlockCount = getBounds().getTotalBlockCount() - blockBreakCount;
+		ThresholdType thresholdType = 
+				remainingBlockCount <= 0 && !isVirtual() && !isZeroBlockResetDisabled() ? 
+				ThresholdType.ZERO_BLOCKS : ThresholdType.RESET_THRESHOLD_PERCENT;
+		
+		MineResetThresholdEvent event = new MineResetThresholdEvent( this, thresholdType, 
+				remainingBlockCount );
+		Prison.get().getEventBus().post( event );
 		
-		if ( !isVirtual() &&
-				getRemainingBlockCount() == 0 && !isZeroBlockResetDisabled() || 
-				getResetThresholdPercent() > 0 && 
-				getRemainingBlockCount() < (getBounds().getTotalBlockCount() * 
-												getResetThresholdPercent() / 100.0d)) {
+		if ( !event.isCanceled() ) {
 			
 			// submit a manual reset since the mine is empty:
 			manualReset( MineResetType.NORMAL, getZeroBlockResetDelaySec() );
 			reset = true;
 		}
+		
 		return reset;
 	}
 	
+	/**
+	 * <p>The blockBreakCount at which the mine will reset.  Reset if the mine 
+	 * runs out of blocks, unless the zero block reset is disabled or the mine is
+	 * virtual, or if the remaining blocks are less than the resetThresholdPercent.
+	 * The resetThresholdPercent applies to a virtual mine too, if it has bounds.
+	 * </p>
+	 * 
+	 * @return
+	 */
+	public int getZeroBlockResetTriggerCount() {
+		int triggerCount = zeroBlockResetTriggerCount;
+		
+		if ( triggerCount == -1 ) {
+			triggerCount = Integer.MAX_VALUE;
+			
+			if ( getBounds() != null ) {
+				int totalBlockCount = getBounds().getTotalBlockCount();
+				
+				if ( !isVirtual() && !isZeroBlockResetDisabled() ) {
+					triggerCount = totalBlockCount;
+				}
+				
+				if ( getResetThresholdPercent() > 0 ) {
+					// remaining < threshold blocks, so the break count must exceed the difference:
+					double thresholdBlocks = totalBlockCount * getResetThresholdPercent() / 100.0d;
+					int thresholdTrigger = (int) Math.floor( totalBlockCount - thresholdBlocks ) + 1;
+					
+					triggerCount = Math.min( triggerCount, thresholdTrigger );
+				}
+			}
+			
+			zeroBlockResetTriggerCount = triggerCount;
+		}
+		
+		return triggerCount;
+	}
+	
+	@Override
+	public void setBlockBreakCount( int blockBreakCount ) {
+		super.setBlockBreakCount( blockBreakCount );
+		
+		// The mine has been reset (or refreshed), so the threshold can fire again:
+		zeroBlockResetArmed.set( true );
+	}
+	
+	/**
+	 * <p>The reset did not happen, so the threshold is armed again, the same as if
+	 * the mine had been reset.  If the mine is still past its threshold, then the
+	 * next block break submits another reset.
+	 * </p>
+	 */
+	@Override
+	protected void resetCanceled() {
+		zeroBlockResetArmed.set( true );
+	}
+	
+	@Override
+	public void setBounds( Bounds bounds ) {
+		super.setBounds( bounds );
+		zeroBlockResetTriggerCount = -1;
+	}
+	
+	@Override
+	public void setVirtual( boolean virtual ) {
+		super.setVirtual( virtual );
+		zeroBlockResetTriggerCount = -1;
+	}
+	
+	@Override
+	public void setZeroBlockResetDelaySec( double zeroBlockResetDelaySec ) {
+		super.setZeroBlockResetDelaySec( zeroBlockResetDelaySec );
+		zeroBlockResetTriggerCount = -1;
+	}
+	
+	@Override
+	public void setResetThresholdPercent( double resetThresholdPercent ) {
+		super.setResetThresholdPercent( resetThresholdPercent );
+		zeroBlockResetTriggerCount = -1;
+	}
+	
 	/**
 	 * <p>This function should only be called from the commands to manually force a mine to reset.
 	 * How this should work, is it should cancel (remove) the scheduled reset for this mine, then 
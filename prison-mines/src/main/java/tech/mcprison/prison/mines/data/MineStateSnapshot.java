@@ -0,0 +1,113 @@
+/*
+ * Prison is a Minecraft plugin for the prison game mode.
+ * Copyright (C) 2017 The Prison Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tech.mcprison.prison.mines.data;
+
+/**
+ * <p>An immutable copy of the mine's state that is used by the placeholders
+ * and anything else that reads the mine from another thread, such as the
+ * async chat thread.  The mine publishes a new snapshot, through a volatile
+ * reference, every time one of these values change on the main thread, so
+ * the readers never need to lock or see a partially updated mine.
+ * </p>
+ *
+ * <p>The block break count and the total blocks mined change with every
+ * block that is broken, so they are not part of the snapshot.  They are
+ * thread safe counters within the mine instead.
+ * </p>
+ *
+ */
+public class MineStateSnapshot {
+
+	private final String name;
+	private final String tag;
+	private final String worldName;
+
+	private final boolean enabled;
+	private final boolean virtual;
+
+	private final int resetTime;
+	private final long targetResetTime;
+	private final int resetCount;
+
+	private final int totalBlockCount;
+
+	protected MineStateSnapshot( MineData mine ) {
+		super();
+
+		this.name = mine.getName();
+		this.tag = mine.getTag();
+		this.worldName = mine.getWorldName();
+
+		this.enabled = mine.isEnabled();
+		this.virtual = mine.isVirtual();
+
+		this.resetTime = mine.getResetTime();
+		this.targetResetTime = mine.getTargetResetTime();
+		this.resetCount = mine.getResetCount();
+
+		this.totalBlockCount = mine.getBounds() == null ? 0 : mine.getBounds().getTotalBlockCount();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return The tag, or the name if there is no tag.
+	 */
+	public String getTag() {
+		return tag == null ? name : tag;
+	}
+
+	public String getWorldName() {
+		return worldName;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public boolean isVirtual() {
+		return virtual;
+	}
+
+	public int getResetTime() {
+		return resetTime;
+	}
+
+	public long getTargetResetTime() {
+		return targetResetTime;
+	}
+
+	/**
+	 * @see MineData#getRemainingTimeSec()
+	 */
+	public double getRemainingTimeSec() {
+		return ( targetResetTime <= 0 ? 0d :
+			(targetResetTime - System.currentTimeMillis()) / 1000d);
+	}
+
+	public int getResetCount() {
+		return resetCount;
+	}
+
+	public int getTotalBlockCount() {
+		return totalBlockCount;
+	}
+}
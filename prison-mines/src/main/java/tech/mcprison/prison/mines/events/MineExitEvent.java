@@ -0,0 +1,54 @@
+/*
+ * Prison is a Minecraft plugin for the prison game mode.
+ * Copyright (C) 2017 The Prison Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tech.mcprison.prison.mines.events;
+
+import tech.mcprison.prison.internal.Player;
+import tech.mcprison.prison.mines.data.Mine;
+
+/**
+ * Represents an event called when a player leaves a mine.
+ */
+public class MineExitEvent {
+
+    private Mine mine;
+    private Player player;
+
+    public MineExitEvent(Mine mine, Player player) {
+        this.mine = mine;
+        this.player = player;
+    }
+
+    /**
+     * Gets the mine that the player has exited
+     *
+     * @return the mine associated with this event
+     */
+    public Mine getMine() {
+        return mine;
+    }
+
+    /**
+     * Gets the player that has exited the mine
+     *
+     * @return the player associated with this event
+     */
+    public Player getPlayer() {
+        return player;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Prison is a Minecraft plugin for the prison game mode.
+ * Copyright (C) 2017 The Prison Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tech.mcprison.prison.mines.events;
+
+import tech.mcprison.prison.internal.events.Cancelable;
+import tech.mcprison.prison.mines.data.MineReset;
+
+/**
+ * <p>Represents an event called when the remaining blocks within a mine
+ * has crossed the mine's reset threshold percent, or when the mine has
+ * run out of blocks.  This event is only fired once for each mine reset
+ * cycle.  If this event is not canceled, then the mine reset will be
+ * submitted with the mine's zeroBlockResetDelaySec.
+ * </p>
+ */
+public class MineResetThresholdEvent implements Cancelable {
+
+    public enum ThresholdType {
+        ZERO_BLOCKS,
+        RESET_THRESHOLD_PERCENT;
+    }
+
+    private MineReset mine;
+    private ThresholdType thresholdType;
+    private int remainingBlockCount;
+    private boolean canceled = false; // false by default
+
+    public MineResetThresholdEvent(MineReset mine, ThresholdType thresholdType, int remainingBlockCount) {
+        this.mine = mine;
+        this.thresholdType = thresholdType;
+        this.remainingBlockCount = remainingBlockCount;
+    }
+
+    /**
+     * Gets the mine associated with this event
+     *
+     * @return the mine associated with this event
+     */
+    public MineReset getMine() {
+        return mine;
+    }
+
+    /**
+     * Gets which threshold was crossed
+     *
+     * @return the type of threshold that was crossed
+     */
+    public ThresholdType getThresholdType() {
+        return thresholdType;
+    }
+
+    /**
+     * Gets the remaining block count at the time the threshold was crossed
+     *
+     * @return the remaining block count
+     */
+    public int getRemainingBlockCount() {
+        return remainingBlockCount;
+    }
+
+    /**
+     * Checks to see if this event has been canceled
+     *
+     * @return true if this event has been canceled, false otherwise
+     */
+    public boolean isCanceled() {
+        return canceled;
+    }
+
+    /**
+     * Sets the canceled status of this event
+     *
+     * @param canceled the new canceled status of this event
+     */
+    public void setCanceled(boolean canceled) {
+        this.canceled = canceled;
+    }
+}
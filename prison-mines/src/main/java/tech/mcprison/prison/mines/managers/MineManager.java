@@ -17,7 +17,6 @@
 
 package tech.mcprison.prison.mines.managers;
 
-import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -31,10 +30,12 @@ import tech.mcprison.prison.integration.IntegrationManager.PlaceHolderFlags;
 import tech.mcprison.prison.integration.IntegrationManager.PrisonPlaceHolders;
 import tech.mcprison.prison.integration.ManagerPlaceholders;
 import tech.mcprison.prison.integration.PlaceHolderKey;
-import tech.mcprison.prison.internal.Player;
+import tech.mcprison.prison.integration.PlaceHolderKeyParser;
+import tech.mcprison.prison.integration.PlaceholderValueCache;
 import tech.mcprison.prison.internal.World;
 import tech.mcprison.prison.mines.PrisonMines;
 import tech.mcprison.prison.mines.data.Mine;
+import tech.mcprison.prison.mines.data.MineStateSnapshot;
 import tech.mcprison.prison.mines.data.PrisonSortableResults;
 import tech.mcprison.prison.output.Output;
 import tech.mcprison.prison.store.Collection;
@@ -57,7 +58,15 @@ public class MineManager
 
     private Collection coll;
 
-    private List<PlaceHolderKey> translatedPlaceHolderKeys;
+    /**
+     * <p>Parses the mine placeholders structurally, so there is no need to 
+     * generate, and hold on to, a placeholder key for every mine.
+     * It is built lazily, and read by the async chat and scoreboard threads.
+     * </p>
+     */
+    private volatile PlaceHolderKeyParser placeHolderKeyParser;
+    
+    private PlaceholderValueCache placeholderValueCache;
     
     private boolean mineStats = false;
 
@@ -197,6 +206,8 @@ public class MineManager
     	
     	this.coll = null;
     	
+    	this.placeholderValueCache = new PlaceholderValueCache();
+    	
     }
     
 
@@ -277,6 +288,11 @@ public class MineManager
             results = getMines().add(mine);
             getMinesByName().put( mine.getName().toLowerCase(), mine );
             
+            PlayerMineTracker tracker = PrisonMines.getInstance().getPlayerMineTracker();
+            if ( tracker != null ) {
+            	tracker.refreshMine( mine );
+            }
+            
             // Start its scheduling:
             mine.submit(offsetTiming);
         }
@@ -302,6 +318,11 @@ public class MineManager
     		coll.delete( mine.getName() );
     		getMinesByName().remove(mine.getName().toLowerCase());
     		success = getMines().remove(mine);
+    		
+    		PlayerMineTracker tracker = PrisonMines.getInstance().getPlayerMineTracker();
+    		if ( tracker != null ) {
+    			tracker.removeMine( mine );
+    		}
     	}
 	    return success;
     }
@@ -332,6 +353,12 @@ public class MineManager
      */
     public void saveMine(Mine mine) {
         coll.save(mine.toDocument());
+        
+        // The mine is saved after every edit, such as a new tag, so the cached
+        // placeholders for the mine may be out of date:
+        if ( mine.getName() != null ) {
+        	invalidatePlaceholderCache( mine.getName() );
+        }
     }
 
     public void saveMines(){
@@ -538,21 +565,14 @@ public class MineManager
 	
 	public String getTranslateMinesPlaceHolder( String identifier ) {
     	String results = null;
-    	List<PlaceHolderKey> placeHolderKeys = getTranslatedPlaceHolderKeys();
     	
-		if ( !identifier.startsWith( IntegrationManager.PRISON_PLACEHOLDER_PREFIX_EXTENDED )) {
-			identifier = IntegrationManager.PRISON_PLACEHOLDER_PREFIX_EXTENDED + identifier;
-		}
+    	PlaceHolderKey placeHolderKey = getPlaceHolderKey( identifier );
     	
-    	for ( PlaceHolderKey placeHolderKey : placeHolderKeys ) {
-			if ( placeHolderKey.getKey().equalsIgnoreCase( identifier )) {
-				
-				Mine mine = getMine( placeHolderKey.getData() );
-				
-				results = getTranslateMinesPlaceHolder( placeHolderKey, mine );
-				break;
-			}
-		}
+    	if ( placeHolderKey != null ) {
+    		
+    		results = placeholderValueCache.get( null, placeHolderKey, 
+    				key -> getTranslateMinesPlaceHolder( key, getMine( key.getData() ) ) );
+    	}
     	
     	return results;
     }
@@ -565,44 +585,45 @@ public class MineManager
     private String getTranslateMinesPlaceHolder( PlaceHolderKey placeHolderKey, Mine mine ) {
 		String results = null;
 
-		if ( placeHolderKey != null && placeHolderKey.getData() != null ) {
+		if ( placeHolderKey != null ) {
 
-			// If the mine is not provided, try to get it from the placeholder data: 
+			// If the mine is not provided, try to get it from the placeholder data.
+			// The player mines placeholders have no data, so the mine must be provided: 
 			if ( mine == null ) {
 				mine = getMine( placeHolderKey.getData() );
 			}
 
 			if ( mine != null ) {
-				DecimalFormat dFmt = new DecimalFormat("#,##0.00");
-				DecimalFormat iFmt = new DecimalFormat("#,##0");
-				
+				// Only read from the snapshot since this may be on an async thread:
+				MineStateSnapshot state = mine.getStateSnapshot();
+
 				switch ( placeHolderKey.getPlaceholder() ) {
 					case prison_mn_minename:
 					case prison_mines_name_minename:
 					case prison_mn_pm:
 					case prison_mines_name_playermines:
-						results = mine.getName();
+						results = state.getName();
 						break;
 						
 					case prison_mt_minename:
 					case prison_mines_tag_minename:
 					case prison_mt_pm:
 					case prison_mines_tag_playermines:
-						results = mine.getTag() == null ? mine.getName() : mine.getTag();
+						results = state.getTag();
 						break;
 						
 					case prison_mi_minename:
 					case prison_mines_interval_minename:
 					case prison_mi_pm:
 					case prison_mines_interval_playermines:
-						results = iFmt.format( mine.getResetTime() );
+						results = PlaceholdersUtil.formatInteger( state.getResetTime() );
 						break;
 						
 					case prison_mif_minename:
 					case prison_mines_interval_formatted_minename:
 					case prison_mif_pm:
 					case prison_mines_interval_formatted_playermines:
-						double timeMif = mine.getResetTime();
+						double timeMif = state.getResetTime();
 						results = PlaceholdersUtil.formattedTime( timeMif );
 						break;
 						
@@ -611,7 +632,7 @@ public class MineManager
 					case prison_mtl_pm:
 					case prison_mines_timeleft_playermines:
 						// NOTE: timeleft can vary based upon server loads:
-						results = dFmt.format( mine.getRemainingTimeSec() );
+						results = PlaceholdersUtil.formatDecimal( state.getRemainingTimeSec() );
 						break;
 						
 					case prison_mtlb_minename:
@@ -620,7 +641,7 @@ public class MineManager
 					case prison_mines_timeleft_bar_playermines:
 						// NOTE: timeleft can vary based upon server loads:
 						
-						results = getRemainingTimeBar( mine );
+						results = getRemainingTimeBar( state );
 						break;
 						
 					case prison_mtlf_minename:
@@ -628,7 +649,7 @@ public class MineManager
 					case prison_mtlf_pm:
 					case prison_mines_timeleft_formatted_playermines:
 						// NOTE: timeleft can vary based upon server loads:
-						double timeMtlf = mine.getRemainingTimeSec();
+						double timeMtlf = state.getRemainingTimeSec();
 						results = PlaceholdersUtil.formattedTime( timeMtlf );
 						break;
 						
@@ -636,23 +657,23 @@ public class MineManager
 					case prison_mines_size_minename:
 					case prison_ms_pm:
 					case prison_mines_size_playermines:
-						results = iFmt.format( mine.getBounds().getTotalBlockCount() );
+						results = PlaceholdersUtil.formatInteger( state.getTotalBlockCount() );
 						break;
 						
 					case prison_mr_minename:
 					case prison_mines_remaining_minename:
 					case prison_mr_pm:
 					case prison_mines_remaining_playermines:
-						int remainingBlocks = mine.getRemainingBlockCount();
-						results = iFmt.format( remainingBlocks );
+						int remainingBlocks = state.getTotalBlockCount() - mine.getBlockBreakCount();
+						results = PlaceholdersUtil.formatInteger( remainingBlocks );
 						break;
 						
 					case prison_mrb_minename:
 					case prison_mines_remaining_bar_minename:
 					case prison_mrb_pm:
 					case prison_mines_remaining_bar_playermines:
-						int totalBlocks = mine.getBounds().getTotalBlockCount();
-						int blocksRemaining = mine.getRemainingBlockCount();
+						int totalBlocks = state.getTotalBlockCount();
+						int blocksRemaining = totalBlocks - mine.getBlockBreakCount();
 						
 						results = Prison.get().getIntegrationManager().
 									getProgressBar( ((double) blocksRemaining), ((double) totalBlocks), false );
@@ -663,29 +684,31 @@ public class MineManager
 					case prison_mp_pm:
 					case prison_mines_percent_playermines:
 						// mine.refreshAirCount(); // async & delayed : Very high cost
-						double percentRemaining = mine.getPercentRemainingBlockCount();
-						results = dFmt.format( percentRemaining );
+						int totalCount = state.getTotalBlockCount();
+						double percentRemaining = ( state.isVirtual() || totalCount == 0 ? 0d : 
+								((totalCount - mine.getBlockBreakCount()) * 100d) / (double) totalCount );
+						results = PlaceholdersUtil.formatDecimal( percentRemaining );
 						break;
 						
 					case prison_mpc_minename:
 					case prison_mines_player_count_minename:
 					case prison_mpc_pm:
 					case prison_mines_player_count_playermines:
-						results = iFmt.format( mine.getPlayerCount() );
+						results = PlaceholdersUtil.formatInteger( mine.getPlayerCount() );
 						break;
 						
 					case prison_mbm_minename:
 					case prison_mines_blocks_mined_minename:
 					case prison_mbm_pm:
 					case prison_mines_blocks_mined_playermines:
-						results = iFmt.format( mine.getTotalBlocksMined() );
+						results = PlaceholdersUtil.formatInteger( mine.getTotalBlocksMined() );
 						break;
 						
 					case prison_mrc_minename:
 					case prison_mines_reset_count_minename:
 					case prison_mrc_pm:
 					case prison_mines_reset_count_playermines:
-						results = iFmt.format( mine.getResetCount() );
+						results = PlaceholdersUtil.formatInteger( state.getResetCount() );
 						break;
 						
 					default:
@@ -703,17 +726,11 @@ public class MineManager
 
     	if ( playerUuid != null ) {
     		
-    		List<PlaceHolderKey> placeHolderKeys = getTranslatedPlaceHolderKeys();
+    		PlaceHolderKey placeHolderKey = getPlaceHolderKey( identifier );
     		
-    		if ( !identifier.startsWith( IntegrationManager.PRISON_PLACEHOLDER_PREFIX_EXTENDED )) {
-    			identifier = IntegrationManager.PRISON_PLACEHOLDER_PREFIX_EXTENDED + identifier;
-    		}
-    		
-    		for ( PlaceHolderKey placeHolderKey : placeHolderKeys ) {
-    			if ( placeHolderKey.getKey().equalsIgnoreCase( identifier )) {
-    				results = getTranslatePlayerMinesPlaceHolder( playerUuid, playerName, placeHolderKey );
-    				break;
-    			}
+    		if ( placeHolderKey != null ) {
+    			results = placeholderValueCache.get( playerUuid, placeHolderKey, 
+    					key -> getTranslatePlayerMinesPlaceHolder( playerUuid, playerName, key ) );
     		}
     	}
     	
@@ -733,17 +750,11 @@ public class MineManager
 
 		if ( playerUuid != null ) {
 			
-			// there is no data stored for PLAYERMINES:
-//			String data = placeHolderKey.getData();
-			
-			Player player = getPlayer(playerUuid, playerName);
+			// there is no data stored for PLAYERMINES, so use the mine the player is in:
+			Mine mine = PrisonMines.getInstance().getPlayerMineTracker().getMine( playerUuid );
 			
-			if ( player != null ) {
-				Mine mine = PrisonMines.getInstance().findMineLocation( player );
-				
-				if ( mine != null ) {
-					results = getTranslateMinesPlaceHolder( placeHolderKey, mine );
-				}
+			if ( mine != null ) {
+				results = getTranslateMinesPlaceHolder( placeHolderKey, mine );
 			}
 		}
 		
@@ -751,41 +762,10 @@ public class MineManager
     }
     
 
-    /**
-     * Get the Player based first on UUID, then on name. 
-     * 
-     * @param playerUuid
-     * @param playerName
-     * @return
-     */
-    private Player getPlayer( UUID playerUuid, String playerName ) {
-    	Player player = null;
-    	Player playerAlt = null;
-    	
-    	// First try to match on UUID
-		for ( Player p : Prison.get().getPlatform().getOnlinePlayers() ) {
-			if ( p.getUUID().compareTo( playerUuid ) == 0 ) {
-				player = p;
-				break;
-			} 
-			else if ( p.getName().equalsIgnoreCase( playerName ) ) {
-				// If we get a hit on the name, save it as an alt...
-				playerAlt = p;
-			}
-		}
-		
-		// if player is null, and we have a playerAlt, then use it:
-		if ( player == null && playerAlt != null ) {
-			player = playerAlt;
-		}
-		return player;
-	}
-
+	private String getRemainingTimeBar( MineStateSnapshot state ) {
 
-	private String getRemainingTimeBar( Mine mine ) {
-
-    	double timeRemaining = mine.getRemainingTimeSec();
-    	int time = mine.getResetTime();
+    	double timeRemaining = state.getRemainingTimeSec();
+    	int time = state.getResetTime();
     	
     	return Prison.get().getIntegrationManager().
     					getProgressBar( timeRemaining, ((double) time), true );
@@ -798,87 +778,98 @@ public class MineManager
 	/**
      * <p>Generates a list of all of the placeholder keys, which includes the
      * mine name, the placeholder enumeration, and then the actual translated
-     * placeholder with the mine's name. This is generated only once, but if new
-     * mines are added or mines removed, then just set the class variable to
-     * null to auto regenerate with the new values. 
+     * placeholder with the mine's name. This is generated each time it is 
+     * called since it is only used to list, search, and count the placeholders.
+     * The placeholders are translated through the placeHolderKeyParser, so 
+     * this list is never used to look up a placeholder.
      * </p>
      */
     @Override
     public List<PlaceHolderKey> getTranslatedPlaceHolderKeys() {
-    	if ( translatedPlaceHolderKeys == null ) {
-    		translatedPlaceHolderKeys = new ArrayList<>();
-    		
-    		List<PrisonPlaceHolders> placeHolders = 
-    				PrisonPlaceHolders.getTypes( PlaceHolderFlags.MINES );
-//    				PrisonPlaceHolders.excludeTypes( 
-//    					PrisonPlaceHolders.getTypes( PlaceHolderFlags.MINES ),
-//    						PlaceHolderFlags.PLAYERMINES);
-    		
-    		for ( Mine mine : getMines() ) {
-    			for ( PrisonPlaceHolders ph : placeHolders ) {
-    				String key = ph.name().replace( 
-    						IntegrationManager.PRISON_PLACEHOLDER_MINENAME_SUFFIX, "_" + mine.getName() ).
-    						toLowerCase();
-    				
-    				PlaceHolderKey placeholder = new PlaceHolderKey(key, ph, mine.getName() );
-    				if ( ph.getAlias() != null ) {
-    					String aliasName = ph.getAlias().name().replace( 
-    							IntegrationManager.PRISON_PLACEHOLDER_MINENAME_SUFFIX, "_" + mine.getName() ).
-    							toLowerCase();
-    					placeholder.setAliasName( aliasName );
-    				}
-    				translatedPlaceHolderKeys.add( placeholder );
-    				
-    				// Getting too many placeholders... add back the extended prefix when looking up:
-
-//    				// Now generate a new key based upon the first key, but without the prison_ prefix:
-//    				String key2 = key.replace( 
-//    						IntegrationManager.PRISON_PLACEHOLDER_PREFIX + "_", "" );
-//    				PlaceHolderKey placeholder2 = new PlaceHolderKey(key2, ph, mine.getName(), false );
-//    				translatedPlaceHolderKeys.add( placeholder2 );
-    				
-    			}
+    	List<PlaceHolderKey> translatedPlaceHolderKeys = new ArrayList<>();
+    	
+    	List<PrisonPlaceHolders> placeHolders = 
+    			PrisonPlaceHolders.getTypes( PlaceHolderFlags.MINES );
+    	
+    	for ( Mine mine : getMines() ) {
+    		for ( PrisonPlaceHolders ph : placeHolders ) {
+    			translatedPlaceHolderKeys.add( PlaceHolderKeyParser.getPlaceHolderKey( ph, 
+    					IntegrationManager.PRISON_PLACEHOLDER_MINENAME_SUFFIX, mine.getName() ) );
     		}
+    	}
+    	
+    	
+    	// Next we need to register all the PLAYERMINES.  The mines are dynamic, based upon which one
+    	// the player is in.  So this is just a simple registration.
+    	placeHolders = PrisonPlaceHolders.getTypes( PlaceHolderFlags.PLAYERMINES );
+    	
+    	for ( PrisonPlaceHolders ph : placeHolders ) {
+    		translatedPlaceHolderKeys.add( PlaceHolderKeyParser.getPlaceHolderKey( ph, null, null ) );
+    	}
+    	
+    	return translatedPlaceHolderKeys;
+    }
+    
+    /**
+     * <p>The parser only holds the placeholder types, so it does not need to be 
+     * rebuilt when mines are added or removed.
+     * </p>
+     */
+    public PlaceHolderKeyParser getPlaceHolderKeyParser() {
+    	PlaceHolderKeyParser parser = placeHolderKeyParser;
+    	
+    	if ( parser == null ) {
+    		parser = new PlaceHolderKeyParser();
     		
+    		parser.add( PrisonPlaceHolders.getTypes( PlaceHolderFlags.MINES ), 
+    				IntegrationManager.PRISON_PLACEHOLDER_MINENAME_SUFFIX );
+    		parser.add( PrisonPlaceHolders.getTypes( PlaceHolderFlags.PLAYERMINES ), null );
     		
-    		// Next we need to register all the PLAYERMINES.  The mines are dynamic, based upon which one
-    		// the player is in.  So this is just a simple registration.
-    		placeHolders = PrisonPlaceHolders.getTypes( PlaceHolderFlags.PLAYERMINES );
-    		
-			for ( PrisonPlaceHolders ph : placeHolders ) {
-				String key = ph.name();
-				
-				PlaceHolderKey placeholder = new PlaceHolderKey(key, ph );
-				if ( ph.getAlias() != null ) {
-					String aliasName = ph.getAlias().name();
-					placeholder.setAliasName( aliasName );
-				}
-				translatedPlaceHolderKeys.add( placeholder );
-			}
-
+    		this.placeHolderKeyParser = parser;
     	}
-    	return translatedPlaceHolderKeys;
+    	return parser;
+    }
+    
+    /**
+     * <p>Finds the PlaceHolderKey for the given identifier by parsing it.  The mine 
+     * name, if the placeholder has one, must be an existing mine.  The prison prefix 
+     * is added if it is missing.
+     * </p>
+     * 
+     * @param identifier
+     * @return the PlaceHolderKey, or null if there is no match
+     */
+    public PlaceHolderKey getPlaceHolderKey( String identifier ) {
+    	return getPlaceHolderKeyParser().parse( identifier, name -> getMine( name ) != null );
     }
 
     /**
-     * <p>If new
-     * mines are added or mines removed, then just set the class variable to
-     * null to auto regenerate with the new values. 
+     * <p>Removes the cached placeholder values for the mine, and all of the player
+     * mines placeholders, since they may be for the same mine.
      * </p>
+     * 
+     * @param mineName
      */
-    public void resetTranslatedPlaceHolderKeys() {
-    	translatedPlaceHolderKeys = null;
+    public void invalidatePlaceholderCache( String mineName ) {
+    	placeholderValueCache.invalidate( placeHolderKey -> 
+    			mineName.equalsIgnoreCase( placeHolderKey.getData() ) || 
+    			placeHolderKey.getPlaceholder().hasFlag( PlaceHolderFlags.PLAYERMINES ) );
+    }
+    
+    public void invalidatePlayerPlaceholderCache( UUID playerUuid ) {
+    	placeholderValueCache.invalidatePlayer( playerUuid );
     }
     
     
     @Override
     public void reloadPlaceholders() {
     	
-    	// clear the class variable so they will regenerate:
-    	translatedPlaceHolderKeys = null;
+    	// clear the parser so it will regenerate:
+    	placeHolderKeyParser = null;
+    	
+    	placeholderValueCache.invalidateAll();
     	
-    	// Regenerate the translated placeholders:
-    	getTranslatedPlaceHolderKeys();
+    	getPlaceHolderKeyParser();
     }
 
 }
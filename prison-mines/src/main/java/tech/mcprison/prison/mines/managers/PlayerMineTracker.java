@@ -0,0 +1,203 @@
+package tech.mcprison.prison.mines.managers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.eventbus.Subscribe;
+
+import tech.mcprison.prison.Prison;
+import tech.mcprison.prison.internal.Player;
+import tech.mcprison.prison.internal.World;
+import tech.mcprison.prison.internal.events.player.PlayerJoinEvent;
+import tech.mcprison.prison.internal.events.player.PlayerMoveEvent;
+import tech.mcprison.prison.internal.events.player.PlayerQuitEvent;
+import tech.mcprison.prison.mines.PrisonMines;
+import tech.mcprison.prison.mines.data.Mine;
+import tech.mcprison.prison.mines.events.MineEnterEvent;
+import tech.mcprison.prison.mines.events.MineExitEvent;
+import tech.mcprison.prison.util.Location;
+
+/**
+ * <p>Tracks which mine each player is in, and which players are in each mine.
+ * This is updated from the player's movements, which are only posted when the
+ * player crosses a block boundary, so the player count, the player's current
+ * mine, and the list of players within a mine are all available without
+ * having to check every player in the world against the mine's bounds.
+ * </p>
+ *
+ * <p>When a player enters or leaves a mine, a MineEnterEvent or MineExitEvent
+ * is posted.  Only the enabled mines are tracked, so a player within a disabled
+ * mine is not in any mine.
+ * </p>
+ *
+ * <p>The maps are concurrent since they are read from the placeholders, which
+ * may be on the async chat thread. They are only updated on the main thread.
+ * </p>
+ *
+ */
+public class PlayerMineTracker {
+
+	private final Map<UUID, Mine> playerMines;
+	private final Map<String, Map<UUID, Player>> minePlayers;
+
+	public PlayerMineTracker() {
+		super();
+
+		this.playerMines = new ConcurrentHashMap<>();
+		this.minePlayers = new ConcurrentHashMap<>();
+
+		Prison.get().getEventBus().register( this );
+	}
+
+	/**
+	 * <p>Stops tracking the players when the module is disabled, so this tracker
+	 * does not keep receiving the player events after the module is reloaded.
+	 * </p>
+	 */
+	public void shutdown() {
+		Prison.get().getEventBus().unregister( this );
+
+		playerMines.clear();
+		minePlayers.clear();
+	}
+
+	@Subscribe
+	public void onPlayerMove( PlayerMoveEvent e ) {
+		updatePlayer( e.getPlayer(), e.getTo() );
+	}
+
+	@Subscribe
+	public void onPlayerJoin( PlayerJoinEvent e ) {
+		updatePlayer( e.getPlayer(), e.getPlayer().getLocation() );
+	}
+
+	@Subscribe
+	public void onPlayerQuit( PlayerQuitEvent e ) {
+		updatePlayer( e.getPlayer(), null );
+	}
+
+	/**
+	 * <p>Updates the player's mine for their new location.  The player's last mine
+	 * is checked first since there is a very high chance they are still in it.
+	 * Only if they are not, are the rest of the enabled mines checked.
+	 * </p>
+	 *
+	 * @param player
+	 * @param location The new location, or null if the player has left the server
+	 */
+	public void updatePlayer( Player player, Location location ) {
+		UUID uuid = player.getUUID();
+		Mine oldMine = playerMines.get( uuid );
+
+		Mine newMine = null;
+		if ( location != null ) {
+			if ( oldMine != null && oldMine.isEnabled() && oldMine.isInMine( location ) ) {
+				newMine = oldMine;
+			}
+			else {
+				newMine = findEnabledMine( location );
+			}
+		}
+
+		if ( newMine != oldMine ) {
+			if ( oldMine != null ) {
+				playerMines.remove( uuid );
+				getMinePlayersMap( oldMine ).remove( uuid );
+
+				Prison.get().getEventBus().post( new MineExitEvent( oldMine, player ) );
+			}
+
+			if ( newMine != null ) {
+				playerMines.put( uuid, newMine );
+				getMinePlayersMap( newMine ).put( uuid, player );
+
+				Prison.get().getEventBus().post( new MineEnterEvent( newMine, player ) );
+			}
+		}
+	}
+
+	private Mine findEnabledMine( Location location ) {
+		Mine results = null;
+
+		for ( Mine mine : PrisonMines.getInstance().getMines() ) {
+			if ( mine.isEnabled() && mine.isInMine( location ) ) {
+				results = mine;
+				break;
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * <p>Checks all of the players within the mine's world, and updates which
+	 * players are in the mine.  This should be used when the mine's bounds have
+	 * been changed, or it has been enabled or disabled, since the players will
+	 * not have moved.
+	 * </p>
+	 *
+	 * @param mine
+	 */
+	public void refreshMine( Mine mine ) {
+
+		// Players who were in the mine may no longer be in it:
+		for ( Player player : getPlayers( mine ) ) {
+			updatePlayer( player, player.getLocation() );
+		}
+
+		if ( mine.isEnabled() && mine.getWorld().isPresent() ) {
+			World world = mine.getWorld().get();
+
+			List<Player> players = (world.getPlayers() != null ? world.getPlayers() :
+				Prison.get().getPlatform().getOnlinePlayers());
+			for ( Player player : players ) {
+				if ( mine.isInMine( player.getLocation() ) ) {
+					updatePlayer( player, player.getLocation() );
+				}
+			}
+		}
+	}
+
+	/**
+	 * <p>Removes all of the players from the mine, such as when the mine is deleted.
+	 * </p>
+	 *
+	 * @param mine
+	 */
+	public void removeMine( Mine mine ) {
+		for ( Player player : getPlayers( mine ) ) {
+			updatePlayer( player, null );
+		}
+		minePlayers.remove( mine.getName().toLowerCase() );
+	}
+
+	private Map<UUID, Player> getMinePlayersMap( Mine mine ) {
+		return minePlayers.computeIfAbsent( mine.getName().toLowerCase(),
+							name -> new ConcurrentHashMap<>() );
+	}
+
+	/**
+	 * @param playerUuid
+	 * @return The mine the player is in, or null if they are not in a mine.
+	 */
+	public Mine getMine( UUID playerUuid ) {
+		return playerUuid == null ? null : playerMines.get( playerUuid );
+	}
+
+	/**
+	 * @param mine
+	 * @return A copy of the list of players that are within the mine.
+	 */
+	public List<Player> getPlayers( Mine mine ) {
+		Map<UUID, Player> players = minePlayers.get( mine.getName().toLowerCase() );
+		return players == null ? Collections.emptyList() : new ArrayList<>( players.values() );
+	}
+
+	public int getPlayerCount( Mine mine ) {
+		Map<UUID, Player> players = minePlayers.get( mine.getName().toLowerCase() );
+		return players == null ? 0 : players.size();
+	}
+}
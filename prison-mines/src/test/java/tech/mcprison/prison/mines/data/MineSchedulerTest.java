@@ -1,6 +1,7 @@
 package tech.mcprison.prison.mines.data;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -10,9 +11,51 @@ import java.util.Stack;
 
 import org.junit.Test;
 
+import tech.mcprison.prison.internal.Player;
+import tech.mcprison.prison.internal.World;
+import tech.mcprison.prison.internal.block.Block;
+import tech.mcprison.prison.util.Bounds;
+import tech.mcprison.prison.util.Location;
+
 public class MineSchedulerTest
 		extends MineScheduler
 {
+	private int thresholdResets = 0;
+	
+	/**
+	 * <p>Counts the resets that the threshold submits, instead of firing the 
+	 * event and scheduling the reset.
+	 * </p>
+	 */
+	@Override
+	protected boolean submitResetThreshold( int blockBreakCount ) {
+		thresholdResets++;
+		return true;
+	}
+	
+	/**
+	 * <p>Sets the bounds to a 10 x 10 x 10 mine, which is 1000 blocks.
+	 * </p>
+	 */
+	private void setTestBounds() {
+		World world = new World() {
+			@Override
+			public String getName() {
+				return "test";
+			}
+			@Override
+			public List<Player> getPlayers() {
+				return new ArrayList<>();
+			}
+			@Override
+			public Block getBlockAt( Location location ) {
+				return null;
+			}
+		};
+		
+		setWorldName( world.getName() );
+		setBounds( new Bounds( new Location( world, 0, 0, 0 ), new Location( world, 9, 9, 9 ) ) );
+	}
 
 	/**
 	 * <p>In this first jUnit test we need to setup a workflow with three entries.
@@ -116,5 +159,84 @@ public class MineSchedulerTest
 		assertEquals( resetTime, job.getDelayActionSec(), 0.1d );
 		
 	}
+	
+	
+	@Test
+	public void testResetTriggerCount()
+	{
+		// No bounds, so the mine never resets on its own:
+		assertEquals( Integer.MAX_VALUE, getZeroBlockResetTriggerCount() );
+		
+		setTestBounds();
+		
+		// The mine resets when it runs out of blocks:
+		assertEquals( 1000, getZeroBlockResetTriggerCount() );
+		
+		// Or when less than 10 percent of the blocks remain:
+		setResetThresholdPercent( 10.0d );
+		assertEquals( 901, getZeroBlockResetTriggerCount() );
+		
+		// Only the threshold percent applies when the zero block reset is disabled:
+		setZeroBlockResetDelaySec( -1.0d );
+		assertEquals( 901, getZeroBlockResetTriggerCount() );
+		
+		setResetThresholdPercent( 0 );
+		assertEquals( Integer.MAX_VALUE, getZeroBlockResetTriggerCount() );
+		
+		// A virtual mine with bounds still resets at the threshold percent, but not
+		// when it runs out of blocks:
+		setZeroBlockResetDelaySec( 0 );
+		setVirtual( true );
+		assertEquals( Integer.MAX_VALUE, getZeroBlockResetTriggerCount() );
+		
+		setResetThresholdPercent( 10.0d );
+		assertEquals( 901, getZeroBlockResetTriggerCount() );
+	}
+	
+	@Test
+	public void testResetThreshold()
+	{
+		setTestBounds();
+		setBlockBreakCount( 998 );
+		
+		assertFalse( incrementBlockBreakCountAndCheckReset() );
+		assertTrue( incrementBlockBreakCountAndCheckReset() );
+		assertEquals( 1, thresholdResets );
+		
+		// The threshold only fires once per reset cycle:
+		assertFalse( incrementBlockBreakCountAndCheckReset() );
+		assertFalse( checkZeroBlockReset() );
+		assertEquals( 1, thresholdResets );
+		
+		// The reset was canceled, so the next block break fires it again:
+		resetCanceled();
+		assertTrue( incrementBlockBreakCountAndCheckReset() );
+		assertEquals( 2, thresholdResets );
+		assertFalse( incrementBlockBreakCountAndCheckReset() );
+		
+		// The mine was reset:
+		setBlockBreakCount( 0 );
+		assertFalse( addBlockBreakCountAndCheckReset( 999 ) );
+		assertTrue( addBlockBreakCountAndCheckReset( 1 ) );
+		assertEquals( 3, thresholdResets );
+	}
+	
+	@Test
+	public void testResetThresholdPercent()
+	{
+		setTestBounds();
+		setResetThresholdPercent( 10.0d );
+		
+		assertFalse( addBlockBreakCountAndCheckReset( 900 ) );
+		assertTrue( incrementBlockBreakCountAndCheckReset() );
+		assertEquals( 1, thresholdResets );
+		
+		// A virtual mine resets at the threshold percent too:
+		setVirtual( true );
+		setBlockBreakCount( 0 );
+		assertFalse( addBlockBreakCountAndCheckReset( 900 ) );
+		assertTrue( incrementBlockBreakCountAndCheckReset() );
+		assertEquals( 2, thresholdResets );
+	}
 
 }
@@ -1,11 +1,9 @@
 package tech.mcprison.prison.ranks;
 
-import java.util.List;
-
 import com.google.common.eventbus.Subscribe;
 
 import tech.mcprison.prison.Prison;
-import tech.mcprison.prison.integration.PlaceHolderKey;
+import tech.mcprison.prison.integration.PlaceholderTemplate;
 import tech.mcprison.prison.internal.Player;
 import tech.mcprison.prison.internal.events.player.PlayerChatEvent;
 import tech.mcprison.prison.ranks.managers.PlayerManager;
@@ -56,15 +54,10 @@ public class ChatHandler {
     	
     	Player player = e.getPlayer();
     	
-    	List<PlaceHolderKey> placeholderKeys = pm.getTranslatedPlaceHolderKeys();
-    	
-    	for ( PlaceHolderKey placeHolderKey : placeholderKeys ) {
-    		String key = "{" + placeHolderKey.getKey() + "}";
-    		if ( newFormat.contains( key )) {
-    			newFormat = newFormat.replace(key, Text.translateAmpColorCodes(
-    					pm.getTranslatePlayerPlaceHolder( player.getUUID(), player.getName(), placeHolderKey ) ));
-    		}
-    	}
+    	newFormat = PlaceholderTemplate.translate( newFormat, identifier -> {
+    		String value = pm.getTranslatePlayerPlaceHolder( player.getUUID(), player.getName(), identifier );
+    		return value == null ? null : Text.translateAmpColorCodes( value );
+    	});
         
 //        String prefix = getPrefix(e.getPlayer().getUUID());
 //        String newFormat = e.getFormat().replace("{PRISON_RANK}", Text.translateAmpColorCodes(prefix));
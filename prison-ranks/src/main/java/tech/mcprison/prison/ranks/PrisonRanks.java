@@ -33,10 +33,13 @@ import tech.mcprison.prison.ranks.commands.RankUpCommand;
 import tech.mcprison.prison.ranks.commands.RanksCommands;
 import tech.mcprison.prison.ranks.data.RankLadder;
 import tech.mcprison.prison.ranks.managers.LadderManager;
+import tech.mcprison.prison.ranks.managers.LeaderboardManager;
+import tech.mcprison.prison.ranks.managers.PlayerMigrationManager;
 import tech.mcprison.prison.ranks.managers.PlayerManager;
 import tech.mcprison.prison.ranks.managers.RankManager;
 import tech.mcprison.prison.store.Collection;
 import tech.mcprison.prison.store.Database;
+import tech.mcprison.prison.util.CommandDispatchQueue;
 
 /**
  * @author Faizaan A. Datoo
@@ -51,6 +54,10 @@ public class PrisonRanks extends Module {
     private RankManager rankManager;
     private LadderManager ladderManager;
     private PlayerManager playerManager;
+    private LeaderboardManager leaderboardManager;
+    private PlayerMigrationManager playerMigrationManager;
+    
+    private CommandDispatchQueue commandQueue;
 
     private Database database;
 
@@ -129,6 +136,15 @@ public class PrisonRanks extends Module {
         // Verify that all ranks that use currencies have valid currencies:
         rankManager.identifyAllRankCurrencies();
         
+        commandQueue = new CommandDispatchQueue( "rankup-commands", getCommandsPerTick() );
+        
+        
+        // Load up the player migrations that have not finished, so they are applied
+        // to the players as they are loaded:
+        
+        playerMigrationManager = new PlayerMigrationManager( initCollection("migrations"), 
+        						getMigrationPlayersPerBatch() );
+        playerMigrationManager.loadMigrations();
         
         // Load up the players
 
@@ -141,6 +157,9 @@ public class PrisonRanks extends Module {
         	getStatus().addMessage("&cFailed Loading Players: " + e.getMessage());
             Output.get().logError("A player file failed to load.", e);
         }
+        
+        leaderboardManager = new LeaderboardManager();
+        playerMigrationManager.start();
 
         // Load up the commands
 
@@ -243,6 +262,22 @@ public class PrisonRanks extends Module {
      */
     @Override 
     public void disable() {
+    	
+    	// Stop updating the player files, the migrations will resume on the next start:
+    	if ( playerMigrationManager != null ) {
+    		playerMigrationManager.shutdown();
+    	}
+    	
+    	// The players are written in the background, so make sure they are all written:
+    	if ( playerManager != null ) {
+    		playerManager.shutdown();
+    	}
+    	
+    	// Run any rank up commands that are still waiting, so the players do not lose them:
+    	if ( commandQueue != null ) {
+    		commandQueue.shutdown();
+    	}
+    	
 //        try {
 //            rankManager.saveRanks();
 //        } catch (IOException e) {
@@ -262,6 +297,56 @@ public class PrisonRanks extends Module {
         return playerManager;
     }
 
+    public LeaderboardManager getLeaderboardManager() {
+    	return leaderboardManager;
+    }
+
+    public PlayerMigrationManager getPlayerMigrationManager() {
+    	return playerMigrationManager;
+    }
+
+    /**
+     * @return The queue that the rank up commands are ran through, so they are
+     * 			spread over a number of ticks.
+     */
+    public CommandDispatchQueue getCommandQueue() {
+    	return commandQueue;
+    }
+    
+    private int getCommandsPerTick() {
+    	int results = CommandDispatchQueue.DEFAULT_COMMANDS_PER_TICK;
+    	
+    	String value = Prison.get().getPlatform().getConfigString( "ranks-commands-per-tick" );
+    	if ( value != null ) {
+    		try {
+    			results = Integer.parseInt( value.trim() );
+    		}
+    		catch ( NumberFormatException e ) {
+    			Output.get().logWarn( "PrisonRanks: The config.yml ranks-commands-per-tick " +
+    					"is not a valid integer. Defaulting to a value of " + results + 
+    					" [" + value + "] " + e.getMessage() );
+    		}
+    	}
+    	return results;
+    }
+    
+    private int getMigrationPlayersPerBatch() {
+    	int results = PlayerMigrationManager.DEFAULT_PLAYERS_PER_BATCH;
+    	
+    	String value = Prison.get().getPlatform().getConfigString( "ranks-migration-players-per-tick" );
+    	if ( value != null ) {
+    		try {
+    			results = Integer.parseInt( value.trim() );
+    		}
+    		catch ( NumberFormatException e ) {
+    			Output.get().logWarn( "PrisonRanks: The config.yml ranks-migration-players-per-tick " +
+    					"is not a valid integer. Defaulting to a value of " + results + 
+    					" [" + value + "] " + e.getMessage() );
+    		}
+    	}
+    	return results;
+    }
+
     public RankLadder getDefaultLadder() {
         return getLadderManager().getLadder("default").orElseThrow(IllegalStateException::new);
     }
@@ -283,8 +368,8 @@ public class PrisonRanks extends Module {
     }
     
     public int getPlayersCount() {
-    	int playersCount = getPlayerManager() == null || getPlayerManager().getPlayers() == null ? 0 : 
-    		getPlayerManager().getPlayers().size();
+    	int playersCount = getPlayerManager() == null ? 0 : 
+    		getPlayerManager().getPlayersCount();
     	return playersCount;
     }
 }
@@ -20,6 +20,8 @@ package tech.mcprison.prison.ranks;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import tech.mcprison.prison.Prison;
@@ -30,8 +32,11 @@ import tech.mcprison.prison.internal.Player;
 import tech.mcprison.prison.output.Output;
 import tech.mcprison.prison.ranks.data.Rank;
 import tech.mcprison.prison.ranks.data.RankLadder;
+import tech.mcprison.prison.ranks.data.RankLadderIndex;
 import tech.mcprison.prison.ranks.data.RankPlayer;
 import tech.mcprison.prison.ranks.events.RankUpEvent;
+import tech.mcprison.prison.util.CommandDispatchQueue;
+import tech.mcprison.prison.util.CommandTemplate;
 
 /**
  * Utilities for changing the ranks of players.
@@ -45,7 +50,8 @@ public class RankUtil {
 		rankup,
 		promote,
 		demote,
-		setrank;
+		setrank,
+		rankupmax;
 	}
 	
 	public enum RankupModes {
@@ -121,6 +127,8 @@ public class RankUtil {
 		rankupCommandsStart,
 		rankupCommandsCompleted,
 		
+		ranks_gained,
+		
 		fireRankupEvent,
 		
 		rankup_successful, 
@@ -249,6 +257,9 @@ public class RankUtil {
     		Output.get().logError( message, e );
     	}
     	
+    	// The player's balance may have changed, even if the rankup failed:
+    	PrisonAPI.getIntegrationManager().getBalanceCache().invalidate( player.uid );
+    	
     	// Log the results:
     	logTransactionResults(results);
     	
@@ -508,13 +519,7 @@ public class RankUtil {
         results.addTransaction( RankupTransactions.rankupCommandsStart );
         results.setRankupCommandsAvailable( targetRank.rankUpCommands.size() );
         
-        int count = 0;
-        for (String cmd : targetRank.rankUpCommands) {
-            String formatted = cmd.replace("{player}", prisonPlayer.getName())
-                .replace("{player_uid}", player.uid.toString());
-            PrisonAPI.dispatchCommand(formatted);
-            count++;
-        }
+        int count = runRankupCommands( targetRank, prisonPlayer, player );
         results.setRankupCommandsExecuted( count );
         results.addTransaction( RankupTransactions.rankupCommandsCompleted );
 
@@ -528,6 +533,234 @@ public class RankUtil {
         
     }
 
+    /**
+     * <p>Ranks up the player as many ranks as they can afford, in one transaction.  
+     * The ranks are found in one pass up the ladder, with a running total of their 
+     * costs, and then the total is withdrawn once, the player is saved once, and 
+     * the rankup commands for each rank are ran in order.  The final state is the
+     * same as ranking up one rank at a time.
+     * </p>
+     * 
+     * <p>All of the ranks in one batch must use the same currency.  If the currency
+     * changes part way up the ladder, then the batch stops at that rank, and the
+     * caller should try again until the status is no longer a success.  If the
+     * player has no rank on the ladder, then this is a normal rankup, which will
+     * assign them the first rank.
+     * </p>
+     * 
+     * @param player
+     * @param ladderName
+     * @param playerName
+     * @return
+     */
+    public RankupResults rankupPlayerMax(RankPlayer player, String ladderName, String playerName) {
+    	
+    	RankupResults results = new RankupResults(RankupCommands.rankupmax, playerName, null, 
+    											ladderName, null);
+    	results.addTransaction(RankupTransactions.tring_to_rankup);
+    	results.addTransaction( RankupTransactions.costs_paid_by_player );
+    	
+    	try {
+    		rankupPlayerMaxInternal( results, player, ladderName, playerName );
+    	} catch (Exception e ) {
+    		results.addTransaction( RankupTransactions.failure_exception_caught_check_server_logs );
+    		String message = String.format( 
+    				"Failure to perform rankupPlayerMaxInternal check server logs for stack trace: %s", 
+    				e.getMessage() );
+    		Output.get().logError( message, e );
+    	}
+    	
+    	// The player's balance may have changed, even if the rankup failed:
+    	PrisonAPI.getIntegrationManager().getBalanceCache().invalidate( player.uid );
+    	
+    	// Log the results:
+    	logTransactionResults(results);
+    	
+    	return results;
+    }
+    
+    private void rankupPlayerMaxInternal( RankupResults results, RankPlayer player, 
+    		String ladderName, String playerName ) {
+    	
+    	Player prisonPlayer = PrisonAPI.getPlayer(player.uid).orElse(null);
+    	if( prisonPlayer == null ) {
+    		results.addTransaction( RankupStatus.RANKUP_FAILURE, RankupTransactions.failed_player );
+    		return;
+    	}
+    	
+    	// If ladderName is null, then assign it the default ladder:
+    	if ( ladderName == null ) {
+    		ladderName = "default";
+    		results.addTransaction(RankupTransactions.assigned_default_ladder);
+    	}
+    	
+    	RankLadder ladder = PrisonRanks.getInstance().getLadderManager().getLadder(ladderName).orElse(null);
+    	if( ladder == null ) {
+    		results.addTransaction( RankupStatus.RANKUP_FAILURE, RankupTransactions.failed_ladder );
+    		return;
+    	}
+    	
+    	Optional<Rank> currentRankOptional = player.getRank(ladder);
+    	if ( !currentRankOptional.isPresent() ) {
+    		// Without a rank, the first step sets the default rank, which is a normal rankup:
+    		rankupPlayerInternal( results, RankupCommands.rankup, player, ladderName, null, 
+    				playerName, null, PromoteForceCharge.charge_player );
+    		results.setRanksGained( results.getStatus() == RankupStatus.RANKUP_SUCCESS ? 1 : 0 );
+    		return;
+    	}
+    	
+    	Rank originalRank = currentRankOptional.get();
+    	results.addTransaction( RankupTransactions.orginal_rank );
+    	results.setOriginalRank( originalRank );
+    	
+    	Optional<Rank> nextRankOptional = ladder.getNext(ladder.getPositionOfRank(originalRank));
+    	if (!nextRankOptional.isPresent()) {
+    		// We're already at the highest rank.
+    		results.addTransaction( RankupStatus.RANKUP_HIGHEST, 
+    				RankupTransactions.no_higher_rank_found );
+    		return;
+    	}
+    	
+    	Rank nextRank = nextRankOptional.get();
+    	String currency = nextRank.currency;
+    	
+    	EconomyCurrencyIntegration currencyEcon = null;
+    	EconomyIntegration economy = null;
+    	double balance = 0;
+    	
+    	if ( currency != null ) {
+    		results.addTransaction( RankupTransactions.custom_currency );
+    		
+    		currencyEcon = PrisonAPI.getIntegrationManager().getEconomyForCurrency( currency );
+    		if ( currencyEcon == null ) {
+    			results.setTargetRank( nextRank );
+    			results.addTransaction( RankupStatus.RANKUP_FAILURE_CURRENCY_IS_NOT_SUPPORTED, 
+    					RankupTransactions.specified_currency_not_found );
+    			return;
+    		}
+    		balance = currencyEcon.getBalance( prisonPlayer, currency );
+    	}
+    	else {
+    		economy = PrisonAPI.getIntegrationManager().getEconomy();
+    		balance = economy.getBalance( prisonPlayer );
+    	}
+    	
+    	// Find the highest affordable rank from the ladder's running total of the costs:
+    	RankLadderIndex index = ladder.getIndex();
+    	int fromIndex = index.indexOfRank( originalRank.id );
+    	int toIndex = index.getMaxAffordableIndex( fromIndex, balance );
+    	
+    	List<Rank> ranks = new ArrayList<>();
+    	double totalCost = 0;
+    	
+    	for ( int i = fromIndex + 1; i <= toIndex; i++ ) {
+    		Rank rank = index.getRank( i );
+    		
+    		// Guard against rounding within the running total:
+    		if ( totalCost + rank.cost > balance ) {
+    			break;
+    		}
+    		
+    		totalCost += rank.cost;
+    		ranks.add( rank );
+    	}
+    	
+    	if ( ranks.size() == 0 ) {
+    		results.setTargetRank( nextRank );
+    		results.addTransaction( RankupStatus.RANKUP_CANT_AFFORD, 
+    				RankupTransactions.player_cannot_afford );
+    		return;
+    	}
+    	
+    	Rank targetRank = ranks.get( ranks.size() - 1 );
+    	results.setTargetRank( targetRank );
+    	results.addTransaction( RankupTransactions.set_to_next_higher_rank );
+    	
+    	// One withdrawal for all of the ranks:
+    	results.addTransaction( RankupTransactions.player_balance_initial );
+    	results.setBalanceInitial( balance );
+    	results.addTransaction( RankupTransactions.player_balance_decreased );
+    	if ( currencyEcon != null ) {
+    		currencyEcon.removeBalance( prisonPlayer, totalCost, currency );
+    		results.setBalanceFinal( currencyEcon.getBalance( prisonPlayer, currency ) );
+    	}
+    	else {
+    		economy.removeBalance( prisonPlayer, totalCost );
+    		results.setBalanceFinal( economy.getBalance( prisonPlayer ) );
+    	}
+    	results.addTransaction( RankupTransactions.player_balance_final );
+    	
+    	player.addRank(ladder, targetRank);
+    	
+    	try {
+    		PrisonRanks.getInstance().getPlayerManager().savePlayer(player);
+    	} catch (IOException e) {
+    		Output.get().logError("An error occurred while saving player files.", e);
+    		
+    		results.addTransaction( RankupStatus.RANKUP_FAILURE, 
+    				RankupTransactions.failure_cannot_save_player_file );
+    		return;
+    	}
+    	
+    	// Run the rankup commands, and fire the events, for each rank in order:
+    	results.addTransaction( RankupTransactions.rankupCommandsStart );
+    	
+    	int available = 0;
+    	int count = 0;
+    	Rank priorRank = originalRank;
+    	for ( Rank gainedRank : ranks ) {
+    		available += gainedRank.rankUpCommands.size();
+    		count += runRankupCommands( gainedRank, prisonPlayer, player );
+    		
+    		Prison.get().getEventBus().post(
+    				new RankUpEvent(player, priorRank, gainedRank, gainedRank.cost));
+    		priorRank = gainedRank;
+    	}
+    	results.setRankupCommandsAvailable( available );
+    	results.setRankupCommandsExecuted( count );
+    	results.addTransaction( RankupTransactions.rankupCommandsCompleted );
+    	results.addTransaction( RankupTransactions.fireRankupEvent );
+    	
+    	results.setRanksGained( ranks.size() );
+    	results.addTransaction( RankupTransactions.ranks_gained );
+    	
+    	results.setMessage( String.format( "Gained %d rank%s for %s.", ranks.size(), 
+    			(ranks.size() == 1 ? "" : "s"), doubleToDollarString( totalCost ) ) );
+    	
+    	results.addTransaction( RankupStatus.RANKUP_SUCCESS, RankupTransactions.rankup_successful );
+    }
+    
+    /**
+     * <p>The rank's commands are compiled templates, and they are ran through the
+     * command queue, so a large number of rankups are spread over a number of
+     * ticks.  The count is of the commands that were submitted.
+     * </p>
+     */
+    private int runRankupCommands( Rank rank, Player prisonPlayer, RankPlayer player ) {
+    	int count = 0;
+    	
+    	List<CommandTemplate> templates = rank.getRankUpCommandTemplates();
+    	if ( templates.size() > 0 ) {
+    		String playerName = prisonPlayer.getName();
+    		String playerUid = player.uid.toString();
+    		
+    		CommandDispatchQueue commandQueue = PrisonRanks.getInstance().getCommandQueue();
+    		
+    		for (CommandTemplate template : templates) {
+    			String formatted = template.format( playerName, playerUid );
+    			
+    			if ( commandQueue != null ) {
+    				commandQueue.dispatch( formatted );
+    			}
+    			else {
+    				PrisonAPI.dispatchCommand( formatted );
+    			}
+    			count++;
+    		}
+    	}
+    	return count;
+    }
+
     public static String doubleToDollarString(double val) {
         return NumberFormat.getCurrencyInstance().format(val);
     }
@@ -618,6 +851,12 @@ public class RankUtil {
     					
     					break;
     					
+    				case ranks_gained:
+    					sb.append( "=" );
+    					sb.append( iFmt.format( results.getRanksGained() ) );
+    					
+    					break;
+    					
     				default:
     					break;
     			}
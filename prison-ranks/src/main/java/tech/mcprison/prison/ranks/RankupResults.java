@@ -30,6 +30,8 @@ public class RankupResults {
     private int rankupCommandsAvailable = 0;
     private int rankupCommandsExecuted = 0;
     
+    private int ranksGained = 0;
+    
     private long timestampStart = 0;
     private long timestampStop = 0;
     
@@ -170,6 +172,16 @@ public class RankupResults {
 		this.rankupCommandsExecuted = rankupCommandsExecuted;
 	}
 
+	/**
+	 * @return The number of ranks gained by a rankup max.
+	 */
+	public int getRanksGained() {
+		return ranksGained;
+	}
+	public void setRanksGained( int ranksGained ) {
+		this.ranksGained = ranksGained;
+	}
+
 	public long getTimestampStart() {
 		return timestampStart;
 	}
@@ -52,10 +52,17 @@ public class CommandCommands
             return;
         }
 
+        if ( rank.isVirtual() ) {
+            Output.get().sendError(sender, "The rank '%s' is generated by a virtual ladder, " +
+            		"so it cannot be changed.", rank.name);
+            return;
+        }
+
         if (rank.rankUpCommands == null) {
             rank.rankUpCommands = new ArrayList<>();
         }
         rank.rankUpCommands.add(command);
+        rank.invalidateRankUpCommandTemplates();
     	
 //        try {
         	PrisonRanks.getInstance().getRankManager().saveRank( rank );
@@ -87,11 +94,18 @@ public class CommandCommands
             return;
         }
 
+        if ( rank.isVirtual() ) {
+            Output.get().sendError(sender, "The rank '%s' is generated by a virtual ladder, " +
+            		"so it cannot be changed.", rank.name);
+            return;
+        }
+
         if (rank.rankUpCommands == null) {
             rank.rankUpCommands = new ArrayList<>();
         }
         
         if ( rank.rankUpCommands.remove(command) ) {
+        	rank.invalidateRankUpCommandTemplates();
         	
 //            try {
             	PrisonRanks.getInstance().getRankManager().saveRank( rank );
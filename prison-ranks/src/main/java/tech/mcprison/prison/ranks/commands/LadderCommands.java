@@ -3,6 +3,7 @@ package tech.mcprison.prison.ranks.commands;
 import tech.mcprison.prison.commands.Arg;
 import tech.mcprison.prison.commands.BaseCommands;
 import tech.mcprison.prison.commands.Command;
+import tech.mcprison.prison.commands.Wildcard;
 import tech.mcprison.prison.internal.CommandSender;
 import tech.mcprison.prison.output.BulletedListComponent;
 import tech.mcprison.prison.output.ChatDisplay;
@@ -10,6 +11,9 @@ import tech.mcprison.prison.output.Output;
 import tech.mcprison.prison.ranks.PrisonRanks;
 import tech.mcprison.prison.ranks.data.Rank;
 import tech.mcprison.prison.ranks.data.RankLadder;
+import tech.mcprison.prison.ranks.data.RankLadderIndex;
+import tech.mcprison.prison.ranks.data.VirtualLadder;
+import tech.mcprison.prison.util.Text;
 
 import java.io.IOException;
 import java.util.Optional;
@@ -84,6 +88,69 @@ public class LadderCommands
         }
     }
 
+    @Command(identifier = "ranks ladder virtual", description = "Makes an empty ladder in to a virtual " +
+    		"ladder, whose ranks are generated from a naming pattern and a cost formula, instead " +
+    		"of being stored.", onlyPlayers = false, permissions = "ranks.ladder")
+    public void ladderVirtual(CommandSender sender, 
+    		@Arg(name = "ladderName") String ladderName,
+    		@Arg(name = "rankCount", description = "The number of ranks.") int rankCount,
+    		@Arg(name = "groupSize", description = "The number of ranks in each {group} " +
+    				"of the name pattern.") int groupSize,
+    		@Arg(name = "namePattern", description = "The rank names, using {n} for the " +
+    				"rank's number, or {group} and {sub}, such as {group}{sub} for A1 to Z100.") 
+    				String namePattern,
+    		@Wildcard(join=true)
+    		@Arg(name = "costFormula", description = "The cost of each rank, using n for the " +
+    				"rank's number, such as: 1000 * n ^ 1.5") String costFormula) {
+        Optional<RankLadder> ladder =
+            PrisonRanks.getInstance().getLadderManager().getLadder(ladderName);
+        if (!ladder.isPresent()) {
+            Output.get().sendError(sender, "The ladder '%s' doesn't exist.", ladderName);
+            return;
+        }
+        
+        if (!ladder.get().ranks.isEmpty()) {
+        	Output.get().sendError(sender, "The ladder '%s' has ranks. Only an empty ladder " +
+        			"can be made virtual.", ladderName);
+        	return;
+        }
+        
+        if (ladder.get().id > VirtualLadder.MAX_LADDER_ID) {
+        	Output.get().sendError(sender, "The ladder '%s' cannot be made virtual since its " +
+        			"id is over %d.", ladderName, VirtualLadder.MAX_LADDER_ID);
+        	return;
+        }
+        
+        VirtualLadder virtualLadder;
+        try {
+        	virtualLadder = new VirtualLadder( rankCount, groupSize, namePattern, costFormula, null );
+        }
+        catch ( IllegalArgumentException e ) {
+        	Output.get().sendError(sender, "The virtual ladder is not valid: %s", e.getMessage());
+        	return;
+        }
+        
+        int oldRankCount = ladder.get().isVirtual() ? 
+        					ladder.get().getVirtualLadder().getRankCount() : 0;
+        
+        ladder.get().setVirtualLadder( virtualLadder );
+        
+        try {
+            PrisonRanks.getInstance().getLadderManager().saveLadder(ladder.get());
+            
+            // The players above the new highest rank are moved down to it:
+            PrisonRanks.getInstance().getPlayerMigrationManager()
+            				.shortenLadder( ladder.get(), oldRankCount, rankCount );
+            
+            Output.get().sendInfo(sender, "The ladder '%s' now has %s.", ladder.get().name, 
+            		virtualLadder.toString());
+        } catch (IOException e) {
+            Output.get().sendError(sender,
+                "An error occurred while saving your ladder. &8Check the console for details.");
+            Output.get().logError("Could not save ladder.", e);
+        }
+    }
+
     @Command(identifier = "ranks ladder list", description = "Lists all rank ladders.", 
     								onlyPlayers = false, permissions = "ranks.ladder")
     public void ladderList(CommandSender sender) {
@@ -110,6 +177,13 @@ public class LadderCommands
         }
 
         ChatDisplay display = new ChatDisplay(ladder.get().name);
+        
+        if (ladder.get().isVirtual()) {
+        	display.addComponent( listVirtualRanks( ladder.get() ) );
+        	display.send(sender);
+        	return;
+        }
+        
         display.text("&7This ladder contains the following ranks:");
 
         BulletedListComponent.BulletedListBuilder builder =
@@ -144,6 +218,35 @@ public class LadderCommands
         display.send(sender);
     }
     
+    /**
+     * <p>A virtual ladder may have thousands of ranks, so only the first and the last
+     * few are listed.
+     * </p>
+     */
+    private BulletedListComponent listVirtualRanks( RankLadder ladder ) {
+    	BulletedListComponent.BulletedListBuilder builder =
+    			new BulletedListComponent.BulletedListBuilder();
+    	
+    	RankLadderIndex index = ladder.getIndex();
+    	int count = index.getRankCount();
+    	int shown = 5;
+    	
+    	builder.add( "&7This is a virtual ladder with %s.", ladder.getVirtualLadder().toString() );
+    	
+    	for ( int i = 0; i < count; i++ ) {
+    		if ( i == shown && count > shown * 2 ) {
+    			builder.add( "&8..." );
+    			i = count - shown;
+    		}
+    		
+    		Rank rank = index.getRank( i );
+    		builder.add( "&3#%d &8- &3%s &7%s", i, rank.name, 
+    				Text.numberToDollars( rank.cost ) );
+    	}
+    	
+    	return builder.build();
+    }
+    
     @Command(identifier = "ranks ladder moveRank", description = "Moves a rank to a new " +
     		"ladder position or a new ladder.", 
 			onlyPlayers = false, permissions = "ranks.ladder")
@@ -188,6 +291,12 @@ public class LadderCommands
                     rankName);
             return;
         }
+        
+        if (ladder.get().isVirtual() || rank.isVirtual()) {
+        	Output.get().sendError(sender, "The ranks of a virtual ladder are generated, so " +
+        			"ranks cannot be added to, or moved to or from, a virtual ladder.");
+        	return;
+        }
 
         if (position > 0) {
             ladder.get().addRank(position, rank);
@@ -225,6 +334,21 @@ public class LadderCommands
             return;
         }
 
+        if (ladder.get().isVirtual()) {
+        	Output.get().sendError(sender, "The ranks of a virtual ladder are generated, so " +
+        			"they cannot be removed. Change the ladder's rank count instead.");
+        	return;
+        }
+
+        if (!ladder.get().containsRank(rank.id)) {
+            Output.get().sendError(sender, "The rank '%s' is not on the ladder '%s'.", 
+            		rank.name, ladder.get().name);
+            return;
+        }
+
+        // Move the players with this rank to the next lowest rank on the ladder:
+        PrisonRanks.getInstance().getPlayerMigrationManager().removeRankFromLadder( ladder.get(), rank );
+        
         ladder.get().removeRank(ladder.get().getPositionOfRank(rank));
 
         try {
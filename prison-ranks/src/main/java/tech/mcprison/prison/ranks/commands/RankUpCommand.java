@@ -131,11 +131,7 @@ public class RankUpCommand
 				return;
 			}
 
-			Rank rank = lm.getLadder("default").get().getLowestRank().get();
-
-			while (rank.rankNext != null) {
-				rank = rank.rankNext;
-			}
+			Rank rank = lm.getLadder("default").get().getHighestRank().get();
 
 			if (!(rank == pRankSecond)) {
 				sender.sendMessage("&cYou aren't at the last rank!");
@@ -151,14 +147,17 @@ public class RankUpCommand
 		boolean rankupWithSuccess = false;
 
         if ( ladder != null && rankPlayer != null ) {
-        	RankupResults results = new RankUtil().rankupPlayer(rankPlayer, ladder, sender.getName());
+        	RankupResults results;
         	
-        	processResults( sender, null, results, true, null, ladder, currency );
-
-        	if (results.getStatus() == RankupStatus.RANKUP_SUCCESS && mode == RankupModes.MAX_RANKS && 
-        									!ladder.equals("prestiges")) {
-        		rankUpPrivate( sender, ladder, mode, permission );
+        	if ( mode == RankupModes.MAX_RANKS && !ladder.equals("prestiges") ) {
+        		results = rankUpMaxBatched( sender, rankPlayer, ladder, currency );
+        	}
+        	else {
+        		results = new RankUtil().rankupPlayer(rankPlayer, ladder, sender.getName());
+        		
+        		processResults( sender, null, results, true, null, ladder, currency );
         	}
+        	
         	if (results.getStatus() == RankupStatus.RANKUP_SUCCESS){
         		rankupWithSuccess = true;
 			}
@@ -172,6 +171,42 @@ public class RankUpCommand
         }
 	}
 
+	/**
+	 * <p>Ranks up the player as far as they can afford.  Each batch is a single 
+	 * transaction, and there is normally only one batch, unless the ranks change
+	 * currencies part way up the ladder.  Only one message is sent with the 
+	 * total number of ranks that were gained, instead of one for each rank.
+	 * </p>
+	 * 
+	 * @return The results of the last successful batch, or the failure if the 
+	 * 			player could not rank up at all.
+	 */
+	private RankupResults rankUpMaxBatched( CommandSender sender, RankPlayer rankPlayer, 
+							String ladder, String currency ) {
+		RankUtil rankUtil = new RankUtil();
+		
+		RankupResults lastSuccess = null;
+		int ranksGained = 0;
+		
+		RankupResults results = rankUtil.rankupPlayerMax( rankPlayer, ladder, sender.getName() );
+		while ( results.getStatus() == RankupStatus.RANKUP_SUCCESS ) {
+			lastSuccess = results;
+			ranksGained += results.getRanksGained();
+			
+			results = rankUtil.rankupPlayerMax( rankPlayer, ladder, sender.getName() );
+		}
+		
+		if ( lastSuccess != null ) {
+			lastSuccess.setMessage( String.format( "Gained %d rank%s.", ranksGained, 
+											(ranksGained == 1 ? "" : "s") ) );
+			results = lastSuccess;
+		}
+		
+		processResults( sender, null, results, true, null, ladder, currency );
+		
+		return results;
+	}
+
 	private void prestigePlayer(Player player, RankPlayer rankPlayer, Rank pRank, Rank pRankAfter, 
 								LadderManager lm, boolean willPrestige, boolean rankupWithSuccess) {
 		
@@ -179,9 +214,11 @@ public class RankUpCommand
     	Rank pRankSecond;
     	// Conditions
 		if (willPrestige && rankupWithSuccess && pRankAfter != null && pRank != pRankAfter) {
-			// Set the player rank to the first one of the default ladder
-			PrisonAPI.dispatchCommand("ranks set rank " + player.getName() + " " + 
-											lm.getLadder("default").get().getLowestRank().get().name + " default");
+			// Set the player rank to the first one of the default ladder.  This is ran
+			// directly, instead of through the "ranks set rank" command:
+			new RankUtil().setRank(rankPlayer, "default", 
+							lm.getLadder("default").get().getLowestRank().get().name, 
+							player.getName(), "prestige");
 			// Get that rank
 			pRankSecond = rankPlayer.getRank("default");
 			// Check if the ranks match
@@ -193,6 +230,7 @@ public class RankUpCommand
 					
 					// Set the player balance to 0 (reset)
 					economy.setBalance(player, 0);
+					PrisonAPI.getIntegrationManager().getBalanceCache().invalidate( player.getUUID() );
 					// Send a message to the player because he did prestige!
 					player.sendMessage("&7[&3Congratulations&7] &3You've &6Prestige&3 to " + pRankAfter.tag + "&c!");
 				}
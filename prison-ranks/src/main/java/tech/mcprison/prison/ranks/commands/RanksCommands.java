@@ -16,6 +16,7 @@ import tech.mcprison.prison.chat.FancyMessage;
 import tech.mcprison.prison.commands.Arg;
 import tech.mcprison.prison.commands.BaseCommands;
 import tech.mcprison.prison.commands.Command;
+import tech.mcprison.prison.commands.CommandPagedData;
 import tech.mcprison.prison.commands.Wildcard;
 import tech.mcprison.prison.integration.EconomyCurrencyIntegration;
 import tech.mcprison.prison.internal.CommandSender;
@@ -27,12 +28,15 @@ import tech.mcprison.prison.output.ChatDisplay;
 import tech.mcprison.prison.output.FancyMessageComponent;
 import tech.mcprison.prison.output.Output;
 import tech.mcprison.prison.ranks.PrisonRanks;
+import tech.mcprison.prison.ranks.data.Leaderboard;
+import tech.mcprison.prison.ranks.data.PlayerMigration;
 import tech.mcprison.prison.ranks.data.Rank;
 import tech.mcprison.prison.ranks.data.RankLadder;
 import tech.mcprison.prison.ranks.data.RankLadder.PositionRank;
 import tech.mcprison.prison.ranks.data.RankPlayer;
 import tech.mcprison.prison.ranks.data.RankPlayerName;
 import tech.mcprison.prison.ranks.managers.PlayerManager;
+import tech.mcprison.prison.ranks.managers.PlayerMigrationManager;
 import tech.mcprison.prison.util.Text;
 
 /**
@@ -398,6 +402,12 @@ public class RanksCommands
             return;
         }
 
+        if ( rank.isVirtual() ) {
+            Output.get().sendError(sender, "The rank '%s' is generated by a virtual ladder, " +
+            		"so it cannot be changed.", rank.name);
+            return;
+        }
+
         if (PrisonRanks.getInstance().getDefaultLadder().containsRank(rank.id)
             && PrisonRanks.getInstance().getDefaultLadder().ranks.size() == 1) {
             Output.get().sendError(sender,
@@ -455,6 +465,12 @@ public class RanksCommands
         BulletedListComponent.BulletedListBuilder builder =
             new BulletedListComponent.BulletedListBuilder();
         
+        if ( ladder.isVirtual() ) {
+        	builder.add( String.format( "&7This is a virtual ladder with %s. " +
+        			"See &f/ranks ladder listranks %s", 
+        			ladder.getVirtualLadder().toString(), ladder.name ) );
+        }
+        
         boolean first = true;
         while ( rank != null ) {
         	
@@ -636,8 +652,15 @@ public class RanksCommands
             Output.get().sendError(sender, "The rank '%s' doesn't exist.", rankName);
             return;
         }
+
+        if ( rank.isVirtual() ) {
+            Output.get().sendError(sender, "The rank '%s' is generated by a virtual ladder, " +
+            		"so it cannot be changed.", rank.name);
+            return;
+        }
         
         rank.cost = cost;
+        PrisonRanks.getInstance().getLadderManager().invalidateLadderIndexes(rank.id);
         
         // Save the rank
 //        try {
@@ -663,6 +686,12 @@ public class RanksCommands
     		Output.get().sendError(sender, "The rank '%s' doesn't exist.", rankName);
     		return;
     	}
+
+    	if ( rank.isVirtual() ) {
+    		Output.get().sendError(sender, "The rank '%s' is generated by a virtual ladder, " +
+    				"so it cannot be changed.", rank.name);
+    		return;
+    	}
     	
     	
     	if ( currency == null || currency.trim().length() == 0 ) {
@@ -680,6 +709,7 @@ public class RanksCommands
     	
     	
     	rank.currency = currency;
+    	PrisonRanks.getInstance().getLadderManager().invalidateLadderIndexes(rank.id);
     	
     	// Save the rank
 //    	try {
@@ -705,6 +735,12 @@ public class RanksCommands
             Output.get().sendError(sender, "The rank '%s' doesn't exist.", rankName);
             return;
         }
+
+        if ( rank.isVirtual() ) {
+            Output.get().sendError(sender, "The rank '%s' is generated by a virtual ladder, " +
+            		"so it cannot be changed.", rank.name);
+            return;
+        }
         
 
         if ( tag == null || tag.trim().length() == 0 ) {
@@ -764,7 +800,7 @@ public class RanksCommands
 			for ( RankLadder rankLadder : rankLadders.keySet() )
 			{
 				Rank rank = rankLadders.get( rankLadder );
-				Rank nextRank = rank.rankNext;
+				Rank nextRank = rankLadder.getNextRank( rank );
 				
 				String messageRank = String.format("&c%s&7: Ladder: &b%s  &7Current Rank: &b%s", 
 						player.getDisplayName(), 
@@ -841,6 +877,75 @@ public class RanksCommands
 	}
  
     
+    @Command(identifier = "ranks top", description = "Shows the top players on a ladder", onlyPlayers = false)
+    public void rankTop(CommandSender sender,
+    			@Arg(name = "ladderName", def = "default", description = "Ladder Name") String ladderName,
+    			@Arg(name = "page", def = "1", description = "Page number") String page){
+    	
+    	Leaderboard leaderboard = PrisonRanks.getInstance().getLeaderboardManager().getLeaderboard( ladderName );
+    	
+    	if ( leaderboard == null ) {
+    		Output.get().sendError(sender, "The ladder '%s' doesn't exist.", ladderName);
+    		return;
+    	}
+    	
+    	CommandPagedData cmdPageData = new CommandPagedData(
+    			"/ranks top " + leaderboard.getLadderName(), leaderboard.size(), 0, page );
+    	
+    	ChatDisplay display = new ChatDisplay( "Top Players: " + leaderboard.getLadderName() );
+    	
+    	BulletedListComponent.BulletedListBuilder builder =
+    			new BulletedListComponent.BulletedListBuilder();
+    	
+    	// Only the players on this page are read from the leaderboard:
+    	int place = cmdPageData.getPageStart();
+    	for ( Leaderboard.Entry entry : leaderboard.getPage( cmdPageData.getPageStart(), 
+    						cmdPageData.getPageEnd() - cmdPageData.getPageStart() ) ) {
+    		
+    		String prestige = entry.getPrestige() == 0 ? "" : 
+    							String.format( "  &7Prestige: &b%d", entry.getPrestige() );
+    		
+    		builder.add( String.format( "&3%d. &b%s  &7Rank: &b%s%s", 
+    				++place, entry.getPlayerName(), entry.getRank().tag, prestige ));
+    	}
+    	
+    	if ( leaderboard.size() == 0 ) {
+    		builder.add( "&3There are no players on this ladder." );
+    	}
+    	
+    	display.addComponent( builder.build() );
+    	
+    	cmdPageData.generatePagedCommandFooter( display );
+    	
+    	display.send( sender );
+    }
+    
+    @Command(identifier = "ranks migrations", description = "Shows the progress of updating the " +
+    		"player files after ranks or ladders were deleted", 
+    		onlyPlayers = false, permissions = "ranks.admin")
+    public void rankMigrations(CommandSender sender){
+    	
+    	ChatDisplay display = new ChatDisplay( "Player Migrations" );
+    	
+    	BulletedListComponent.BulletedListBuilder builder =
+    			new BulletedListComponent.BulletedListBuilder();
+    	
+    	PlayerMigrationManager migrationManager = PrisonRanks.getInstance().getPlayerMigrationManager();
+    	for ( PlayerMigration migration : migrationManager.getMigrations() ) {
+    		String progress = migrationManager.getProgress( migration );
+    		
+    		builder.add( String.format( "&b%s  &7%s", migration.toString(), 
+    				(progress.length() == 0 ? "Waiting" : progress) ));
+    	}
+    	
+    	if ( migrationManager.getMigrations().isEmpty() ) {
+    		builder.add( "&3All of the player files are up to date." );
+    	}
+    	
+    	display.addComponent( builder.build() );
+    	display.send( sender );
+    }
+    
     @Command(identifier = "ranks players", description = "Shows all ranks with player counts", onlyPlayers = false)
     public void rankPlayers(CommandSender sender,
     			@Arg(name = "ladderName", def = "all", description = "Ladder Name [all, none, LadderName]") String ladderName,
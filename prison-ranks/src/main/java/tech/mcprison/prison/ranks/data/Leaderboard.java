@@ -0,0 +1,313 @@
+package tech.mcprison.prison.ranks.data;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <p>The players of one ladder, kept in order from the highest to the lowest.
+ * The players are held within a balanced tree that knows the size of each of
+ * its branches, so adding, moving, or removing a player is O(log n), and a page
+ * is found in O(log n) no matter how far down it is, without sorting, or even
+ * looking at, the rest of the players.
+ * </p>
+ *
+ * <p>The players are ordered by their prestige, then by their rank's position
+ * on the ladder, and then by who reached that rank first.  The leaderboard can
+ * be read from any thread while it is being updated.
+ * </p>
+ *
+ */
+public class Leaderboard {
+
+	private final String ladderName;
+
+	private final Map<UUID, Entry> playerEntries;
+
+	/**
+	 * The tree is a treap: it is a search tree by the entries, and a heap by the
+	 * random priorities, which keeps it balanced.
+	 */
+	private Node root;
+	private final ReadWriteLock lock;
+
+	/**
+	 * The ladder's ranks, in order, when the positions were worked out.  This is
+	 * used by the LeaderboardManager to know when the positions must be updated.
+	 */
+	private volatile Object layout;
+
+	public static final Comparator<Entry> ORDER =
+			Comparator.comparingInt( Entry::getPrestige ).reversed()
+				.thenComparing( Comparator.comparingInt( Entry::getRankPosition ).reversed() )
+				.thenComparingLong( Entry::getTimestamp )
+				.thenComparing( Entry::getPlayerUuid );
+
+	private static class Node {
+		private final Entry entry;
+		private final int priority;
+		private int size = 1;
+		private Node left;
+		private Node right;
+
+		private Node( Entry entry ) {
+			this.entry = entry;
+			this.priority = ThreadLocalRandom.current().nextInt();
+		}
+	}
+
+	/**
+	 * <p>One player's place on the leaderboard, which is replaced, never changed,
+	 * when the player moves.
+	 * </p>
+	 */
+	public static class Entry {
+		private final UUID playerUuid;
+		private final String playerName;
+		private final Rank rank;
+		private final int prestige;
+		private final int rankPosition;
+		private final long timestamp;
+
+		public Entry( UUID playerUuid, String playerName, Rank rank,
+						int prestige, int rankPosition, long timestamp ) {
+			super();
+
+			this.playerUuid = playerUuid;
+			this.playerName = playerName;
+			this.rank = rank;
+			this.prestige = prestige;
+			this.rankPosition = rankPosition;
+			this.timestamp = timestamp;
+		}
+
+		public UUID getPlayerUuid() {
+			return playerUuid;
+		}
+		public String getPlayerName() {
+			return playerName;
+		}
+		public Rank getRank() {
+			return rank;
+		}
+		public int getPrestige() {
+			return prestige;
+		}
+		public int getRankPosition() {
+			return rankPosition;
+		}
+
+		/**
+		 * @return When the player reached this rank, so the first player to reach
+		 * 			a rank is ahead of the others.  This is saved with the player, and is 0
+		 * 			if it is not known.
+		 */
+		public long getTimestamp() {
+			return timestamp;
+		}
+	}
+
+	public Leaderboard( String ladderName ) {
+		super();
+
+		this.ladderName = ladderName;
+
+		this.playerEntries = new ConcurrentHashMap<>();
+		this.lock = new ReentrantReadWriteLock();
+	}
+
+	public String getLadderName() {
+		return ladderName;
+	}
+
+	public Object getLayout() {
+		return layout;
+	}
+	public void setLayout( Object layout ) {
+		this.layout = layout;
+	}
+
+	/**
+	 * <p>Adds the player, or moves them to their new place.
+	 * </p>
+	 *
+	 * @param entry
+	 */
+	public void update( Entry entry ) {
+		lock.writeLock().lock();
+		try {
+			Entry old = playerEntries.put( entry.getPlayerUuid(), entry );
+			if ( old != null ) {
+				root = delete( root, old );
+			}
+			root = insert( root, new Node( entry ) );
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove( UUID playerUuid ) {
+		lock.writeLock().lock();
+		try {
+			Entry old = playerEntries.remove( playerUuid );
+			if ( old != null ) {
+				root = delete( root, old );
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @param playerUuid
+	 * @return The player's current entry, or null if they are not on this leaderboard.
+	 */
+	public Entry getEntry( UUID playerUuid ) {
+		return playerEntries.get( playerUuid );
+	}
+
+	/**
+	 * @return A copy of all of the entries, in no order.
+	 */
+	public List<Entry> getEntries() {
+		return new ArrayList<>( playerEntries.values() );
+	}
+
+	/**
+	 * @param position The place on the leaderboard, starting with 1 for the top player.
+	 * @return The entry, or null if there are not that many players.
+	 */
+	public Entry get( int position ) {
+		List<Entry> results = getPage( position - 1, 1 );
+		return results.isEmpty() ? null : results.get( 0 );
+	}
+
+	/**
+	 * <p>Returns the players from the offset, counting from the top.  The branches
+	 * before the offset are skipped by their sizes, so this is O(log n) plus the
+	 * size of the page.
+	 * </p>
+	 *
+	 * @param offset The number of players to skip, starting with 0.
+	 * @param count The most players to return.
+	 * @return The players, which may be fewer than the count.
+	 */
+	public List<Entry> getPage( int offset, int count ) {
+		List<Entry> results = new ArrayList<>();
+
+		if ( offset >= 0 && count > 0 ) {
+			lock.readLock().lock();
+			try {
+				collect( root, offset, count, results );
+			}
+			finally {
+				lock.readLock().unlock();
+			}
+		}
+
+		return results;
+	}
+
+	private static void collect( Node node, int offset, int count, List<Entry> results ) {
+		if ( node == null || results.size() >= count ) {
+			return;
+		}
+
+		int leftSize = size( node.left );
+
+		if ( offset < leftSize ) {
+			collect( node.left, offset, count, results );
+		}
+		if ( offset <= leftSize && results.size() < count ) {
+			results.add( node.entry );
+		}
+		collect( node.right, Math.max( 0, offset - leftSize - 1 ), count, results );
+	}
+
+	public int size() {
+		return playerEntries.size();
+	}
+
+	private static int size( Node node ) {
+		return node == null ? 0 : node.size;
+	}
+
+	private static Node update( Node node ) {
+		node.size = 1 + size( node.left ) + size( node.right );
+		return node;
+	}
+
+	private static Node rotateRight( Node node ) {
+		Node left = node.left;
+		node.left = left.right;
+		left.right = update( node );
+		return update( left );
+	}
+
+	private static Node rotateLeft( Node node ) {
+		Node right = node.right;
+		node.right = right.left;
+		right.left = update( node );
+		return update( right );
+	}
+
+	private static Node insert( Node node, Node added ) {
+		if ( node == null ) {
+			return added;
+		}
+
+		if ( ORDER.compare( added.entry, node.entry ) < 0 ) {
+			node.left = insert( node.left, added );
+			if ( node.left.priority > node.priority ) {
+				node = rotateRight( node );
+			}
+		}
+		else {
+			node.right = insert( node.right, added );
+			if ( node.right.priority > node.priority ) {
+				node = rotateLeft( node );
+			}
+		}
+
+		return update( node );
+	}
+
+	private static Node delete( Node node, Entry entry ) {
+		if ( node == null ) {
+			return null;
+		}
+
+		int compare = ORDER.compare( entry, node.entry );
+
+		if ( compare < 0 ) {
+			node.left = delete( node.left, entry );
+		}
+		else if ( compare > 0 ) {
+			node.right = delete( node.right, entry );
+		}
+		else if ( node.left == null ) {
+			return node.right;
+		}
+		else if ( node.right == null ) {
+			return node.left;
+		}
+		else if ( node.left.priority > node.right.priority ) {
+			node = rotateRight( node );
+			node.right = delete( node.right, entry );
+		}
+		else {
+			node = rotateLeft( node );
+			node.left = delete( node.left, entry );
+		}
+
+		return update( node );
+	}
+}
@@ -0,0 +1,213 @@
+package tech.mcprison.prison.ranks.data;
+
+import tech.mcprison.prison.ranks.RankUtil;
+import tech.mcprison.prison.store.Document;
+
+/**
+ * <p>A change to the ranks or ladders that must be applied to every player,
+ * such as when a rank is deleted.  The change is applied to the players in
+ * memory right away, and the player files are then updated in the background
+ * by the {@link tech.mcprison.prison.ranks.managers.PlayerMigrationManager}.
+ * </p>
+ *
+ * <p>The migration is saved with its progress, so if the server is stopped
+ * before all of the player files have been updated, it resumes where it left
+ * off.  Applying a migration more than once to the same player has no effect.
+ * </p>
+ *
+ */
+public class PlayerMigration {
+
+	public enum MigrationType {
+		/**
+		 * The players with the rank on the ladder are moved to the new rank, or are
+		 * removed from the ladder if there is no new rank.
+		 */
+		MOVE_RANK,
+
+		/**
+		 * The players are removed from the ladder.
+		 */
+		REMOVE_LADDER,
+
+		/**
+		 * The virtual ladder has fewer ranks, so the players with any of the ranks
+		 * from the rank id up are moved to the new highest rank.
+		 */
+		SHORTEN_LADDER;
+	}
+
+	public static final int NO_RANK = -1;
+
+	private long id;
+	private MigrationType type;
+	private String ladderName;
+	private int rankId = NO_RANK;
+	private int newRankId = NO_RANK;
+
+	/**
+	 * The last player file that was updated.  The player files are updated in
+	 * the order of their names.
+	 */
+	private String cursor;
+	private int processed = 0;
+	private int changed = 0;
+
+	/**
+	 * The id is assigned by the PlayerMigrationManager when the migration is
+	 * submitted, from a counter that is saved with the migrations.
+	 */
+	private PlayerMigration( MigrationType type, String ladderName ) {
+		super();
+
+		this.type = type;
+		this.ladderName = ladderName;
+	}
+
+	public PlayerMigration( Document document ) {
+		super();
+
+		this.id = RankUtil.doubleToLong( document.get( "id" ) );
+		this.type = MigrationType.valueOf( (String) document.get( "type" ) );
+		this.ladderName = (String) document.get( "ladder" );
+		this.rankId = RankUtil.doubleToInt( document.get( "rankId" ) );
+		this.newRankId = RankUtil.doubleToInt( document.get( "newRankId" ) );
+		this.cursor = (String) document.get( "cursor" );
+		this.processed = RankUtil.doubleToInt( document.get( "processed" ) );
+		this.changed = RankUtil.doubleToInt( document.get( "changed" ) );
+	}
+
+	public Document toDocument() {
+		Document ret = new Document();
+		ret.put( "id", (double) this.id );
+		ret.put( "type", this.type.name() );
+		ret.put( "ladder", this.ladderName );
+		ret.put( "rankId", (double) this.rankId );
+		ret.put( "newRankId", (double) this.newRankId );
+		ret.put( "cursor", this.cursor );
+		ret.put( "processed", (double) this.processed );
+		ret.put( "changed", (double) this.changed );
+		return ret;
+	}
+
+	/**
+	 * @param ladderName
+	 * @param rankId The rank that is being removed from the ladder.
+	 * @param newRankId The rank the players are moved to, or {@link #NO_RANK} to
+	 * 			remove the players from the ladder.
+	 */
+	public static PlayerMigration moveRank( String ladderName, int rankId, int newRankId ) {
+		PlayerMigration results = new PlayerMigration( MigrationType.MOVE_RANK, ladderName );
+		results.rankId = rankId;
+		results.newRankId = newRankId;
+		return results;
+	}
+
+	public static PlayerMigration removeLadder( String ladderName ) {
+		return new PlayerMigration( MigrationType.REMOVE_LADDER, ladderName );
+	}
+
+	/**
+	 * @param ladderName
+	 * @param rankId The first of the virtual ranks that are no longer on the ladder.
+	 * @param newRankId The new highest rank on the ladder.
+	 */
+	public static PlayerMigration shortenLadder( String ladderName, int rankId, int newRankId ) {
+		PlayerMigration results = new PlayerMigration( MigrationType.SHORTEN_LADDER, ladderName );
+		results.rankId = rankId;
+		results.newRankId = newRankId;
+		return results;
+	}
+
+	/**
+	 * <p>Applies this migration to the player.
+	 * </p>
+	 *
+	 * @param rankPlayer
+	 * @return True if the player was changed.
+	 */
+	public boolean apply( RankPlayer rankPlayer ) {
+		boolean results = false;
+
+		switch ( type ) {
+			case MOVE_RANK:
+				results = rankPlayer.replaceRank( ladderName, rankId,
+								newRankId == NO_RANK ? null : newRankId );
+				break;
+
+			case REMOVE_LADDER:
+				if ( rankPlayer.ranks.containsKey( ladderName ) ) {
+					rankPlayer.removeLadder( ladderName );
+					results = true;
+				}
+				break;
+
+			case SHORTEN_LADDER:
+				Integer current = rankPlayer.ranks.get( ladderName );
+
+				// The virtual rank ids of a ladder are all together, in order:
+				if ( current != null && current >= rankId &&
+						VirtualLadder.getLadderId( current ) == VirtualLadder.getLadderId( rankId ) ) {
+					results = rankPlayer.replaceRank( ladderName, current, newRankId );
+				}
+				break;
+
+			default:
+				break;
+		}
+
+		return results;
+	}
+
+	public String filename() {
+		return "migration_" + id;
+	}
+
+	/**
+	 * <p>Records that the player file, and all before it, have been updated.
+	 * </p>
+	 */
+	public void progress( String playerFile, boolean playerChanged ) {
+		this.cursor = playerFile;
+		this.processed++;
+		if ( playerChanged ) {
+			this.changed++;
+		}
+	}
+
+	public long getId() {
+		return id;
+	}
+	public void setId( long id ) {
+		this.id = id;
+	}
+	public MigrationType getType() {
+		return type;
+	}
+	public String getLadderName() {
+		return ladderName;
+	}
+	public int getRankId() {
+		return rankId;
+	}
+	public int getNewRankId() {
+		return newRankId;
+	}
+	public String getCursor() {
+		return cursor;
+	}
+	public int getProcessed() {
+		return processed;
+	}
+	public int getChanged() {
+		return changed;
+	}
+
+	@Override
+	public String toString() {
+		return type == MigrationType.MOVE_RANK ?
+				String.format( "Move rank %d to %s on ladder %s", rankId,
+						(newRankId == NO_RANK ? "none" : Integer.toString( newRankId )), ladderName ) :
+				String.format( "Remove ladder %s", ladderName );
+	}
+}
@@ -18,6 +18,7 @@
 package tech.mcprison.prison.ranks.data;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import tech.mcprison.prison.modules.ModuleElement;
@@ -26,6 +27,7 @@ import tech.mcprison.prison.output.Output;
 import tech.mcprison.prison.ranks.RankUtil;
 import tech.mcprison.prison.sorting.PrisonSortable;
 import tech.mcprison.prison.store.Document;
+import tech.mcprison.prison.util.CommandTemplate;
 
 /**
  * Represents a single rank.
@@ -63,11 +65,29 @@ public class Rank
     
     // The commands that are run when this rank is attained.
     public List<String> rankUpCommands;
+    
+    /**
+     * The placeholders that may be used within the rank up commands, in the order
+     * their values are passed to the templates.
+     */
+    public static final String[] RANK_UP_COMMAND_PLACEHOLDERS = { "{player}", "{player_uid}" };
+    
+    /**
+     * The rank up commands, compiled into templates the first time they are ran.
+     * These must be invalidated whenever the rank up commands are changed.
+     */
+    private transient volatile List<CommandTemplate> rankUpCommandTemplates;
 
     
     public transient Rank rankPrior;
     public transient Rank rankNext;
     
+    /**
+     * True if this rank was generated for a virtual ladder, so it is not stored
+     * and cannot be changed.
+     */
+    private transient boolean virtual = false;
+    
     
     private List<ModuleElement> mines;
     private List<String> mineStrings;
@@ -147,7 +167,15 @@ public class Rank
         ret.put("cost", this.cost);
         ret.put("currency", this.currency);
         ret.put("commands", this.rankUpCommands);
+        ret.put("mines", toMineStrings());
         
+        return ret;
+    }
+    
+    /**
+     * @return The mines that are linked to this rank, in the form that they are saved.
+     */
+    List<String> toMineStrings() {
         List<String> mineStrings = new ArrayList<>();
         if ( getMines() != null ) {
         	for ( ModuleElement mine : getMines() ) {
@@ -156,9 +184,7 @@ public class Rank
         		 mineStrings.add( mineString );
 			}
         }
-        ret.put("mines", mineStrings);
-        
-        return ret;
+        return mineStrings;
     }
     
     
@@ -262,6 +288,35 @@ public class Rank
 	}
 	public void setRankUpCommands( List<String> rankUpCommands ) {
 		this.rankUpCommands = rankUpCommands;
+		invalidateRankUpCommandTemplates();
+	}
+	
+	/**
+	 * <p>Returns the rank up commands compiled into templates.  They are only
+	 * compiled again after they have been invalidated, or if the number of
+	 * commands no longer matches.
+	 * </p>
+	 * 
+	 * @return The templates, which cannot be changed.
+	 */
+	public List<CommandTemplate> getRankUpCommandTemplates() {
+		List<CommandTemplate> results = rankUpCommandTemplates;
+		List<String> commands = getRankUpCommands();
+		
+		if ( results == null || results.size() != commands.size() ) {
+			List<CommandTemplate> templates = new ArrayList<>();
+			for ( String command : commands ) {
+				templates.add( new CommandTemplate( command, RANK_UP_COMMAND_PLACEHOLDERS ) );
+			}
+			
+			results = Collections.unmodifiableList( templates );
+			rankUpCommandTemplates = results;
+		}
+		return results;
+	}
+	
+	public void invalidateRankUpCommandTemplates() {
+		this.rankUpCommandTemplates = null;
 	}
 
 	public Rank getRankPrior() {
@@ -278,6 +333,13 @@ public class Rank
 		this.rankNext = rankNext;
 	}
 
+	public boolean isVirtual() {
+		return virtual;
+	}
+	public void setVirtual( boolean virtual ) {
+		this.virtual = virtual;
+	}
+
 	@Override
 	public ModuleElementType getModuleElementType() {
 		return ModuleElementType.RANK;
@@ -0,0 +1,163 @@
+package tech.mcprison.prison.ranks.data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import tech.mcprison.prison.output.Output;
+import tech.mcprison.prison.store.DocumentAdapters;
+
+/**
+ * <p>Reads and writes a {@link Rank} straight to and from its JSON.  The JSON is the
+ * same as {@link Rank#toDocument()}, so the existing rank files are read as they are.
+ * </p>
+ *
+ */
+public class RankAdapter
+	extends TypeAdapter<Rank>
+{
+
+	@Override
+	public void write( JsonWriter out, Rank rank ) throws IOException {
+		if ( rank == null ) {
+			out.nullValue();
+			return;
+		}
+
+		out.beginObject();
+		out.name( "id" ).value( rank.id );
+
+		if ( rank.name != null ) {
+			out.name( "name" ).value( rank.name );
+		}
+		if ( rank.tag != null ) {
+			out.name( "tag" ).value( rank.tag );
+		}
+
+		out.name( "cost" ).value( rank.cost );
+
+		if ( rank.currency != null ) {
+			out.name( "currency" ).value( rank.currency );
+		}
+
+		writeStrings( out, "commands", rank.rankUpCommands );
+		writeStrings( out, "mines", rank.toMineStrings() );
+
+		out.endObject();
+	}
+
+	private void writeStrings( JsonWriter out, String name, List<String> strings )
+			throws IOException {
+		if ( strings != null ) {
+			out.name( name ).beginArray();
+			for ( String string : strings ) {
+				out.value( string );
+			}
+			out.endArray();
+		}
+	}
+
+	/**
+	 * <p>A rank that cannot be read is logged and skipped, the same as when the ranks
+	 * were read from their documents, so one bad file does not stop the rest of the
+	 * ranks from loading.  Since the reader is left part way through the rank, this
+	 * must only be used to read a rank on its own, and not within another object.
+	 * </p>
+	 *
+	 * @return The rank, or null if it could not be read.
+	 */
+	@Override
+	public Rank read( JsonReader in ) throws IOException {
+		if ( in.peek() == JsonToken.NULL ) {
+			in.nextNull();
+			return null;
+		}
+
+		Rank rank = new Rank();
+
+		try {
+			readRank( in, rank );
+		}
+		catch ( IOException | RuntimeException e ) {
+			Output.get().logError(
+					String.format( "&aFailure: Loading Ranks! &7Exception parsing rank documents. " +
+					"Rank id= %s name= %s  [%s]",
+					Integer.toString( rank.id ), (rank.name == null ? "null" : rank.name),
+					e.getMessage())
+					);
+
+			rank = null;
+		}
+
+		return rank;
+	}
+
+	private void readRank( JsonReader in, Rank rank ) throws IOException {
+		in.beginObject();
+		while ( in.hasNext() ) {
+			switch ( in.nextName() ) {
+				case "id":
+					rank.id = DocumentAdapters.nextInt( in );
+					break;
+
+				case "name":
+					rank.name = DocumentAdapters.nextString( in );
+					break;
+
+				case "tag":
+					rank.tag = DocumentAdapters.nextString( in );
+					break;
+
+				case "cost":
+					rank.cost = DocumentAdapters.nextDouble( in );
+					break;
+
+				case "currency":
+					String currency = DocumentAdapters.nextString( in );
+					rank.currency = (currency == null ||
+							"null".equalsIgnoreCase( currency ) ? null : currency);
+					break;
+
+				case "commands":
+					List<String> commands = readStrings( in );
+					if ( commands != null ) {
+						rank.setRankUpCommands( commands );
+					}
+					break;
+
+				case "mines":
+					List<String> mineStrings = readStrings( in );
+					if ( mineStrings != null ) {
+						rank.setMineStrings( mineStrings );
+					}
+					break;
+
+				default:
+					in.skipValue();
+			}
+		}
+		in.endObject();
+	}
+
+	private List<String> readStrings( JsonReader in ) throws IOException {
+		if ( in.peek() == JsonToken.NULL ) {
+			in.nextNull();
+			return null;
+		}
+
+		List<String> strings = new ArrayList<>();
+
+		in.beginArray();
+		while ( in.hasNext() ) {
+			strings.add( DocumentAdapters.nextString( in ) );
+		}
+		in.endArray();
+
+		return strings;
+	}
+}
@@ -0,0 +1,242 @@
+package tech.mcprison.prison.ranks.data;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * <p>A formula for the cost of a rank, based upon the rank's number on its ladder.
+ * The formula is parsed once, in to a tree of operations, so working out the cost
+ * of a rank never has to parse the formula again.
+ * </p>
+ *
+ * <p>The formula may use the variable <code>n</code>, which is the rank's number
+ * starting with 1, numbers, the operators <code>+ - * / % ^</code>, parentheses,
+ * and the functions <code>sqrt abs floor ceil round log exp min max</code>.  For
+ * example: <code>1000 * n ^ 1.5</code>
+ * </p>
+ *
+ */
+public class RankCostFormula {
+
+	private final String formula;
+	private final DoubleUnaryOperator compiled;
+
+	/**
+	 * Used while parsing.
+	 */
+	private int pos;
+
+	/**
+	 * @param formula
+	 * @throws IllegalArgumentException If the formula is not valid.
+	 */
+	public RankCostFormula( String formula ) {
+		super();
+
+		if ( formula == null || formula.trim().length() == 0 ) {
+			throw new IllegalArgumentException( "The formula is empty." );
+		}
+
+		this.formula = formula;
+
+		this.pos = 0;
+		DoubleUnaryOperator results = parseExpression();
+		skipSpaces();
+		if ( pos < formula.length() ) {
+			throw error( "Unexpected '" + formula.charAt( pos ) + "'" );
+		}
+
+		this.compiled = results;
+	}
+
+	/**
+	 * @param n The rank's number on the ladder, starting with 1.
+	 * @return The cost, which is never negative.
+	 */
+	public double getCost( int n ) {
+		double cost = compiled.applyAsDouble( n );
+		return Double.isNaN( cost ) || cost < 0 ? 0 : cost;
+	}
+
+	public String getFormula() {
+		return formula;
+	}
+
+	@Override
+	public String toString() {
+		return formula;
+	}
+
+	private DoubleUnaryOperator parseExpression() {
+		DoubleUnaryOperator results = parseTerm();
+
+		while ( true ) {
+			if ( accept( '+' ) ) {
+				results = combine( results, parseTerm(), ( a, b ) -> a + b );
+			}
+			else if ( accept( '-' ) ) {
+				results = combine( results, parseTerm(), ( a, b ) -> a - b );
+			}
+			else {
+				return results;
+			}
+		}
+	}
+
+	private DoubleUnaryOperator parseTerm() {
+		DoubleUnaryOperator results = parseFactor();
+
+		while ( true ) {
+			if ( accept( '*' ) ) {
+				results = combine( results, parseFactor(), ( a, b ) -> a * b );
+			}
+			else if ( accept( '/' ) ) {
+				results = combine( results, parseFactor(), ( a, b ) -> a / b );
+			}
+			else if ( accept( '%' ) ) {
+				results = combine( results, parseFactor(), ( a, b ) -> a % b );
+			}
+			else {
+				return results;
+			}
+		}
+	}
+
+	/**
+	 * <p>The power operator is right associative, and is done before a leading minus,
+	 * so <code>-2^2</code> is -4.
+	 * </p>
+	 */
+	private DoubleUnaryOperator parseFactor() {
+		if ( accept( '-' ) ) {
+			DoubleUnaryOperator operand = parseFactor();
+			return n -> -operand.applyAsDouble( n );
+		}
+		if ( accept( '+' ) ) {
+			return parseFactor();
+		}
+
+		DoubleUnaryOperator results = parsePrimary();
+
+		if ( accept( '^' ) ) {
+			results = combine( results, parseFactor(), Math::pow );
+		}
+
+		return results;
+	}
+
+	private DoubleUnaryOperator parsePrimary() {
+		skipSpaces();
+
+		if ( accept( '(' ) ) {
+			DoubleUnaryOperator results = parseExpression();
+			expect( ')' );
+			return results;
+		}
+
+		int start = pos;
+
+		if ( pos < formula.length() &&
+				(Character.isDigit( formula.charAt( pos ) ) || formula.charAt( pos ) == '.') ) {
+			while ( pos < formula.length() &&
+					(Character.isDigit( formula.charAt( pos ) ) || formula.charAt( pos ) == '.') ) {
+				pos++;
+			}
+
+			try {
+				double value = Double.parseDouble( formula.substring( start, pos ) );
+				return n -> value;
+			}
+			catch ( NumberFormatException e ) {
+				throw error( "Invalid number '" + formula.substring( start, pos ) + "'" );
+			}
+		}
+
+		while ( pos < formula.length() && Character.isLetter( formula.charAt( pos ) ) ) {
+			pos++;
+		}
+		String name = formula.substring( start, pos ).toLowerCase();
+
+		switch ( name ) {
+			case "n":
+				return n -> n;
+
+			case "sqrt":
+				return function( Math::sqrt );
+			case "abs":
+				return function( Math::abs );
+			case "floor":
+				return function( Math::floor );
+			case "ceil":
+				return function( Math::ceil );
+			case "round":
+				return function( v -> Math.round( v ) );
+			case "log":
+				return function( Math::log );
+			case "exp":
+				return function( Math::exp );
+
+			case "min":
+				return function( Math::min );
+			case "max":
+				return function( Math::max );
+
+			case "":
+				throw error( pos < formula.length() ?
+						"Unexpected '" + formula.charAt( pos ) + "'" : "Unexpected end" );
+
+			default:
+				throw error( "Unknown name '" + name + "'" );
+		}
+	}
+
+	private DoubleUnaryOperator function( DoubleUnaryOperator function ) {
+		expect( '(' );
+		DoubleUnaryOperator argument = parseExpression();
+		expect( ')' );
+
+		return n -> function.applyAsDouble( argument.applyAsDouble( n ) );
+	}
+
+	private DoubleUnaryOperator function( DoubleBinaryOperator function ) {
+		expect( '(' );
+		DoubleUnaryOperator first = parseExpression();
+		expect( ',' );
+		DoubleUnaryOperator second = parseExpression();
+		expect( ')' );
+
+		return combine( first, second, function );
+	}
+
+	private static DoubleUnaryOperator combine( DoubleUnaryOperator left, DoubleUnaryOperator right,
+					DoubleBinaryOperator operator ) {
+		return n -> operator.applyAsDouble( left.applyAsDouble( n ), right.applyAsDouble( n ) );
+	}
+
+	private void skipSpaces() {
+		while ( pos < formula.length() && Character.isWhitespace( formula.charAt( pos ) ) ) {
+			pos++;
+		}
+	}
+
+	private boolean accept( char c ) {
+		skipSpaces();
+
+		boolean results = pos < formula.length() && formula.charAt( pos ) == c;
+		if ( results ) {
+			pos++;
+		}
+		return results;
+	}
+
+	private void expect( char c ) {
+		if ( !accept( c ) ) {
+			throw error( "Expected '" + c + "'" );
+		}
+	}
+
+	private IllegalArgumentException error( String message ) {
+		return new IllegalArgumentException( String.format( "%s at position %d of the formula: %s",
+				message, pos + 1, formula ) );
+	}
+}
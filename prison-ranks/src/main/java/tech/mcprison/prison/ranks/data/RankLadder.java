@@ -20,8 +20,8 @@ package tech.mcprison.prison.ranks.data;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import com.google.gson.internal.LinkedTreeMap;
 
@@ -50,7 +50,18 @@ public class RankLadder
     public List<PositionRank> ranks;
     public int maxPrestige;
     
+    /**
+     * If set, then the ranks of this ladder are generated, and are not stored.
+     */
+    private VirtualLadder virtualLadder;
+    
     private boolean dirty = false;
+    
+    /**
+     * The compiled ranks of this ladder, which is rebuilt the next time it is
+     * needed after the ladder, or any of its ranks, have been changed.
+     */
+    private transient volatile RankLadderIndex index;
 
     /*
      * Document-related
@@ -70,30 +81,63 @@ public class RankLadder
                 (List<LinkedTreeMap<String, Object>>) document.get("ranks");
 
         this.ranks = new ArrayList<>();
-        for (LinkedTreeMap<String, Object> rank : ranksLocal) {
+        for (LinkedTreeMap<String, Object> rank : ranksLocal == null ? 
+        				new ArrayList<LinkedTreeMap<String, Object>>() : ranksLocal) {
         	
         	int rPos = RankUtil.doubleToInt(rank.get("position"));
         	int rRankId = RankUtil.doubleToInt((rank.get("rankId")));
         	String rRankName = (String) rank.get( "rankName" );
-        	Rank rankPrison = null;
         	
-        	if ( rankManager != null &&  
-    				rankManager.getRank( rRankId ) !=  null) {
-
-        		rankPrison = rankManager.getRank( rRankId );
-        		
-        		// if null look it up from loaded ranks:
-        		if ( rRankName == null  ) {
-        			rRankName = rankPrison.name;
-        			dirty = true;
-        		}
-        	}
-        	
-            ranks.add(new PositionRank( rPos, rRankId, rRankName, rankPrison ));
+        	addLoadedRank( rPos, rRankId, rRankName, rankManager );
         }
         
         this.maxPrestige = RankUtil.doubleToInt(document.get("maxPrestige"));
         
+        Object virtualLocal = document.get("virtual");
+        if ( virtualLocal instanceof Map ) {
+        	Document virtualDocument = new Document();
+        	virtualDocument.putAll( (Map<String, Object>) virtualLocal );
+        	
+        	loadVirtualLadder( virtualDocument );
+        }
+    }
+    
+    /**
+     * <p>Adds a rank that was read from storage, and links it to the loaded rank.
+     * The ladder will be dirty if the rank's name was not saved, and was added.
+     * </p>
+     */
+    void addLoadedRank( int position, int rankId, String rankName, RankManager rankManager ) {
+    	Rank rankPrison = null;
+    	
+    	if ( rankManager != null &&  
+    			rankManager.getRank( rankId ) !=  null) {
+    		
+    		rankPrison = rankManager.getRank( rankId );
+    		
+    		// if null look it up from loaded ranks:
+    		if ( rankName == null  ) {
+    			rankName = rankPrison.name;
+    			dirty = true;
+    		}
+    	}
+    	
+    	ranks.add(new PositionRank( position, rankId, rankName, rankPrison ));
+    }
+    
+    /**
+     * <p>Sets the virtual ladder that was read from storage.  If it is not valid, 
+     * then it is logged and the ladder has no ranks.
+     * </p>
+     */
+    void loadVirtualLadder( Document virtualDocument ) {
+    	try {
+    		this.virtualLadder = new VirtualLadder( virtualDocument );
+    	}
+    	catch ( Exception e ) {
+    		Output.get().logError( String.format( "RankLadder: The virtual ladder %s is " +
+    				"not valid, so it has no ranks. %s", name, e.getMessage() ) );
+    	}
     }
 
     public Document toDocument() {
@@ -102,12 +146,16 @@ public class RankLadder
         ret.put("name", this.name);
         ret.put("ranks", this.ranks);
         ret.put("maxPrestige", this.maxPrestige);
+        if ( this.virtualLadder != null ) {
+        	ret.put("virtual", this.virtualLadder.toDocument());
+        }
         return ret;
     }
 
     @Override 
     public String toString() {
-    	return "Ladder: " + name + "  ranks: " + (ranks == null ? 0 : ranks.size());
+    	return "Ladder: " + name + "  ranks: " + (virtualLadder != null ? virtualLadder.getRankCount() :
+    							ranks == null ? 0 : ranks.size());
     }
     
     public List<Rank> getRanks() {
@@ -153,6 +201,8 @@ public class RankLadder
         
         // Ranks will be reordered within connectRanks() so don't sort here:
         
+        invalidateIndex();
+        
         // Reset the rank relationships:
         PrisonRanks.getInstance().getRankManager().connectRanks();
     }
@@ -168,6 +218,8 @@ public class RankLadder
     public void addRank(Rank rank) {
         ranks.add(new PositionRank(getNextAvailablePosition(), rank.id, rank.name, rank));
         
+        invalidateIndex();
+        
         // Reset the rank relationships:
         PrisonRanks.getInstance().getRankManager().connectRanks();
     }
@@ -192,6 +244,8 @@ public class RankLadder
             }
         }
         
+        invalidateIndex();
+        
         // Reset the rank relationships:
         PrisonRanks.getInstance().getRankManager().connectRanks();
     }
@@ -213,6 +267,63 @@ public class RankLadder
      * Getters & Setters
      */
 
+    /**
+     * Returns the compiled index of this ladder's ranks, building it if the ladder
+     * has been changed since it was last used.
+     *
+     * @return The index, which must not be held on to since it is replaced when
+     * the ladder is changed.
+     */
+    public RankLadderIndex getIndex() {
+    	RankLadderIndex results = index;
+    	
+    	if ( results == null && virtualLadder != null ) {
+    		results = new VirtualRankLadderIndex( id, virtualLadder );
+    		index = results;
+    	}
+    	else if ( results == null ) {
+    		RankManager rankManager = PrisonRanks.getInstance().getRankManager();
+    		
+    		results = new RankLadderIndex( ranks, rankId -> rankManager.getRank( rankId ) );
+    		index = results;
+    	}
+    	
+    	return results;
+    }
+    
+    public boolean isVirtual() {
+    	return virtualLadder != null;
+    }
+    
+    public VirtualLadder getVirtualLadder() {
+    	return virtualLadder;
+    }
+    
+    /**
+     * <p>Makes this a virtual ladder, whose ranks are generated.  Only a ladder
+     * without any stored ranks may be virtual.
+     * </p>
+     * 
+     * @param virtualLadder The definition, or null to remove it.
+     */
+    public void setVirtualLadder( VirtualLadder virtualLadder ) {
+    	this.virtualLadder = virtualLadder;
+    	
+    	invalidateIndex();
+    	
+    	// The players' ranks must be resolved again:
+    	PrisonRanks.getInstance().getLadderManager().nextGeneration();
+    }
+    
+    /**
+     * Discards the compiled index so it will be rebuilt the next time it is used.  This
+     * must be called whenever the ranks within this ladder, or their costs or
+     * currencies, are changed.
+     */
+    public void invalidateIndex() {
+    	index = null;
+    }
+
     /**
      * Returns true if this ladder contains a rank with a specified ID.
      *
@@ -220,7 +331,7 @@ public class RankLadder
      * @return True if the rank was found, false otherwise.
      */
     public boolean containsRank(int rankId) {
-        return ranks.stream().anyMatch(rank -> rank.getRankId() == rankId);
+        return getIndex().indexOfRank( rankId ) >= 0;
     }
 
     /**
@@ -230,13 +341,10 @@ public class RankLadder
      * @return The position of the rank, or -1 if the rank was not found.
      */
     public int getPositionOfRank(Rank rank) {
-        for (PositionRank rankEntry : ranks) {
-            if (rankEntry.getRankId() == rank.id) {
-                return rankEntry.getPosition();
-            }
-        }
-
-        return -1;
+    	RankLadderIndex rankIndex = getIndex();
+    	int i = rankIndex.indexOfRank( rank.id );
+    	
+        return i < 0 ? -1 : rankIndex.getPosition( i );
     }
 
     /**
@@ -247,16 +355,23 @@ public class RankLadder
      * empty if there isn't or if the rank does not exist anymore.
      */
     public Optional<Rank> getNext(int after) {
-        List<Integer> positions =
-                ranks.stream().map(PositionRank::getPosition).sorted().collect(Collectors.toList());
-
-        int newIndex = positions.indexOf(after) + 1;
-        if (newIndex >= positions.size()) {
-            return Optional.empty();
-        }
+    	RankLadderIndex rankIndex = getIndex();
+    	
+    	// If the position is not in the ladder, then the next rank is the first rank:
+    	return Optional.ofNullable( rankIndex.getRank( rankIndex.indexOfPosition( after ) + 1 ) );
+    }
 
-        int nextPosition = positions.get(newIndex);
-        return getByPosition(nextPosition);
+    /**
+     * Returns the rank that follows the specified rank in the ladder, without the
+     * position lookup and Optional of {@link #getNext(int)}, for the placeholders.
+     *
+     * @param rank The current rank.
+     * @return The next rank, or null if there is none.
+     */
+    public Rank getNextRank(Rank rank) {
+    	RankLadderIndex rankIndex = getIndex();
+    	
+    	return rankIndex.getRank( rankIndex.indexOfRank( rank.id ) + 1 );
     }
 
     /**
@@ -267,16 +382,10 @@ public class RankLadder
      * empty if there isn't or if the rank does not exist anymore.
      */
     public Optional<Rank> getPrevious(int before) {
-        List<Integer> positions =
-                ranks.stream().map(PositionRank::getPosition).sorted().collect(Collectors.toList());
-
-        int newIndex = positions.indexOf(before) - 1;
-        if (newIndex < 0) {
-            return Optional.empty();
-        }
-
-        int previousPosition = positions.get(newIndex);
-        return getByPosition(previousPosition);
+    	RankLadderIndex rankIndex = getIndex();
+    	int i = rankIndex.indexOfPosition( before );
+    	
+    	return i < 0 ? Optional.empty() : Optional.ofNullable( rankIndex.getRank( i - 1 ) );
     }
 
     /**
@@ -286,13 +395,9 @@ public class RankLadder
      * @return An optional containing the rank if it was found, or empty if it wasn't.
      */
     public Optional<Rank> getByPosition(int position) {
-        for (PositionRank posRank : ranks) {
-            if (posRank.getPosition() == position) {
-                return PrisonRanks.getInstance().getRankManager().getRankOptional(posRank.getRankId());
-            }
-        }
-
-        return Optional.empty();
+    	RankLadderIndex rankIndex = getIndex();
+    	
+        return Optional.ofNullable( rankIndex.getRank( rankIndex.indexOfPosition( position ) ) );
     }
 
     // This next method is sort of precautionary. Sure, positions start at 0, but if the user decides to be crazy
@@ -305,16 +410,16 @@ public class RankLadder
      * @return The rank option, or an empty optional if there are no ranks in this ladder.
      */
     public Optional<Rank> getLowestRank() {
-        if (ranks.isEmpty()) return Optional.empty();
-
-        PositionRank lowest = ranks.get(0);
-        for (PositionRank posRank : ranks) {
-            if (posRank.getPosition() < lowest.getPosition()) {
-                lowest = posRank;
-            }
-        }
+        return Optional.ofNullable( getIndex().getLowestRank() );
+    }
 
-        return PrisonRanks.getInstance().getRankManager().getRankOptional(lowest.getRankId());
+    /**
+     * Finds the highest rank present in this ladder, which is the rank with the highest position.
+     *
+     * @return The rank option, or an empty optional if there are no ranks in this ladder.
+     */
+    public Optional<Rank> getHighestRank() {
+    	return Optional.ofNullable( getIndex().getHighestRank() );
     }
 
     /**
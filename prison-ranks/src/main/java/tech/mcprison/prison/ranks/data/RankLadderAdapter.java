@@ -0,0 +1,168 @@
+package tech.mcprison.prison.ranks.data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import tech.mcprison.prison.ranks.PrisonRanks;
+import tech.mcprison.prison.ranks.data.RankLadder.PositionRank;
+import tech.mcprison.prison.store.Document;
+import tech.mcprison.prison.store.DocumentAdapters;
+
+/**
+ * <p>Reads and writes a {@link RankLadder} straight to and from its JSON.  The JSON is
+ * the same as {@link RankLadder#toDocument()}, so the existing ladder files are read as
+ * they are.  The ranks must be loaded first, since the ladder's ranks are linked to
+ * them when it is read.
+ * </p>
+ *
+ */
+public class RankLadderAdapter
+	extends TypeAdapter<RankLadder>
+{
+	/**
+	 * The virtual ladder is still kept as a document, since there is at most one
+	 * for each ladder.
+	 */
+	private static final TypeAdapter<Document> documentAdapter =
+					new Gson().getAdapter( Document.class );
+
+	private final PrisonRanks prisonRanks;
+
+	/**
+	 * @param prisonRanks Used to link the ladder's ranks to the loaded ranks.  If it
+	 * 			is null, then the ranks are read without being linked.
+	 */
+	public RankLadderAdapter( PrisonRanks prisonRanks ) {
+		super();
+
+		this.prisonRanks = prisonRanks;
+	}
+
+	@Override
+	public void write( JsonWriter out, RankLadder ladder ) throws IOException {
+		if ( ladder == null ) {
+			out.nullValue();
+			return;
+		}
+
+		out.beginObject();
+		out.name( "id" ).value( ladder.id );
+
+		if ( ladder.name != null ) {
+			out.name( "name" ).value( ladder.name );
+		}
+
+		if ( ladder.ranks != null ) {
+			out.name( "ranks" ).beginArray();
+			for ( PositionRank positionRank : ladder.ranks ) {
+				out.beginObject();
+				out.name( "position" ).value( positionRank.getPosition() );
+				out.name( "rankId" ).value( positionRank.getRankId() );
+				if ( positionRank.getRankName() != null ) {
+					out.name( "rankName" ).value( positionRank.getRankName() );
+				}
+				out.endObject();
+			}
+			out.endArray();
+		}
+
+		out.name( "maxPrestige" ).value( ladder.maxPrestige );
+
+		if ( ladder.getVirtualLadder() != null ) {
+			out.name( "virtual" );
+			documentAdapter.write( out, ladder.getVirtualLadder().toDocument() );
+		}
+
+		out.endObject();
+	}
+
+	@Override
+	public RankLadder read( JsonReader in ) throws IOException {
+		if ( in.peek() == JsonToken.NULL ) {
+			in.nextNull();
+			return null;
+		}
+
+		RankLadder ladder = new RankLadder();
+		ladder.ranks = new ArrayList<>();
+
+		in.beginObject();
+		while ( in.hasNext() ) {
+			switch ( in.nextName() ) {
+				case "id":
+					ladder.id = DocumentAdapters.nextInt( in );
+					break;
+
+				case "name":
+					ladder.name = DocumentAdapters.nextString( in );
+					break;
+
+				case "ranks":
+					readRanks( in, ladder );
+					break;
+
+				case "maxPrestige":
+					ladder.maxPrestige = DocumentAdapters.nextInt( in );
+					break;
+
+				case "virtual":
+					Document virtualDocument = documentAdapter.read( in );
+					if ( virtualDocument != null ) {
+						ladder.loadVirtualLadder( virtualDocument );
+					}
+					break;
+
+				default:
+					in.skipValue();
+			}
+		}
+		in.endObject();
+
+		return ladder;
+	}
+
+	private void readRanks( JsonReader in, RankLadder ladder ) throws IOException {
+		if ( in.peek() == JsonToken.NULL ) {
+			in.nextNull();
+			return;
+		}
+
+		in.beginArray();
+		while ( in.hasNext() ) {
+			int position = 0;
+			int rankId = 0;
+			String rankName = null;
+
+			in.beginObject();
+			while ( in.hasNext() ) {
+				switch ( in.nextName() ) {
+					case "position":
+						position = DocumentAdapters.nextInt( in );
+						break;
+
+					case "rankId":
+						rankId = DocumentAdapters.nextInt( in );
+						break;
+
+					case "rankName":
+						rankName = DocumentAdapters.nextString( in );
+						break;
+
+					default:
+						in.skipValue();
+				}
+			}
+			in.endObject();
+
+			ladder.addLoadedRank( position, rankId, rankName, 
+					prisonRanks == null ? null : prisonRanks.getRankManager() );
+		}
+		in.endArray();
+	}
+}
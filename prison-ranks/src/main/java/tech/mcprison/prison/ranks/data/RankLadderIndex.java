@@ -0,0 +1,191 @@
+package tech.mcprison.prison.ranks.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+import tech.mcprison.prison.ranks.data.RankLadder.PositionRank;
+
+/**
+ * <p>An immutable, compiled view of a ladder's ranks.  The ranks are held in
+ * arrays in the order of their positions, along with the running total of
+ * their costs, so finding the next rank, the last rank, or how far a player
+ * can afford to rank up, never has to walk the ladder.
+ * </p>
+ *
+ * <p>The index is built from the ladder the first time it is needed, and is
+ * thrown away, to be rebuilt, whenever the ladder or its ranks are changed.
+ * </p>
+ *
+ */
+public class RankLadderIndex {
+
+	private final int[] positions;
+	private final Rank[] ranks;
+
+	/**
+	 * <p>The total cost of all of the ranks from the bottom of the ladder up to,
+	 * and including, the rank at that index.
+	 * </p>
+	 */
+	private final double[] cumulativeCosts;
+
+	/**
+	 * <p>The index of the last rank, at or after each index, that uses the same
+	 * currency, since the ranks cannot be purchased together across currencies.
+	 * </p>
+	 */
+	private final int[] currencyRunEnds;
+
+	private final Map<Integer, Integer> indexByRankId;
+	private final Map<Integer, Integer> indexByPosition;
+
+	/**
+	 * For the indexes that work out their ranks, instead of holding them.
+	 */
+	protected RankLadderIndex() {
+		this( Collections.emptyList(), rankId -> null );
+	}
+
+	/**
+	 * @param positionRanks The ladder's ranks, in any order.
+	 * @param rankLookup Returns the rank for the rank id, or null if it does not exist.
+	 */
+	public RankLadderIndex( List<PositionRank> positionRanks, IntFunction<Rank> rankLookup ) {
+		super();
+
+		List<PositionRank> sorted = new ArrayList<>();
+		for ( PositionRank positionRank : positionRanks ) {
+			if ( positionRank != null ) {
+				sorted.add( positionRank );
+			}
+		}
+		sorted.sort( Comparator.comparingInt( PositionRank::getPosition ) );
+
+		int size = sorted.size();
+		this.positions = new int[size];
+		this.ranks = new Rank[size];
+		this.cumulativeCosts = new double[size];
+		this.currencyRunEnds = new int[size];
+
+		this.indexByRankId = new HashMap<>();
+		this.indexByPosition = new HashMap<>();
+
+		double total = 0;
+		for ( int i = 0; i < size; i++ ) {
+			PositionRank positionRank = sorted.get( i );
+			Rank rank = rankLookup.apply( positionRank.getRankId() );
+
+			positions[i] = positionRank.getPosition();
+			ranks[i] = rank;
+
+			total += ( rank == null ? 0 : rank.cost );
+			cumulativeCosts[i] = total;
+
+			// If there are duplicates, then the first one is used:
+			indexByRankId.putIfAbsent( positionRank.getRankId(), i );
+			indexByPosition.putIfAbsent( positionRank.getPosition(), i );
+		}
+
+		for ( int i = size - 1; i >= 0; i-- ) {
+			currencyRunEnds[i] = ( i < size - 1 && ranks[i] != null && ranks[i + 1] != null &&
+					Objects.equals( ranks[i].currency, ranks[i + 1].currency ) ?
+							currencyRunEnds[i + 1] : i );
+		}
+	}
+
+	public int getRankCount() {
+		return ranks.length;
+	}
+
+	/**
+	 * @param index
+	 * @return The rank at the index, or null if the index is out of range, or
+	 * 			the rank does not exist.
+	 */
+	public Rank getRank( int index ) {
+		return index < 0 || index >= ranks.length ? null : ranks[index];
+	}
+
+	public int getPosition( int index ) {
+		return positions[index];
+	}
+
+	/**
+	 * @param rankId
+	 * @return The index of the rank, or -1 if it is not in the ladder.
+	 */
+	public int indexOfRank( int rankId ) {
+		Integer index = indexByRankId.get( rankId );
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * @param position
+	 * @return The index of the rank at the position, or -1 if there is none.
+	 */
+	public int indexOfPosition( int position ) {
+		Integer index = indexByPosition.get( position );
+		return index == null ? -1 : index;
+	}
+
+	public Rank getLowestRank() {
+		return getRank( 0 );
+	}
+
+	public Rank getHighestRank() {
+		return getRank( ranks.length - 1 );
+	}
+
+	/**
+	 * @param fromIndex The index of the current rank, or -1 for below the ladder.
+	 * @param toIndex The index of the target rank.
+	 * @return The total cost of all of the ranks after the fromIndex, up to and
+	 * 			including the toIndex.
+	 */
+	public double getCost( int fromIndex, int toIndex ) {
+		return cumulativeCosts[toIndex] - ( fromIndex < 0 ? 0 : cumulativeCosts[fromIndex] );
+	}
+
+	/**
+	 * <p>Finds the highest rank that can be purchased with the balance, when
+	 * ranking up from the current index, with a binary search over the running
+	 * total of the costs.  Only the ranks that use the same currency as the
+	 * next rank are included.
+	 * </p>
+	 *
+	 * @param fromIndex The index of the current rank.
+	 * @param balance
+	 * @return The index of the highest affordable rank, or the fromIndex if the
+	 * 			next rank cannot be afforded, or if there is no next rank.
+	 */
+	public int getMaxAffordableIndex( int fromIndex, double balance ) {
+		int results = fromIndex;
+
+		int start = fromIndex + 1;
+		if ( start >= 0 && start < ranks.length && ranks[start] != null ) {
+
+			int low = start;
+			int high = currencyRunEnds[start];
+
+			while ( low <= high ) {
+				int mid = (low + high) >>> 1;
+
+				if ( getCost( fromIndex, mid ) <= balance ) {
+					results = mid;
+					low = mid + 1;
+				}
+				else {
+					high = mid - 1;
+				}
+			}
+		}
+
+		return results;
+	}
+}
@@ -18,6 +18,7 @@
 package tech.mcprison.prison.ranks.data;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -45,10 +46,54 @@ public class RankPlayer {
     public HashMap<String, Integer> ranks; // <Ladder Name, Rank ID>
     public HashMap<String, Integer> prestige; // <Ladder Name, Prestige>
     
+    // <Ladder Name, when the player reached their current rank on the ladder>
+    public HashMap<String, Long> rankTimes;
+    
     public List<RankPlayerName> names;
     
     // Block name, count
     public HashMap<String, Integer> blocksMined;
+    
+    /**
+     * <p>If true, then the player has changed since they were last written.
+     * </p>
+     */
+    private transient volatile boolean dirty = false;
+    
+    /**
+     * <p>The player's ranks, resolved to the ladders and ranks.  This is rebuilt
+     * when the player's ranks change, or when the ladders have changed.
+     * </p>
+     */
+    private transient volatile ResolvedRanks resolvedRanks;
+    
+    /**
+     * <p>Incremented when the player's ranks are changed, so a view that was being
+     * resolved on another thread at the same time is never kept.
+     * </p>
+     */
+    private transient volatile int ranksVersion = 0;
+    
+    /**
+     * <p>An immutable view of the player's ranks, and the versions it was
+     * resolved against.
+     * </p>
+     */
+    private static class ResolvedRanks {
+    	private final int ranksVersion;
+    	private final int generation;
+    	private final Map<RankLadder, Rank> ladderRanks;
+    	private final Map<String, Rank> ladderNameRanks;
+    	
+    	private ResolvedRanks( int ranksVersion, int generation, 
+    							Map<RankLadder, Rank> ladderRanks, 
+    							Map<String, Rank> ladderNameRanks ) {
+    		this.ranksVersion = ranksVersion;
+    		this.generation = generation;
+    		this.ladderRanks = Collections.unmodifiableMap( ladderRanks );
+    		this.ladderNameRanks = ladderNameRanks;
+    	}
+    }
 
     /*
      * Document-related
@@ -70,6 +115,9 @@ public class RankPlayer {
         LinkedTreeMap<String, Object> blocksMinedLocal =
         		(LinkedTreeMap<String, Object>) document.get("blocksMined");
         
+        LinkedTreeMap<String, Object> rankTimesLocal =
+        		(LinkedTreeMap<String, Object>) document.get("rankTimes");
+        
         Object namesListObject = document.get( "names" );
         
 
@@ -90,6 +138,13 @@ public class RankPlayer {
         	}
         }
         
+        this.rankTimes = new HashMap<>();
+        if ( rankTimesLocal != null ) {
+        	for (String key : rankTimesLocal.keySet()) {
+        		rankTimes.put(key, RankUtil.doubleToLong(rankTimesLocal.get(key)));
+        	}
+        }
+        
         if ( namesListObject != null ) {
         	
         	for ( Object rankPlayerNameMap : (ArrayList<Object>) namesListObject ) {
@@ -109,17 +164,70 @@ public class RankPlayer {
         
     }
 
+    /**
+     * <p>The document holds copies of the player's collections, from 
+     * {@link #snapshot()}, so it can be written on a background thread.
+     * </p>
+     */
     public Document toDocument() {
+    	RankPlayer copy = snapshot();
+    	
         Document ret = new Document();
-        ret.put("uid", this.uid);
-        ret.put("ranks", this.ranks);
-        ret.put("prestige", this.prestige);
+        ret.put("uid", copy.uid);
+        ret.put("ranks", copy.ranks);
+        ret.put("prestige", copy.prestige);
         
-        ret.put("names", this.names);
+        ret.put("names", copy.names);
 
-        ret.put("blocksMined", this.blocksMined);
+        ret.put("blocksMined", copy.blocksMined);
+        ret.put("rankTimes", copy.rankTimes);
         return ret;
     }
+    
+    /**
+     * <p>A copy of the player's stored data, so it can be written on a background
+     * thread.
+     * </p>
+     */
+    public RankPlayer snapshot() {
+    	RankPlayer ret = new RankPlayer();
+    	ret.uid = this.uid;
+    	ret.ranks = this.ranks == null ? null : new HashMap<>(this.ranks);
+    	ret.prestige = this.prestige == null ? null : new HashMap<>(this.prestige);
+    	
+    	ret.names = this.names == null ? null : new ArrayList<>(this.names);
+    	
+    	ret.blocksMined = this.blocksMined == null ? null : new HashMap<>(this.blocksMined);
+    	ret.rankTimes = this.rankTimes == null ? null : new HashMap<>(this.rankTimes);
+    	return ret;
+    }
+    
+    public void markDirty() {
+    	this.dirty = true;
+    }
+    
+    /**
+     * <p>The player's ranks have changed, so they must be resolved again.
+     * </p>
+     */
+    private void ranksChanged() {
+    	this.ranksVersion++;
+    	this.resolvedRanks = null;
+    	markDirty();
+    }
+    
+    /**
+     * @return True if the player was dirty before it was cleared.
+     */
+    public boolean clearDirty() {
+    	boolean wasDirty = dirty;
+    	this.dirty = false;
+    	return wasDirty;
+    }
+    
+    public boolean isDirty() {
+    	return dirty;
+    }
 
     /*
      * Methods
@@ -138,12 +246,20 @@ public class RankPlayer {
     		getNames().add( rpn );
     		
     		added = true;
+    		markDirty();
     	}
     	
     	return added;
     }
     
 
+    /**
+     * @return The player's most recent name, or null if no names are known.
+     */
+    public String getLastName() {
+    	return getNames().size() == 0 ? null : getNames().get( getNames().size() - 1 ).getName();
+    }
+
     public List<RankPlayerName> getNames() {
     	if ( names == null ) {
     		names = new ArrayList<>();
@@ -152,6 +268,7 @@ public class RankPlayer {
 	}
 	public void setNames( List<RankPlayerName> names ) {
 		this.names = names;
+		markDirty();
 	}
 
 	public HashMap<String, Integer> getBlocksMined() {
@@ -159,6 +276,7 @@ public class RankPlayer {
 	}
 	public void setBlocksMined( HashMap<String, Integer> blocksMined ) {
 		this.blocksMined = blocksMined;
+		markDirty();
 	}
 
 	/**
@@ -170,6 +288,10 @@ public class RankPlayer {
      */
     public String filename()
     {
+    	return filename( uid );
+    }
+    
+    public static String filename( UUID uid ) {
     	return "player_" + uid.getLeastSignificantBits();
     }
     
@@ -193,6 +315,8 @@ public class RankPlayer {
         }
 
         ranks.put(ladder.name, rank.id);
+        setRankTime(ladder.name, System.currentTimeMillis());
+        ranksChanged();
     }
 
     /**
@@ -214,6 +338,37 @@ public class RankPlayer {
 
         // ... and then remove it!
         ranks.remove(ladderName);
+        setRankTime(ladderName, null);
+        ranksChanged();
+    }
+
+    /**
+     * <p>Moves the player from one rank to another on the ladder.  This uses the ranks'
+     * ids so it still works after the old rank has been deleted.
+     * </p>
+     *
+     * @param ladderName The ladder's name.
+     * @param rankId The rank to move the player from.
+     * @param newRankId The rank to move the player to, or null to remove the player from
+     * 			the ladder.
+     * @return True if the player had the old rank, and was moved.
+     */
+    public boolean replaceRank( String ladderName, int rankId, Integer newRankId ) {
+    	Integer current = ranks.get( ladderName );
+    	boolean results = current != null && current == rankId;
+
+    	if ( results ) {
+    		if ( newRankId == null ) {
+    			ranks.remove( ladderName );
+    			setRankTime( ladderName, null );
+    		}
+    		else {
+    			ranks.put( ladderName, newRankId );
+    		}
+    		ranksChanged();
+    	}
+
+    	return results;
     }
 
     /**
@@ -226,6 +381,35 @@ public class RankPlayer {
             return;
         }
         ranks.remove(ladderName);
+        setRankTime(ladderName, null);
+        ranksChanged();
+    }
+
+    /**
+     * <p>Moving a player with {@link #replaceRank(String, int, Integer)}, such as when
+     * their rank is deleted, keeps their time, since they did not rank up.
+     * </p>
+     * 
+     * @param ladderName
+     * @return When the player reached their current rank on the ladder, or 0 if it is
+     * 			not known, such as for a player that was saved by an older version.
+     */
+    public long getRankTime( String ladderName ) {
+    	Long results = rankTimes == null ? null : rankTimes.get( ladderName );
+    	return results == null ? 0 : results;
+    }
+
+    private void setRankTime( String ladderName, Long time ) {
+    	if ( rankTimes == null ) {
+    		rankTimes = new HashMap<>();
+    	}
+    	
+    	if ( time == null ) {
+    		rankTimes.remove( ladderName );
+    	}
+    	else {
+    		rankTimes.put( ladderName, time );
+    	}
     }
 
     /*
@@ -239,11 +423,7 @@ public class RankPlayer {
      * @return An optional containing the {@link Rank} if found, or empty if there isn't a rank by that ladder for this player.
      */
     public Optional<Rank> getRank(RankLadder ladder) {
-        if (!ranks.containsKey(ladder.name)) {
-            return Optional.empty();
-        }
-        int id = ranks.get(ladder.name);
-        return PrisonRanks.getInstance().getRankManager().getRankOptional(id);
+        return Optional.ofNullable(getResolvedRanks().ladderNameRanks.get(ladder.name));
     }
     
     /**
@@ -253,37 +433,56 @@ public class RankPlayer {
      * @return The {@link Rank} if found, otherwise null;
      */
     public Rank getRank(String ladder) {
-    	Rank results = null;
-    	if (ladder != null && ranks.containsKey(ladder)) {
-    		int id = ranks.get(ladder);
-    		results = PrisonRanks.getInstance().getRankManager().getRank(id);
-    	}
-    	return results;
+    	return ladder == null ? null : getResolvedRanks().ladderNameRanks.get(ladder);
     }
 
     /**
      * Returns all ladders this player is a part of, along with each rank the player has in that ladder.
+     * 
+     * The map is shared, and cannot be changed.  It is only rebuilt when the player's ranks, 
+     * or the ladders, have changed.
      *
      * @return The map containing this data.
      */
     public Map<RankLadder, Rank> getRanks() {
-        Map<RankLadder, Rank> ret = new HashMap<>();
+        return getResolvedRanks().ladderRanks;
+    }
+    
+    private ResolvedRanks getResolvedRanks() {
+    	int version = ranksVersion;
+    	int generation = PrisonRanks.getInstance().getLadderManager().getGeneration();
+    	
+    	ResolvedRanks results = resolvedRanks;
+    	if ( results == null || results.ranksVersion != version || 
+    			results.generation != generation ) {
+    		results = resolveRanks( version, generation );
+    		resolvedRanks = results;
+    	}
+    	
+    	return results;
+    }
+
+    private ResolvedRanks resolveRanks( int version, int generation ) {
+    	Map<RankLadder, Rank> ladderRanks = new HashMap<>();
+    	Map<String, Rank> ladderNameRanks = new HashMap<>();
+    	
         for (Map.Entry<String, Integer> entry : ranks.entrySet()) {
+            Rank rank = PrisonRanks.getInstance().getRankManager().getRank(entry.getValue());
+            if ( rank == null ) {
+                continue; // Skip it
+            }
+            ladderNameRanks.put(entry.getKey(), rank);
+            
             Optional<RankLadder> ladder =
                 PrisonRanks.getInstance().getLadderManager().getLadder(entry.getKey());
             if (!ladder.isPresent()) {
                 continue; // Skip it
             }
 
-            Rank rank = PrisonRanks.getInstance().getRankManager().getRank(entry.getValue());
-            if ( rank == null ) {
-                continue; // Skip it
-            }
-
-            ret.put(ladder.get(), rank);
+            ladderRanks.put(ladder.get(), rank);
         }
 
-        return ret;
+        return new ResolvedRanks( version, generation, ladderRanks, ladderNameRanks );
     }
 
     /*
@@ -0,0 +1,202 @@
+package tech.mcprison.prison.ranks.data;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import tech.mcprison.prison.store.DocumentAdapters;
+
+/**
+ * <p>Reads and writes a {@link RankPlayer} straight to and from its JSON, without
+ * building a document of hash maps, and boxed doubles, for every player.  The JSON
+ * is the same as {@link RankPlayer#toDocument()}, so the existing player files are
+ * read as they are, and the files that are written can still be read as documents.
+ * </p>
+ *
+ */
+public class RankPlayerAdapter
+	extends TypeAdapter<RankPlayer>
+{
+
+	@Override
+	public void write( JsonWriter out, RankPlayer player ) throws IOException {
+		if ( player == null ) {
+			out.nullValue();
+			return;
+		}
+
+		out.beginObject();
+
+		if ( player.uid != null ) {
+			out.name( "uid" ).value( player.uid.toString() );
+		}
+
+		writeCounts( out, "ranks", player.ranks );
+		writeCounts( out, "prestige", player.prestige );
+
+		if ( player.names != null ) {
+			out.name( "names" ).beginArray();
+			for ( RankPlayerName rankPlayerName : player.names ) {
+				out.beginObject();
+				if ( rankPlayerName.getName() != null ) {
+					out.name( "name" ).value( rankPlayerName.getName() );
+				}
+				out.name( "date" ).value( rankPlayerName.getDate() );
+				out.endObject();
+			}
+			out.endArray();
+		}
+
+		writeCounts( out, "blocksMined", player.blocksMined );
+
+		if ( player.rankTimes != null ) {
+			out.name( "rankTimes" ).beginObject();
+			for ( Map.Entry<String, Long> entry : player.rankTimes.entrySet() ) {
+				if ( entry.getValue() != null ) {
+					out.name( entry.getKey() ).value( entry.getValue() );
+				}
+			}
+			out.endObject();
+		}
+
+		out.endObject();
+	}
+
+	private void writeCounts( JsonWriter out, String name, Map<String, Integer> counts )
+			throws IOException {
+		if ( counts != null ) {
+			out.name( name ).beginObject();
+			for ( Map.Entry<String, Integer> entry : counts.entrySet() ) {
+				if ( entry.getValue() != null ) {
+					out.name( entry.getKey() ).value( entry.getValue() );
+				}
+			}
+			out.endObject();
+		}
+	}
+
+	@Override
+	public RankPlayer read( JsonReader in ) throws IOException {
+		if ( in.peek() == JsonToken.NULL ) {
+			in.nextNull();
+			return null;
+		}
+
+		RankPlayer player = new RankPlayer();
+		player.ranks = new HashMap<>();
+		player.prestige = new HashMap<>();
+		player.blocksMined = new HashMap<>();
+		player.rankTimes = new HashMap<>();
+
+		in.beginObject();
+		while ( in.hasNext() ) {
+			switch ( in.nextName() ) {
+				case "uid":
+					String uid = DocumentAdapters.nextString( in );
+					player.uid = uid == null ? null : UUID.fromString( uid );
+					break;
+
+				case "ranks":
+					readCounts( in, player.ranks );
+					break;
+
+				case "prestige":
+					readCounts( in, player.prestige );
+					break;
+
+				case "names":
+					readNames( in, player );
+					break;
+
+				case "blocksMined":
+					readCounts( in, player.blocksMined );
+					break;
+
+				case "rankTimes":
+					readTimes( in, player.rankTimes );
+					break;
+
+				default:
+					in.skipValue();
+			}
+		}
+		in.endObject();
+
+		if ( player.uid == null ) {
+			throw new JsonParseException( "RankPlayer: The player does not have a uid." );
+		}
+
+		return player;
+	}
+
+	private void readCounts( JsonReader in, Map<String, Integer> counts ) throws IOException {
+		if ( in.peek() == JsonToken.NULL ) {
+			in.nextNull();
+			return;
+		}
+
+		in.beginObject();
+		while ( in.hasNext() ) {
+			counts.put( in.nextName(), DocumentAdapters.nextInt( in ) );
+		}
+		in.endObject();
+	}
+
+	private void readTimes( JsonReader in, Map<String, Long> times ) throws IOException {
+		if ( in.peek() == JsonToken.NULL ) {
+			in.nextNull();
+			return;
+		}
+
+		in.beginObject();
+		while ( in.hasNext() ) {
+			times.put( in.nextName(), DocumentAdapters.nextLong( in ) );
+		}
+		in.endObject();
+	}
+
+	private void readNames( JsonReader in, RankPlayer player ) throws IOException {
+		if ( in.peek() == JsonToken.NULL ) {
+			in.nextNull();
+			return;
+		}
+
+		in.beginArray();
+		while ( in.hasNext() ) {
+			String name = null;
+			long date = 0;
+			boolean empty = true;
+
+			in.beginObject();
+			while ( in.hasNext() ) {
+				empty = false;
+
+				switch ( in.nextName() ) {
+					case "name":
+						name = DocumentAdapters.nextString( in );
+						break;
+
+					case "date":
+						date = DocumentAdapters.nextLong( in );
+						break;
+
+					default:
+						in.skipValue();
+				}
+			}
+			in.endObject();
+
+			if ( !empty ) {
+				player.getNames().add( new RankPlayerName( name, date ) );
+			}
+		}
+		in.endArray();
+	}
+}
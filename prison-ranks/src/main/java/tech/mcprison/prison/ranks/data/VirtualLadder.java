@@ -0,0 +1,327 @@
+package tech.mcprison.prison.ranks.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import tech.mcprison.prison.ranks.RankUtil;
+import tech.mcprison.prison.store.Document;
+
+/**
+ * <p>The definition of a ladder whose ranks are not stored, but are generated from
+ * a naming pattern and a cost formula.  This allows a ladder with thousands of
+ * ranks, such as A1 through Z100, without a file, or an object in memory, for
+ * each rank.
+ * </p>
+ *
+ * <p>The naming pattern may use these values:
+ * </p>
+ * <ul>
+ *   <li><code>{n}</code> The rank's number, starting with 1.</li>
+ *   <li><code>{group}</code> The letters of the rank's group: A through Z, then
+ *   		AA, AB, and so on.  Each group has <code>groupSize</code> ranks.</li>
+ *   <li><code>{sub}</code> The rank's number within its group, starting with 1.</li>
+ * </ul>
+ *
+ * <p>The generated ranks have ids that are reserved for each virtual ladder, so the
+ * players' ranks are saved the same way as for any other rank.  The ids only depend
+ * upon the ladder's id and the rank's number, so ranks may be added to the end of
+ * the ladder without changing the ranks of the players.
+ * </p>
+ *
+ */
+public class VirtualLadder {
+
+	/**
+	 * The lowest rank id that is used for the virtual ranks.  The ids of the stored
+	 * ranks start at 0, and are never this high.
+	 */
+	public static final int RANK_ID_BASE = 1_000_000_000;
+
+	/**
+	 * The most ranks a virtual ladder may have, which is also the range of rank ids
+	 * that are reserved for each ladder.
+	 */
+	public static final int MAX_RANKS = 1_000_000;
+
+	/**
+	 * The highest ladder id that may be a virtual ladder, so the rank ids do not overflow.
+	 */
+	public static final int MAX_LADDER_ID = (Integer.MAX_VALUE - RANK_ID_BASE) / MAX_RANKS - 1;
+
+	public static final String PATTERN_NUMBER = "{n}";
+	public static final String PATTERN_GROUP = "{group}";
+	public static final String PATTERN_SUB = "{sub}";
+
+	private final int rankCount;
+	private final int groupSize;
+	private final String namePattern;
+	private final RankCostFormula costFormula;
+	private final String currency;
+
+	/**
+	 * The name pattern as a regular expression, with a group for each value, so a
+	 * name can be turned back in to its rank without checking every rank.
+	 */
+	private final Pattern nameRegex;
+	private final List<String> nameValues;
+
+	/**
+	 * @param rankCount
+	 * @param groupSize
+	 * @param namePattern
+	 * @param costFormula
+	 * @param currency The currency, or null for the default currency.
+	 * @throws IllegalArgumentException If any of the values are not valid.
+	 */
+	public VirtualLadder( int rankCount, int groupSize, String namePattern,
+					String costFormula, String currency ) {
+		super();
+
+		if ( rankCount < 1 || rankCount > MAX_RANKS ) {
+			throw new IllegalArgumentException( "The number of ranks must be from 1 to " + MAX_RANKS + "." );
+		}
+		if ( groupSize < 1 ) {
+			throw new IllegalArgumentException( "The group size must be at least 1." );
+		}
+		if ( namePattern == null || !namePattern.contains( PATTERN_NUMBER ) &&
+				!(namePattern.contains( PATTERN_GROUP ) &&
+						(namePattern.contains( PATTERN_SUB ) || groupSize == 1)) ) {
+			throw new IllegalArgumentException( "The name pattern must contain {n}, or both " +
+					"{group} and {sub} (or just {group} if the group size is 1), so each rank " +
+					"has its own name." );
+		}
+
+		this.rankCount = rankCount;
+		this.groupSize = groupSize;
+		this.namePattern = namePattern;
+		this.costFormula = new RankCostFormula( costFormula );
+		this.currency = currency;
+
+		this.nameValues = new ArrayList<>();
+		this.nameRegex = compileNamePattern( namePattern, nameValues );
+	}
+
+	/**
+	 * <p>The numbers become groups of digits, and the group letters become groups of
+	 * letters.  Two numbers, or two groups of letters, next to each other could be
+	 * split in more than one way, so they are not allowed.
+	 * </p>
+	 *
+	 * @param namePattern
+	 * @param nameValues Each of the values in the pattern, in the order of the groups.
+	 * @return The regular expression that matches all of the names.
+	 */
+	private static Pattern compileNamePattern( String namePattern, List<String> nameValues ) {
+		StringBuilder regex = new StringBuilder();
+
+		Matcher matcher = Pattern.compile( "\\{(n|group|sub)\\}" ).matcher( namePattern );
+		int literalStart = 0;
+		String previous = null;
+
+		while ( matcher.find() ) {
+			String value = matcher.group();
+			boolean adjacent = matcher.start() == literalStart && previous != null;
+
+			if ( adjacent && PATTERN_GROUP.equals( value ) == PATTERN_GROUP.equals( previous ) ) {
+				throw new IllegalArgumentException( "The name pattern cannot have " + previous +
+						" right before " + value + ", since the names could be read more than one way." );
+			}
+
+			if ( matcher.start() > literalStart ) {
+				regex.append( Pattern.quote( namePattern.substring( literalStart, matcher.start() ) ) );
+			}
+			regex.append( PATTERN_GROUP.equals( value ) ? "([A-Za-z]+)" : "([0-9]+)" );
+			nameValues.add( value );
+
+			literalStart = matcher.end();
+			previous = value;
+		}
+
+		if ( literalStart < namePattern.length() ) {
+			regex.append( Pattern.quote( namePattern.substring( literalStart ) ) );
+		}
+
+		return Pattern.compile( regex.toString(), Pattern.CASE_INSENSITIVE );
+	}
+
+	public VirtualLadder( Document document ) {
+		this( RankUtil.doubleToInt( document.get( "rankCount" ) ),
+				RankUtil.doubleToInt( document.get( "groupSize" ) ),
+				(String) document.get( "namePattern" ),
+				(String) document.get( "costFormula" ),
+				(String) document.get( "currency" ) );
+	}
+
+	public Document toDocument() {
+		Document ret = new Document();
+		ret.put( "rankCount", (double) this.rankCount );
+		ret.put( "groupSize", (double) this.groupSize );
+		ret.put( "namePattern", this.namePattern );
+		ret.put( "costFormula", this.costFormula.getFormula() );
+		ret.put( "currency", this.currency );
+		return ret;
+	}
+
+	/**
+	 * @param index The rank's index on the ladder, starting with 0.
+	 * @return The rank's name.
+	 */
+	public String getName( int index ) {
+		int n = index + 1;
+
+		return namePattern
+				.replace( PATTERN_NUMBER, Integer.toString( n ) )
+				.replace( PATTERN_GROUP, getGroupLetters( index / groupSize ) )
+				.replace( PATTERN_SUB, Integer.toString( (index % groupSize) + 1 ) );
+	}
+
+	/**
+	 * @param group The group, starting with 0.
+	 * @return The letters for the group, such as A for 0, Z for 25 and AA for 26.
+	 */
+	private static String getGroupLetters( int group ) {
+		StringBuilder sb = new StringBuilder();
+
+		int g = group;
+		do {
+			sb.insert( 0, (char) ('A' + g % 26) );
+			g = g / 26 - 1;
+		} while ( g >= 0 );
+
+		return sb.toString();
+	}
+
+	/**
+	 * <p>Finds the rank with the name.  The names are not stored, so the values are
+	 * read back out of the name with the pattern, and the rank's name is then checked
+	 * to make sure it is the same.  This does not depend upon the number of ranks, and
+	 * none of the ranks are created.
+	 * </p>
+	 *
+	 * @param name The rank's name, which is not case sensitive.
+	 * @return The rank's index, or -1 if there is no rank with that name.
+	 */
+	public int indexOfName( String name ) {
+		int results = -1;
+
+		Matcher matcher = name == null ? null : nameRegex.matcher( name );
+
+		if ( matcher != null && matcher.matches() ) {
+			int n = -1;
+			int group = -1;
+			int sub = -1;
+
+			// If a value is used more than once, then the name check below makes 
+			// sure they are all the same:
+			for ( int i = nameValues.size() - 1; i >= 0; i-- ) {
+				String text = matcher.group( i + 1 );
+
+				switch ( nameValues.get( i ) ) {
+					case PATTERN_NUMBER:
+						n = parseNumber( text );
+						break;
+
+					case PATTERN_SUB:
+						sub = parseNumber( text );
+						break;
+
+					default:
+						group = parseGroupLetters( text );
+				}
+			}
+
+			int index = n > 0 ? n - 1 :
+						group >= 0 && (sub > 0 && sub <= groupSize || sub == -1 && groupSize == 1) ?
+							group * groupSize + Math.max( sub, 1 ) - 1 : -1;
+
+			if ( index >= 0 && index < rankCount && getName( index ).equalsIgnoreCase( name ) ) {
+				results = index;
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * @return The number, or -1 if it is too large to be a rank.
+	 */
+	private static int parseNumber( String text ) {
+		return text.length() > 9 ? -1 : Integer.parseInt( text );
+	}
+
+	/**
+	 * @return The group for the letters, the reverse of {@link #getGroupLetters(int)},
+	 * 			or -1 if there are too many letters to be a rank.
+	 */
+	private static int parseGroupLetters( String text ) {
+		int results = -1;
+
+		if ( text.length() <= 6 ) {
+			int value = 0;
+			for ( char c : text.toUpperCase().toCharArray() ) {
+				value = value * 26 + (c - 'A' + 1);
+			}
+			results = value - 1;
+		}
+
+		return results;
+	}
+
+	/**
+	 * @param index The rank's index on the ladder, starting with 0.
+	 * @return The cost of the rank.
+	 */
+	public double getCost( int index ) {
+		return costFormula.getCost( index + 1 );
+	}
+
+	/**
+	 * @param ladderId
+	 * @param index The rank's index on the ladder, starting with 0.
+	 * @return The rank id for the rank.
+	 */
+	public static int getRankId( int ladderId, int index ) {
+		return RANK_ID_BASE + ladderId * MAX_RANKS + index;
+	}
+
+	public static boolean isVirtualRankId( int rankId ) {
+		return rankId >= RANK_ID_BASE;
+	}
+
+	/**
+	 * @return The id of the ladder that the virtual rank id belongs to.
+	 */
+	public static int getLadderId( int rankId ) {
+		return (rankId - RANK_ID_BASE) / MAX_RANKS;
+	}
+
+	/**
+	 * @return The index of the rank on its ladder.
+	 */
+	public static int getIndex( int rankId ) {
+		return (rankId - RANK_ID_BASE) % MAX_RANKS;
+	}
+
+	public int getRankCount() {
+		return rankCount;
+	}
+	public int getGroupSize() {
+		return groupSize;
+	}
+	public String getNamePattern() {
+		return namePattern;
+	}
+	public RankCostFormula getCostFormula() {
+		return costFormula;
+	}
+	public String getCurrency() {
+		return currency;
+	}
+
+	@Override
+	public String toString() {
+		return String.format( "%d ranks named %s costing %s", rankCount, namePattern, costFormula );
+	}
+}
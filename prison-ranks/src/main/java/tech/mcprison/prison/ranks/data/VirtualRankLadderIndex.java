@@ -0,0 +1,214 @@
+package tech.mcprison.prison.ranks.data;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>The index of a {@link VirtualLadder}.  Instead of holding all of the ranks,
+ * the ranks are generated when they are needed, and only the most recently used
+ * ranks are kept, so the memory does not grow with the number of ranks.  The
+ * position of each rank is the same as its index.
+ * </p>
+ *
+ * <p>A rank is only generated again once nothing refers to it any more, so while
+ * a rank is in use it is always the same object, the same as the stored ranks.
+ * </p>
+ *
+ * <p>The costs are worked out from the formula, so the total cost of several ranks
+ * is added up one rank at a time.  This is only as much work as the number of
+ * ranks being bought.
+ * </p>
+ *
+ */
+public class VirtualRankLadderIndex
+		extends RankLadderIndex {
+
+	public static final int RANK_CACHE_SIZE = 256;
+
+	private final int ladderId;
+	private final VirtualLadder virtualLadder;
+
+	/**
+	 * The most recently used ranks, so they are not generated again right away.
+	 */
+	private final Map<Integer, Rank> rankCache;
+
+	/**
+	 * Every rank that has been generated and is still used somewhere.
+	 */
+	private final Map<Integer, RankReference> liveRanks;
+	private final ReferenceQueue<Rank> releasedRanks;
+
+	private static class RankReference
+			extends WeakReference<Rank> {
+		private final int index;
+
+		private RankReference( Rank rank, int index, ReferenceQueue<Rank> queue ) {
+			super( rank, queue );
+			this.index = index;
+		}
+	}
+
+	public VirtualRankLadderIndex( int ladderId, VirtualLadder virtualLadder ) {
+		super();
+
+		this.ladderId = ladderId;
+		this.virtualLadder = virtualLadder;
+
+		this.rankCache = new LinkedHashMap<Integer, Rank>( 64, 0.75f, true ) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry( Map.Entry<Integer, Rank> eldest ) {
+				return size() > RANK_CACHE_SIZE;
+			}
+		};
+
+		this.liveRanks = new HashMap<>();
+		this.releasedRanks = new ReferenceQueue<>();
+	}
+
+	@Override
+	public int getRankCount() {
+		return virtualLadder.getRankCount();
+	}
+
+	/**
+	 * <p>Returns the rank from the cache, or generates it.  If the rank is still used
+	 * anywhere, then the same object is returned.
+	 * </p>
+	 */
+	@Override
+	public Rank getRank( int index ) {
+		Rank results = null;
+
+		if ( index >= 0 && index < virtualLadder.getRankCount() ) {
+			synchronized ( rankCache ) {
+				results = rankCache.get( index );
+
+				if ( results == null ) {
+					removeReleasedRanks();
+
+					RankReference reference = liveRanks.get( index );
+					results = reference == null ? null : reference.get();
+
+					if ( results == null ) {
+						results = generateRank( index );
+						liveRanks.put( index, new RankReference( results, index, releasedRanks ) );
+					}
+					rankCache.put( index, results );
+				}
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * <p>Forgets the ranks that are no longer used anywhere.
+	 * </p>
+	 */
+	private void removeReleasedRanks() {
+		RankReference reference;
+		while ( (reference = (RankReference) releasedRanks.poll()) != null ) {
+			// Only if it has not already been replaced by a newer rank:
+			if ( liveRanks.get( reference.index ) == reference ) {
+				liveRanks.remove( reference.index );
+			}
+		}
+	}
+
+	private Rank generateRank( int index ) {
+		Rank rank = new Rank();
+
+		rank.id = VirtualLadder.getRankId( ladderId, index );
+		rank.name = virtualLadder.getName( index );
+		rank.tag = "[" + rank.name + "]";
+		rank.cost = virtualLadder.getCost( index );
+		rank.currency = virtualLadder.getCurrency();
+		rank.setVirtual( true );
+
+		return rank;
+	}
+
+	@Override
+	public int getPosition( int index ) {
+		return index;
+	}
+
+	@Override
+	public int indexOfRank( int rankId ) {
+		int results = -1;
+
+		if ( VirtualLadder.isVirtualRankId( rankId ) &&
+				VirtualLadder.getLadderId( rankId ) == ladderId ) {
+			int index = VirtualLadder.getIndex( rankId );
+			results = index < virtualLadder.getRankCount() ? index : -1;
+		}
+
+		return results;
+	}
+
+	@Override
+	public int indexOfPosition( int position ) {
+		return position >= 0 && position < virtualLadder.getRankCount() ? position : -1;
+	}
+
+	/**
+	 * @param name
+	 * @return The index of the rank with the name, or -1 if there is none.
+	 */
+	public int indexOfName( String name ) {
+		return virtualLadder.indexOfName( name );
+	}
+
+	@Override
+	public Rank getLowestRank() {
+		return getRank( 0 );
+	}
+
+	@Override
+	public Rank getHighestRank() {
+		return getRank( virtualLadder.getRankCount() - 1 );
+	}
+
+	@Override
+	public double getCost( int fromIndex, int toIndex ) {
+		double results = 0;
+
+		for ( int i = Math.max( 0, fromIndex + 1 ); i <= toIndex; i++ ) {
+			results += virtualLadder.getCost( i );
+		}
+
+		return results;
+	}
+
+	/**
+	 * <p>All of the ranks use the same currency, so this adds the cost of each rank
+	 * until the balance runs out.
+	 * </p>
+	 */
+	@Override
+	public int getMaxAffordableIndex( int fromIndex, double balance ) {
+		int results = fromIndex;
+		double total = 0;
+
+		for ( int i = fromIndex + 1; i >= 0 && i < virtualLadder.getRankCount(); i++ ) {
+			total += virtualLadder.getCost( i );
+
+			if ( total > balance ) {
+				break;
+			}
+			results = i;
+		}
+
+		return results;
+	}
+
+	public VirtualLadder getVirtualLadder() {
+		return virtualLadder;
+	}
+}
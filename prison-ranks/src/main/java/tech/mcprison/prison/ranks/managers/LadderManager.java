@@ -17,16 +17,19 @@
 
 package tech.mcprison.prison.ranks.managers;
 
+import tech.mcprison.prison.output.Output;
 import tech.mcprison.prison.ranks.PrisonRanks;
 import tech.mcprison.prison.ranks.data.RankLadder;
-import tech.mcprison.prison.ranks.data.RankPlayer;
+import tech.mcprison.prison.ranks.data.RankLadderAdapter;
 import tech.mcprison.prison.store.Collection;
-import tech.mcprison.prison.store.Document;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -43,7 +46,26 @@ public class LadderManager {
     private Collection collection;
     private List<RankLadder> loadedLadders;
     
+    /**
+     * The loaded ladders by their exact name, and by their id, so they can be
+     * found without searching the list.  These are kept in sync with the
+     * loadedLadders list.  The placeholders match the ladder names ignoring
+     * case, so they use the lower case names.
+     */
+    private Map<String, RankLadder> laddersByName;
+    private Map<String, RankLadder> laddersByLowerName;
+    private Map<Integer, RankLadder> laddersById;
+    
+    /**
+     * Incremented every time a ladder is added or removed, or the ranks within a
+     * ladder are changed, so anything that has resolved the ladders, such as
+     * the players' ranks, knows to resolve them again.
+     */
+    private final AtomicInteger generation = new AtomicInteger();
+    
     private PrisonRanks prisonRanks;
+    
+    private RankLadderAdapter ladderAdapter;
 
     /*
      * Constructor
@@ -56,8 +78,12 @@ public class LadderManager {
     public LadderManager(Collection collection, PrisonRanks prisonRanks) {
         this.collection = collection;
         this.loadedLadders = new ArrayList<>();
+        this.laddersByName = new ConcurrentHashMap<>();
+        this.laddersByLowerName = new ConcurrentHashMap<>();
+        this.laddersById = new ConcurrentHashMap<>();
         
         this.prisonRanks = prisonRanks;
+        this.ladderAdapter = new RankLadderAdapter( prisonRanks );
     }
 
     /*
@@ -72,9 +98,8 @@ public class LadderManager {
      * @throws IOException If the file could not be read or does not exist.
      */
     public void loadLadder(String fileKey) throws IOException {
-        Document doc = collection.get(fileKey).orElseThrow(IOException::new);
-        RankLadder ladder = new RankLadder(doc, prisonRanks);
-        loadedLadders.add(ladder);
+        RankLadder ladder = collection.get(fileKey, ladderAdapter).orElseThrow(IOException::new);
+        addLadder(ladder);
         
         // Will be dirty if load a ladder and the rank name does not exist and it adds them:
         if ( ladder.isDirty() ) {
@@ -88,8 +113,8 @@ public class LadderManager {
      * @throws IOException If the folder could not be found, or if a file could not be read or does not exist.
      */
     public void loadLadders() throws IOException {
-        List<Document> documents = collection.getAll();
-        documents.forEach(document -> loadedLadders.add(new RankLadder(document, prisonRanks)));
+        List<RankLadder> ladders = collection.getAll(ladderAdapter);
+        ladders.forEach(this::addLadder);
         
         for ( RankLadder ladder : loadedLadders ) {
         	// Will be dirty if load a ladder and the rank name does not exist and it adds them:
@@ -107,7 +132,7 @@ public class LadderManager {
      * @throws IOException If the ladder could not be serialized, or if the ladder could not be saved to the file.
      */
     public void saveLadder(RankLadder ladder, String fileKey) throws IOException {
-        collection.save(fileKey, ladder.toDocument());
+        collection.save(fileKey, ladder, ladderAdapter);
     }
 
     /**
@@ -141,6 +166,15 @@ public class LadderManager {
      * if the ladder's creation failed.
      */
     public Optional<RankLadder> createLadder(String name) {
+        // A pending migration would remove the players from the new ladder:
+        PlayerMigrationManager migrationManager = prisonRanks.getPlayerMigrationManager();
+        if ( migrationManager != null && migrationManager.isLadderBeingRemoved( name ) ) {
+        	Output.get().logWarn( String.format( "LadderManager: The ladder %s cannot be created " +
+        			"until the players have been removed from the old ladder with that name. " +
+        			"See /ranks migrations.", name ) );
+        	return Optional.empty();
+        }
+        
         // Set the default values...
         RankLadder newLadder = new RankLadder();
         newLadder.id = getNextAvailableId();
@@ -148,12 +182,31 @@ public class LadderManager {
         newLadder.ranks = new ArrayList<>();
 
         // ... add it to the list...
-        loadedLadders.add(newLadder);
+        addLadder(newLadder);
 
         // ...and return it.
         return Optional.of(newLadder);
     }
 
+    /**
+     * Adds the ladder to the loaded ladders, and to the name and id lookups.  If
+     * there are duplicates, then the first ladder wins, the same as searching
+     * the list would.
+     *
+     * @param ladder
+     */
+    private void addLadder(RankLadder ladder) {
+    	loadedLadders.add(ladder);
+    	
+    	if ( ladder.name != null ) {
+    		laddersByName.putIfAbsent(ladder.name, ladder);
+    		laddersByLowerName.putIfAbsent(ladder.name.toLowerCase(), ladder);
+    	}
+    	laddersById.putIfAbsent(ladder.id, ladder);
+    	
+    	nextGeneration();
+    }
+
     /**
      * Returns the next available ID for a new ladder.
      * This works by adding one to the highest current ladder ID.
@@ -184,17 +237,25 @@ public class LadderManager {
      */
     public boolean removeLadder(RankLadder ladder) {
 
-        // Remove the players from the ladder
-        List<RankPlayer> playersWithLadder =
-            PrisonRanks.getInstance().getPlayerManager().getPlayers().stream()
-                .filter(rankPlayer -> rankPlayer.ranks.containsKey(ladder.name))
-                .collect(Collectors.toList());
-        for (RankPlayer player : playersWithLadder) {
-            player.removeLadder(ladder.name);
-        }
+        // Remove the players from the ladder.  The players in memory are removed right 
+        // away, and the player files are updated in the background:
+        PrisonRanks.getInstance().getPlayerMigrationManager().removeLadder( ladder );
 
         // Remove it from the list...
         loadedLadders.remove(ladder);
+        
+        // Rebuild the lookups, in case there was a duplicate that was hidden by this ladder:
+        laddersByName.clear();
+        laddersByLowerName.clear();
+        laddersById.clear();
+        for (RankLadder rankLadder : loadedLadders) {
+        	if ( rankLadder.name != null ) {
+        		laddersByName.putIfAbsent(rankLadder.name, rankLadder);
+        		laddersByLowerName.putIfAbsent(rankLadder.name.toLowerCase(), rankLadder);
+        	}
+        	laddersById.putIfAbsent(rankLadder.id, rankLadder);
+        }
+        nextGeneration();
 
         // ... and remove the ladder's save files.
         collection.delete("ladder_" + ladder.id);
@@ -209,7 +270,17 @@ public class LadderManager {
      * @return An optional containing either the {@link RankLadder} if it could be found, or empty if it does not exist by the specified name.
      */
     public Optional<RankLadder> getLadder(String name) {
-        return loadedLadders.stream().filter(ladder -> ladder.name.equals(name)).findFirst();
+        return name == null ? Optional.empty() : Optional.ofNullable(laddersByName.get(name));
+    }
+
+    /**
+     * Returns the ladder with the specified name, ignoring case.
+     *
+     * @param name The ladder's name, in any case.
+     * @return An optional containing either the {@link RankLadder} if it could be found, or empty if it does not exist by the specified name.
+     */
+    public Optional<RankLadder> getLadderIgnoreCase(String name) {
+        return name == null ? Optional.empty() : Optional.ofNullable(laddersByLowerName.get(name.toLowerCase()));
     }
 
     /**
@@ -219,7 +290,7 @@ public class LadderManager {
      * @return An optional containing either the {@link RankLadder} if it could be found, or empty if it does not exist by the specified id.
      */
     public Optional<RankLadder> getLadder(int id) {
-        return loadedLadders.stream().filter(ladder -> ladder.id == id).findFirst();
+        return Optional.ofNullable(laddersById.get(id));
     }
 
     /**
@@ -244,4 +315,32 @@ public class LadderManager {
             .collect(Collectors.toList());
     }
 
+    /**
+     * @return The current generation of the ladders, which changes whenever the ladders,
+     * or the ranks within them, are changed.
+     */
+    public int getGeneration() {
+    	return generation.get();
+    }
+
+    /**
+     * Marks the ladders as changed, so anything that has resolved them will resolve
+     * them again.
+     */
+    public void nextGeneration() {
+    	generation.incrementAndGet();
+    }
+
+    /**
+     * Discards the compiled index of each ladder that contains the rank, such as
+     * when the rank's cost or currency has been changed.
+     *
+     * @param rankId The ID of the rank that was changed.
+     */
+    public void invalidateLadderIndexes(int rankId) {
+    	for (RankLadder ladder : getLaddersWithRank(rankId)) {
+    		ladder.invalidateIndex();
+    	}
+    }
+
 }
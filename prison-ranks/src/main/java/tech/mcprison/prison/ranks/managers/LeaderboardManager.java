@@ -0,0 +1,242 @@
+package tech.mcprison.prison.ranks.managers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import com.google.common.eventbus.Subscribe;
+
+import tech.mcprison.prison.Prison;
+import tech.mcprison.prison.internal.events.player.PlayerJoinEvent;
+import tech.mcprison.prison.ranks.PrisonRanks;
+import tech.mcprison.prison.ranks.data.Leaderboard;
+import tech.mcprison.prison.ranks.data.Rank;
+import tech.mcprison.prison.ranks.data.RankLadder;
+import tech.mcprison.prison.ranks.data.RankLadderIndex;
+import tech.mcprison.prison.ranks.data.RankPlayer;
+import tech.mcprison.prison.ranks.events.RankUpEvent;
+
+/**
+ * <p>Keeps a leaderboard for every ladder.  The leaderboards are built once
+ * from the loaded players, and then each player is moved as they rankup, so
+ * the top players can be read at any time without loading or sorting all of
+ * the players.
+ * </p>
+ *
+ * <p>When the ladders are changed, only the leaderboards of the ladders whose
+ * ranks have been added, removed or moved are updated, and only for the players
+ * that are already on them.  Changing a rank's cost or tag does not change any
+ * leaderboard.  If the prestiges ladder changes, then every leaderboard is updated,
+ * since they are all sorted by prestige first.
+ * </p>
+ *
+ * <p>The ties are broken by when the players reached their ranks, which is saved
+ * with each player, so the order is the same after a restart.
+ * </p>
+ *
+ * <p>If the players are lazily loaded, then the leaderboards only include the
+ * players that have been loaded since the server started.
+ * </p>
+ *
+ */
+public class LeaderboardManager {
+
+	public static final String PRESTIGES_LADDER = "prestiges";
+
+	/**
+	 * The leaderboards by the lower case ladder name.
+	 */
+	private volatile Map<String, Leaderboard> leaderboards;
+	private volatile int generation = -1;
+
+	public LeaderboardManager() {
+		super();
+
+		this.leaderboards = new HashMap<>();
+
+		Prison.get().getEventBus().register( this );
+	}
+
+	@Subscribe
+	public void onRankUp( RankUpEvent event ) {
+		updatePlayer( event.getPlayer() );
+	}
+
+	/**
+	 * <p>Players that are lazily loaded are added when they join.
+	 * </p>
+	 */
+	@Subscribe
+	public void onPlayerJoin( PlayerJoinEvent event ) {
+		Optional<RankPlayer> rankPlayer = PrisonRanks.getInstance().getPlayerManager()
+					.getPlayer( event.getPlayer().getUUID(), event.getPlayer().getName() );
+
+		if ( rankPlayer.isPresent() ) {
+			updatePlayer( rankPlayer.get() );
+		}
+	}
+
+	/**
+	 * @param ladderName The ladder's name, which is not case sensitive.
+	 * @return The ladder's leaderboard, or null if the ladder does not exist.
+	 */
+	public Leaderboard getLeaderboard( String ladderName ) {
+		return ladderName == null ? null :
+						getLeaderboards().get( ladderName.toLowerCase() );
+	}
+
+	private Map<String, Leaderboard> getLeaderboards() {
+		int currentGeneration = PrisonRanks.getInstance().getLadderManager().getGeneration();
+
+		if ( generation != currentGeneration ) {
+			refresh( currentGeneration );
+		}
+
+		return leaderboards;
+	}
+
+	/**
+	 * <p>Matches the leaderboards to the ladders.  The first time, all of the loaded
+	 * players are added.  After that, the leaderboards are kept, and the players are
+	 * only moved on the leaderboards whose ladder's ranks have changed.  The new map
+	 * replaces the old one all at once, so readers never see a partial map.
+	 * </p>
+	 */
+	private synchronized void refresh( int currentGeneration ) {
+		if ( generation == currentGeneration ) {
+			return;
+		}
+
+		Map<String, Leaderboard> oldLeaderboards = leaderboards;
+		Map<String, Leaderboard> newLeaderboards = new HashMap<>();
+		List<Leaderboard> changed = new ArrayList<>();
+
+		LadderManager ladderManager = PrisonRanks.getInstance().getLadderManager();
+
+		Optional<RankLadder> prestiges = ladderManager.getLadder( PRESTIGES_LADDER );
+		Leaderboard oldPrestiges = oldLeaderboards.get( PRESTIGES_LADDER );
+		boolean prestigesChanged = prestiges.isPresent() ?
+					oldPrestiges == null || !getLayout( prestiges.get() ).equals( oldPrestiges.getLayout() ) :
+					oldPrestiges != null;
+
+		for ( RankLadder ladder : ladderManager.getLadders() ) {
+			Object layout = getLayout( ladder );
+			Leaderboard leaderboard = oldLeaderboards.get( ladder.name.toLowerCase() );
+
+			if ( leaderboard == null ) {
+				leaderboard = new Leaderboard( ladder.name );
+			}
+			else if ( prestigesChanged || !layout.equals( leaderboard.getLayout() ) ) {
+				changed.add( leaderboard );
+			}
+
+			leaderboard.setLayout( layout );
+			newLeaderboards.put( ladder.name.toLowerCase(), leaderboard );
+		}
+
+		this.leaderboards = newLeaderboards;
+
+		PlayerManager playerManager = PrisonRanks.getInstance().getPlayerManager();
+
+		if ( generation == -1 ) {
+			for ( RankPlayer rankPlayer : playerManager.getPlayers() ) {
+				updatePlayer( newLeaderboards.values(), rankPlayer );
+			}
+		}
+		else {
+			for ( Leaderboard leaderboard : changed ) {
+				for ( Leaderboard.Entry entry : leaderboard.getEntries() ) {
+					Optional<RankPlayer> rankPlayer = playerManager.getLoadedPlayer( entry.getPlayerUuid() );
+
+					if ( rankPlayer.isPresent() ) {
+						updatePlayer( Collections.singleton( leaderboard ), rankPlayer.get() );
+					}
+					else {
+						leaderboard.remove( entry.getPlayerUuid() );
+					}
+				}
+			}
+		}
+
+		this.generation = currentGeneration;
+	}
+
+	/**
+	 * @return The ranks of the ladder in order, which only changes when the positions
+	 * 			of the ranks may have changed.  The virtual ranks are always in order,
+	 * 			so only their number matters.
+	 */
+	private Object getLayout( RankLadder ladder ) {
+		Object results;
+
+		if ( ladder.isVirtual() ) {
+			results = ladder.getVirtualLadder().getRankCount();
+		}
+		else {
+			RankLadderIndex index = ladder.getIndex();
+			List<Integer> rankIds = new ArrayList<>();
+
+			for ( int i = 0; i < index.getRankCount(); i++ ) {
+				Rank rank = index.getRank( i );
+				rankIds.add( rank == null ? null : rank.id );
+			}
+			results = rankIds;
+		}
+
+		return results;
+	}
+
+	/**
+	 * <p>Moves the player on all of the leaderboards.
+	 * </p>
+	 *
+	 * @param rankPlayer
+	 */
+	public void updatePlayer( RankPlayer rankPlayer ) {
+		updatePlayer( getLeaderboards().values(), rankPlayer );
+	}
+
+	private void updatePlayer( Collection<Leaderboard> boards, RankPlayer rankPlayer ) {
+		UUID uuid = rankPlayer.uid;
+		String playerName = rankPlayer.getLastName();
+
+		int prestige = getPosition( PRESTIGES_LADDER, rankPlayer.getRank( PRESTIGES_LADDER ) );
+
+		for ( Leaderboard leaderboard : boards ) {
+			String ladderName = leaderboard.getLadderName();
+			Rank rank = rankPlayer.getRank( ladderName );
+
+			if ( rank == null ) {
+				leaderboard.remove( uuid );
+				continue;
+			}
+
+			leaderboard.update( new Leaderboard.Entry( uuid, playerName, rank,
+									prestige, getPosition( ladderName, rank ),
+									rankPlayer.getRankTime( ladderName ) ) );
+		}
+	}
+
+	/**
+	 * @return The position of the rank on the ladder, starting with 1, or 0 if the
+	 * 			player does not have a rank on the ladder.
+	 */
+	private int getPosition( String ladderName, Rank rank ) {
+		int results = 0;
+
+		if ( rank != null ) {
+			Optional<RankLadder> ladder = PrisonRanks.getInstance().getLadderManager().getLadder( ladderName );
+
+			if ( ladder.isPresent() ) {
+				results = ladder.get().getIndex().indexOfRank( rank.id ) + 1;
+			}
+		}
+
+		return results;
+	}
+}
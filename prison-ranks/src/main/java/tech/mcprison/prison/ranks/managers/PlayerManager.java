@@ -18,18 +18,23 @@
 package tech.mcprison.prison.ranks.managers;
 
 import java.io.IOException;
-import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.common.eventbus.Subscribe;
 
 import tech.mcprison.prison.Prison;
 import tech.mcprison.prison.PrisonAPI;
+import tech.mcprison.prison.integration.EconomyBalanceCache;
 import tech.mcprison.prison.integration.EconomyCurrencyIntegration;
 import tech.mcprison.prison.integration.EconomyIntegration;
 import tech.mcprison.prison.integration.IntegrationManager;
@@ -38,18 +43,26 @@ import tech.mcprison.prison.integration.IntegrationManager.PrisonPlaceHolders;
 import tech.mcprison.prison.integration.IntegrationType;
 import tech.mcprison.prison.integration.ManagerPlaceholders;
 import tech.mcprison.prison.integration.PlaceHolderKey;
+import tech.mcprison.prison.integration.PlaceHolderKeyParser;
+import tech.mcprison.prison.integration.PlaceholderValueCache;
 import tech.mcprison.prison.internal.Player;
 import tech.mcprison.prison.internal.events.player.PlayerJoinEvent;
+import tech.mcprison.prison.internal.events.player.PlayerPreLoginEvent;
+import tech.mcprison.prison.internal.events.player.PlayerQuitEvent;
 import tech.mcprison.prison.output.Output;
 import tech.mcprison.prison.ranks.PrisonRanks;
 import tech.mcprison.prison.ranks.RankUtil;
 import tech.mcprison.prison.ranks.RankupResults;
+import tech.mcprison.prison.ranks.data.Leaderboard;
+import tech.mcprison.prison.ranks.data.PlayerMigration;
 import tech.mcprison.prison.ranks.data.Rank;
 import tech.mcprison.prison.ranks.data.RankLadder;
 import tech.mcprison.prison.ranks.data.RankPlayer;
+import tech.mcprison.prison.ranks.data.RankPlayerAdapter;
 import tech.mcprison.prison.ranks.events.FirstJoinEvent;
+import tech.mcprison.prison.ranks.events.RankUpEvent;
 import tech.mcprison.prison.store.Collection;
-import tech.mcprison.prison.store.Document;
+import tech.mcprison.prison.store.WriteBehindQueue;
 import tech.mcprison.prison.util.PlaceholdersUtil;
 
 /**
@@ -62,14 +75,115 @@ public class PlayerManager
 
 
     private Collection collection;
-    private List<RankPlayer> players;
+    
+    /**
+     * <p>The registry of players, keyed by their UUID, along with an index of
+     * the players' current names in lower case.  Every lookup is a single map
+     * access, no matter how many players have ever joined the server.  These
+     * are concurrent since the placeholders may look up players from the 
+     * async chat thread.
+     * </p>
+     */
+    private final Map<UUID, RankPlayer> players;
+    private final Map<String, RankPlayer> playerNames;
+    
+    /**
+     * <p>The number of offline players that are kept in memory when the players
+     * are lazy loaded, such as for the admin commands.
+     * </p>
+     */
+    public static final int OFFLINE_PLAYERS_CACHE_SIZE = 500;
+    
+    /**
+     * <p>How long the player is kept in the registry after they leave the server,
+     * in ticks, when the players are lazy loaded.  This prevents reloading the
+     * player if they quickly rejoin.
+     * </p>
+     */
+    public static final long EVICT_PLAYER_DELAY_TICKS = 20 * 60 * 5;
+    
+    /**
+     * <p>If enabled, only the online players are kept in the registry.  A player
+     * is loaded before they join, and is evicted some time after they leave.  All
+     * other players are loaded on demand through a small LRU cache.
+     * </p>
+     */
+    private final boolean lazyLoad;
+    
+    private final Map<UUID, RankPlayer> offlinePlayers;
+    private final Map<UUID, Integer> evictionTasks;
+    
+    /**
+     * <p>How often the changed players are written, in ticks.  All changes to a
+     * player within this interval are combined in to a single write.
+     * </p>
+     */
+    public static final long SAVE_INTERVAL_TICKS = 20 * 5;
+    
+    /**
+     * <p>How long to wait for the pending player files to be written when the
+     * server shuts down.
+     * </p>
+     */
+    public static final long SHUTDOWN_TIMEOUT_MS = 30000;
+    
+    /**
+     * <p>The players that have changed since they were last written.  The files
+     * are written on a background thread by the writeQueue, so a rankup never
+     * waits on the disk.
+     * </p>
+     */
+    private final Map<UUID, RankPlayer> dirtyPlayers;
+    private final WriteBehindQueue<RankPlayer> writeQueue;
+    
+    /**
+     * <p>Reads and writes the player files directly, without a document for each player.
+     * </p>
+     */
+    private final RankPlayerAdapter playerAdapter;
+    private int saveTaskId = -1;
 
-    private List<PlaceHolderKey> translatedPlaceHolderKeys;
+    /**
+     * <p>Parses the player and ladder placeholders structurally, so there is no
+     * need to generate, and hold on to, a placeholder key for every ladder.
+     * It is built lazily, and read by the async chat and scoreboard threads.
+     * </p>
+     */
+    private volatile PlaceHolderKeyParser placeHolderKeyParser;
+    
+    private PlaceholderValueCache placeholderValueCache;
+    
+    /**
+     * The number of places on each leaderboard that are listed with the placeholders.
+     * Any place may be used.
+     */
+    public static final int LEADERBOARD_PLACEHOLDER_POSITIONS = 10;
     
 
     public PlayerManager(Collection collection) {
         this.collection = collection;
-        this.players = new ArrayList<>();
+        this.players = new ConcurrentHashMap<>();
+        this.playerNames = new ConcurrentHashMap<>();
+        
+        this.lazyLoad = Prison.get().getPlatform().getConfigBooleanFalse( "ranks-lazy-load-players" );
+        this.offlinePlayers = Collections.synchronizedMap( 
+        		new LinkedHashMap<UUID, RankPlayer>( 64, 0.75f, true ) {
+        			private static final long serialVersionUID = 1L;
+        			
+        			@Override
+        			protected boolean removeEldestEntry( Map.Entry<UUID, RankPlayer> eldest ) {
+        				return size() > OFFLINE_PLAYERS_CACHE_SIZE;
+        			}
+        		});
+        this.evictionTasks = new ConcurrentHashMap<>();
+        
+        this.dirtyPlayers = new ConcurrentHashMap<>();
+        this.playerAdapter = new RankPlayerAdapter();
+        this.writeQueue = new WriteBehindQueue<>( collection, "players", playerAdapter );
+        this.saveTaskId = Prison.get().getPlatform().getScheduler().runTaskTimer( 
+        				this::saveDirtyPlayers, SAVE_INTERVAL_TICKS, SAVE_INTERVAL_TICKS );
+        
+        this.placeholderValueCache = new PlaceholderValueCache();
 
         Prison.get().getEventBus().register(this);
     }
@@ -85,22 +199,213 @@ public class PlayerManager
      * @throws IOException If the file could not be read, or if the file does not exist.
      */
     public void loadPlayer(String playerFile) throws IOException {
-        Document document = collection.get(playerFile).orElseThrow(IOException::new);
-        players.add(new RankPlayer(document));
+        RankPlayer rankPlayer = collection.get(playerFile, playerAdapter).orElseThrow(IOException::new);
+        registerPlayer(loadRankPlayer(rankPlayer));
     }
 
     /**
-     * Loads every player in the specified playerFolder.
+     * Loads every player in the specified playerFolder.  If the players are lazy
+     * loaded, then only the players who are online are loaded, which is only the 
+     * case when prison is reloaded.
      *
      * @throws IOException If one of the files could not be read, or if the playerFolder does not exist.
      */
     public void loadPlayers() throws IOException {
-        List<Document> players = collection.getAll();
-        players.forEach(document -> this.players.add(new RankPlayer(document)));
+    	if ( isLazyLoad() ) {
+    		for ( Player player : Prison.get().getPlatform().getOnlinePlayers() ) {
+    			getPlayer( player.getUUID(), player.getName() );
+    		}
+    		return;
+    	}
+    	
+        List<RankPlayer> players = collection.getAll(playerAdapter);
+        players.forEach(rankPlayer -> registerPlayer(loadRankPlayer(rankPlayer)));
+    }
+    
+    /**
+     * <p>Applies any player migrations that have not finished to the player that was
+     * just loaded, so the player never has a rank that has been removed.
+     * </p>
+     */
+    private RankPlayer loadRankPlayer( RankPlayer rankPlayer ) {
+    	PlayerMigrationManager migrationManager = PrisonRanks.getInstance().getPlayerMigrationManager();
+    	if ( migrationManager != null ) {
+    		migrationManager.applyPending( rankPlayer );
+    	}
+    	
+    	return rankPlayer;
+    }
+    
+    /**
+     * <p>Gets the player only if they are already in memory, so this never reads
+     * from storage.
+     * </p>
+     * 
+     * @param uid
+     * @return
+     */
+    public Optional<RankPlayer> getLoadedPlayer( UUID uid ) {
+    	RankPlayer rankPlayer = players.get( uid );
+    	
+    	if ( rankPlayer == null ) {
+    		rankPlayer = offlinePlayers.get( uid );
+    	}
+    	
+    	if ( rankPlayer == null ) {
+    		rankPlayer = dirtyPlayers.get( uid );
+    	}
+    	
+    	return Optional.ofNullable( rankPlayer );
+    }
+    
+    /**
+     * <p>Gets the player without adding them if they don't exist.  If the player 
+     * is not in the registry, then they are loaded from storage and are kept in
+     * a small LRU cache of offline players.  This should be used for looking up
+     * players that may not be online, such as within the admin commands.
+     * </p>
+     * 
+     * @param uid
+     * @return
+     */
+    public Optional<RankPlayer> getOfflinePlayer( UUID uid ) {
+    	RankPlayer rankPlayer = players.get( uid );
+    	
+    	if ( rankPlayer == null ) {
+    		rankPlayer = offlinePlayers.get( uid );
+    	}
+    	
+    	if ( rankPlayer == null ) {
+    		// An evicted player may not have been written yet:
+    		rankPlayer = dirtyPlayers.get( uid );
+    	}
+    	
+    	if ( rankPlayer == null && isLazyLoad() ) {
+    		
+    		// A player migration may be updating the player's file at the same time:
+    		synchronized ( this ) {
+    			rankPlayer = offlinePlayers.get( uid );
+    			
+    			if ( rankPlayer == null ) {
+    				// A copy that has not been written yet is newer than the file, and 
+    				// is used without waiting on the writer:
+    				Optional<RankPlayer> filePlayer = writeQueue.getPending( RankPlayer.filename( uid ) )
+    						.map( RankPlayer::snapshot );
+    				
+    				if ( !filePlayer.isPresent() ) {
+    					filePlayer = collection.get( RankPlayer.filename( uid ), playerAdapter );
+    				}
+    				
+    				if ( filePlayer.isPresent() ) {
+    					rankPlayer = loadRankPlayer( filePlayer.get() );
+    					offlinePlayers.put( uid, rankPlayer );
+    				}
+    			}
+    		}
+    	}
+    	
+    	return Optional.ofNullable( rankPlayer );
+    }
+    
+    /**
+     * <p>Moves the player from the offline players, or from storage, in to the 
+     * registry.  This must be called while synchronized on this manager.
+     * </p>
+     * 
+     * @param uid
+     * @return The player, or null if they do not exist
+     */
+    private RankPlayer loadOnlinePlayer( UUID uid ) {
+    	RankPlayer rankPlayer = players.get( uid );
+    	
+    	if ( rankPlayer == null ) {
+    		rankPlayer = getOfflinePlayer( uid ).orElse( null );
+    		
+    		if ( rankPlayer != null ) {
+    			offlinePlayers.remove( uid );
+    			registerPlayer( rankPlayer );
+    		}
+    	}
+    	
+    	return rankPlayer;
+    }
+    
+    /**
+     * <p>Removes the player from the registry if they are still offline.  They are 
+     * kept within the offline players in case they are looked up again soon.
+     * </p>
+     * 
+     * @param uid
+     */
+    private void evictPlayer( UUID uid ) {
+    	evictionTasks.remove( uid );
+    	
+    	synchronized ( this ) {
+    		RankPlayer rankPlayer = players.get( uid );
+    		
+    		if ( rankPlayer != null && !Prison.get().getPlatform().getPlayer( uid ).isPresent() ) {
+    			removePlayer( rankPlayer );
+    			offlinePlayers.put( uid, rankPlayer );
+    		}
+    	}
+    }
+    
+    private void cancelEviction( UUID uid ) {
+    	Integer taskId = evictionTasks.remove( uid );
+    	if ( taskId != null ) {
+    		Prison.get().getPlatform().getScheduler().cancelTask( taskId );
+    	}
+    }
+    
+    public boolean isLazyLoad() {
+    	return lazyLoad;
     }
 
     /**
-     * Saves a {@link RankPlayer} to disk.
+     * <p>Adds the player to the registry, and indexes their current name.
+     * </p>
+     * 
+     * @param rankPlayer
+     */
+    private void registerPlayer( RankPlayer rankPlayer ) {
+    	RankPlayer replaced = players.put( rankPlayer.uid, rankPlayer );
+    	if ( replaced != null && replaced != rankPlayer ) {
+    		unindexName( replaced );
+    	}
+    	
+    	indexName( rankPlayer );
+    }
+    
+    /**
+     * <p>Removes the player from the registry and the name index.  This does not
+     * remove the player's data file.
+     * </p>
+     * 
+     * @param rankPlayer
+     */
+    public void removePlayer( RankPlayer rankPlayer ) {
+    	if ( players.remove( rankPlayer.uid, rankPlayer ) ) {
+    		unindexName( rankPlayer );
+    		placeholderValueCache.invalidatePlayer( rankPlayer.uid );
+    	}
+    }
+    
+    private void indexName( RankPlayer rankPlayer ) {
+    	String name = rankPlayer.getLastName();
+    	if ( name != null ) {
+    		playerNames.put( name.toLowerCase(), rankPlayer );
+    	}
+    }
+    
+    private void unindexName( RankPlayer rankPlayer ) {
+    	String name = rankPlayer.getLastName();
+    	if ( name != null ) {
+    		playerNames.remove( name.toLowerCase(), rankPlayer );
+    	}
+    }
+
+    /**
+     * Saves a {@link RankPlayer} to disk immediately, on the calling thread.
      *
      * @param player     The {@link RankPlayer} to save.
      * @param playerFile The key to save as.
@@ -108,62 +413,240 @@ public class PlayerManager
      * @see #savePlayer(RankPlayer) To save with the default conventional filename.
      */
     public void savePlayer(RankPlayer player, String playerFile) throws IOException {
-        collection.save(playerFile, player.toDocument());
+        collection.save(playerFile, player, playerAdapter);
 //        collection.insert(playerFile, player.toDocument());
     }
 
+    /**
+     * <p>Marks the player as changed so they will be written on a background 
+     * thread within the next save interval.  Any other changes to the player 
+     * before then will be written with the same save.
+     * </p>
+     * 
+     * @param player
+     * @throws IOException Is no longer thrown since the file is written later.
+     */
     public void savePlayer(RankPlayer player) throws IOException {
-        this.savePlayer(player, player.filename());
+    	queueSave( player );
+    }
+    
+    private void queueSave( RankPlayer player ) {
+    	player.markDirty();
+    	dirtyPlayers.put( player.uid, player );
     }
 
     /**
-     * Saves every player in the registry.  If one player fails to save, it will not
-     * prevent the others from being saved.
+     * Saves every player in the registry.  The players are written on a background
+     * thread, and if one player fails to save, it will not prevent the others from 
+     * being saved.
      *
      * @throws IOException If one of the players could not be saved.
-     * @see #savePlayer(RankPlayer, String)
+     * @see #savePlayer(RankPlayer)
      */
     public void savePlayers() throws IOException {
-        for (RankPlayer player : players) {
-        	
-        	// Catch exceptions if a failed save so other players can be saved:
-            try {
-				savePlayer(player);
-			}
-			catch ( Exception e )
-			{
-				String message = "An error occurred while saving the player files: "  +
-						player.filename();
-				Output.get().logError(message, e);
-			}
+        for (RankPlayer player : players.values()) {
+        	savePlayer(player);
         }
+        saveDirtyPlayers();
+    }
+    
+    /**
+     * <p>Takes a copy of each player who has changed, and queues them to be 
+     * written on the background thread.  The copy is taken on the calling thread,
+     * which is normally the main thread, since that is where the players are 
+     * changed.  Any player files that failed to be written are tried again.
+     * </p>
+     */
+    public void saveDirtyPlayers() {
+    	for ( RankPlayer player : dirtyPlayers.values() ) {
+    		dirtyPlayers.remove( player.uid, player );
+    		
+    		if ( player.clearDirty() ) {
+    			try {
+    				writeQueue.save( player.filename(), player.snapshot() );
+    			}
+    			catch ( Exception e ) {
+    				String message = "An error occurred while saving the player files: "  +
+    						player.filename();
+    				Output.get().logError(message, e);
+    			}
+    		}
+    	}
+    	
+    	writeQueue.retry();
+    }
+    
+    /**
+     * <p>Writes all of the changed players, and waits for them to be written.  This
+     * must be called when prison is disabled so no changes are lost.
+     * </p>
+     */
+    public void shutdown() {
+    	if ( saveTaskId != -1 ) {
+    		Prison.get().getPlatform().getScheduler().cancelTask( saveTaskId );
+    		saveTaskId = -1;
+    	}
+    	
+    	saveDirtyPlayers();
+    	writeQueue.shutdown( SHUTDOWN_TIMEOUT_MS );
+    }
+
+    /**
+     * <p>Applies the migration to all of the players that are in memory, which
+     * includes the offline players that have been loaded.  They are written when
+     * the migration reaches their files.
+     * </p>
+     * 
+     * @param migration
+     * @return The number of players that were changed.
+     */
+    public synchronized int applyMigration( PlayerMigration migration ) {
+    	int count = 0;
+    	
+    	Set<RankPlayer> loaded = new HashSet<>( players.values() );
+    	synchronized ( offlinePlayers ) {
+    		loaded.addAll( offlinePlayers.values() );
+    	}
+    	loaded.addAll( dirtyPlayers.values() );
+    	
+    	for ( RankPlayer rankPlayer : loaded ) {
+    		if ( migration.apply( rankPlayer ) ) {
+    			count++;
+    		}
+    	}
+    	
+    	return count;
+    }
+    
+    /**
+     * <p>Updates one player file for the migration.  If the player is in memory, then
+     * the migration has already been applied, and the player is only queued to be saved
+     * if they have changed.  Otherwise the player's file is read, updated, and written 
+     * without keeping the player in memory.
+     * </p>
+     * 
+     * <p>The file is updated while synchronized, so the player cannot be loaded while 
+     * their file is being updated.  Any pending write of the file is flushed first, 
+     * without holding the lock, since the main thread may be waiting on the lock to 
+     * load a player.  If another write was queued in the mean time, then it is flushed 
+     * again.
+     * </p>
+     * 
+     * @param playerFile
+     * @param migration
+     * @return True if the player was changed.
+     */
+    public boolean migratePlayer( String playerFile, PlayerMigration migration ) {
+    	while ( true ) {
+    		boolean flushed = !writeQueue.isPending( playerFile ) || 
+    							writeQueue.flush( SHUTDOWN_TIMEOUT_MS );
+    		
+    		synchronized ( this ) {
+    			// If the flush failed, then it was logged, and the file is used as it is:
+    			if ( !flushed || !writeQueue.isPending( playerFile ) ) {
+    				return migratePlayerFile( playerFile, migration );
+    			}
+    		}
+    	}
+    }
+    
+    /**
+     * <p>This must be called while synchronized on this manager.
+     * </p>
+     */
+    private boolean migratePlayerFile( String playerFile, PlayerMigration migration ) {
+    	boolean results = false;
+    	
+    	Optional<RankPlayer> loaded = collection.get( playerFile, playerAdapter );
+    	
+    	if ( loaded.isPresent() ) {
+    		RankPlayer filePlayer = loaded.get();
+    		
+    		RankPlayer rankPlayer = players.get( filePlayer.uid );
+    		if ( rankPlayer == null ) {
+    			rankPlayer = offlinePlayers.get( filePlayer.uid );
+    		}
+    		if ( rankPlayer == null ) {
+    			rankPlayer = dirtyPlayers.get( filePlayer.uid );
+    		}
+    		
+    		if ( rankPlayer != null ) {
+    			// The player in memory is the one that is saved, but the file tells
+    			// if the player needed to be changed:
+    			migration.apply( rankPlayer );
+    			results = migration.apply( filePlayer );
+    			
+    			if ( rankPlayer.isDirty() ) {
+    				queueSave( rankPlayer );
+    			}
+    		}
+    		else if ( migration.apply( filePlayer ) ) {
+    			writeQueue.save( playerFile, filePlayer );
+    			results = true;
+    		}
+    	}
+    	
+    	return results;
+    }
+    
+    /**
+     * @return The names of all of the player files, without reading them.
+     */
+    public List<String> getPlayerFiles() {
+    	return collection.getKeys();
     }
 
     /*
      * Getters & Setters
      */
 
+    /**
+     * @return A copy of all of the players in the registry.  If the players are
+     * 		lazy loaded, then this is only the players who are online, or who
+     * 		have recently left.
+     */
     public List<RankPlayer> getPlayers() {
-        return players;
+        return new ArrayList<>( players.values() );
+    }
+    
+    public int getPlayersCount() {
+    	return players.size();
     }
 
     /** 
-     * <p>Get the player, if they don't exist, add them.
+     * <p>Get the player, if they don't exist, add them.  If the players are lazy
+     * loaded and the player is not in the registry, then they are loaded from 
+     * storage.  Players who are online are added to the registry, but offline
+     * players are only kept in the offline players cache.
      * </p>
      * 
      * @param uid
      * @return
      */
     public Optional<RankPlayer> getPlayer(UUID uid, String playerName) {
-    	Optional<RankPlayer> results = players.stream().filter(player -> player.uid.equals(uid)).findFirst();
+    	RankPlayer rankPlayer = players.get( uid );
     	
-    	if ( !results.isPresent() ) {
-    		results = Optional.ofNullable( addPlayer(uid, playerName) );
+    	if ( rankPlayer == null ) {
+    		
+    		// Only one thread may add the player:
+    		synchronized ( this ) {
+    			rankPlayer = players.get( uid );
+    			
+    			if ( rankPlayer == null && isLazyLoad() ) {
+    				rankPlayer = Prison.get().getPlatform().getPlayer( uid ).isPresent() ?
+    								loadOnlinePlayer( uid ) : getOfflinePlayer( uid ).orElse( null );
+    			}
+    			
+    			if ( rankPlayer == null ) {
+    				rankPlayer = addPlayer(uid, playerName);
+    			}
+    		}
     	}
+    	Optional<RankPlayer> results = Optional.ofNullable( rankPlayer );
     	
     	// check to see if the name has changed, if so, then save because the new name was added:
     	if ( playerName != null && playerName.trim().length() > 0 && 
-    				results.get().checkName( playerName ) ) {
+    				updatePlayerName( results.get(), playerName ) ) {
     		try {
 				savePlayer( results.get() );
 			}
@@ -178,6 +661,45 @@ public class PlayerManager
     	return results;
     }
     
+    /**
+     * <p>Gets the player by their current name, ignoring case.  This will not
+     * add the player if they do not exist.  Only the players within the registry
+     * are indexed by name.
+     * </p>
+     * 
+     * @param playerName
+     * @return
+     */
+    public Optional<RankPlayer> getPlayer( String playerName ) {
+    	return Optional.ofNullable( playerName == null ? null : 
+    									playerNames.get( playerName.toLowerCase() ) );
+    }
+    
+    /**
+     * <p>Adds the name to the player if it is not their current name, and moves
+     * the player within the name index from their old name to their new name.
+     * </p>
+     * 
+     * @param rankPlayer
+     * @param playerName
+     * @return True if the name was added
+     */
+    private boolean updatePlayerName( RankPlayer rankPlayer, String playerName ) {
+    	boolean results = false;
+    	
+    	String oldName = rankPlayer.getLastName();
+    	if ( rankPlayer.checkName( playerName ) ) {
+    		if ( oldName != null ) {
+    			playerNames.remove( oldName.toLowerCase(), rankPlayer );
+    		}
+    		indexName( rankPlayer );
+    		
+    		results = true;
+    	}
+    	
+    	return results;
+    }
+    
     
     private RankPlayer addPlayer( UUID uid, String playerName ) {
     	// We need to create a new player data file.
@@ -186,7 +708,7 @@ public class PlayerManager
         newPlayer.ranks = new HashMap<>();
         newPlayer.prestige = new HashMap<>();
 
-        players.add(newPlayer);
+        registerPlayer(newPlayer);
 
         try {
             savePlayer(newPlayer);
@@ -218,30 +740,107 @@ public class PlayerManager
      * Listeners
      */
 
+    /**
+     * <p>Loads the player before they join, when the players are lazy loaded.  
+     * This is on an async thread, so the main thread is not held up by reading
+     * the player's file.
+     * </p>
+     */
+    @Subscribe public void onPlayerPreLogin(PlayerPreLoginEvent event) {
+    	
+    	if ( isLazyLoad() ) {
+    		cancelEviction( event.getUUID() );
+    		
+    		synchronized ( this ) {
+    			loadOnlinePlayer( event.getUUID() );
+    		}
+    	}
+    }
+
     @Subscribe public void onPlayerJoin(PlayerJoinEvent event) {
     	
     	Player player = event.getPlayer();
+    	cancelEviction( player.getUUID() );
     	
         if (!getPlayer(player.getUUID(), player.getName()).isPresent()) {
         	addPlayer( player.getUUID(), player.getName() );
         }
     }
+    
+    /**
+     * <p>A rankup changes most of the player's placeholders, so they are all
+     * removed from the cache.
+     * </p>
+     */
+    @Subscribe public void onRankUp(RankUpEvent event) {
+    	
+    	placeholderValueCache.invalidatePlayer( event.getPlayer().uid );
+    	PrisonAPI.getIntegrationManager().getBalanceCache().invalidate( event.getPlayer().uid );
+    }
+    
+    @Subscribe public void onPlayerQuit(PlayerQuitEvent event) {
+    	
+    	UUID uid = event.getPlayer().getUUID();
+    	placeholderValueCache.invalidatePlayer( uid );
+    	PrisonAPI.getIntegrationManager().getBalanceCache().invalidate( uid );
+    	
+    	if ( isLazyLoad() ) {
+    		cancelEviction( uid );
+    		
+    		int taskId = Prison.get().getPlatform().getScheduler().runTaskLater( 
+    								() -> evictPlayer( uid ), EVICT_PLAYER_DELAY_TICKS );
+    		evictionTasks.put( uid, taskId );
+    	}
+    }
 
     
 
+    /**
+     * <p>Gets the ladder that is named in a placeholder, ignoring case, so the
+     * player's rank on it can be looked up directly, without going through all 
+     * of the player's ladders.
+     * </p>
+     */
+    private RankLadder getPlaceholderLadder( String ladderName ) {
+    	return PrisonRanks.getInstance().getLadderManager().getLadderIgnoreCase( ladderName ).orElse( null );
+    }
+    
+    /**
+     * @return The rank, or null if the ladder does not exist or the player has no rank on it.
+     */
+    private Rank getPlayerLadderRank( RankPlayer rankPlayer, RankLadder ladder ) {
+    	return ladder == null ? null : rankPlayer.getRank( ladder.name );
+    }
+    
+    /**
+     * @return The player's next rank on the named ladder, or null if there is none.
+     */
+    private Rank getPlayerNextRank( RankPlayer rankPlayer, String ladderName ) {
+    	RankLadder ladder = getPlaceholderLadder( ladderName );
+    	Rank rank = getPlayerLadderRank( rankPlayer, ladder );
+    	
+    	return rank == null ? null : ladder.getNextRank( rank );
+    }
+    
+    private String formatAmount( double amount, boolean formatted ) {
+    	return formatted ? PlaceholdersUtil.formattedSize( amount ) : 
+    						PlaceholdersUtil.formatDecimal( amount );
+    }
+
     public String getPlayerRankName( RankPlayer rankPlayer, String ladderName ) {
+    	if ( ladderName != null ) {
+    		Rank rank = getPlayerLadderRank( rankPlayer, getPlaceholderLadder( ladderName ) );
+    		return rank == null ? "" : rank.name;
+    	}
+    	
     	StringBuilder sb = new StringBuilder();
 
 		if ( !rankPlayer.getRanks().isEmpty()) {
-			for (Map.Entry<RankLadder, Rank> entry : rankPlayer.getRanks().entrySet()) {
-				if ( ladderName == null ||
-					 ladderName != null && entry.getKey().name.equalsIgnoreCase( ladderName )) {
-					
-					if ( sb.length() > 0 ) {
-						sb.append(" ");
-					}
-					sb.append(entry.getValue().name);
+			for (Rank rank : rankPlayer.getRanks().values()) {
+				if ( sb.length() > 0 ) {
+					sb.append(" ");
 				}
+				sb.append(rank.name);
 			}
 		}
 
@@ -249,18 +848,16 @@ public class PlayerManager
     }
     
     public String getPlayerRankTag( RankPlayer rankPlayer, String ladderName ) {
+    	if ( ladderName != null ) {
+    		Rank rank = getPlayerLadderRank( rankPlayer, getPlaceholderLadder( ladderName ) );
+    		return rank == null ? "" : String.valueOf( rank.tag );
+    	}
+    	
     	StringBuilder sb = new StringBuilder();
     	
     	if ( !rankPlayer.getRanks().isEmpty()) {
-    		for (Map.Entry<RankLadder, Rank> entry : rankPlayer.getRanks().entrySet()) {
-    			if ( ladderName == null ||
-   					 ladderName != null && entry.getKey().name.equalsIgnoreCase( ladderName )) {
-
-//					if ( sb.length() > 0 ) {
-//  	  				sb.append(" ");
-//    				}
-    				sb.append(entry.getValue().tag);
-    			}
+    		for (Rank rank : rankPlayer.getRanks().values()) {
+    			sb.append(rank.tag);
     		}
     	}
     	
@@ -286,9 +883,9 @@ public class PlayerManager
     		for (Map.Entry<RankLadder, Rank> entry : rankPlayer.getRanks().entrySet()) {
     			
     			RankLadder key = entry.getKey();
-    			if(key.getNext(key.getPositionOfRank(entry.getValue())).isPresent()) {
+    			Rank nextRank = key.getNextRank(entry.getValue());
+    			if(nextRank != null) {
     				
-    				Rank nextRank = key.getNext(key.getPositionOfRank(entry.getValue())).get();
     				results.add( nextRank );
     			}
     		}
@@ -298,67 +895,64 @@ public class PlayerManager
     }
     
     public String getPlayerNextRankCost( RankPlayer rankPlayer, String ladderName, boolean formatted ) {
+    	if ( ladderName != null ) {
+    		Rank nextRank = getPlayerNextRank( rankPlayer, ladderName );
+    		return nextRank == null ? "" : formatAmount( nextRank.cost, formatted );
+    	}
+    	
     	StringBuilder sb = new StringBuilder();
     	
     	if ( !rankPlayer.getRanks().isEmpty()) {
-    		DecimalFormat dFmt = new DecimalFormat("#,##0.00");
     		for (Map.Entry<RankLadder, Rank> entry : rankPlayer.getRanks().entrySet()) {
-    			RankLadder key = entry.getKey();
-    			if ( ladderName == null ||
-      				 ladderName != null && key.name.equalsIgnoreCase( ladderName )) {
-    				
-    				if(key.getNext(key.getPositionOfRank(entry.getValue())).isPresent()) {
-    					if ( sb.length() > 0 ) {
-    						sb.append(", ");
-    					}
-    					
-    					double cost = key.getNext(key.getPositionOfRank(entry.getValue())).get().cost;
-    					if ( formatted ) {
-    						sb.append( PlaceholdersUtil.formattedSize( cost ));
-    					}
-    					else {
-    						sb.append( dFmt.format( cost ));
-    					}
+    			Rank nextRank = entry.getKey().getNextRank(entry.getValue());
+    			if(nextRank != null) {
+    				if ( sb.length() > 0 ) {
+    					sb.append(", ");
     				}
+    				
+    				sb.append( formatAmount( nextRank.cost, formatted ));
     			}
     		}
     	}
     	
     	return sb.toString();
     }
+    
+    private String getNextRankCostPercent( Player prisonPlayer, Rank nextRank ) {
+    	double cost = nextRank.cost;
+    	double balance = getPlayerBalance(prisonPlayer,nextRank);
+    	
+    	double percent = (balance < 0 ? 0 : 
+    		(cost == 0.0d || balance > cost ? 100.0 : 
+    			balance / cost * 100.0 )
+    			);
+    	return PlaceholdersUtil.formatDecimal( percent );
+    }
         
     public String getPlayerNextRankCostPercent( RankPlayer rankPlayer, String ladderName ) {
-    	StringBuilder sb = new StringBuilder();
-    	
         Player prisonPlayer = PrisonAPI.getPlayer(rankPlayer.uid).orElse(null);
         if( prisonPlayer == null ) {
         	Output.get().logError( String.format( "getPlayerNextRankCostPercent: " +
         			"Could not load player: %s", rankPlayer.uid) );
         	return "0";
         }
+        
+    	if ( ladderName != null ) {
+    		Rank nextRank = getPlayerNextRank( rankPlayer, ladderName );
+    		return nextRank == null ? "" : getNextRankCostPercent( prisonPlayer, nextRank );
+    	}
+    	
+    	StringBuilder sb = new StringBuilder();
     	
     	if ( !rankPlayer.getRanks().isEmpty()) {
-    		DecimalFormat dFmt = new DecimalFormat("#,##0.00");
     		for (Map.Entry<RankLadder, Rank> entry : rankPlayer.getRanks().entrySet()) {
-    			RankLadder key = entry.getKey();
-    			if ( ladderName == null ||
-     				 ladderName != null && key.name.equalsIgnoreCase( ladderName )) {
-    				
-    				if(key.getNext(key.getPositionOfRank(entry.getValue())).isPresent()) {
-    					if ( sb.length() > 0 ) {
-    						sb.append(",  ");
-    					}
-    					
-    					Rank rank = key.getNext(key.getPositionOfRank(entry.getValue())).get();
-    					double cost = rank.cost;
-    					double balance = getPlayerBalance(prisonPlayer,rank);
-    					
-    					double percent = (balance < 0 ? 0 : 
-    						(cost == 0.0d || balance > cost ? 100.0 : 
-    							balance / cost * 100.0 )
-    							);
-    					sb.append( dFmt.format( percent ));
+    			Rank nextRank = entry.getKey().getNextRank(entry.getValue());
+    			if(nextRank != null) {
+    				if ( sb.length() > 0 ) {
+    					sb.append(",  ");
     				}
+    				
+    				sb.append( getNextRankCostPercent( prisonPlayer, nextRank ));
     			}
     		}
     	}
@@ -366,9 +960,13 @@ public class PlayerManager
     	return sb.toString();
     }
     
-    public String getPlayerNextRankCostBar( RankPlayer rankPlayer, String ladderName ) {
-    	StringBuilder sb = new StringBuilder();
+    private String getNextRankCostBar( Player prisonPlayer, Rank nextRank ) {
+    	double balance = getPlayerBalance(prisonPlayer,nextRank);
     	
+    	return Prison.get().getIntegrationManager().getProgressBar( balance, nextRank.cost, false );
+    }
+    
+    public String getPlayerNextRankCostBar( RankPlayer rankPlayer, String ladderName ) {
     	Player prisonPlayer = PrisonAPI.getPlayer(rankPlayer.uid).orElse(null);
     	if( prisonPlayer == null ) {
     		Output.get().logError( String.format( "getPlayerNextRankCostBar: " +
@@ -376,28 +974,23 @@ public class PlayerManager
     		return "0";
     	}
     	
+    	if ( ladderName != null ) {
+    		Rank nextRank = getPlayerNextRank( rankPlayer, ladderName );
+    		return nextRank == null ? "" : getNextRankCostBar( prisonPlayer, nextRank );
+    	}
+    	
+    	StringBuilder sb = new StringBuilder();
+    	
     	if ( !rankPlayer.getRanks().isEmpty()) {
     		
-//    		DecimalFormat dFmt = new DecimalFormat("#,##0.00");
     		for (Map.Entry<RankLadder, Rank> entry : rankPlayer.getRanks().entrySet()) {
-    			RankLadder key = entry.getKey();
-    			if ( ladderName == null ||
-    					ladderName != null && key.name.equalsIgnoreCase( ladderName )) {
-    				
-    				if(key.getNext(key.getPositionOfRank(entry.getValue())).isPresent()) {
-    					if ( sb.length() > 0 ) {
-    						sb.append(",  ");
-    					}
-    					
-    					Rank rank = key.getNext(key.getPositionOfRank(entry.getValue())).get();
-    					double cost = rank.cost;
-    					double balance = getPlayerBalance(prisonPlayer,rank);
-    					
-    				   	
-    			    	sb.append( Prison.get().getIntegrationManager().
-    			    					getProgressBar( balance, cost, false ));
-
+    			Rank nextRank = entry.getKey().getNextRank(entry.getValue());
+    			if(nextRank != null) {
+    				if ( sb.length() > 0 ) {
+    					sb.append(",  ");
     				}
+    				
+    				sb.append( getNextRankCostBar( prisonPlayer, nextRank ));
     			}
     		}
     	}
@@ -405,9 +998,17 @@ public class PlayerManager
     	return sb.toString();
     }
     
-    public String getPlayerNextRankCostRemaining( RankPlayer rankPlayer, String ladderName, boolean formatted ) {
-    	StringBuilder sb = new StringBuilder();
+    private String getNextRankCostRemaining( Player prisonPlayer, Rank nextRank, boolean formatted ) {
+    	double remaining = nextRank.cost - getPlayerBalance(prisonPlayer,nextRank);
+    	
+    	if ( remaining < 0 ) {
+    		remaining = 0;
+    	}
     	
+    	return formatAmount( remaining, formatted );
+    }
+    
+    public String getPlayerNextRankCostRemaining( RankPlayer rankPlayer, String ladderName, boolean formatted ) {
     	Player prisonPlayer = PrisonAPI.getPlayer(rankPlayer.uid).orElse(null);
     	if( prisonPlayer == null ) {
     		Output.get().logError( String.format( "getPlayerNextRankCostRemaining: " +
@@ -415,35 +1016,22 @@ public class PlayerManager
     		return "0";
     	}
     	
+    	if ( ladderName != null ) {
+    		Rank nextRank = getPlayerNextRank( rankPlayer, ladderName );
+    		return nextRank == null ? "" : getNextRankCostRemaining( prisonPlayer, nextRank, formatted );
+    	}
+    	
+    	StringBuilder sb = new StringBuilder();
+    	
     	if ( !rankPlayer.getRanks().isEmpty()) {
-    		DecimalFormat dFmt = new DecimalFormat("#,##0.00");
     		for (Map.Entry<RankLadder, Rank> entry : rankPlayer.getRanks().entrySet()) {
-    			RankLadder key = entry.getKey();
-    			if ( ladderName == null ||
-    					ladderName != null && key.name.equalsIgnoreCase( ladderName )) {
-    				
-    				if(key.getNext(key.getPositionOfRank(entry.getValue())).isPresent()) {
-    					if ( sb.length() > 0 ) {
-    						sb.append(",  ");
-    					}
-    					
-    					Rank rank = key.getNext(key.getPositionOfRank(entry.getValue())).get();
-    					double cost = rank.cost;
-    					double balance = getPlayerBalance(prisonPlayer,rank);
-    					
-    					double remaining = cost - balance;
-    					
-    					if ( remaining < 0 ) {
-    						remaining = 0;
-    					}
-    					
-    					if ( formatted ) {
-    						sb.append( PlaceholdersUtil.formattedSize( remaining ));
-    					}
-    					else {
-    						sb.append( dFmt.format( remaining ));
-    					}
+    			Rank nextRank = entry.getKey().getNextRank(entry.getValue());
+    			if(nextRank != null) {
+    				if ( sb.length() > 0 ) {
+    					sb.append(",  ");
     				}
+    				
+    				sb.append( getNextRankCostRemaining( prisonPlayer, nextRank, formatted ));
     			}
     		}
     	}
@@ -452,8 +1040,6 @@ public class PlayerManager
     }
     
     private String getPlayerBalance( RankPlayer rankPlayer, String ladderName, boolean formatted ) {
-    	StringBuilder sb = new StringBuilder();
-    	
     	Player prisonPlayer = PrisonAPI.getPlayer(rankPlayer.uid).orElse(null);
     	if( prisonPlayer == null ) {
     		Output.get().logError( String.format( "getPlayerBalance: " +
@@ -461,28 +1047,23 @@ public class PlayerManager
     		return "0";
     	}
     	
+    	if ( ladderName != null ) {
+    		Rank nextRank = getPlayerNextRank( rankPlayer, ladderName );
+    		return nextRank == null ? "" : 
+    					formatAmount( getPlayerBalance( prisonPlayer, nextRank ), formatted );
+    	}
+    	
+    	StringBuilder sb = new StringBuilder();
+    	
     	if ( !rankPlayer.getRanks().isEmpty()) {
-    		DecimalFormat dFmt = new DecimalFormat("#,##0.00");
     		for (Map.Entry<RankLadder, Rank> entry : rankPlayer.getRanks().entrySet()) {
-    			RankLadder key = entry.getKey();
-    			if ( ladderName == null ||
-    					ladderName != null && key.name.equalsIgnoreCase( ladderName )) {
-    				
-    				if(key.getNext(key.getPositionOfRank(entry.getValue())).isPresent()) {
-    					if ( sb.length() > 0 ) {
-    						sb.append(",  ");
-    					}
-    					
-    					Rank rank = key.getNext(key.getPositionOfRank(entry.getValue())).get();
-    					double balance = getPlayerBalance(prisonPlayer,rank);
-    					
-    					if ( formatted ) {
-    						sb.append( PlaceholdersUtil.formattedSize( balance ));
-    					}
-    					else {
-    						sb.append( dFmt.format( balance ));
-    					}
+    			Rank nextRank = entry.getKey().getNextRank(entry.getValue());
+    			if(nextRank != null) {
+    				if ( sb.length() > 0 ) {
+    					sb.append(",  ");
     				}
+    				
+    				sb.append( formatAmount( getPlayerBalance( prisonPlayer, nextRank ), formatted ));
     			}
     		}
     	}
@@ -490,14 +1071,22 @@ public class PlayerManager
     	return sb.toString();
     }
     
+    /**
+     * <p>The balance is only used for the placeholders, so it is served from the
+     * balance cache.
+     * </p>
+     */
     private double getPlayerBalance(Player player, Rank rank) {
     	double playerBalance = 0;
+    	
+    	EconomyBalanceCache balanceCache = PrisonAPI.getIntegrationManager().getBalanceCache();
         	
     	if ( rank.currency != null ) {
     		EconomyCurrencyIntegration currencyEcon = PrisonAPI.getIntegrationManager()
     						.getEconomyForCurrency( rank.currency );
     		if ( currencyEcon != null ) {
-        		playerBalance = currencyEcon.getBalance( player, rank.currency );
+        		playerBalance = balanceCache.getBalance( player.getUUID(), rank.currency, 
+        						() -> currencyEcon.getBalance( player, rank.currency ) );
     		} else {
     			Output.get().logError( 
     					String.format( "Failed to load Economy to get the balance for " +
@@ -510,7 +1099,8 @@ public class PlayerManager
     		EconomyIntegration economy = PrisonAPI.getIntegrationManager().getEconomy();
 
     		if ( economy != null ) {
-    			playerBalance = economy.getBalance( player );
+    			playerBalance = balanceCache.getBalance( player.getUUID(), null, 
+    							() -> economy.getBalance( player ) );
     		} else {
     			Output.get().logError( 
     					String.format( "Failed to load Economy to get the balance for player %s.",
@@ -522,20 +1112,21 @@ public class PlayerManager
     }
     
     public String getPlayerNextRankName( RankPlayer rankPlayer, String ladderName ) {
+    	if ( ladderName != null ) {
+    		Rank nextRank = getPlayerNextRank( rankPlayer, ladderName );
+    		return nextRank == null ? "" : nextRank.name;
+    	}
+    	
     	StringBuilder sb = new StringBuilder();
     	
     	if ( !rankPlayer.getRanks().isEmpty()) {
     		for (Map.Entry<RankLadder, Rank> entry : rankPlayer.getRanks().entrySet()) {
-    			RankLadder key = entry.getKey();
-    			if ( ladderName == null ||
-       				 ladderName != null && key.name.equalsIgnoreCase( ladderName )) {
-
-    				if(key.getNext(key.getPositionOfRank(entry.getValue())).isPresent()) {
-    					if ( sb.length() > 0 ) {
-    						sb.append(" ");
-    					}
-    					sb.append(key.getNext(key.getPositionOfRank(entry.getValue())).get().name);
+    			Rank nextRank = entry.getKey().getNextRank(entry.getValue());
+    			if(nextRank != null) {
+    				if ( sb.length() > 0 ) {
+    					sb.append(" ");
     				}
+    				sb.append(nextRank.name);
     			}
     		}
     	}
@@ -544,20 +1135,18 @@ public class PlayerManager
     }
     
     public String getPlayerNextRankTag( RankPlayer rankPlayer, String ladderName ) {
+    	if ( ladderName != null ) {
+    		Rank nextRank = getPlayerNextRank( rankPlayer, ladderName );
+    		return nextRank == null ? "" : String.valueOf( nextRank.tag );
+    	}
+    	
     	StringBuilder sb = new StringBuilder();
     	
     	if ( !rankPlayer.getRanks().isEmpty()) {
     		for (Map.Entry<RankLadder, Rank> entry : rankPlayer.getRanks().entrySet()) {
-    			RankLadder key = entry.getKey();
-    			if ( ladderName == null ||
-          			 ladderName != null && key.name.equalsIgnoreCase( ladderName )) {
-
-    				if(key.getNext(key.getPositionOfRank(entry.getValue())).isPresent()) {
-//    					if ( sb.length() > 0 ) {
-//    						sb.append(", ");
-//    					}
-    					sb.append(key.getNext(key.getPositionOfRank(entry.getValue())).get().tag);
-    				}
+    			Rank nextRank = entry.getKey().getNextRank(entry.getValue());
+    			if(nextRank != null) {
+    				sb.append(nextRank.tag);
     			}
     		}
     	}
@@ -568,20 +1157,19 @@ public class PlayerManager
     public String getTranslatePlayerPlaceHolder( UUID playerUuid, String playerName, String identifier ) {
     	String results = null;
 
-    	if ( playerUuid != null ) {
-    		
-    		List<PlaceHolderKey> placeHolderKeys = getTranslatedPlaceHolderKeys();
+    	PlaceHolderKey placeHolderKey = getPlaceHolderKey( identifier );
+    	
+    	if ( placeHolderKey != null && isLeaderboardPlaceHolder( placeHolderKey ) ) {
     		
-    		if ( !identifier.startsWith( IntegrationManager.PRISON_PLACEHOLDER_PREFIX_EXTENDED )) {
-    			identifier = IntegrationManager.PRISON_PLACEHOLDER_PREFIX_EXTENDED + identifier;
-    		}
+    		// The leaderboards are the same for all players:
+    		results = placeholderValueCache.get( null, placeHolderKey, 
+    				PlaceholderValueCache.TTL_DYNAMIC_MS, 
+    				key -> getTranslateLeaderboardPlaceHolder( key ) );
+    	}
+    	else if ( placeHolderKey != null && playerUuid != null ) {
     		
-    		for ( PlaceHolderKey placeHolderKey : placeHolderKeys ) {
-    			if ( placeHolderKey.getKey().equalsIgnoreCase( identifier )) {
-    				results = getTranslatePlayerPlaceHolder( playerUuid, playerName, placeHolderKey );
-    				break;
-    			}
-    		}
+    		results = placeholderValueCache.get( playerUuid, placeHolderKey, 
+    				key -> getTranslatePlayerPlaceHolder( playerUuid, playerName, key ) );
     	}
     	
     	return results;
@@ -590,7 +1178,10 @@ public class PlayerManager
     public String getTranslatePlayerPlaceHolder( UUID playerUuid, String playerName, PlaceHolderKey placeHolderKey ) {
 		String results = null;
 
-		if ( playerUuid != null ) {
+		if ( isLeaderboardPlaceHolder( placeHolderKey ) ) {
+			results = getTranslateLeaderboardPlaceHolder( placeHolderKey );
+		}
+		else if ( playerUuid != null ) {
 			
 			PrisonPlaceHolders placeHolder = placeHolderKey.getPlaceholder();
 			
@@ -687,74 +1278,205 @@ public class PlayerManager
 		return results;
     }
 
+    private boolean isLeaderboardPlaceHolder( PlaceHolderKey placeHolderKey ) {
+    	return placeHolderKey.getPlaceholder().getFlags().contains( PlaceHolderFlags.LEADERBOARD );
+    }
+    
+    /**
+     * <p>The leaderboard placeholders hold both the ladder name and the place on
+     * the leaderboard, such as <code>prison_top_player_name_default_1</code>, so
+     * the data is split on its last underscore.
+     * </p>
+     * 
+     * @param placeHolderKey
+     * @return The player's name, rank, or rank tag at that place, or an empty String 
+     * 			if there are not that many players.
+     */
+    private String getTranslateLeaderboardPlaceHolder( PlaceHolderKey placeHolderKey ) {
+    	String results = "";
+    	
+    	String data = placeHolderKey.getData();
+    	int split = data == null ? -1 : data.lastIndexOf( '_' );
+    	
+    	if ( split > 0 ) {
+    		Leaderboard leaderboard = PrisonRanks.getInstance().getLeaderboardManager()
+    									.getLeaderboard( data.substring( 0, split ) );
+    		int position = parseLeaderboardPosition( data.substring( split + 1 ) );
+    		
+    		Leaderboard.Entry entry = leaderboard == null || position < 1 ? null : 
+    									leaderboard.get( position );
+    		
+    		if ( entry != null ) {
+    			
+    			switch ( placeHolderKey.getPlaceholder() ) {
+    				case prison_tpn_laddername:
+    				case prison_top_player_name_laddername:
+    					results = entry.getPlayerName();
+    					break;
+    					
+    				case prison_tpr_laddername:
+    				case prison_top_player_rank_laddername:
+    					results = entry.getRank().name;
+    					break;
+    					
+    				case prison_tprt_laddername:
+    				case prison_top_player_rank_tag_laddername:
+    					results = entry.getRank().tag;
+    					break;
+    					
+    				default:
+    					break;
+    			}
+    		}
+    	}
+    	
+    	return results == null ? "" : results;
+    }
+    
+    private int parseLeaderboardPosition( String position ) {
+    	int results = -1;
+    	
+    	if ( position.length() > 0 && position.length() < 10 ) {
+    		try {
+    			results = Integer.parseInt( position );
+    		}
+    		catch ( NumberFormatException e ) {
+    			// Not a position
+    		}
+    	}
+    	
+    	return results;
+    }
+    
+    /**
+     * <p>Generates a list of all of the placeholder keys for the players and 
+     * the ladders.  This is generated each time it is called since it is only 
+     * used to list, search, and count the placeholders.  The placeholders are
+     * translated through the placeHolderKeyParser, so this list is never used
+     * to look up a placeholder.
+     * </p>
+     */
     @Override
     public List<PlaceHolderKey> getTranslatedPlaceHolderKeys() {
-    	if ( translatedPlaceHolderKeys == null ) {
-    		translatedPlaceHolderKeys = new ArrayList<>();
-    		
-    		// This generates all of the placeholders for the player ranks:
-    		List<PrisonPlaceHolders> placeHolders = PrisonPlaceHolders.getTypes( PlaceHolderFlags.PLAYER );
+    	List<PlaceHolderKey> translatedPlaceHolderKeys = new ArrayList<>();
+    	
+    	// This generates all of the placeholders for the player ranks:
+    	List<PrisonPlaceHolders> placeHolders = PrisonPlaceHolders.getTypes( PlaceHolderFlags.PLAYER );
+    	for ( PrisonPlaceHolders ph : placeHolders ) {
+    		translatedPlaceHolderKeys.add( PlaceHolderKeyParser.getPlaceHolderKey( ph, null, null ) );
+    	}
+    	
+    	
+    	// This generates all of the placeholders for the ladders:
+    	List<PrisonPlaceHolders> ladderPlaceHolders = PrisonPlaceHolders.getTypes( PlaceHolderFlags.LADDERS );
+    	placeHolders = PrisonPlaceHolders.excludeTypes( ladderPlaceHolders, PlaceHolderFlags.LEADERBOARD );
+    	
+    	List<RankLadder> ladders = PrisonRanks.getInstance().getLadderManager().getLadders();
+    	for ( RankLadder ladder : ladders ) {
     		for ( PrisonPlaceHolders ph : placeHolders ) {
-    			PlaceHolderKey placeholder = new PlaceHolderKey(ph.name(), ph );
-    			if ( ph.getAlias() != null ) {
-    				String aliasName = ph.getAlias().name();
-    				placeholder.setAliasName( aliasName );
-    			}
-    			
-    			translatedPlaceHolderKeys.add( placeholder );
-    			
-    			// Getting too many placeholders... add back the extended prefix when looking up:
-    			
-//    			// Now generate a new key based upon the first key, but without the prison_ prefix:
-//    			String key2 = ph.name().replace( 
-//    					IntegrationManager.PRISON_PLACEHOLDER_PREFIX_EXTENDED, "" );
-//    			PlaceHolderKey placeholder2 = new PlaceHolderKey(key2, ph, false );
-//    			translatedPlaceHolderKeys.add( placeholder2 );
+    			translatedPlaceHolderKeys.add( getLadderPlaceHolderKey( ph, ladder.name ) );
     		}
-    		
-    		
-    		// This generates all of the placeholders for the ladders:
-    		placeHolders = PrisonPlaceHolders.getTypes( PlaceHolderFlags.LADDERS );
-    		
-    		List<RankLadder> ladders = PrisonRanks.getInstance().getLadderManager().getLadders();
-    		for ( RankLadder ladder : ladders ) {
-    			for ( PrisonPlaceHolders ph : placeHolders ) {
-    				String key = ph.name().replace( 
-    						IntegrationManager.PRISON_PLACEHOLDER_LADDERNAME_SUFFIX, "_" + ladder.name ).
-    							toLowerCase();
-    				
-    				PlaceHolderKey placeholder = new PlaceHolderKey(key, ph, ladder.name );
-    				if ( ph.getAlias() != null ) {
-    					String aliasName = ph.getAlias().name().replace( 
-    							IntegrationManager.PRISON_PLACEHOLDER_LADDERNAME_SUFFIX, "_" + ladder.name ).
-    								toLowerCase();
-    					placeholder.setAliasName( aliasName );
+    	}
+    	
+    	// This generates the top places of the leaderboards for each ladder:
+    	for ( RankLadder ladder : ladders ) {
+    		for ( PrisonPlaceHolders ph : ladderPlaceHolders ) {
+    			if ( ph.getFlags().contains( PlaceHolderFlags.LEADERBOARD ) ) {
+    				for ( int position = 1; position <= LEADERBOARD_PLACEHOLDER_POSITIONS; position++ ) {
+    					translatedPlaceHolderKeys.add( 
+    							getLadderPlaceHolderKey( ph, ladder.name + "_" + position ) );
     				}
-    				translatedPlaceHolderKeys.add( placeholder );
-    				
-    				// Getting too many placeholders... add back the extended prefix when looking up:
-
-//    				// Now generate a new key based upon the first key, but without the prison_ prefix:
-//    				String key2 = key.replace( 
-//    						IntegrationManager.PRISON_PLACEHOLDER_PREFIX_EXTENDED, "" );
-//    				PlaceHolderKey placeholder2 = new PlaceHolderKey(key2, ph, ladder.name, false );
-//    				translatedPlaceHolderKeys.add( placeholder2 );
-    				
     			}
-    			
     		}
     	}
     	
     	return translatedPlaceHolderKeys;
     }
     
+    private PlaceHolderKey getLadderPlaceHolderKey( PrisonPlaceHolders ph, String data ) {
+    	return PlaceHolderKeyParser.getPlaceHolderKey( ph, 
+    			IntegrationManager.PRISON_PLACEHOLDER_LADDERNAME_SUFFIX, data );
+    }
+    
+    /**
+     * <p>The parser only holds the placeholder types, so it does not need to be 
+     * rebuilt when ladders are added or removed.
+     * </p>
+     */
+    public PlaceHolderKeyParser getPlaceHolderKeyParser() {
+    	PlaceHolderKeyParser parser = placeHolderKeyParser;
+    	
+    	if ( parser == null ) {
+    		parser = new PlaceHolderKeyParser();
+    		
+    		parser.add( PrisonPlaceHolders.getTypes( PlaceHolderFlags.PLAYER ), null );
+    		parser.add( PrisonPlaceHolders.getTypes( PlaceHolderFlags.LADDERS ), 
+    				IntegrationManager.PRISON_PLACEHOLDER_LADDERNAME_SUFFIX );
+    		
+    		this.placeHolderKeyParser = parser;
+    	}
+    	return parser;
+    }
+    
+    /**
+     * <p>Finds the PlaceHolderKey for the given identifier by parsing it.  The ladder 
+     * name, if the placeholder has one, must be an existing ladder.  The prison prefix 
+     * is added if it is missing.
+     * </p>
+     * 
+     * @param identifier
+     * @return the PlaceHolderKey, or null if there is no match
+     */
+    public PlaceHolderKey getPlaceHolderKey( String identifier ) {
+    	PlaceHolderKey results = getPlaceHolderKeyParser().parse( identifier, 
+    						name -> isLadderName( name ) || isLeaderboardName( name ) );
+    	
+    	// The leaderboards must have a place, and all others must only be a ladder name:
+    	if ( results != null && results.getData() != null && 
+    			isLeaderboardPlaceHolder( results ) != isLeaderboardName( results.getData() ) ) {
+    		results = null;
+    	}
+    	
+    	return results;
+    }
+    
+    /**
+     * @return True if the name is a ladder name followed by a place on its 
+     * 			leaderboard, such as <code>default_1</code>.
+     */
+    private boolean isLeaderboardName( String name ) {
+    	int split = name.lastIndexOf( '_' );
+    	
+    	return split > 0 && parseLeaderboardPosition( name.substring( split + 1 ) ) > 0 &&
+    			isLadderName( name.substring( 0, split ) );
+    }
+    
+    /**
+     * <p>Removes the cached rank placeholders for all players, such as when a rank's
+     * cost or tag has been changed.  The other placeholders expire on their own
+     * within a second.
+     * </p>
+     */
+    public void invalidatePlaceholderCache() {
+    	placeholderValueCache.invalidate( PlaceholderValueCache::isStatic );
+    }
+    
+    public void invalidatePlayerPlaceholderCache( UUID playerUuid ) {
+    	placeholderValueCache.invalidatePlayer( playerUuid );
+    }
+    
+    private boolean isLadderName( String name ) {
+    	return PrisonRanks.getInstance().getLadderManager().getLadderIgnoreCase( name ).isPresent();
+    }
+    
     @Override
     public void reloadPlaceholders() {
     	
-    	// clear the class variable so they will regenerate:
-    	translatedPlaceHolderKeys = null;
+    	// clear the parser so it will regenerate:
+    	placeHolderKeyParser = null;
+    	
+    	placeholderValueCache.invalidateAll();
     	
-    	// Regenerate the translated placeholders:
-    	getTranslatedPlaceHolderKeys();
+    	getPlaceHolderKeyParser();
     }
 }
@@ -0,0 +1,447 @@
+package tech.mcprison.prison.ranks.managers;
+
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import tech.mcprison.prison.Prison;
+import tech.mcprison.prison.output.Output;
+import tech.mcprison.prison.ranks.PrisonRanks;
+import tech.mcprison.prison.ranks.RankUtil;
+import tech.mcprison.prison.ranks.data.PlayerMigration;
+import tech.mcprison.prison.ranks.data.Rank;
+import tech.mcprison.prison.ranks.data.RankLadder;
+import tech.mcprison.prison.ranks.data.RankLadderIndex;
+import tech.mcprison.prison.ranks.data.RankPlayer;
+import tech.mcprison.prison.ranks.data.VirtualLadder;
+import tech.mcprison.prison.store.Collection;
+import tech.mcprison.prison.store.Document;
+
+/**
+ * <p>Runs the {@link PlayerMigration}s, which update every player after a rank or a
+ * ladder has been removed.  When a migration is added, it is applied right away to
+ * all of the players that are in memory, so the change is seen immediately.  The
+ * player files are then updated on a background thread, a few players at a time,
+ * so even a very large number of players never stalls the server.
+ * </p>
+ *
+ * <p>The migrations, and how far they have gotten, are saved after each batch, so
+ * any that were not finished are resumed when the server is started again.  Until
+ * a migration has finished, it is also applied to each player as they are loaded,
+ * so lazily loaded players are always up to date.
+ * </p>
+ *
+ */
+public class PlayerMigrationManager {
+
+	public static final int DEFAULT_PLAYERS_PER_BATCH = 50;
+
+	/**
+	 * How often, in ticks, a batch of players is updated.
+	 */
+	public static final long BATCH_INTERVAL_TICKS = 1;
+
+	private static final String PLAYER_FILE_PREFIX = "player_";
+	private static final String MIGRATION_FILE_PREFIX = "migration_";
+
+	/**
+	 * The document, within the migrations, that holds the last migration id and the
+	 * highest rank id that has been removed, so neither id is ever used again.
+	 */
+	public static final String IDS_FILE = "ids";
+
+	private final Collection collection;
+	private final int playersPerBatch;
+
+	/**
+	 * The migrations that have not finished, in the order they were added.
+	 */
+	private final List<PlayerMigration> migrations;
+
+	/**
+	 * The player files for the migration that is running, in order.  This is
+	 * rebuilt when each migration starts, or resumes.
+	 */
+	private List<String> playerFiles;
+	private int playerFilesIndex;
+
+	private long lastMigrationId = 0;
+
+	/**
+	 * The pending migrations refer to the removed ranks by their ids, so a new rank
+	 * must never be given the id of a removed rank.
+	 */
+	private int highestRemovedRankId = -1;
+
+	private int taskId = -1;
+	private boolean shutdown = false;
+
+	public PlayerMigrationManager( Collection collection, int playersPerBatch ) {
+		super();
+
+		this.collection = collection;
+		this.playersPerBatch = Math.max( 1, playersPerBatch );
+
+		this.migrations = new CopyOnWriteArrayList<>();
+	}
+
+	/**
+	 * <p>Loads the migrations that did not finish before the server was stopped.
+	 * They must be loaded before the players, so they are applied to the players
+	 * as they are loaded.
+	 * </p>
+	 */
+	public void loadMigrations() {
+		List<PlayerMigration> loaded = new ArrayList<>();
+
+		for ( String key : collection.getKeys() ) {
+			try {
+				if ( IDS_FILE.equals( key ) ) {
+					collection.get( key ).ifPresent( this::loadIds );
+				}
+				else if ( key.startsWith( MIGRATION_FILE_PREFIX ) ) {
+					Optional<Document> document = collection.get( key );
+					if ( document.isPresent() ) {
+						PlayerMigration migration = new PlayerMigration( document.get() );
+						loaded.add( migration );
+						lastMigrationId = Math.max( lastMigrationId, migration.getId() );
+					}
+				}
+			}
+			catch ( Exception e ) {
+				Output.get().logError( "PlayerMigrationManager: Failed to load a player " +
+						"migration. " + e.getMessage() );
+			}
+		}
+
+		Collections.sort( loaded, ( a, b ) -> Long.compare( a.getId(), b.getId() ) );
+		migrations.addAll( loaded );
+
+		for ( PlayerMigration migration : loaded ) {
+			Output.get().logInfo( "PlayerMigrationManager: Resuming the player migration: %s  " +
+					"[%d players so far]", migration.toString(), migration.getProcessed() );
+		}
+	}
+
+	/**
+	 * <p>Starts updating the player files for any migrations that were loaded.
+	 * This must be called after the players have been loaded.
+	 * </p>
+	 */
+	public void start() {
+		scheduleBatches();
+	}
+
+	/**
+	 * <p>Moves all of the players with the rank on the ladder down to the rank below it,
+	 * or if it is the lowest rank, up to the rank above it.  This must be called before
+	 * the rank is removed from the ladder.
+	 * </p>
+	 *
+	 * @param ladder
+	 * @param rank
+	 */
+	public void removeRankFromLadder( RankLadder ladder, Rank rank ) {
+		RankLadderIndex index = ladder.getIndex();
+		int i = index.indexOfRank( rank.id );
+
+		if ( i >= 0 ) {
+			Rank newRank = i > 0 ? index.getRank( i - 1 ) : index.getRank( i + 1 );
+
+			submit( PlayerMigration.moveRank( ladder.name, rank.id,
+							newRank == null ? PlayerMigration.NO_RANK : newRank.id ) );
+		}
+	}
+
+	public void removeLadder( RankLadder ladder ) {
+		submit( PlayerMigration.removeLadder( ladder.name ) );
+	}
+
+	/**
+	 * <p>Moves the players whose ranks are no longer on the virtual ladder, since it
+	 * now has fewer ranks, to its new highest rank.
+	 * </p>
+	 *
+	 * @param ladder
+	 * @param oldRankCount The number of ranks the ladder had before.
+	 * @param newRankCount
+	 */
+	public void shortenLadder( RankLadder ladder, int oldRankCount, int newRankCount ) {
+		if ( newRankCount < oldRankCount ) {
+			submit( PlayerMigration.shortenLadder( ladder.name,
+							VirtualLadder.getRankId( ladder.id, newRankCount ),
+							VirtualLadder.getRankId( ladder.id, newRankCount - 1 ) ) );
+		}
+	}
+
+	/**
+	 * <p>Applies the migration to the players in memory, and saves it so the
+	 * player files are updated in the background.
+	 * </p>
+	 *
+	 * @param migration
+	 */
+	public void submit( PlayerMigration migration ) {
+		synchronized ( migrations ) {
+			migration.setId( ++lastMigrationId );
+		}
+		saveIds();
+
+		int count = PrisonRanks.getInstance().getPlayerManager().applyMigration( migration );
+
+		migrations.add( migration );
+		saveMigration( migration );
+
+		Output.get().logInfo( "PlayerMigrationManager: %s: %d players in memory were updated. " +
+				"The player files will be updated in the background.",
+				migration.toString(), count );
+
+		scheduleBatches();
+	}
+
+	/**
+	 * <p>Applies all of the migrations that have not finished to the player, in the
+	 * order they were added.  This is used when a player is loaded.
+	 * </p>
+	 *
+	 * @param rankPlayer
+	 * @return True if the player was changed.
+	 */
+	public boolean applyPending( RankPlayer rankPlayer ) {
+		boolean results = false;
+
+		for ( PlayerMigration migration : migrations ) {
+			results = migration.apply( rankPlayer ) || results;
+		}
+
+		return results;
+	}
+
+	private synchronized void scheduleBatches() {
+		if ( taskId == -1 && !shutdown && !migrations.isEmpty() ) {
+			taskId = Prison.get().getPlatform().getScheduler().runTaskTimerAsync(
+							this::runBatch, BATCH_INTERVAL_TICKS, BATCH_INTERVAL_TICKS );
+		}
+	}
+
+	/**
+	 * <p>Updates the next batch of player files for the oldest migration.  This runs
+	 * on a background thread, and is synchronized so a batch that takes longer than
+	 * the interval is never ran twice at the same time.
+	 * </p>
+	 */
+	private synchronized void runBatch() {
+		if ( shutdown ) {
+			return;
+		}
+
+		if ( migrations.isEmpty() ) {
+			Prison.get().getPlatform().getScheduler().cancelTask( taskId );
+			taskId = -1;
+			return;
+		}
+
+		PlayerMigration migration = migrations.get( 0 );
+
+		try {
+			if ( playerFiles == null ) {
+				startMigration( migration );
+			}
+
+			PlayerManager playerManager = PrisonRanks.getInstance().getPlayerManager();
+
+			int count = 0;
+			while ( count++ < playersPerBatch && playerFilesIndex < playerFiles.size() ) {
+				String playerFile = playerFiles.get( playerFilesIndex++ );
+
+				boolean changed = playerManager.migratePlayer( playerFile, migration );
+				migration.progress( playerFile, changed );
+			}
+
+			if ( playerFilesIndex < playerFiles.size() ) {
+				saveMigration( migration );
+				logProgress( migration );
+			}
+			else {
+				finishMigration( migration );
+			}
+		}
+		catch ( Exception e ) {
+			Output.get().logError( "PlayerMigrationManager: The player migration failed, and " +
+					"will be retried: " + migration.toString(), e );
+
+			// Start from the last saved player file:
+			saveMigration( migration );
+			playerFiles = null;
+		}
+	}
+
+	/**
+	 * <p>Lists the player files that have not been updated yet.  If the migration is
+	 * being resumed, then the files up to, and including, the cursor are skipped.
+	 * </p>
+	 */
+	private void startMigration( PlayerMigration migration ) {
+		List<String> files = new ArrayList<>();
+
+		for ( String key : PrisonRanks.getInstance().getPlayerManager().getPlayerFiles() ) {
+			if ( key.startsWith( PLAYER_FILE_PREFIX ) &&
+					(migration.getCursor() == null || key.compareTo( migration.getCursor() ) > 0) ) {
+				files.add( key );
+			}
+		}
+		Collections.sort( files );
+
+		this.playerFiles = files;
+		this.playerFilesIndex = 0;
+	}
+
+	private void finishMigration( PlayerMigration migration ) {
+		migrations.remove( migration );
+		collection.delete( migration.filename() );
+
+		this.playerFiles = null;
+
+		Output.get().logInfo( "PlayerMigrationManager: Finished: %s  %d player files " +
+				"were checked and %d were updated.",
+				migration.toString(), migration.getProcessed(), migration.getChanged() );
+	}
+
+	/**
+	 * <p>Records that the rank has been removed, so its id is never given to a
+	 * new rank.
+	 * </p>
+	 *
+	 * @param rankId
+	 */
+	public void rankRemoved( int rankId ) {
+		synchronized ( migrations ) {
+			if ( rankId <= highestRemovedRankId ) {
+				return;
+			}
+			highestRemovedRankId = rankId;
+		}
+		saveIds();
+	}
+
+	public int getHighestRemovedRankId() {
+		return highestRemovedRankId;
+	}
+
+	/**
+	 * @param ladderName
+	 * @return True if the ladder is still being removed from the player files.  A new
+	 * 			ladder with the same name would lose its players to that migration.
+	 */
+	public boolean isLadderBeingRemoved( String ladderName ) {
+		boolean results = false;
+
+		for ( PlayerMigration migration : migrations ) {
+			if ( migration.getType() == PlayerMigration.MigrationType.REMOVE_LADDER &&
+					migration.getLadderName().equals( ladderName ) ) {
+				results = true;
+				break;
+			}
+		}
+
+		return results;
+	}
+
+	private void loadIds( Document document ) {
+		Object lastId = document.get( "lastMigrationId" );
+		if ( lastId != null ) {
+			lastMigrationId = Math.max( lastMigrationId, RankUtil.doubleToLong( lastId ) );
+		}
+
+		Object rankId = document.get( "highestRemovedRankId" );
+		if ( rankId != null ) {
+			highestRemovedRankId = Math.max( highestRemovedRankId, RankUtil.doubleToInt( rankId ) );
+		}
+	}
+
+	private void saveIds() {
+		Document document = new Document();
+
+		synchronized ( migrations ) {
+			document.put( "lastMigrationId", (double) lastMigrationId );
+			document.put( "highestRemovedRankId", (double) highestRemovedRankId );
+		}
+
+		try {
+			collection.save( IDS_FILE, document );
+		}
+		catch ( Exception e ) {
+			Output.get().logError( "PlayerMigrationManager: Failed to save the migration ids.", e );
+		}
+	}
+
+	private void saveMigration( PlayerMigration migration ) {
+		try {
+			collection.save( migration.filename(), migration.toDocument() );
+		}
+		catch ( Exception e ) {
+			Output.get().logError( "PlayerMigrationManager: Failed to save the player " +
+					"migration: " + migration.toString(), e );
+		}
+	}
+
+	/**
+	 * <p>Logs the progress about every 10 percent.
+	 * </p>
+	 */
+	private void logProgress( PlayerMigration migration ) {
+		int total = playerFiles.size();
+		int step = Math.max( playersPerBatch, total / 10 );
+
+		if ( playerFilesIndex / step != (playerFilesIndex - playersPerBatch) / step ) {
+			Output.get().logInfo( "PlayerMigrationManager: %s: %s", migration.toString(),
+					getProgress( migration ) );
+		}
+	}
+
+	/**
+	 * @return The progress of the migration, or an empty String if it has not started.
+	 */
+	public synchronized String getProgress( PlayerMigration migration ) {
+		String results = "";
+
+		if ( playerFiles != null && !migrations.isEmpty() && migrations.get( 0 ) == migration ) {
+			DecimalFormat pFmt = new DecimalFormat( "#,##0.0" );
+			int total = playerFiles.size();
+
+			results = String.format( "%d of %d players (%s%%)", playerFilesIndex, total,
+					pFmt.format( total == 0 ? 100d : playerFilesIndex * 100d / total ) );
+		}
+
+		return results;
+	}
+
+	/**
+	 * @return A copy of the migrations that have not finished.
+	 */
+	public List<PlayerMigration> getMigrations() {
+		return new ArrayList<>( migrations );
+	}
+
+	/**
+	 * <p>Stops updating the player files, and waits for the current batch to
+	 * finish.  The progress is saved, so the migrations will be resumed when
+	 * the server is started again.
+	 * </p>
+	 */
+	public synchronized void shutdown() {
+		shutdown = true;
+
+		if ( taskId != -1 ) {
+			Prison.get().getPlatform().getScheduler().cancelTask( taskId );
+			taskId = -1;
+		}
+
+		for ( PlayerMigration migration : migrations ) {
+			saveMigration( migration );
+		}
+	}
+}
@@ -35,11 +35,14 @@ import tech.mcprison.prison.ranks.commands.LadderCommands;
 import tech.mcprison.prison.ranks.commands.RankUpCommand;
 import tech.mcprison.prison.ranks.commands.RanksCommands;
 import tech.mcprison.prison.ranks.data.Rank;
+import tech.mcprison.prison.ranks.data.RankAdapter;
 import tech.mcprison.prison.ranks.data.RankLadder;
 import tech.mcprison.prison.ranks.data.RankLadder.PositionRank;
+import tech.mcprison.prison.ranks.data.RankLadderIndex;
 import tech.mcprison.prison.ranks.data.RankPlayer;
+import tech.mcprison.prison.ranks.data.VirtualLadder;
+import tech.mcprison.prison.ranks.data.VirtualRankLadderIndex;
 import tech.mcprison.prison.store.Collection;
-import tech.mcprison.prison.store.Document;
 
 /**
  * Manages the creation, removal, and management of ranks.
@@ -53,6 +56,7 @@ public class RankManager {
      */
 
     private Collection collection;
+    private RankAdapter rankAdapter;
     
     private List<Rank> loadedRanks;
     private TreeMap<String, Rank> ranksByName;
@@ -73,6 +77,7 @@ public class RankManager {
      */
     public RankManager(Collection collection) {
         this.collection = collection;
+        this.rankAdapter = new RankAdapter();
         
         this.loadedRanks = new ArrayList<>();
         this.ranksByName = new TreeMap<>();
@@ -110,9 +115,9 @@ public class RankManager {
      * @throws IOException If the file could not be read or does not exist.
      */
     public void loadRank(String rankFile) throws IOException {
-        Document document = collection.get(rankFile).orElseThrow(IOException::new);
+        Rank rank = collection.get(rankFile, rankAdapter).orElseThrow(IOException::new);
         
-        addRank( new Rank(document) );
+        addRank( rank );
 //        loadedRanks.add(new Rank(document));
     }
 
@@ -123,8 +128,8 @@ public class RankManager {
      * @throws IOException If the folder could not be found, or if a file could not be read or does not exist.
      */
     public void loadRanks() throws IOException {
-        List<Document> ranks = collection.getAll();
-        ranks.forEach(document -> addRank(new Rank(document)));
+        List<Rank> ranks = collection.getAll(rankAdapter);
+        ranks.forEach(this::addRank);
 //        ranks.forEach(document -> loadedRanks.add(new Rank(document)));
     }
 
@@ -135,7 +140,14 @@ public class RankManager {
      * @param saveFile The key to write the rank as. Case sensitive.
      */
     public void saveRank(Rank rank, String saveFile) {
-        collection.save(saveFile, rank.toDocument());
+        collection.save(saveFile, rank, rankAdapter);
+        
+        // The rank is saved after every edit, such as a new cost or tag, so the
+        // cached rank placeholders may be out of date:
+        PlayerManager playerManager = PrisonRanks.getInstance().getPlayerManager();
+        if ( playerManager != null ) {
+        	playerManager.invalidatePlaceholderCache();
+        }
     }
 
     /**
@@ -189,7 +201,8 @@ public class RankManager {
 
     /**
      * Returns the next available ID for a new rank.
-     * This works by adding one to the highest current rank ID.
+     * This works by adding one to the highest current rank ID, or the highest
+     * removed rank ID if that is higher.
      *
      * @return The next available rank's ID.
      */
@@ -198,6 +211,13 @@ public class RankManager {
     	int current = (getRanksById().size() == 0 ?
     				-1 : getRanksById().lastKey().intValue());
     	
+    	// The id of a removed rank is never used again, since the player migrations 
+    	// that have not finished may still refer to it:
+    	PlayerMigrationManager migrationManager = PrisonRanks.getInstance().getPlayerMigrationManager();
+    	if ( migrationManager != null ) {
+    		current = Math.max( current, migrationManager.getHighestRemovedRankId() );
+    	}
+    	
     	return current + 1;
     	
 //        // Set the highest to -1 for now, since we'll add one at the end
@@ -236,7 +256,38 @@ public class RankManager {
      * @return
      */
     public Rank getRank(String name) {
-    	return getRanksByName().get( name );
+    	Rank results = getRanksByName().get( name );
+    	
+    	if ( results == null && name != null ) {
+    		results = getVirtualRank( name );
+    	}
+    	
+    	return results;
+    }
+    
+    /**
+     * <p>Searches the virtual ladders for a rank with the name.  The stored ranks
+     * are always found first.
+     * </p>
+     */
+    private Rank getVirtualRank( String name ) {
+    	Rank results = null;
+    	
+    	LadderManager ladderManager = PrisonRanks.getInstance().getLadderManager();
+    	if ( ladderManager != null ) {
+    		for ( RankLadder ladder : ladderManager.getLadders() ) {
+    			if ( ladder.isVirtual() ) {
+    				VirtualRankLadderIndex index = (VirtualRankLadderIndex) ladder.getIndex();
+    				
+    				results = index.getRank( index.indexOfName( name ) );
+    				if ( results != null ) {
+    					break;
+    				}
+    			}
+    		}
+    	}
+    	
+    	return results;
     }
     
     
@@ -259,32 +310,16 @@ public class RankManager {
      * @return true if the rank was removed successfully, false otherwise.
      */
     public boolean removeRank(Rank rank) {
-        // ... remove it from each user, bumping them down to the next lowest rank...
+        // ... move each player with this rank down to the next lowest rank.  The players
+        // in memory are moved right away, and the player files are updated in the background...
         for (RankLadder ladder : PrisonRanks.getInstance().getLadderManager()
             .getLaddersWithRank(rank.id)) {
-            int next =
-                Math.max(0, ladder.getPositionOfRank(rank) - 1); // either one less, or the bottom
-
-            Optional<Rank> newRank = ladder.getByPosition(next);
-            if (!newRank.isPresent()) {
-                // TODO Do something here ... default rank!
-                return false;
-            }
-
-            // Move each player in this ladder to the new rank
-            PrisonRanks.getInstance().getPlayerManager().getPlayers().forEach(rankPlayer -> {
-                if (rankPlayer.getRank(ladder).isPresent()) {
-                    rankPlayer.removeRank(rankPlayer.getRank(ladder).get());
-                    rankPlayer.addRank(ladder, newRank.get());
-                    try {
-                        PrisonRanks.getInstance().getPlayerManager().savePlayer(rankPlayer);
-                    } catch (IOException e) {
-                        Output.get().logError("Couldn't save player file.", e);
-                    }
-                    PrisonAPI.debug("Player %s is now %s", rankPlayer.uid.getLeastSignificantBits(),
-                        newRank.get().name);
-                }
-            });
+        	PrisonRanks.getInstance().getPlayerMigrationManager().removeRankFromLadder( ladder, rank );
+        }
+
+        PlayerMigrationManager migrationManager = PrisonRanks.getInstance().getPlayerMigrationManager();
+        if ( migrationManager != null ) {
+        	migrationManager.rankRemoved( rank.id );
         }
 
         // ... remove it from each ladder it was in...
@@ -327,7 +362,28 @@ public class RankManager {
     }
 
     public Rank getRank( int id ) {
-    	return getRanksById().get( id );
+    	return VirtualLadder.isVirtualRankId( id ) ? getVirtualRank( id ) : getRanksById().get( id );
+    }
+    
+    /**
+     * <p>The virtual ranks are generated by their ladders, so they are never held
+     * within this manager.
+     * </p>
+     */
+    private Rank getVirtualRank( int id ) {
+    	Rank results = null;
+    	
+    	LadderManager ladderManager = PrisonRanks.getInstance().getLadderManager();
+    	if ( ladderManager != null ) {
+    		Optional<RankLadder> ladder = ladderManager.getLadder( VirtualLadder.getLadderId( id ) );
+    		
+    		if ( ladder.isPresent() && ladder.get().isVirtual() ) {
+    			RankLadderIndex index = ladder.get().getIndex();
+    			results = index.getRank( index.indexOfRank( id ) );
+    		}
+    	}
+    	
+    	return results;
     }
     
     /**
@@ -356,6 +412,7 @@ public class RankManager {
     	for ( RankLadder rLadder : lman.getLadders() ) {
 			
     		rLadder.ranks.sort(Comparator.comparingInt(PositionRank::getPosition));
+    		rLadder.invalidateIndex();
     		
     		Rank rankLast = null;
     		for ( PositionRank pRank : rLadder.ranks ) {
@@ -378,6 +435,8 @@ public class RankManager {
     			}
 			}
 		}
+    	
+    	lman.nextGeneration();
     }
     
     /*
@@ -0,0 +1,105 @@
+package tech.mcprison.prison.ranks.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.Test;
+
+public class LeaderboardTest
+{
+
+	private Leaderboard.Entry newEntry( UUID uuid, String name, int prestige, int position, long timestamp ) {
+		return new Leaderboard.Entry( uuid, name, new Rank( "R" + position ), prestige, position, timestamp );
+	}
+
+	@Test
+	public void testOrder()
+	{
+		UUID uA = UUID.randomUUID();
+		UUID uB = UUID.randomUUID();
+		UUID uC = UUID.randomUUID();
+		UUID uD = UUID.randomUUID();
+
+		Leaderboard leaderboard = new Leaderboard( "default" );
+		leaderboard.update( newEntry( uA, "A", 0, 5, 100 ) );
+		leaderboard.update( newEntry( uB, "B", 1, 2, 100 ) );
+		leaderboard.update( newEntry( uC, "C", 0, 5, 50 ) );
+		leaderboard.update( newEntry( uD, "D", 0, 1, 10 ) );
+
+		// Prestige first, then the rank, then who reached it first:
+		assertEquals( "B", leaderboard.get( 1 ).getPlayerName() );
+		assertEquals( "C", leaderboard.get( 2 ).getPlayerName() );
+		assertEquals( "A", leaderboard.get( 3 ).getPlayerName() );
+		assertEquals( "D", leaderboard.get( 4 ).getPlayerName() );
+		assertNull( leaderboard.get( 5 ) );
+		assertNull( leaderboard.get( 0 ) );
+
+		List<Leaderboard.Entry> page = leaderboard.getPage( 1, 2 );
+		assertEquals( 2, page.size() );
+		assertEquals( "C", page.get( 0 ).getPlayerName() );
+	}
+
+	@Test
+	public void testUpdateAndRemove()
+	{
+		UUID uA = UUID.randomUUID();
+		UUID uB = UUID.randomUUID();
+
+		Leaderboard leaderboard = new Leaderboard( "default" );
+		leaderboard.update( newEntry( uA, "A", 0, 1, 0 ) );
+		leaderboard.update( newEntry( uB, "B", 0, 2, 0 ) );
+		assertEquals( "B", leaderboard.get( 1 ).getPlayerName() );
+
+		// Moving a player replaces their old entry:
+		leaderboard.update( newEntry( uA, "A", 0, 3, 10 ) );
+		assertEquals( 2, leaderboard.size() );
+		assertEquals( "A", leaderboard.get( 1 ).getPlayerName() );
+		assertEquals( 2, leaderboard.getPage( 0, 10 ).size() );
+
+		leaderboard.remove( uA );
+		assertEquals( 1, leaderboard.size() );
+		assertEquals( "B", leaderboard.get( 1 ).getPlayerName() );
+		assertNull( leaderboard.getEntry( uA ) );
+	}
+
+	@Test
+	public void testPages()
+	{
+		Random random = new Random( 42 );
+		Leaderboard leaderboard = new Leaderboard( "default" );
+		List<UUID> uuids = new ArrayList<>();
+
+		for ( int i = 0; i < 2000; i++ ) {
+			UUID uuid = UUID.randomUUID();
+			uuids.add( uuid );
+			leaderboard.update( newEntry( uuid, "P" + i, random.nextInt( 3 ), random.nextInt( 50 ), i ) );
+		}
+		for ( int i = 0; i < 500; i++ ) {
+			UUID uuid = uuids.get( random.nextInt( uuids.size() ) );
+			if ( i % 5 == 0 ) {
+				leaderboard.remove( uuid );
+			}
+			else {
+				leaderboard.update( newEntry( uuid, "M" + i, random.nextInt( 3 ), random.nextInt( 50 ), i ) );
+			}
+		}
+
+		List<Leaderboard.Entry> sorted = leaderboard.getEntries();
+		sorted.sort( Leaderboard.ORDER );
+		assertEquals( sorted.size(), leaderboard.size() );
+
+		// Every page, including the ones that run past the end, matches the sorted entries:
+		for ( int offset = 0; offset < sorted.size() + 20; offset += 37 ) {
+			List<Leaderboard.Entry> page = leaderboard.getPage( offset, 25 );
+			List<Leaderboard.Entry> expected = 
+					sorted.subList( Math.min( offset, sorted.size() ), Math.min( offset + 25, sorted.size() ) );
+			assertEquals( expected, page );
+		}
+		assertEquals( sorted.get( sorted.size() - 1 ), leaderboard.get( sorted.size() ) );
+	}
+}
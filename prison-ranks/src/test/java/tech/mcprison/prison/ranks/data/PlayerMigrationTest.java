@@ -0,0 +1,89 @@
+package tech.mcprison.prison.ranks.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.UUID;
+
+import org.junit.Test;
+
+public class PlayerMigrationTest
+{
+
+	private RankPlayer newPlayer( String ladderName, int rankId ) {
+		RankPlayer rankPlayer = new RankPlayer();
+		rankPlayer.uid = UUID.randomUUID();
+		rankPlayer.ranks = new HashMap<>();
+		rankPlayer.ranks.put( ladderName, rankId );
+		return rankPlayer;
+	}
+
+	@Test
+	public void testMoveRank()
+	{
+		RankPlayer onRank = newPlayer( "default", 3 );
+		RankPlayer otherRank = newPlayer( "default", 4 );
+
+		PlayerMigration migration = PlayerMigration.moveRank( "default", 3, 2 );
+
+		assertTrue( migration.apply( onRank ) );
+		assertEquals( Integer.valueOf( 2 ), onRank.ranks.get( "default" ) );
+		assertTrue( onRank.isDirty() );
+
+		// Only the players with the rank are moved, and only once:
+		assertFalse( migration.apply( otherRank ) );
+		assertEquals( Integer.valueOf( 4 ), otherRank.ranks.get( "default" ) );
+		assertFalse( migration.apply( onRank ) );
+	}
+
+	@Test
+	public void testRemoveFromLadder()
+	{
+		RankPlayer rankPlayer = newPlayer( "mines", 7 );
+
+		assertTrue( PlayerMigration.moveRank( "mines", 7, PlayerMigration.NO_RANK ).apply( rankPlayer ) );
+		assertFalse( rankPlayer.ranks.containsKey( "mines" ) );
+
+		rankPlayer.ranks.put( "donors", 1 );
+		assertTrue( PlayerMigration.removeLadder( "donors" ).apply( rankPlayer ) );
+		assertFalse( PlayerMigration.removeLadder( "donors" ).apply( rankPlayer ) );
+	}
+
+	@Test
+	public void testShortenLadder()
+	{
+		// The ladder with id 2 goes from 100 ranks down to 10:
+		PlayerMigration migration = PlayerMigration.shortenLadder( "virtual",
+				VirtualLadder.getRankId( 2, 10 ), VirtualLadder.getRankId( 2, 9 ) );
+
+		RankPlayer above = newPlayer( "virtual", VirtualLadder.getRankId( 2, 57 ) );
+		RankPlayer within = newPlayer( "virtual", VirtualLadder.getRankId( 2, 4 ) );
+
+		assertTrue( migration.apply( above ) );
+		assertEquals( Integer.valueOf( VirtualLadder.getRankId( 2, 9 ) ), above.ranks.get( "virtual" ) );
+		assertFalse( migration.apply( above ) );
+		assertFalse( migration.apply( within ) );
+		assertEquals( Integer.valueOf( VirtualLadder.getRankId( 2, 4 ) ), within.ranks.get( "virtual" ) );
+	}
+
+	@Test
+	public void testDocument()
+	{
+		PlayerMigration migration = PlayerMigration.moveRank( "default", 3, 2 );
+		migration.progress( "player_1", true );
+		migration.progress( "player_2", false );
+
+		PlayerMigration loaded = new PlayerMigration( migration.toDocument() );
+
+		assertEquals( migration.getId(), loaded.getId() );
+		assertEquals( PlayerMigration.MigrationType.MOVE_RANK, loaded.getType() );
+		assertEquals( "default", loaded.getLadderName() );
+		assertEquals( 3, loaded.getRankId() );
+		assertEquals( 2, loaded.getNewRankId() );
+		assertEquals( "player_2", loaded.getCursor() );
+		assertEquals( 2, loaded.getProcessed() );
+		assertEquals( 1, loaded.getChanged() );
+	}
+}
@@ -0,0 +1,82 @@
+package tech.mcprison.prison.ranks.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import tech.mcprison.prison.store.Document;
+
+public class RankAdapterTest
+{
+
+	// A rank file as it was saved from the document, with the id as a double:
+	private static final String RANK_FILE = "{\n" +
+			"  \"id\": 3.0,\n" +
+			"  \"name\": \"C\",\n" +
+			"  \"tag\": \"&7[&bC&7]\",\n" +
+			"  \"cost\": 2500.5,\n" +
+			"  \"currency\": \"null\",\n" +
+			"  \"commands\": [ \"lp user {player} parent add c\" ],\n" +
+			"  \"mines\": [ \"mine,c,2,[C]\" ],\n" +
+			"  \"unknown\": { \"a\": 1 }\n" +
+			"}";
+
+	@Test
+	public void testReadsDocumentFile() throws IOException
+	{
+		Rank rank = new RankAdapter().fromJson( RANK_FILE );
+
+		assertEquals( 3, rank.getId() );
+		assertEquals( "C", rank.getName() );
+		assertEquals( "&7[&bC&7]", rank.getTag() );
+		assertEquals( 2500.5, rank.getCost(), 0.0 );
+		assertNull( rank.getCurrency() );
+		assertEquals( Arrays.asList( "lp user {player} parent add c" ), rank.getRankUpCommands() );
+		assertEquals( Arrays.asList( "mine,c,2,[C]" ), rank.getMineStrings() );
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException
+	{
+		Rank rank = new RankAdapter().fromJson( RANK_FILE );
+		rank.setCurrency( "gems" );
+
+		String json = new RankAdapter().toJson( rank );
+		Rank loaded = new RankAdapter().fromJson( json );
+
+		assertEquals( rank.getId(), loaded.getId() );
+		assertEquals( rank.getName(), loaded.getName() );
+		assertEquals( rank.getTag(), loaded.getTag() );
+		assertEquals( rank.getCost(), loaded.getCost(), 0.0 );
+		assertEquals( "gems", loaded.getCurrency() );
+		assertEquals( rank.getRankUpCommands(), loaded.getRankUpCommands() );
+
+		// The older versions of prison, which read the document, can still read it:
+		Gson gson = new GsonBuilder().create();
+		Rank fromDocument = new Rank( gson.fromJson( json, Document.class ) );
+
+		assertEquals( rank.getId(), fromDocument.getId() );
+		assertEquals( rank.getName(), fromDocument.getName() );
+		assertEquals( rank.getCost(), fromDocument.getCost(), 0.0 );
+		assertEquals( rank.getRankUpCommands(), fromDocument.getRankUpCommands() );
+	}
+
+	@Test
+	public void testBadRankIsSkipped() throws IOException
+	{
+		assertNull( new RankAdapter().fromJson( "{ \"id\": 4.0, \"name\": \"D\", \"cost\": \"free\" }" ) );
+		assertNull( new RankAdapter().fromJson( "{ \"id\": 4.0, \"commands\": \"none\" }" ) );
+
+		// An id that is too large is clamped instead of failing:
+		Rank rank = new RankAdapter().fromJson( "{ \"id\": 1.0E12, \"name\": \"E\" }" );
+		assertEquals( Integer.MAX_VALUE, rank.getId() );
+		assertEquals( "E", rank.getName() );
+	}
+}
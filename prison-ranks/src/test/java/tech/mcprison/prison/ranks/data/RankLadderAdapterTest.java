@@ -0,0 +1,120 @@
+package tech.mcprison.prison.ranks.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import tech.mcprison.prison.ranks.data.RankLadder.PositionRank;
+import tech.mcprison.prison.store.Document;
+
+public class RankLadderAdapterTest
+{
+
+	// A ladder file as it was saved from the document, with the ids as doubles:
+	private static final String LADDER_FILE = "{\n" +
+			"  \"id\": 1.0,\n" +
+			"  \"name\": \"default\",\n" +
+			"  \"ranks\": [\n" +
+			"    { \"position\": 0.0, \"rankId\": 0.0, \"rankName\": \"A\" },\n" +
+			"    { \"position\": 1.0, \"rankId\": 4.0 }\n" +
+			"  ],\n" +
+			"  \"maxPrestige\": 0.0\n" +
+			"}";
+
+	private static final String VIRTUAL_LADDER_FILE = "{\n" +
+			"  \"id\": 2.0,\n" +
+			"  \"name\": \"virtual\",\n" +
+			"  \"ranks\": [],\n" +
+			"  \"maxPrestige\": 0.0,\n" +
+			"  \"virtual\": {\n" +
+			"    \"rankCount\": 2600.0,\n" +
+			"    \"groupSize\": 100.0,\n" +
+			"    \"namePattern\": \"{group}{sub}\",\n" +
+			"    \"costFormula\": \"n * 100\",\n" +
+			"    \"currency\": null\n" +
+			"  }\n" +
+			"}";
+
+	@Test
+	public void testReadsDocumentFile() throws IOException
+	{
+		RankLadder ladder = new RankLadderAdapter( null ).fromJson( LADDER_FILE );
+
+		assertEquals( 1, ladder.id );
+		assertEquals( "default", ladder.name );
+		assertEquals( 0, ladder.maxPrestige );
+		assertNull( ladder.getVirtualLadder() );
+
+		assertEquals( 2, ladder.ranks.size() );
+		assertEquals( 0, ladder.ranks.get( 0 ).getPosition() );
+		assertEquals( 0, ladder.ranks.get( 0 ).getRankId() );
+		assertEquals( "A", ladder.ranks.get( 0 ).getRankName() );
+		assertEquals( 1, ladder.ranks.get( 1 ).getPosition() );
+		assertEquals( 4, ladder.ranks.get( 1 ).getRankId() );
+		assertNull( ladder.ranks.get( 1 ).getRankName() );
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException
+	{
+		RankLadder ladder = new RankLadderAdapter( null ).fromJson( LADDER_FILE );
+
+		String json = new RankLadderAdapter( null ).toJson( ladder );
+		RankLadder loaded = new RankLadderAdapter( null ).fromJson( json );
+
+		assertEquals( ladder.id, loaded.id );
+		assertEquals( ladder.name, loaded.name );
+		assertEquals( ladder.maxPrestige, loaded.maxPrestige );
+		assertEquals( ladder.ranks.size(), loaded.ranks.size() );
+		for ( int i = 0; i < ladder.ranks.size(); i++ ) {
+			PositionRank expected = ladder.ranks.get( i );
+			PositionRank actual = loaded.ranks.get( i );
+
+			assertEquals( expected.getPosition(), actual.getPosition() );
+			assertEquals( expected.getRankId(), actual.getRankId() );
+			assertEquals( expected.getRankName(), actual.getRankName() );
+		}
+	}
+
+	@Test
+	@SuppressWarnings( "unchecked" )
+	public void testVirtualLadderRoundTrip() throws IOException
+	{
+		RankLadder ladder = new RankLadderAdapter( null ).fromJson( VIRTUAL_LADDER_FILE );
+
+		VirtualLadder virtualLadder = ladder.getVirtualLadder();
+		assertNotNull( virtualLadder );
+		assertEquals( 2600, virtualLadder.getRankCount() );
+		assertEquals( 100, virtualLadder.getGroupSize() );
+		assertEquals( "{group}{sub}", virtualLadder.getNamePattern() );
+		assertNull( virtualLadder.getCurrency() );
+
+		String json = new RankLadderAdapter( null ).toJson( ladder );
+		VirtualLadder loaded = new RankLadderAdapter( null ).fromJson( json ).getVirtualLadder();
+
+		assertEquals( virtualLadder.getRankCount(), loaded.getRankCount() );
+		assertEquals( virtualLadder.getGroupSize(), loaded.getGroupSize() );
+		assertEquals( virtualLadder.getNamePattern(), loaded.getNamePattern() );
+		assertEquals( virtualLadder.getCostFormula().getFormula(), loaded.getCostFormula().getFormula() );
+
+		// The nested virtual ladder is still a document that the older versions can read:
+		Gson gson = new GsonBuilder().create();
+		Document document = gson.fromJson( json, Document.class );
+		Document virtualDocument = new Document();
+		virtualDocument.putAll( (Map<String, Object>) document.get( "virtual" ) );
+		VirtualLadder fromDocument = new VirtualLadder( virtualDocument );
+
+		assertEquals( virtualLadder.getRankCount(), fromDocument.getRankCount() );
+		assertEquals( virtualLadder.getNamePattern(), fromDocument.getNamePattern() );
+		assertEquals( 0, ((List<?>) document.get( "ranks" )).size() );
+	}
+}
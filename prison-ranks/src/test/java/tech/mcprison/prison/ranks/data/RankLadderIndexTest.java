@@ -0,0 +1,87 @@
+package tech.mcprison.prison.ranks.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class RankLadderIndexTest
+{
+
+	private Rank newRank( int id, String name, double cost, String currency ) {
+		Rank rank = new Rank( name );
+		rank.id = id;
+		rank.cost = cost;
+		rank.currency = currency;
+		return rank;
+	}
+
+	private RankLadderIndex newIndex( Rank... ranks ) {
+		RankLadder ladder = new RankLadder();
+		Map<Integer, Rank> ranksById = new HashMap<>();
+		List<RankLadder.PositionRank> positionRanks = new ArrayList<>();
+
+		// Added in reverse, so the index must sort them by position:
+		for ( int i = ranks.length - 1; i >= 0; i-- ) {
+			Rank rank = ranks[i];
+			ranksById.put( rank.id, rank );
+			positionRanks.add( ladder.new PositionRank( i * 10, rank.id, rank.name, rank ) );
+		}
+
+		return new RankLadderIndex( positionRanks, ranksById::get );
+	}
+
+	@Test
+	public void testLookups()
+	{
+		Rank rA = newRank( 5, "A", 0, null );
+		Rank rB = newRank( 3, "B", 100, null );
+		Rank rC = newRank( 9, "C", 200, null );
+
+		RankLadderIndex index = newIndex( rA, rB, rC );
+
+		assertEquals( 3, index.getRankCount() );
+		assertEquals( rA, index.getLowestRank() );
+		assertEquals( rC, index.getHighestRank() );
+
+		assertEquals( 1, index.indexOfRank( 3 ) );
+		assertEquals( -1, index.indexOfRank( 4 ) );
+		assertEquals( 2, index.indexOfPosition( 20 ) );
+		assertEquals( -1, index.indexOfPosition( 15 ) );
+		assertEquals( 10, index.getPosition( 1 ) );
+
+		assertNull( index.getRank( 3 ) );
+		assertNull( newIndex().getLowestRank() );
+	}
+
+	@Test
+	public void testMaxAffordable()
+	{
+		Rank rA = newRank( 0, "A", 0, null );
+		Rank rB = newRank( 1, "B", 100, null );
+		Rank rC = newRank( 2, "C", 200, null );
+		Rank rD = newRank( 3, "D", 300, null );
+		Rank rE = newRank( 4, "E", 50, "tokens" );
+
+		RankLadderIndex index = newIndex( rA, rB, rC, rD, rE );
+
+		assertEquals( 300d, index.getCost( 0, 2 ), 0.001 );
+		assertEquals( 600d, index.getCost( -1, 3 ), 0.001 );
+
+		assertEquals( 0, index.getMaxAffordableIndex( 0, 99 ) );
+		assertEquals( 1, index.getMaxAffordableIndex( 0, 100 ) );
+		assertEquals( 2, index.getMaxAffordableIndex( 0, 599 ) );
+
+		// The ranks with a different currency are never included:
+		assertEquals( 3, index.getMaxAffordableIndex( 0, 1000000 ) );
+		assertEquals( 4, index.getMaxAffordableIndex( 3, 1000000 ) );
+
+		// Already at the top:
+		assertEquals( 4, index.getMaxAffordableIndex( 4, 1000000 ) );
+	}
+}
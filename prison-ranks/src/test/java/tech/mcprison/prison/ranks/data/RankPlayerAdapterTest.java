@@ -0,0 +1,75 @@
+package tech.mcprison.prison.ranks.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import tech.mcprison.prison.store.Document;
+
+public class RankPlayerAdapterTest
+{
+
+	private static final String UID = "0f1b9d6e-2b7a-4c2e-9a55-7d1f3c4b8e21";
+
+	@Test
+	public void testReadsDocumentFile() throws IOException
+	{
+		// A file that was saved from the document, with the numbers as doubles:
+		String json = "{\n" +
+				"  \"uid\": \"" + UID + "\",\n" +
+				"  \"ranks\": { \"default\": 3.0, \"prestiges\": 1.0 },\n" +
+				"  \"prestige\": {},\n" +
+				"  \"names\": [ { \"name\": \"Steve\", \"date\": 1.6094592E12 }, {} ],\n" +
+				"  \"blocksMined\": { \"stone\": 1234.0 },\n" +
+				"  \"unknown\": [ 1, 2 ]\n" +
+				"}";
+
+		RankPlayer player = new RankPlayerAdapter().fromJson( json );
+
+		assertEquals( UUID.fromString( UID ), player.uid );
+		assertEquals( Integer.valueOf( 3 ), player.ranks.get( "default" ) );
+		assertEquals( Integer.valueOf( 1 ), player.ranks.get( "prestiges" ) );
+		assertEquals( 0, player.prestige.size() );
+		assertEquals( Integer.valueOf( 1234 ), player.blocksMined.get( "stone" ) );
+		assertEquals( 1, player.getNames().size() );
+		assertEquals( "Steve", player.getNames().get( 0 ).getName() );
+		assertEquals( 1609459200000L, player.getNames().get( 0 ).getDate() );
+	}
+
+	@Test
+	public void testWritesDocumentFormat() throws IOException
+	{
+		RankPlayer player = new RankPlayer();
+		player.uid = UUID.fromString( UID );
+		player.ranks = new HashMap<>();
+		player.ranks.put( "default", 7 );
+		player.prestige = new HashMap<>();
+		player.blocksMined = new HashMap<>();
+		player.getNames().add( new RankPlayerName( "Alex", 1609459200000L ) );
+		player.rankTimes = new HashMap<>();
+		player.rankTimes.put( "default", 1609459200123L );
+
+		String json = new RankPlayerAdapter().toJson( player );
+		assertEquals( 1609459200123L, new RankPlayerAdapter().fromJson( json ).getRankTime( "default" ) );
+
+		// The document, and the older versions of prison, can still read it:
+		Gson gson = new GsonBuilder().create();
+		RankPlayer loaded = new RankPlayer( gson.fromJson( json, Document.class ) );
+
+		assertEquals( player.uid, loaded.uid );
+		assertEquals( player.ranks, loaded.ranks );
+		assertEquals( "Alex", loaded.getNames().get( 0 ).getName() );
+		assertEquals( 1609459200000L, loaded.getNames().get( 0 ).getDate() );
+		assertNull( loaded.prestige.get( "default" ) );
+		assertEquals( 1609459200123L, loaded.getRankTime( "default" ) );
+		assertEquals( 0, loaded.getRankTime( "prestiges" ) );
+	}
+}
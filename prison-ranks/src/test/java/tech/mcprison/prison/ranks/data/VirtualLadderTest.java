@@ -0,0 +1,113 @@
+package tech.mcprison.prison.ranks.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class VirtualLadderTest
+{
+
+	@Test
+	public void testFormula()
+	{
+		assertEquals( 7d, new RankCostFormula( "1 + 2 * 3" ).getCost( 1 ), 0.001 );
+		assertEquals( 9d, new RankCostFormula( "(1 + 2) * 3" ).getCost( 1 ), 0.001 );
+		assertEquals( 512d, new RankCostFormula( "2 ^ 3 ^ 2" ).getCost( 1 ), 0.001 );
+		assertEquals( 8000d, new RankCostFormula( "1000 * n ^ 1.5" ).getCost( 4 ), 0.001 );
+		assertEquals( 3d, new RankCostFormula( "max(sqrt(n), 3)" ).getCost( 4 ), 0.001 );
+
+		// Costs are never negative:
+		assertEquals( 0d, new RankCostFormula( "-n" ).getCost( 5 ), 0.001 );
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testFormulaInvalid()
+	{
+		new RankCostFormula( "1000 * x" );
+	}
+
+	@Test
+	public void testNames()
+	{
+		VirtualLadder ladder = new VirtualLadder( 2600, 100, "{group}{sub}", "n * 100", null );
+
+		assertEquals( "A1", ladder.getName( 0 ) );
+		assertEquals( "A100", ladder.getName( 99 ) );
+		assertEquals( "B1", ladder.getName( 100 ) );
+		assertEquals( "Z100", ladder.getName( 2599 ) );
+		assertEquals( 100, ladder.indexOfName( "b1" ) );
+		assertEquals( -1, ladder.indexOfName( "Z101" ) );
+
+		VirtualLadder wide = new VirtualLadder( 30, 1, "{group}", "n", null );
+		assertEquals( "AA", wide.getName( 26 ) );
+		assertEquals( 26, wide.indexOfName( "aa" ) );
+		assertEquals( -1, wide.indexOfName( "AE" ) );
+	}
+
+	@Test
+	public void testIndexOfName()
+	{
+		VirtualLadder ladder = new VirtualLadder( VirtualLadder.MAX_RANKS, 100, "R{n}", "n", null );
+
+		assertEquals( 0, ladder.indexOfName( "R1" ) );
+		assertEquals( 999999, ladder.indexOfName( "r1000000" ) );
+		assertEquals( -1, ladder.indexOfName( "R1000001" ) );
+		assertEquals( -1, ladder.indexOfName( "R01" ) );
+		assertEquals( -1, ladder.indexOfName( "R0" ) );
+		assertEquals( -1, ladder.indexOfName( "R99999999999999" ) );
+		assertEquals( -1, ladder.indexOfName( "Rx" ) );
+		assertEquals( -1, ladder.indexOfName( "Q1" ) );
+
+		VirtualLadder literals = new VirtualLadder( 2600, 100, "[{group}.{sub}] {n}", "n", null );
+		assertEquals( "[B.3] 103", literals.getName( 102 ) );
+		assertEquals( 102, literals.indexOfName( "[b.3] 103" ) );
+		assertEquals( -1, literals.indexOfName( "[B.3] 104" ) );
+	}
+
+	@Test( expected = IllegalArgumentException.class )
+	public void testAmbiguousNamePattern()
+	{
+		new VirtualLadder( 100, 10, "{n}{sub}", "n", null );
+	}
+
+	@Test
+	public void testSameRankWhileUsed()
+	{
+		VirtualLadder ladder = new VirtualLadder( 10000, 100, "R{n}", "n", null );
+		VirtualRankLadderIndex index = new VirtualRankLadderIndex( 7, ladder );
+
+		Rank rank = index.getRank( 5 );
+
+		// Even after the recent ranks have all been replaced:
+		for ( int i = 100; i < 100 + 2 * VirtualRankLadderIndex.RANK_CACHE_SIZE; i++ ) {
+			index.getRank( i );
+		}
+
+		assertTrue( rank == index.getRank( 5 ) );
+	}
+
+	@Test
+	public void testIndex()
+	{
+		VirtualLadder ladder = new VirtualLadder( 1000, 100, "R{n}", "n * 100", null );
+		VirtualRankLadderIndex index = new VirtualRankLadderIndex( 7, ladder );
+
+		assertEquals( 1000, index.getRankCount() );
+
+		Rank rank = index.getRank( 9 );
+		assertEquals( "R10", rank.name );
+		assertEquals( 1000d, rank.cost, 0.001 );
+		assertTrue( rank.isVirtual() );
+		assertEquals( 9, index.indexOfRank( rank.id ) );
+		assertEquals( -1, index.indexOfRank( VirtualLadder.getRankId( 8, 9 ) ) );
+		assertNull( index.getRank( 1000 ) );
+
+		// R2 + R3 + R4 = 200 + 300 + 400
+		assertEquals( 900d, index.getCost( 0, 3 ), 0.001 );
+		assertEquals( 3, index.getMaxAffordableIndex( 0, 999 ) );
+		assertEquals( 0, index.getMaxAffordableIndex( 0, 199 ) );
+		assertEquals( 999, index.getMaxAffordableIndex( 999, 1000000 ) );
+	}
+}
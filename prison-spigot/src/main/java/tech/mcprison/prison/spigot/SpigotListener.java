@@ -25,12 +25,16 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerDropItemEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerKickEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerPickupItemEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
 import org.bukkit.event.world.WorldLoadEvent;
 
 import tech.mcprison.prison.Prison;
@@ -69,6 +73,20 @@ public class SpigotListener implements Listener {
 //        Bukkit.getServer().getPluginManager().registerEvents(this, SpigotPrison.getInstance());
 //    }
 
+    /**
+     * <p>This is fired asynchronously before the player joins, so Prison can load
+     * the player's data without holding up the main thread.
+     * </p>
+     */
+    @EventHandler(priority=EventPriority.MONITOR) 
+    public void onPlayerPreLogin(AsyncPlayerPreLoginEvent e) {
+    	if ( e.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED ) {
+    		Prison.get().getEventBus().post(
+    				new tech.mcprison.prison.internal.events.player.PlayerPreLoginEvent(
+    						e.getUniqueId(), e.getName()));
+    	}
+    }
+
     @EventHandler public void onPlayerJoin(PlayerJoinEvent e) {
         Prison.get().getEventBus().post(
             new tech.mcprison.prison.internal.events.player.PlayerJoinEvent(
@@ -87,6 +105,44 @@ public class SpigotListener implements Listener {
                 new SpigotPlayer(e.getPlayer()), e.getReason()));
     }
 
+    /**
+     * <p>Player movements are only posted when the player moves in to a different
+     * block, or a different world, since that is all Prison tracks.  This filters 
+     * out almost all of the move events, which are fired for every small change in 
+     * position and every turn of the head.
+     * </p>
+     */
+    @EventHandler(priority=EventPriority.MONITOR, ignoreCancelled=true) 
+    public void onPlayerMove(PlayerMoveEvent e) {
+    	postPlayerMove( e.getPlayer(), e.getFrom(), e.getTo() );
+    }
+    
+    @EventHandler(priority=EventPriority.MONITOR, ignoreCancelled=true) 
+    public void onPlayerTeleport(PlayerTeleportEvent e) {
+    	postPlayerMove( e.getPlayer(), e.getFrom(), e.getTo() );
+    }
+    
+    @EventHandler(priority=EventPriority.MONITOR) 
+    public void onPlayerRespawn(PlayerRespawnEvent e) {
+    	postPlayerMove( e.getPlayer(), e.getPlayer().getLocation(), e.getRespawnLocation() );
+    }
+    
+    private void postPlayerMove( org.bukkit.entity.Player player, 
+    						org.bukkit.Location from, org.bukkit.Location to ) {
+    	if ( to != null && ( from == null || 
+    			from.getBlockX() != to.getBlockX() || 
+    			from.getBlockY() != to.getBlockY() ||
+    			from.getBlockZ() != to.getBlockZ() || 
+    			from.getWorld() != to.getWorld() ) ) {
+    		
+    		Prison.get().getEventBus().post(
+    				new tech.mcprison.prison.internal.events.player.PlayerMoveEvent(
+    						new SpigotPlayer( player ), 
+    						from == null ? null : SpigotUtil.bukkitLocationToPrison( from ), 
+    						SpigotUtil.bukkitLocationToPrison( to ) ));
+    	}
+    }
+
 	@EventHandler public void onBlockPlace(BlockPlaceEvent e) {
         org.bukkit.Location block = e.getBlockPlaced().getLocation();
         BlockType blockType = SpigotUtil.blockToBlockType( e.getBlock() );
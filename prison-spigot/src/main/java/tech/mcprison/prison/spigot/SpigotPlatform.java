@@ -50,7 +50,11 @@ import tech.mcprison.prison.PrisonCommand;
 import tech.mcprison.prison.commands.PluginCommand;
 import tech.mcprison.prison.convert.ConversionManager;
 import tech.mcprison.prison.convert.ConversionResult;
+import tech.mcprison.prison.file.FileCollection;
+import tech.mcprison.prison.file.FileIO;
 import tech.mcprison.prison.file.FileStorage;
+import tech.mcprison.prison.file.JournalCollection;
+import tech.mcprison.prison.file.JsonFileIO;
 import tech.mcprison.prison.file.YamlFileIO;
 import tech.mcprison.prison.internal.Player;
 import tech.mcprison.prison.internal.Scheduler;
@@ -80,6 +84,7 @@ import tech.mcprison.prison.spigot.placeholder.SpigotPlaceholders;
 import tech.mcprison.prison.spigot.scoreboard.SpigotScoreboardManager;
 import tech.mcprison.prison.spigot.util.ActionBarUtil;
 import tech.mcprison.prison.spigot.util.SpigotYamlFileIO;
+import tech.mcprison.prison.sql.SqlStorage;
 import tech.mcprison.prison.store.Storage;
 import tech.mcprison.prison.util.BlockType;
 import tech.mcprison.prison.util.Location;
@@ -128,19 +133,57 @@ class SpigotPlatform
         ActionBarUtil.init(plugin);
     }
 
+    /**
+     * <p>The storage is selected with <code>storageType</code>.  The default is
+     * <code>json</code>, one file per document.  The <code>sql</code> storage uses
+     * the JDBC url in <code>storage-sql-url</code>, or a SQLite database file within
+     * the data directory if it is not set.
+     * </p>
+     */
     private Storage initStorage() {
-        String confStorage = plugin.getConfig().getString("storage", "file");
-        Storage storage = new FileStorage(plugin.getDataDirectory());
+        String confStorage = plugin.getConfig().getString("storageType", "json");
+        Storage storage = null;
         
-        if (!confStorage.equalsIgnoreCase("file")) {
+        FileCollection.setLoadThreads( plugin.getConfig().getInt("storage-load-threads", 0) );
+        FileCollection.setShardThreshold( plugin.getConfig().getInt("storage-shard-threshold", 10000) );
+        JournalCollection.setEnabled( plugin.getConfig().getBoolean("storage-journal", false) );
+        JsonFileIO.setCompact( plugin.getConfig().getBoolean("storage-json-compact", false) );
+        FileIO.setSyncPolicy( FileIO.SyncPolicy.fromString( 
+        				plugin.getConfig().getString("storage-fsync", "none") ) );
+        
+        if (confStorage.equalsIgnoreCase("sql")) {
+        	SqlStorage sqlStorage = new SqlStorage( getSqlStorageUrl() );
+        	
+        	if ( sqlStorage.isConnected() ) {
+        		storage = sqlStorage;
+        	}
+        	else {
+        		Output.get().logError("Unable to use the sql storage. Using file storage.");
+        	}
+        }
+        else if (!confStorage.equalsIgnoreCase("json") && !confStorage.equalsIgnoreCase("file")) {
             Output.get().logError("Unknown file storage type in configuration \"" + confStorage
                 + "\". Using file storage.");
             Output.get().logWarn(
-                "Note: In this version of Prison 3, 'file' is the only supported type of storage. We're working to bring other storage types soon.");
+                "Note: In this version of Prison 3, 'json' and 'sql' are the only supported types of storage.");
+        }
+        
+        if ( storage == null ) {
+        	storage = new FileStorage(plugin.getDataDirectory());
         }
         
         return storage;
     }
+    
+    /**
+     * @return The JDBC url for the sql storage.
+     */
+    public String getSqlStorageUrl() {
+    	String url = plugin.getConfig().getString("storage-sql-url", "");
+    	
+    	return url == null || url.trim().length() == 0 ? 
+    			SqlStorage.getDefaultUrl( plugin.getDataDirectory() ) : url.trim();
+    }
 
     
     public org.bukkit.World getBukkitWorld(String name ) {
@@ -39,6 +39,8 @@ import tech.mcprison.prison.Prison;
 import tech.mcprison.prison.PrisonAPI;
 import tech.mcprison.prison.PrisonCommand;
 import tech.mcprison.prison.alerts.Alerts;
+import tech.mcprison.prison.file.FileIO;
+import tech.mcprison.prison.file.JournalCollection;
 import tech.mcprison.prison.integration.Integration;
 import tech.mcprison.prison.mines.PrisonMines;
 import tech.mcprison.prison.mines.data.Mine;
@@ -58,6 +60,7 @@ import tech.mcprison.prison.spigot.commands.PrisonSpigotCommands;
 import tech.mcprison.prison.spigot.commands.PrisonSpigotMinesCommands;
 import tech.mcprison.prison.spigot.commands.PrisonSpigotPrestigeCommands;
 import tech.mcprison.prison.spigot.commands.PrisonSpigotRanksCommands;
+import tech.mcprison.prison.spigot.commands.PrisonSpigotStorageCommands;
 import tech.mcprison.prison.spigot.compat.Compatibility;
 import tech.mcprison.prison.spigot.compat.Spigot113;
 import tech.mcprison.prison.spigot.compat.Spigot18;
@@ -78,6 +81,7 @@ import tech.mcprison.prison.spigot.placeholder.PlaceHolderAPIIntegration;
 import tech.mcprison.prison.spigot.player.SlimeBlockFunEventListener;
 import tech.mcprison.prison.spigot.sellall.SellAllCommands;
 import tech.mcprison.prison.spigot.spiget.BluesSpigetSemVerComparator;
+import tech.mcprison.prison.sql.SqlStorage;
 
 /**
  * The plugin class for the Spigot implementation.
@@ -221,6 +225,17 @@ public class SpigotPrison extends JavaPlugin {
     	Prison.get().getPlatform().unregisterAllCommands();
     	
     	Prison.get().deinit();
+    	
+    	// Save the changes that are in the journals to their files:
+    	JournalCollection.closeAll();
+    	
+    	// Force any saved files that are waiting for a batched fsync on to the disk:
+    	FileIO.syncPending();
+    	
+    	// The modules have saved their data, so the sql connection can be closed:
+    	if ( Prison.get().getPlatform().getStorage() instanceof SqlStorage ) {
+    		((SqlStorage) Prison.get().getPlatform().getStorage()).close();
+    	}
     }
 
     public FileConfiguration getGuiConfig() {
@@ -470,6 +485,8 @@ public class SpigotPrison extends JavaPlugin {
         
         // This registers the admin's /gui commands
         Prison.get().getCommandHandler().registerCommands( new PrisonSpigotCommands() );
+        
+        Prison.get().getCommandHandler().registerCommands( new PrisonSpigotStorageCommands() );
 
     }
 
@@ -537,7 +554,7 @@ public class SpigotPrison extends JavaPlugin {
         return YamlConfiguration.loadConfiguration(getBundledFile(file));
     }
 
-    File getDataDirectory() {
+    public File getDataDirectory() {
         return dataDirectory;
     }
     
@@ -96,7 +96,12 @@ import tech.mcprison.prison.modules.Module;
 public class OnBlockBreakEventListener 
 	implements Listener {
 
-//	private final TreeMap<Long, Mine> playerCache;
+	/**
+	 * <p>The last mine each player broke a block in, since there is a very high
+	 * chance the next block will be in the same mine.
+	 * </p>
+	 */
+	private final TreeMap<Long, Mine> playerCache;
 	
 	private PrisonMines prisonMineManager;
 	private boolean mineModuleDisabled = false;
@@ -107,7 +112,7 @@ public class OnBlockBreakEventListener
 	public OnBlockBreakEventListener() {
 		super();
 		
-//		this.playerCache = new TreeMap<>();
+		this.playerCache = new TreeMap<>();
 		this.prisonMineManager = null;
 	}
 	
@@ -283,26 +288,24 @@ public class OnBlockBreakEventListener
 
 	
 	public void doAction( Mine mine, BlockBreakEvent e ) {
-		mine.incrementBlockBreakCount();
 		mine.incrementTotalBlocksMined();
 		
 		// Other possible processing:
 		
-		// Checks to see if the mine ran out of blocks, and if it did, then
-		// it will reset the mine:
-		mine.checkZeroBlockReset();
+		// Counts the block, and if the mine ran out of blocks, or crossed the 
+		// reset threshold, then it will submit the reset only once:
+		mine.incrementBlockBreakCountAndCheckReset();
 	}
 	
 	public void doAction( Mine mine, TEBlockExplodeEvent e, int blockCount ) {
 		
-		mine.addBlockBreakCount( blockCount );
 		mine.addTotalBlocksMined( blockCount );
 		
 		// Other possible processing:
 		
-		// Checks to see if the mine ran out of blocks, and if it did, then
-		// it will reset the mine:
-		mine.checkZeroBlockReset();
+		// Counts the blocks, and if the mine ran out of blocks, or crossed the 
+		// reset threshold, then it will submit the reset only once:
+		mine.addBlockBreakCountAndCheckReset( blockCount );
 	}
 	
 	private Mine findMineLocation( SpigotBlock block ) {
@@ -329,7 +332,7 @@ public class OnBlockBreakEventListener
 //	}
 
 	private TreeMap<Long, Mine> getPlayerCache() {
-		return getPrisonMineManager().getPlayerCache();
+		return playerCache;
 	}
 
 	private PrisonMines getPrisonMineManager() {
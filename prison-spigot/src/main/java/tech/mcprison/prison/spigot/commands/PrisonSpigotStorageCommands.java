@@ -0,0 +1,98 @@
+package tech.mcprison.prison.spigot.commands;
+
+import tech.mcprison.prison.Prison;
+import tech.mcprison.prison.PrisonAPI;
+import tech.mcprison.prison.commands.Command;
+import tech.mcprison.prison.internal.CommandSender;
+import tech.mcprison.prison.output.Output;
+import tech.mcprison.prison.spigot.SpigotPlatform;
+import tech.mcprison.prison.sql.SqlStorage;
+import tech.mcprison.prison.store.Storage;
+import tech.mcprison.prison.store.StorageMigration;
+
+/**
+ * <p>Commands for moving the data between the types of storage.
+ * </p>
+ *
+ */
+public class PrisonSpigotStorageCommands {
+
+	private boolean migrating = false;
+
+	/**
+	 * <p>Copies all of the JSON files in to the sql storage, in the background.  The
+	 * files are not changed, so the server can keep using them until the
+	 * <code>storageType</code> is changed to <code>sql</code> and the server is
+	 * restarted.
+	 * </p>
+	 *
+	 * <p>This is only a copy.  Anything that is saved after the copy, such as a player
+	 * ranking up, is only saved to the JSON files, and will not be in the sql storage
+	 * after the switch.  So the copy should be made right before the restart, when no
+	 * players are online, or be ran again before the restart.
+	 * </p>
+	 *
+	 * @param sender
+	 */
+	@Command(identifier = "prison storage migrate", onlyPlayers = false, permissions = "prison.admin",
+			description = "Copies all of the json file storage in to the sql storage. Set " +
+					"storageType to sql in config.yml and restart the server to use it. Changes " +
+					"made after the copy are not in the sql storage, so run this right before " +
+					"the restart.")
+	public void storageMigrateCommand(CommandSender sender) {
+
+		Storage source = Prison.get().getPlatform().getStorage();
+
+		if ( source instanceof SqlStorage ) {
+			Output.get().sendError( sender, "The server is already using the sql storage. " +
+					"The migration must be ran while it is using the json storage." );
+			return;
+		}
+
+		synchronized ( this ) {
+			if ( migrating ) {
+				Output.get().sendError( sender, "The storage migration is already running." );
+				return;
+			}
+			migrating = true;
+		}
+
+		String url = ((SpigotPlatform) Prison.get().getPlatform()).getSqlStorageUrl();
+
+		Output.get().sendInfo( sender, "Copying the json storage in to %s in the background...", url );
+		Output.get().sendWarn( sender, "This is only a copy. Anything saved after it finishes, " +
+				"such as rank ups, is only saved to the json files and will be lost when you switch " +
+				"to sql. Run this when no players are online, right before the restart." );
+
+		PrisonAPI.getScheduler().runTaskLaterAsync( () -> {
+			SqlStorage target = new SqlStorage( url );
+
+			try {
+				if ( !target.isConnected() ) {
+					Output.get().sendError( sender, "Unable to connect to the sql storage. " +
+							"See the console for the details." );
+					return;
+				}
+
+				long start = System.currentTimeMillis();
+
+				StorageMigration migration = new StorageMigration( source, target );
+				migration.migrate();
+
+				Output.get().sendInfo( sender, "Copied %d documents in %d collections of %d databases " +
+						"in %d ms with %d failures. Set storageType to sql in config.yml and restart " +
+						"the server now to use it, or run this again before restarting if anything " +
+						"has changed since.",
+						migration.getDocuments(), migration.getCollections(), migration.getDatabases(),
+						System.currentTimeMillis() - start, migration.getFailures() );
+			}
+			finally {
+				target.close();
+
+				synchronized ( this ) {
+					migrating = false;
+				}
+			}
+		}, 0 );
+	}
+}
@@ -1,12 +1,14 @@
 package tech.mcprison.prison.spigot.placeholder;
 
-import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
 import org.bukkit.Bukkit;
 
 import tech.mcprison.prison.PrisonAPI;
-import tech.mcprison.prison.integration.PlaceHolderKey;
+import tech.mcprison.prison.integration.IntegrationManager.PlaceHolderFlags;
+import tech.mcprison.prison.integration.IntegrationManager.PrisonPlaceHolders;
 import tech.mcprison.prison.integration.PlaceholderIntegration;
 import tech.mcprison.prison.internal.Player;
 import tech.mcprison.prison.mines.PrisonMines;
@@ -63,6 +65,14 @@ public class MVdWPlaceholderIntegration
 	/**
 	 * <p>Register both the player and mines placeholders with the MVdW plugin.
 	 * </p>
+	 * 
+	 * <p>The placeholders that have a ladder or mine name are registered once for 
+	 * each placeholder type as a wildcard, such as <code>prison_mines_name_*</code>,
+	 * so the number of registrations does not grow with the number of mines and 
+	 * ladders.  This also allows new mines and ladders to be used without having 
+	 * to reload the placeholders.  The keys are provided by
+	 * PlaceHolderKeyParser.getRegistrations().
+	 * </p>
 	 */
     @Override
 	public void deferredInitialization()
@@ -70,16 +80,15 @@ public class MVdWPlaceholderIntegration
     	if ( PrisonRanks.getInstance() != null && PrisonRanks.getInstance().isEnabled() ) {
     		PlayerManager pm = PrisonRanks.getInstance().getPlayerManager();
     		if ( pm != null ) {
-    			List<PlaceHolderKey> placeholderPlayerKeys = pm.getTranslatedPlaceHolderKeys();
+    			Map<String, PrisonPlaceHolders> registrations = 
+    							pm.getPlaceHolderKeyParser().getRegistrations();
     			
-    			for ( PlaceHolderKey placeHolderKey : placeholderPlayerKeys ) {
-    				if ( !placeHolderKey.getPlaceholder().isSuppressed() ) {
-    					registerPlaceholder(placeHolderKey.getKey(),
-    							player -> Text.translateAmpColorCodes(
-    									pm.getTranslatePlayerPlaceHolder( 
-    											player.getUUID(), player.getName(), placeHolderKey )
-    									));
-    				}
+    			for ( String key : registrations.keySet() ) {
+    				registerPlaceholder( key,
+    						(player, identifier) -> Text.translateAmpColorCodes(
+    								pm.getTranslatePlayerPlaceHolder( 
+    										player.getUUID(), player.getName(), identifier )
+    								));
     			}
     		}
     	}
@@ -88,20 +97,29 @@ public class MVdWPlaceholderIntegration
     	if ( PrisonMines.getInstance() != null && PrisonMines.getInstance().isEnabled() ) {
     		MineManager mm = PrisonMines.getInstance().getMineManager();
     		if ( mm != null ) {
-    			List<PlaceHolderKey> placeholderMinesKeys = mm.getTranslatedPlaceHolderKeys();
+    			Map<String, PrisonPlaceHolders> registrations = 
+    							mm.getPlaceHolderKeyParser().getRegistrations();
     			
-    			for ( PlaceHolderKey placeHolderKey : placeholderMinesKeys ) {
-    				if ( !placeHolderKey.getPlaceholder().isSuppressed() ) {
-    					registerPlaceholder(placeHolderKey.getKey(),
-    							player -> Text.translateAmpColorCodes(
-    									mm.getTranslateMinesPlaceHolder( placeHolderKey )
-    									));
-    				}
+    			for ( Map.Entry<String, PrisonPlaceHolders> registration : registrations.entrySet() ) {
+    				boolean playerMines = registration.getValue().hasFlag( PlaceHolderFlags.PLAYERMINES );
+    				
+    				registerPlaceholder( registration.getKey(),
+    						(player, identifier) -> Text.translateAmpColorCodes(
+    								playerMines ?
+    									mm.getTranslatePlayerMinesPlaceHolder( 
+    											player.getUUID(), player.getName(), identifier ) :
+    									mm.getTranslateMinesPlaceHolder( identifier )
+    								));
     			}
     		}
     	}
 	}
-
+    
+    public void registerPlaceholder(String placeholder, BiFunction<Player, String, String> action) {
+    	if (placeholderWrapper != null) {
+    		placeholderWrapper.registerPlaceholder( placeholder, action );
+    	}
+    }
     
 	@Override
     public void registerPlaceholder(String placeholder, Function<Player, String> action) {
@@ -1,5 +1,6 @@
 package tech.mcprison.prison.spigot.placeholder;
 
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
 import org.bukkit.Bukkit;
@@ -23,5 +24,16 @@ public class MVdWPlaceholderIntegrationWrapper
     			Bukkit.getPluginManager().getPlugin("Prison"), placeholder, 
     					e -> action.apply(new SpigotPlayer(e.getPlayer())));
     }
+    
+    /**
+     * <p>The action is provided with the requested placeholder, which is needed
+     * when the placeholder is registered as a wildcard.
+     * </p>
+     */
+    public void registerPlaceholder(String placeholder, BiFunction<Player, String, String> action) {
+    	PlaceholderAPI.registerPlaceholder(
+    			Bukkit.getPluginManager().getPlugin("Prison"), placeholder, 
+    					e -> action.apply(new SpigotPlayer(e.getPlayer()), e.getPlaceholder()));
+    }
 
 }
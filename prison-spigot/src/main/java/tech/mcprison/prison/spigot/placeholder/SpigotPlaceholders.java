@@ -11,6 +11,7 @@ import tech.mcprison.prison.Prison;
 import tech.mcprison.prison.integration.IntegrationManager.PlaceHolderFlags;
 import tech.mcprison.prison.integration.IntegrationManager.PrisonPlaceHolders;
 import tech.mcprison.prison.integration.PlaceHolderKey;
+import tech.mcprison.prison.integration.PlaceholderTemplate;
 import tech.mcprison.prison.integration.Placeholders;
 import tech.mcprison.prison.mines.PrisonMines;
 import tech.mcprison.prison.mines.managers.MineManager;
@@ -87,6 +88,12 @@ public class SpigotPlaceholders
     	return placeholdersRawCount;
     }
     
+    /**
+     * <p>The placeholders that have a mine or ladder name are registered once as a
+     * wildcard, so this counts the registration keys and not the expanded 
+     * placeholders.
+     * </p>
+     */
     @Override
     public int getPlaceholderRegistrationCount() {
     	int placeholdersRegistered = 0;
@@ -94,13 +101,7 @@ public class SpigotPlaceholders
     	if ( PrisonRanks.getInstance() != null && PrisonRanks.getInstance().isEnabled() ) {
     		PlayerManager pm = PrisonRanks.getInstance().getPlayerManager();
     		if ( pm != null ) {
-    			List<PlaceHolderKey> placeholderPlayerKeys = pm.getTranslatedPlaceHolderKeys();
-    			
-    			for ( PlaceHolderKey placeHolderKey : placeholderPlayerKeys ) {
-    				if ( !placeHolderKey.getPlaceholder().isSuppressed() ) {
-    					placeholdersRegistered++;
-    				}
-    			}
+    			placeholdersRegistered += pm.getPlaceHolderKeyParser().getRegistrations().size();
     		}
     	}
     	
@@ -108,13 +109,7 @@ public class SpigotPlaceholders
     	if ( PrisonMines.getInstance() != null && PrisonMines.getInstance().isEnabled() ) {
     		MineManager mm = PrisonMines.getInstance().getMineManager();
     		if ( mm != null ) {
-    			List<PlaceHolderKey> placeholderMinesKeys = mm.getTranslatedPlaceHolderKeys();
-    			
-    			for ( PlaceHolderKey placeHolderKey : placeholderMinesKeys ) {
-    				if ( !placeHolderKey.getPlaceholder().isSuppressed() ) {
-    					placeholdersRegistered++;
-    				}
-    			}
+    			placeholdersRegistered += mm.getPlaceHolderKeyParser().getRegistrations().size();
     		}
     		
     	}
@@ -177,15 +172,8 @@ public class SpigotPlaceholders
 		if ( PrisonMines.getInstance() != null && PrisonMines.getInstance().isEnabled() ) {
 			MineManager mm = PrisonMines.getInstance().getMineManager();
 			
-			List<PlaceHolderKey> placeholderKeys = mm.getTranslatedPlaceHolderKeys();
-			
-			for ( PlaceHolderKey placeHolderKey : placeholderKeys ) {
-				String key = "{" + placeHolderKey.getKey() + "}";
-				if ( results.contains( key )) {
-					results = results.replace(key, 
-							mm.getTranslateMinesPlaceHolder( placeHolderKey ) );
-				}
-			}
+			results = PlaceholderTemplate.translate( results, 
+							identifier -> mm.getTranslateMinesPlaceHolder( identifier ) );
 		}
 		
 		return results;
@@ -194,7 +182,8 @@ public class SpigotPlaceholders
     /**
      * <p>Since a player UUID is provided, first translate for any possible 
      * player specific placeholder, then try to translate for any mine
-     * related placeholder.
+     * related placeholder.  The text is compiled in to a PlaceholderTemplate 
+     * so both are translated in a single pass.
      * </p>
      * 
      * <p>This function is used with the command: /prison placeholders test
@@ -206,28 +195,24 @@ public class SpigotPlaceholders
      */
     @Override
     public String placeholderTranslateText( UUID playerUuid, String playerName, String text) {
-    	String results = text;
     	
-    	// First the player specific placeholder, which must have a UUID:
-    	if ( PrisonRanks.getInstance() != null && PrisonRanks.getInstance().isEnabled() && 
-    			playerUuid != null ) {
-    		PlayerManager pm = PrisonRanks.getInstance().getPlayerManager();
-    		
-    		List<PlaceHolderKey> placeholderKeys = pm.getTranslatedPlaceHolderKeys();
+    	PlayerManager pm = PrisonRanks.getInstance() != null && PrisonRanks.getInstance().isEnabled() && 
+    			playerUuid != null ? PrisonRanks.getInstance().getPlayerManager() : null;
+    	
+    	MineManager mm = PrisonMines.getInstance() != null && PrisonMines.getInstance().isEnabled() ? 
+    			PrisonMines.getInstance().getMineManager() : null;
+    	
+    	return PlaceholderTemplate.translate( text, identifier -> {
+    		// First the player specific placeholder, which must have a UUID:
+    		String value = pm == null ? null : 
+    						pm.getTranslatePlayerPlaceHolder( playerUuid, playerName, identifier );
     		
-    		for ( PlaceHolderKey placeHolderKey : placeholderKeys ) {
-    			String key = "{" + placeHolderKey.getKey() + "}";
-    			if ( results.contains( key )) {
-    				results = results.replace(key, 
-    						pm.getTranslatePlayerPlaceHolder( playerUuid, playerName, placeHolderKey.getKey() ) );
-    			}
+    		// Then the non-player (mine) related placeholders:
+    		if ( value == null && mm != null ) {
+    			value = mm.getTranslateMinesPlaceHolder( identifier );
     		}
-    	}
-
-    	// Then translate any remaining non-player (mine) related placeholders:
-    	results = placeholderTranslateText( results);
-    	
-    	return results;
+    		return value;
+    	});
     }
 
 	@Override
@@ -332,6 +317,8 @@ public class SpigotPlaceholders
 		
 		
 		Prison.get().getIntegrationManager().reloadPlaceholderBarConfig();
+		
+		PlaceholderTemplate.clearCache();
     	
     	if ( PrisonRanks.getInstance() != null && PrisonRanks.getInstance().isEnabled() ) {
     		PlayerManager pm = PrisonRanks.getInstance().getPlayerManager();
@@ -395,6 +395,7 @@ public class SellAllCommands implements CommandExecutor {
 
             // Add balance
             economy.addBalance(sPlayer, moneyToGive);
+            PrisonAPI.getIntegrationManager().getBalanceCache().invalidate(sPlayer.getUUID());
             if (moneyToGive<0.001){
                 sender.sendMessage(SpigotPrison.format("&3[PRISON]&c You have nothing to sell!"));
             } else {